@@ -2,14 +2,26 @@ package com.gutendx;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class GutendxConsoleApplication {
 
     public static void main(String[] args) {
-        // Configurar para que no inicie servidor web
-        System.setProperty("spring.main.web-application-type", "none");
+        // Sin servidor web salvo que un perfil lo pida (assets)
+        SpringApplication application = new SpringApplication(GutendxConsoleApplication.class);
+        application.setDefaultProperties(Map.of("spring.main.web-application-type", "none"));
+        ConfigurableApplicationContext context = application.run(args);
 
-        SpringApplication.run(GutendxConsoleApplication.class, args);
+        // Al salir del menú cerrar el contexto: los pools de hilos inactivos no deben retener la JVM.
+        // Con servidor web la JVM sigue hasta que se la detenga
+        if (!(context instanceof WebServerApplicationContext)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
-}
\ No newline at end of file
+}
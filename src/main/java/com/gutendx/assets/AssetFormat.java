@@ -0,0 +1,46 @@
+package com.gutendx.assets;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Los formatos que se pueden pedir por nombre corto en la URL, con el tipo MIME que Gutendx
+ * usa como clave en "formats".
+ */
+public enum AssetFormat {
+    EPUB("application/epub+zip"),
+    KINDLE("application/x-mobipocket-ebook"),
+    TEXT("text/plain"),
+    HTML("text/html"),
+    COVER("image/jpeg"),
+    RDF("application/rdf+xml");
+
+    private final String mimeType;
+
+    AssetFormat(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String getMimeType() { return mimeType; }
+
+    public static Optional<AssetFormat> of(String name) {
+        for (AssetFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * De los pares (tipo MIME, URL) del libro, el de este formato. El tipo puede traer
+     * parámetros ("text/plain; charset=us-ascii"); si hay varios se prefiere UTF-8.
+     */
+    public Optional<Object[]> pick(List<Object[]> formats) {
+        return formats.stream()
+                .filter(format -> ((String) format[0]).toLowerCase(Locale.ROOT).startsWith(mimeType))
+                .min(Comparator.comparing(format -> !((String) format[0]).toLowerCase(Locale.ROOT).contains("utf-8")));
+    }
+}
@@ -0,0 +1,341 @@
+package com.gutendx.assets;
+
+import com.gutendx.entity.Asset;
+import com.gutendx.exception.ApiException;
+import com.gutendx.repository.AssetRepository;
+import com.gutendx.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacén local de los archivos de los libros. Cada archivo se baja de Gutenberg la primera vez
+ * que se pide y se guarda por el SHA-256 de su contenido (dir/ab/abcd...), así una URL repetida
+ * o dos URL con el mismo contenido ocupan un solo archivo. Cuando el total pasa de max-bytes se
+ * borran los menos usados. El orden de uso vive en memoria; al arrancar se reconstruye con la
+ * fecha de modificación, que se actualiza a lo sumo una vez por hora por archivo.
+ * <p>
+ * Los archivos no se leen acá: AssetController los sirve directo del disco.
+ */
+@Component
+public class AssetStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetStore.class);
+
+    private static final long TOUCH_INTERVAL_MS = 3_600_000;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${gutendx.assets.dir:./data/assets}")
+    private String dir;
+
+    @Value("${gutendx.assets.max-bytes:2147483648}")
+    private long maxBytes;
+
+    @Value("${gutendx.assets.max-file-bytes:104857600}")
+    private long maxFileBytes;
+
+    @Value("${gutendx.assets.timeout-ms:30000}")
+    private int timeoutMs;
+
+    private Path root;
+    private Path tmp;
+    private RestTemplate restTemplate;
+
+    // SHA-256 -> archivo, en orden de acceso: el primero es el menos usado
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    // Sin ir a la BD en las lecturas repetidas
+    private final Map<String, StoredAsset> byUrl = new ConcurrentHashMap<>();
+
+    // Una sola descarga por URL aunque la pidan varios a la vez
+    private final Map<String, CompletableFuture<StoredAsset>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong fetchedBytes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static final class Entry {
+        final long size;
+        long touched;
+
+        Entry(long size, long touched) {
+            this.size = size;
+            this.touched = touched;
+        }
+    }
+
+    public record StoredAsset(String sha256, Path file, long size, String contentType) {}
+
+    public record Stats(int files, long bytes, long maxBytes, long hits, long fetches, long fetchedBytes, long evictions) {
+
+        @Override
+        public String toString() {
+            return String.format("%d archivos, %d de %d MB; %d aciertos, %d descargas (%d MB), %d desalojados",
+                    files, bytes / (1024 * 1024), maxBytes / (1024 * 1024), hits, fetches,
+                    fetchedBytes / (1024 * 1024), evictions);
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        root = Paths.get(dir).toAbsolutePath();
+        tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        // Descargas que quedaron a medias
+        try (Stream<Path> partial = Files.list(tmp)) {
+            for (Path file : partial.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        restTemplate = new RestTemplate(requestFactory);
+
+        // Reconstruir el orden de uso, del más viejo al más reciente
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 2)) {
+            files = walk.filter(path -> !path.startsWith(tmp) && Files.isRegularFile(path)
+                            && path.getFileName().toString().length() == 64)
+                    .collect(Collectors.toList());
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(modified::get));
+        for (Path file : files) {
+            admit(file.getFileName().toString(), Files.size(file), modified.get(file));
+        }
+        logger.info("Almacén de archivos en {}: {}", root, stats());
+    }
+
+    /**
+     * El archivo del formato pedido del libro, descargándolo si hace falta; vacío si el libro
+     * no está en la BD o no publica ese formato.
+     */
+    public Optional<StoredAsset> open(long gutendxBookId, AssetFormat format) throws ApiException {
+        // Sin recordarlo: una sincronización puede cambiar las URL del libro
+        Optional<Object[]> source = format.pick(bookRepository.findFormats(gutendxBookId));
+        if (source.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(get((String) source.get()[1], (String) source.get()[0]));
+    }
+
+    /**
+     * El archivo de la URL; si no está en el almacén lo descarga, con contentType como tipo si
+     * el origen no manda uno.
+     */
+    public StoredAsset get(String url, String contentType) throws ApiException {
+        StoredAsset cached = byUrl.get(url);
+        if (cached != null && touch(cached.sha256())) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        Optional<Asset> known = assetRepository.findById(url);
+        if (known.isPresent() && touch(known.get().getSha256())) {
+            StoredAsset asset = new StoredAsset(known.get().getSha256(), path(known.get().getSha256()),
+                    known.get().getSizeBytes(), known.get().getContentType());
+            byUrl.put(url, asset);
+            hits.incrementAndGet();
+            return asset;
+        }
+
+        CompletableFuture<StoredAsset> mine = new CompletableFuture<>();
+        CompletableFuture<StoredAsset> running = inFlight.putIfAbsent(url, mine);
+        if (running != null) {
+            try {
+                return running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Interrumpido esperando la descarga de " + url, e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof ApiException apiException ? apiException
+                        : new ApiException("Error al descargar " + url + ": " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        try {
+            StoredAsset asset = fetch(url, contentType);
+            mine.complete(asset);
+            return asset;
+        } catch (ApiException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(url, mine);
+        }
+    }
+
+    public Stats stats() {
+        synchronized (lru) {
+            return new Stats(lru.size(), totalBytes, maxBytes, hits.get(), fetches.get(), fetchedBytes.get(),
+                    evictions.get());
+        }
+    }
+
+    private StoredAsset fetch(String url, String defaultContentType) throws ApiException {
+        long started = System.nanoTime();
+        Path partial;
+        try {
+            partial = Files.createTempFile(tmp, "fetch", ".part");
+        } catch (IOException e) {
+            throw new ApiException("No se pudo crear un archivo en " + tmp + ": " + e.getMessage(), e);
+        }
+        MessageDigest digest = sha256();
+        String[] contentType = {defaultContentType};
+        try {
+            long size = restTemplate.execute(URI.create(url), HttpMethod.GET, null, response -> {
+                MediaType type = response.getHeaders().getContentType();
+                if (type != null) {
+                    contentType[0] = type.toString();
+                }
+                if (response.getHeaders().getContentLength() > maxFileBytes) {
+                    throw new IOException("Archivo de " + response.getHeaders().getContentLength()
+                            + " bytes, más que max-file-bytes");
+                }
+                // La única copia por el heap: la de la descarga
+                try (InputStream in = new DigestInputStream(response.getBody(), digest);
+                     OutputStream out = Files.newOutputStream(partial)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    long copied = 0;
+                    for (int n; (n = in.read(buffer)) >= 0; ) {
+                        copied += n;
+                        if (copied > maxFileBytes) {
+                            throw new IOException("Archivo de más de " + maxFileBytes + " bytes");
+                        }
+                        out.write(buffer, 0, n);
+                    }
+                    return copied;
+                }
+            });
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path file = path(sha256);
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file)) {
+                // Mismo contenido que otra URL
+                Files.delete(partial);
+            } else {
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            assetRepository.save(new Asset(url, sha256, size, contentType[0]));
+            admit(sha256, size, System.currentTimeMillis());
+
+            fetches.incrementAndGet();
+            fetchedBytes.addAndGet(size);
+            logger.info("Archivo descargado: {} ({} bytes, {} ms)", url, size, (System.nanoTime() - started) / 1_000_000);
+            StoredAsset asset = new StoredAsset(sha256, file, size, contentType[0]);
+            byUrl.put(url, asset);
+            return asset;
+        } catch (RestClientException | IOException e) {
+            throw new ApiException("Error al descargar " + url + ": " + e.getMessage(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                logger.warn("No se pudo borrar {}: {}", partial, e.getMessage());
+            }
+        }
+    }
+
+    // Marca el archivo como recién usado; false si ya no está en el almacén
+    private boolean touch(String sha256) {
+        long now = System.currentTimeMillis();
+        synchronized (lru) {
+            Entry entry = lru.get(sha256);
+            if (entry == null) {
+                return false;
+            }
+            if (now - entry.touched < TOUCH_INTERVAL_MS) {
+                return true;
+            }
+            entry.touched = now;
+        }
+        try {
+            Files.setLastModifiedTime(path(sha256), FileTime.fromMillis(now));
+        } catch (IOException e) {
+            logger.debug("No se pudo actualizar la fecha de {}: {}", sha256, e.getMessage());
+        }
+        return true;
+    }
+
+    private void admit(String sha256, long size, long touched) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (lru) {
+            if (lru.putIfAbsent(sha256, new Entry(size, touched)) == null) {
+                totalBytes += size;
+            }
+            // Nunca el que se acaba de agregar, aunque solo ya pase del límite
+            Iterator<Map.Entry<String, Entry>> eldest = lru.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> entry = eldest.next();
+                if (entry.getKey().equals(sha256)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= entry.getValue().size;
+                evicted.add(entry.getKey());
+            }
+        }
+        for (String sha : evicted) {
+            byUrl.values().removeIf(asset -> asset.sha256().equals(sha));
+            // Una respuesta en curso con el archivo abierto termina igual; Tomcat abre el de
+            // sendfile después de que el controlador vuelve, así que esa sí puede fallar
+            try {
+                Files.deleteIfExists(path(sha));
+                evictions.incrementAndGet();
+            } catch (IOException e) {
+                logger.warn("No se pudo desalojar {}: {}", sha, e.getMessage());
+            }
+        }
+        if (!evicted.isEmpty()) {
+            logger.debug("Desalojados {} archivos del almacén", evicted.size());
+        }
+    }
+
+    private Path path(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.gutendx.assets;
+
+/**
+ * Un rango de bytes [start, end] de un archivo, a partir de la cabecera Range (RFC 9110).
+ * Sólo se atiende un rango: con varios, o con una cabecera mal formada, se responde el
+ * archivo entero, que la norma permite.
+ */
+public record ByteRange(long start, long end, boolean partial) {
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public static ByteRange full(long size) {
+        return new ByteRange(0, size - 1, false);
+    }
+
+    /**
+     * El rango pedido, o null si no se puede satisfacer (416).
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return full(size);
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full(size);
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Los últimos N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1, true);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                return full(size);
+            }
+            if (start >= size) {
+                return null;
+            }
+            return new ByteRange(start, end, true);
+        } catch (NumberFormatException e) {
+            return full(size);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.gutendx.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Perfil "concurrent": pool primario para escrituras y pool de réplica para las transacciones
+ * readOnly, ambos acotados por semáforo. LazyConnectionDataSourceProxy posterga la conexión
+ * hasta la primera sentencia, cuando ya se sabe si la transacción es de solo lectura.
+ */
+@Configuration
+@Profile("concurrent")
+public class ConcurrencyDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        return pool;
+    }
+
+    @Bean
+    @ConfigurationProperties("gutendx.datasource.replica.hikari")
+    public HikariDataSource replicaPool(DataSourceProperties properties,
+                                       @Value("${gutendx.datasource.replica.url:}") String replicaUrl) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (!replicaUrl.isBlank()) {
+            pool.setJdbcUrl(replicaUrl);
+        }
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryPool") HikariDataSource primaryPool,
+                                 @Qualifier("replicaPool") HikariDataSource replicaPool) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(limited(primaryPool));
+        routing.setReadOnlyDataSource(limited(replicaPool));
+        return routing;
+    }
+
+    private static DataSource limited(HikariDataSource pool) {
+        return new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+    }
+}
@@ -0,0 +1,115 @@
+package com.gutendx.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Perfil "fast": el menú aparece antes de levantar JPA y Flyway, que se inicializan con la
+ * primera consulta.
+ */
+@Configuration
+@Profile("fast")
+public class FastStartupConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(FastStartupConfiguration.class);
+
+    // V4__Normalize_author_names.sql / V4__Normalize_author_names.class / V1_1__...
+    private static final Pattern VERSIONED = Pattern.compile("^V(\\d+(?:[._]\\d+)*)__[^$]+\\.(sql|class)$");
+
+    /**
+     * lazy-initialization no alcanza: Spring Boot deja afuera a los SmartInitializingSingleton
+     * (el EntityManagerFactory lo es) y a los inicializadores de BD. Marcarlos lazy a mano;
+     * el EntityManagerFactory ya depende de Flyway, así que migrar sigue yendo primero.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyPersistenceBootstrap() {
+        return beanFactory -> {
+            for (String name : new String[] {"entityManagerFactory", "flywayInitializer"}) {
+                if (beanFactory.containsBeanDefinition(name)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Flyway valida los checksums de todas las migraciones en cada arranque. Si la última
+     * versión aplicada en la BD coincide con la última del classpath, no hay nada que migrar
+     * y se omite todo el proceso con una sola consulta.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gutendx.startup.skip-unchanged-migrations", havingValue = "true")
+    public FlywayMigrationStrategy skipUnchangedMigrations() {
+        return flyway -> {
+            MigrationVersion available = latestAvailableVersion(flyway);
+            MigrationVersion applied = appliedVersion(flyway);
+            if (available != null && available.equals(applied)) {
+                logger.info("Esquema en la versión {}: se omiten validación y migraciones", applied);
+                return;
+            }
+            logger.info("Esquema en la versión {}, disponible {}: migrando", applied, available);
+            flyway.migrate();
+        };
+    }
+
+    private static MigrationVersion latestAvailableVersion(Flyway flyway) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        MigrationVersion latest = null;
+        try {
+            for (Location location : flyway.getConfiguration().getLocations()) {
+                if (!location.isClassPath()) {
+                    return null;
+                }
+                for (Resource resource : resolver.getResources("classpath*:" + location.getRootPath() + "/V*")) {
+                    Matcher matcher = VERSIONED.matcher(String.valueOf(resource.getFilename()));
+                    if (matcher.matches()) {
+                        MigrationVersion version = MigrationVersion.fromVersion(matcher.group(1).replace('_', '.'));
+                        if (latest == null || version.isNewerThan(latest.getVersion())) {
+                            latest = version;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Sin listado (p. ej. imagen nativa): migrar como siempre
+            logger.debug("No se pudieron listar las migraciones: {}", e.getMessage());
+            return null;
+        }
+        return latest;
+    }
+
+    private static MigrationVersion appliedVersion(Flyway flyway) {
+        String table = flyway.getConfiguration().getTable();
+        String sql = "SELECT version FROM " + table
+                + " WHERE success = true AND version IS NOT NULL ORDER BY installed_rank DESC";
+        try (Connection connection = flyway.getConfiguration().getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setMaxRows(1);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                return rs.next() ? MigrationVersion.fromVersion(rs.getString(1)) : null;
+            }
+        } catch (SQLException e) {
+            // Sin tabla de historial: BD nueva
+            return null;
+        }
+    }
+}
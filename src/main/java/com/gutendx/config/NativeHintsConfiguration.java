@@ -0,0 +1,30 @@
+package com.gutendx.config;
+
+import com.gutendx.dto.GutendxApiResponse;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Pistas para la imagen nativa (-Pnative): la migración Java de Flyway se instancia por
+ * reflexión y los DTO de Gutendx se (de)serializan con Jackson.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfiguration.GutendxRuntimeHints.class)
+@RegisterReflectionForBinding(GutendxApiResponse.class)
+public class NativeHintsConfiguration {
+
+    static class GutendxRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(TypeReference.of("db.migration.V4__Normalize_author_names"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.resources().registerPattern("db/migration/*.sql");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.gutendx.config;
+
+import com.gutendx.outbox.JsonLinesSink;
+import com.gutendx.outbox.WebhookSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Destinos del outbox: cada uno se crea sólo si su propiedad está definida. Otros destinos
+ * se agregan declarando más beans de tipo ChangeEventSink.
+ */
+@Configuration
+public class OutboxConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "gutendx.outbox.file")
+    public JsonLinesSink outboxFileSink(@Value("${gutendx.outbox.file}") String file) {
+        return new JsonLinesSink("file", Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gutendx.outbox.webhook-url")
+    public WebhookSink outboxWebhookSink(@Value("${gutendx.outbox.webhook-url}") String url,
+                                         @Value("${gutendx.outbox.webhook-timeout-ms:10000}") int timeoutMs) {
+        return new WebhookSink("webhook", URI.create(url), timeoutMs);
+    }
+}
@@ -0,0 +1,52 @@
+package com.gutendx.config;
+
+import com.gutendx.profiling.HibernateSessionEvents;
+import com.gutendx.profiling.RepositoryCallInterceptor;
+import com.gutendx.profiling.TransactionEvents;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Eventos JFR propios (paquete profiling) en los repositorios, en las sesiones de Hibernate y en
+ * las transacciones. Quedan instalados siempre: sin una grabación que los pida cada punto cuesta
+ * un isEnabled(). gutendx.profiling.enabled=false los saca del todo.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "gutendx.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingConfiguration {
+
+    @Bean
+    public static BeanPostProcessor repositoryCallEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Antes de afterPropertiesSet, que es cuando la fábrica arma el proxy del repositorio
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, information) -> proxy.addAdvice(new RepositoryCallInterceptor(
+                                    information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSessionEvents() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, HibernateSessionEvents.class.getName());
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new HibernateSessionEvents.Inspector());
+        };
+    }
+
+    // Spring Boot registra los TransactionExecutionListener en el transaction manager de JPA
+    @Bean
+    public TransactionEvents transactionEvents() {
+        return new TransactionEvents();
+    }
+}
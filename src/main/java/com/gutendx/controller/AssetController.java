@@ -0,0 +1,135 @@
+package com.gutendx.controller;
+
+import com.gutendx.assets.AssetFormat;
+import com.gutendx.assets.AssetStore;
+import com.gutendx.assets.ByteRange;
+import com.gutendx.exception.ApiException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * GET /books/{id}/assets/{formato}: el archivo del libro desde el almacén local, con rangos
+ * (Range, If-Range) y validación por ETag (el SHA-256 del contenido). Sólo con el perfil assets,
+ * que levanta el servidor web.
+ * <p>
+ * Con Tomcat (conector NIO, sin TLS) el cuerpo no pasa por el heap: se le pasa el archivo y el
+ * rango por los atributos de sendfile, cualquiera sea el tamaño, y el conector lo envía con
+ * FileChannel.transferTo. Sólo cuando el contenedor no ofrece sendfile (otro servidor, TLS) o
+ * está apagado con gutendx.assets.sendfile=false se copia acá hacia el stream de la respuesta,
+ * que sí pasa por los buffers del heap del contenedor.
+ */
+@RestController
+public class AssetController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetController.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AssetStore assetStore;
+
+    @Value("${gutendx.assets.sendfile:true}")
+    private boolean sendfile;
+
+    @GetMapping("/books/{gutendxBookId}/assets/{format}")
+    public void serve(@PathVariable long gutendxBookId, @PathVariable String format,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<AssetFormat> assetFormat = AssetFormat.of(format);
+        if (assetFormat.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Formato desconocido: " + format);
+            return;
+        }
+        Optional<AssetStore.StoredAsset> found;
+        try {
+            found = assetStore.open(gutendxBookId, assetFormat.get());
+        } catch (ApiException e) {
+            logger.warn("Libro {} en {}: {}", gutendxBookId, format, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, e.getMessage());
+            return;
+        }
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Libro o formato no disponible");
+            return;
+        }
+        AssetStore.StoredAsset asset = found.get();
+
+        String etag = "\"" + asset.sha256() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // If-Range con otro ETag: el archivo cambió desde que el cliente guardó su parte
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        String rangeHeader = ifRange == null || ifRange.equals(etag) ? request.getHeader(HttpHeaders.RANGE) : null;
+        ByteRange range = ByteRange.parse(rangeHeader, asset.size());
+        if (range == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + asset.size());
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range.partial()) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + range.end() + "/" + asset.size());
+        }
+        response.setContentType(asset.contentType());
+        response.setContentLengthLong(range.length());
+        if ("HEAD".equals(request.getMethod()) || range.length() == 0) {
+            return;
+        }
+
+        // Tomcat pone sendfile.support sólo si el conector puede usarlo (no con TLS)
+        if (sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, asset.file().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        // Sin sendfile: transferTo hacia un stream termina copiando por un buffer en el heap
+        try (FileChannel channel = FileChannel.open(asset.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
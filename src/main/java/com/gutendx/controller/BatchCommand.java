@@ -0,0 +1,156 @@
+package com.gutendx.controller;
+
+import com.gutendx.export.ExportRequest;
+import com.gutendx.service.FacetQuery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Una línea del modo batch. Mismas acciones que el menú, con el número de opción o su nombre:
+ *
+ *   search [lang=es,en] Don Quijote    (1)
+ *   books                              (2)
+ *   authors                            (3)
+ *   alive 1600                         (4)
+ *   language es,en                     (5)
+ *   export ./out format=parquet partitions=4 compression=gzip   (6)
+ *   facets lang=es; subject=Science fiction; alive=1900          (7)
+ *   profile start | profile stop [./perfil.jfr]                  (8)
+ *   trending 7                         (9)
+ *   history 84 30                      (10: id de Gutenberg y días hacia atrás, 30 si se omite)
+ *   snapshot                           (11)
+ *   index [84 1342]                    (12: sin ids, todos los que faltan en el índice de texto)
+ *   find [lang=fr] "l'homme" misère    (13: búsqueda dentro del texto de los libros)
+ *   stats                              (14)
+ */
+public record BatchCommand(long seq, Action action, String argument, List<String> languages) {
+
+    public enum Action {
+        SEARCH("search", "1"),
+        BOOKS("books", "2"),
+        AUTHORS("authors", "3"),
+        ALIVE("alive", "4"),
+        LANGUAGE("language", "5"),
+        EXPORT("export", "6"),
+        FACETS("facets", "7"),
+        PROFILE("profile", "8"),
+        TRENDING("trending", "9"),
+        HISTORY("history", "10"),
+        SNAPSHOT("snapshot", "11"),
+        INDEX("index", "12"),
+        FIND("find", "13"),
+        STATS("stats", "14");
+
+        private final String name;
+        private final String option;
+
+        Action(String name, String option) {
+            this.name = name;
+            this.option = option;
+        }
+
+        public String getName() { return name; }
+
+        static Action of(String token) {
+            for (Action action : values()) {
+                if (action.name.equalsIgnoreCase(token) || action.option.equals(token)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Comando desconocido: " + token);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si la línea no es un comando válido
+     */
+    public static BatchCommand parse(long seq, String line) {
+        String[] parts = line.trim().split("\\s+", 2);
+        Action action = Action.of(parts[0]);
+        String argument = parts.length > 1 ? parts[1].trim() : "";
+        List<String> languages = List.of();
+
+        switch (action) {
+            case SEARCH:
+            case FIND:
+                if (argument.startsWith("lang=")) {
+                    String[] options = argument.split("\\s+", 2);
+                    languages = codes(options[0].substring("lang=".length()));
+                    argument = options.length > 1 ? options[1].trim() : "";
+                }
+                if (argument.isEmpty()) {
+                    throw new IllegalArgumentException(action == Action.FIND
+                            ? "La búsqueda no puede estar vacía" : "El título no puede estar vacío");
+                }
+                break;
+            case INDEX:
+                if (!argument.matches("[\\d\\s,]*")) {
+                    throw new IllegalArgumentException("Uso: index [ids de Gutenberg]");
+                }
+                break;
+            case ALIVE:
+                try {
+                    Integer.parseInt(argument);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Año inválido: " + argument);
+                }
+                break;
+            case LANGUAGE:
+                languages = codes(argument);
+                if (languages.isEmpty()) {
+                    throw new IllegalArgumentException("Falta el código de idioma");
+                }
+                break;
+            case EXPORT:
+                ExportRequest.parse(argument);
+                break;
+            case FACETS:
+                FacetQuery.parse(argument);
+                break;
+            case TRENDING:
+                if (!argument.matches("\\d*")) {
+                    throw new IllegalArgumentException("Ventana inválida: " + argument);
+                }
+                break;
+            case HISTORY:
+                if (!argument.matches("\\d+(\\s+\\d+)?")) {
+                    throw new IllegalArgumentException("Uso: history <id de Gutenberg> [días]");
+                }
+                break;
+            case PROFILE:
+                if (!argument.equals("start") && !argument.matches("stop(\\s+.*)?")) {
+                    throw new IllegalArgumentException("Uso: profile start | profile stop [archivo.jfr]");
+                }
+                break;
+            default:
+                break;
+        }
+        return new BatchCommand(seq, action, argument, languages);
+    }
+
+    public boolean isSearch() {
+        return action == Action.SEARCH;
+    }
+
+    public List<Long> gutendxBookIds() {
+        return Arrays.stream(argument.split("[,\\s]+"))
+                .filter(id -> !id.isEmpty())
+                .map(Long::parseLong)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    public int year() {
+        return Integer.parseInt(argument);
+    }
+
+    private static List<String> codes(String value) {
+        return Arrays.stream(value.toLowerCase(Locale.ROOT).split("[,\\s]+"))
+                .filter(code -> !code.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,370 @@
+package com.gutendx.controller;
+
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.exception.ApiException;
+import com.gutendx.export.CatalogExporter;
+import com.gutendx.export.ExportReport;
+import com.gutendx.export.ExportRequest;
+import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.fulltext.FullTextIndex;
+import com.gutendx.fulltext.FullTextIndexer;
+import com.gutendx.fulltext.IndexReport;
+import com.gutendx.profiling.FlightRecorderProfiler;
+import com.gutendx.profiling.ProfileReport;
+import com.gutendx.service.BookService;
+import com.gutendx.service.CatalogFacets;
+import com.gutendx.service.CatalogStatistics;
+import com.gutendx.service.DownloadHistoryService;
+import com.gutendx.service.FacetQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Ejecuta comandos batch en orden de entrada. Las búsquedas consecutivas se encadenan en
+ * paralelo (hasta pipeline-depth en vuelo); un listado primero espera a las búsquedas
+ * pendientes, así ve lo que ellas guardaron, y después escribe sus filas a medida que las recorre.
+ */
+@Component
+public class BatchCommandExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCommandExecutor.class);
+
+    // Libros por consulta en los listados por idioma: se escriben a medida, sin juntar el listado entero
+    private static final int LANGUAGE_PAGE_SIZE = 500;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CatalogExporter catalogExporter;
+
+    @Autowired
+    private CatalogFacets catalogFacets;
+
+    @Autowired
+    private CatalogStatistics catalogStatistics;
+
+    @Autowired
+    private DownloadHistoryService downloadHistoryService;
+
+    @Autowired
+    private FlightRecorderProfiler profiler;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private FullTextIndexer fullTextIndexer;
+
+    @Value("${gutendx.batch.threads:8}")
+    private int threads;
+
+    @Value("${gutendx.batch.pipeline-depth:64}")
+    private int pipelineDepth;
+
+    @Value("${gutendx.batch.facets-limit:20}")
+    private int facetsLimit;
+
+    @Value("${gutendx.batch.trending-limit:20}")
+    private int trendingLimit;
+
+    @Value("${gutendx.batch.find-limit:20}")
+    private int findLimit;
+
+    public record Summary(long commands, long failed, long elapsedNanos) {
+
+        public double commandsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : commands * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    private record SearchResult(String status, Book book, String message) {}
+
+    private record Pending(BatchCommand command, Future<SearchResult> result) {}
+
+    public Summary execute(BufferedReader commands, BatchOutput output) throws IOException {
+        long started = System.nanoTime();
+        long seq = 0;
+        long failed = 0;
+        Deque<Pending> inFlight = new ArrayDeque<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "gutendx-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            String line;
+            while ((line = commands.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                seq++;
+
+                BatchCommand command;
+                try {
+                    command = BatchCommand.parse(seq, line);
+                } catch (IllegalArgumentException e) {
+                    failed += drain(inFlight, output);
+                    output.status(seq, line.split("\\s+", 2)[0], BatchOutput.ERROR, e.getMessage());
+                    failed++;
+                    continue;
+                }
+
+                if (command.isSearch()) {
+                    if (inFlight.size() >= Math.max(1, pipelineDepth)) {
+                        failed += write(inFlight.poll(), output);
+                    }
+                    inFlight.add(new Pending(command, executor.submit(() -> search(command))));
+                } else {
+                    failed += drain(inFlight, output);
+                    failed += list(command, output);
+                }
+            }
+            failed += drain(inFlight, output);
+        } finally {
+            executor.shutdownNow();
+            output.flush();
+        }
+        return new Summary(seq, failed, System.nanoTime() - started);
+    }
+
+    private SearchResult search(BatchCommand command) {
+        try {
+            return found(command);
+        } catch (DataIntegrityViolationException e) {
+            // Otra búsqueda del mismo lote insertó el libro o el autor en paralelo: ya existe
+            logger.debug("Reintentando '{}' tras un alta concurrente", command.argument());
+            try {
+                return found(command);
+            } catch (Exception retry) {
+                return new SearchResult(BatchOutput.ERROR, null, retry.getMessage());
+            }
+        } catch (BookNotFoundException e) {
+            return new SearchResult(BatchOutput.NOT_FOUND, null, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error en el comando batch {}", command.seq(), e);
+            return new SearchResult(BatchOutput.ERROR, null, e.getMessage());
+        }
+    }
+
+    private SearchResult found(BatchCommand command) throws ApiException, BookNotFoundException {
+        Book book = bookService.searchAndSaveBook(command.argument(), command.languages());
+        // Sin id: modo write-behind, se guarda en segundo plano
+        return new SearchResult(book.getId() == null ? BatchOutput.QUEUED : BatchOutput.OK, book, null);
+    }
+
+    private long drain(Deque<Pending> inFlight, BatchOutput output) throws IOException {
+        long failed = 0;
+        while (!inFlight.isEmpty()) {
+            failed += write(inFlight.poll(), output);
+        }
+        return failed;
+    }
+
+    private long write(Pending pending, BatchOutput output) throws IOException {
+        BatchCommand command = pending.command();
+        SearchResult result;
+        try {
+            result = pending.result().get();
+        } catch (ExecutionException e) {
+            result = new SearchResult(BatchOutput.ERROR, null, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ejecución batch interrumpida", e);
+        }
+
+        String name = command.action().getName();
+        if (result.book() != null) {
+            output.book(command.seq(), name, result.status(), result.book());
+        } else {
+            output.status(command.seq(), name, result.status(), result.message());
+        }
+        return BatchOutput.ERROR.equals(result.status()) ? 1 : 0;
+    }
+
+    private long list(BatchCommand command, BatchOutput output) throws IOException {
+        long seq = command.seq();
+        String name = command.action().getName();
+        try {
+            switch (command.action()) {
+                case BOOKS:
+                    writeBooks(seq, name, bookService.getAllBooksOrderedByCreatedAt(), output);
+                    break;
+                case LANGUAGE:
+                    if (!command.languages().stream().allMatch(bookService::isLanguageSupported)) {
+                        output.status(seq, name, BatchOutput.ERROR, "Idioma no soportado: " + command.argument());
+                        return 1;
+                    }
+                    List<Book> page = bookService.getBooksByLanguages(command.languages(), null, LANGUAGE_PAGE_SIZE);
+                    emptyIfNone(seq, name, page, output);
+                    while (!page.isEmpty()) {
+                        for (Book book : page) {
+                            output.book(seq, name, BatchOutput.OK, book);
+                        }
+                        page = page.size() < LANGUAGE_PAGE_SIZE ? List.of() : bookService.getBooksByLanguages(
+                                command.languages(), page.get(page.size() - 1).getId(), LANGUAGE_PAGE_SIZE);
+                    }
+                    break;
+                case AUTHORS:
+                    List<Author> authors = bookService.getAllAuthors();
+                    for (Author author : authors) {
+                        // Los libros ya vienen con el autor: el top 3 sale de memoria, sin una consulta por autor
+                        output.author(seq, name, author, author.getBooks().stream()
+                                .sorted(Comparator.comparing(Book::getDownloadCount,
+                                        Comparator.nullsLast(Comparator.reverseOrder())))
+                                .limit(3)
+                                .map(Book::getTitle)
+                                .collect(Collectors.toList()));
+                    }
+                    emptyIfNone(seq, name, authors, output);
+                    break;
+                case ALIVE:
+                    List<Author> alive = bookService.getAuthorsAliveInYear(command.year());
+                    for (Author author : alive) {
+                        output.author(seq, name, author, bookService.getTop3BooksByAuthor(author.getId()).stream()
+                                .map(Book::getTitle)
+                                .collect(Collectors.toList()));
+                    }
+                    emptyIfNone(seq, name, alive, output);
+                    break;
+                case EXPORT:
+                    ExportReport report;
+                    try {
+                        report = catalogExporter.export(ExportRequest.parse(command.argument()));
+                    } catch (IOException e) {
+                        // Un error del destino no corta el lote; uno de la salida propia sí
+                        output.status(seq, name, BatchOutput.ERROR, "No se pudo exportar: " + e.getMessage());
+                        return 1;
+                    }
+                    output.status(seq, name, BatchOutput.OK, report.toString());
+                    break;
+                case FACETS:
+                    // Primero los libros que cumplen el filtro y al final el reparto por facetas
+                    FacetQuery query = FacetQuery.parse(command.argument());
+                    CatalogFacets.Summary summary = catalogFacets.browse(query, 5);
+                    for (Book book : bookService.getBooksByFacets(query, facetsLimit)) {
+                        output.book(seq, name, BatchOutput.OK, book);
+                    }
+                    output.status(seq, name, BatchOutput.OK, summary.toString());
+                    break;
+                case TRENDING:
+                    int window = command.argument().isEmpty() ? 7 : Integer.parseInt(command.argument());
+                    List<DownloadHistoryService.Mover> movers = downloadHistoryService.topMovers(window, trendingLimit);
+                    for (DownloadHistoryService.Mover mover : movers) {
+                        output.status(seq, name, BatchOutput.OK, mover.toString());
+                    }
+                    emptyIfNone(seq, name, movers, output);
+                    break;
+                case HISTORY:
+                    String[] history = command.argument().split("\\s+");
+                    LocalDate from = LocalDate.now().minusDays(history.length > 1 ? Integer.parseInt(history[1]) : 30);
+                    List<DownloadHistoryService.Sample> samples;
+                    try {
+                        samples = downloadHistoryService.history(Long.parseLong(history[0]), from);
+                    } catch (BookNotFoundException e) {
+                        output.status(seq, name, BatchOutput.NOT_FOUND, e.getMessage());
+                        break;
+                    }
+                    for (DownloadHistoryService.Sample sample : samples) {
+                        output.status(seq, name, BatchOutput.OK, sample.day() + " " + sample.downloads());
+                    }
+                    emptyIfNone(seq, name, samples, output);
+                    break;
+                case SNAPSHOT:
+                    output.status(seq, name, BatchOutput.OK, downloadHistoryService.snapshot(LocalDate.now()).toString());
+                    break;
+                case INDEX:
+                    IndexReport indexed;
+                    try {
+                        indexed = fullTextIndexer.index(command.gutendxBookIds());
+                    } catch (IOException e) {
+                        output.status(seq, name, BatchOutput.ERROR, "No se pudo indexar: " + e.getMessage());
+                        return 1;
+                    }
+                    output.status(seq, name, BatchOutput.OK, indexed.toString());
+                    break;
+                case FIND:
+                    // Los libros en orden de relevancia y al final el estado del índice (con el p99)
+                    List<FullTextIndex.Hit> hits = fullTextIndex.search(command.argument(),
+                            command.languages().isEmpty() ? null : command.languages().get(0), findLimit);
+                    List<Book> found = bookService.getBooksByGutendxIds(hits.stream()
+                            .map(FullTextIndex.Hit::gutendxBookId)
+                            .collect(Collectors.toList()));
+                    for (Book book : found) {
+                        output.book(seq, name, BatchOutput.OK, book);
+                    }
+                    output.status(seq, name, found.isEmpty() ? BatchOutput.EMPTY : BatchOutput.OK,
+                            fullTextIndex.stats().toString());
+                    break;
+                case STATS:
+                    for (String line : catalogStatistics.report().lines()) {
+                        output.status(seq, name, BatchOutput.OK, line);
+                    }
+                    break;
+                case PROFILE:
+                    if (command.argument().equals("start")) {
+                        profiler.start();
+                        output.status(seq, name, BatchOutput.OK, "Grabación iniciada");
+                        break;
+                    }
+                    String file = command.argument().substring("stop".length()).trim();
+                    ProfileReport profile;
+                    try {
+                        profile = profiler.stop(file.isEmpty() ? null : Paths.get(file));
+                    } catch (IOException e) {
+                        output.status(seq, name, BatchOutput.ERROR, "No se pudo guardar la grabación: " + e.getMessage());
+                        return 1;
+                    }
+                    // Una línea por camino caliente, en el orden del resumen
+                    for (String line : profile.lines()) {
+                        output.status(seq, name, BatchOutput.OK, line.trim());
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("No es un listado: " + command.action());
+            }
+            return 0;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error en el comando batch {}", seq, e);
+            output.status(seq, name, BatchOutput.ERROR, e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void writeBooks(long seq, String name, List<Book> books, BatchOutput output) throws IOException {
+        for (Book book : books) {
+            output.book(seq, name, BatchOutput.OK, book);
+        }
+        emptyIfNone(seq, name, books, output);
+    }
+
+    // Un listado vacío deja igual un registro, para que cada comando tenga al menos una línea de salida
+    private static void emptyIfNone(long seq, String name, List<?> rows, BatchOutput output) throws IOException {
+        if (rows.isEmpty()) {
+            output.status(seq, name, BatchOutput.EMPTY, null);
+        }
+    }
+}
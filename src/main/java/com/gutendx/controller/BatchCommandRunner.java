@@ -0,0 +1,92 @@
+package com.gutendx.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Modo no interactivo: --spring.profiles.active=batch (o gutendx.console.mode=batch).
+ * Los comandos salen de los argumentos que no empiezan con "--" o, si no hay, de
+ * gutendx.batch.input ("-" es la entrada estándar). Ver {@link BatchCommand} para la sintaxis.
+ *
+ *   java -jar app.jar --spring.profiles.active=batch "search Don Quijote" books
+ *   java -jar app.jar --spring.profiles.active=batch --gutendx.batch.input=cmds.txt --gutendx.batch.format=csv
+ */
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "gutendx.console.mode", havingValue = "batch")
+public class BatchCommandRunner implements CommandLineRunner, ExitCodeGenerator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private BatchCommandExecutor executor;
+
+    @Value("${gutendx.batch.input:-}")
+    private String input;
+
+    @Value("${gutendx.batch.output:-}")
+    private String output;
+
+    @Value("${gutendx.batch.format:jsonl}")
+    private String format;
+
+    private int exitCode;
+
+    @Override
+    public void run(String... args) throws IOException {
+        String inline = Arrays.stream(args)
+                .filter(arg -> !arg.startsWith("--"))
+                .collect(Collectors.joining("\n"));
+
+        try (BufferedReader commands = inline.isEmpty() ? open(input) : new BufferedReader(new StringReader(inline));
+             BatchOutput out = BatchOutput.create(format, create(output))) {
+            BatchCommandExecutor.Summary summary = executor.execute(commands, out);
+
+            // Resumen por stderr: stdout queda solo para los registros
+            System.err.printf("%d comandos en %d ms (%.0f comandos/s), %d con error%n", summary.commands(),
+                    summary.elapsedNanos() / 1_000_000, summary.commandsPerSecond(), summary.failed());
+            exitCode = summary.failed() > 0 ? 1 : 0;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static BufferedReader open(String path) throws IOException {
+        if ("-".equals(path)) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+        return Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+    }
+
+    private static Writer create(String path) throws IOException {
+        // Directo al descriptor, sin el PrintStream de System.out (que vacía en cada println)
+        OutputStream stream = "-".equals(path)
+                ? new FileOutputStream(FileDescriptor.out)
+                : Files.newOutputStream(Paths.get(path));
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,197 @@
+package com.gutendx.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.entity.Language;
+import com.gutendx.util.Csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Salida del modo batch: un registro por línea, escrito directo sobre un Writer con buffer.
+ * Cada registro lleva el número de comando (seq) para poder cruzarlo con la entrada.
+ */
+public abstract class BatchOutput implements Closeable {
+
+    public static final String OK = "ok";
+    public static final String QUEUED = "queued";
+    public static final String NOT_FOUND = "not_found";
+    public static final String EMPTY = "empty";
+    public static final String ERROR = "error";
+
+    protected final Writer writer;
+
+    protected BatchOutput(Writer writer) {
+        this.writer = writer;
+    }
+
+    public static BatchOutput create(String format, Writer writer) throws IOException {
+        switch (format.toLowerCase()) {
+            case "jsonl":
+                return new JsonLinesOutput(writer);
+            case "csv":
+                return new CsvOutput(writer);
+            default:
+                throw new IllegalArgumentException("Formato de salida desconocido: " + format + " (jsonl, csv)");
+        }
+    }
+
+    public abstract void book(long seq, String command, String status, Book book) throws IOException;
+
+    public abstract void author(long seq, String command, Author author, List<String> topBooks) throws IOException;
+
+    public abstract void status(long seq, String command, String status, String message) throws IOException;
+
+    public abstract void flush() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        writer.close();
+    }
+
+    protected static String authors(Book book) {
+        return book.getAuthors().stream()
+                .map(Author::getFormattedName)
+                .collect(Collectors.joining("; "));
+    }
+
+    protected static List<String> languages(Book book) {
+        if (book.getLanguages().isEmpty()) {
+            return List.of(book.getLanguageCode());
+        }
+        return book.getLanguages().stream()
+                .map(Language::getCode)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static final class JsonLinesOutput extends BatchOutput {
+
+        private static final JsonFactory FACTORY = new JsonFactory();
+
+        private final JsonGenerator json;
+
+        JsonLinesOutput(Writer writer) throws IOException {
+            super(writer);
+            this.json = FACTORY.createGenerator(writer);
+            // El Writer lo cierra BatchOutput; sin esto cada flush del generador llega hasta el archivo
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // Un registro por línea: sin el espacio que Jackson pone entre valores raíz
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void book(long seq, String command, String status, Book book) throws IOException {
+            start(seq, command, status);
+            json.writeNumberField("gutendx_id", book.getGutendxBookId());
+            json.writeStringField("title", book.getTitle());
+            json.writeArrayFieldStart("authors");
+            for (Author author : book.getAuthors()) {
+                json.writeString(author.getFormattedName());
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("languages");
+            for (String code : languages(book)) {
+                json.writeString(code);
+            }
+            json.writeEndArray();
+            json.writeNumberField("downloads", book.getDownloadCount());
+            end();
+        }
+
+        @Override
+        public void author(long seq, String command, Author author, List<String> topBooks) throws IOException {
+            start(seq, command, OK);
+            json.writeStringField("name", author.getFormattedName());
+            writeYear("birth_year", author.getBirthYear());
+            writeYear("death_year", author.getDeathYear());
+            json.writeArrayFieldStart("books");
+            for (String title : topBooks) {
+                json.writeString(title);
+            }
+            json.writeEndArray();
+            end();
+        }
+
+        @Override
+        public void status(long seq, String command, String status, String message) throws IOException {
+            start(seq, command, status);
+            if (message != null) {
+                json.writeStringField("message", message);
+            }
+            end();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+            writer.flush();
+        }
+
+        private void start(long seq, String command, String status) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("seq", seq);
+            json.writeStringField("command", command);
+            json.writeStringField("status", status);
+        }
+
+        private void end() throws IOException {
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        private void writeYear(String field, Integer year) throws IOException {
+            if (year == null) {
+                json.writeNullField(field);
+            } else {
+                json.writeNumberField(field, year);
+            }
+        }
+    }
+
+    private static final class CsvOutput extends BatchOutput {
+
+        private static final String HEADER =
+                "seq,command,status,gutendx_id,title,name,authors,languages,downloads,birth_year,death_year,books,message";
+
+        CsvOutput(Writer writer) throws IOException {
+            super(writer);
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void book(long seq, String command, String status, Book book) throws IOException {
+            row(seq, command, status, book.getGutendxBookId(), book.getTitle(), null, authors(book),
+                    String.join(";", languages(book)), book.getDownloadCount(), null, null, null, null);
+        }
+
+        @Override
+        public void author(long seq, String command, Author author, List<String> topBooks) throws IOException {
+            row(seq, command, OK, null, null, author.getFormattedName(), null, null, null,
+                    author.getBirthYear(), author.getDeathYear(), String.join("; ", topBooks), null);
+        }
+
+        @Override
+        public void status(long seq, String command, String status, String message) throws IOException {
+            row(seq, command, status, null, null, null, null, null, null, null, null, null, message);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void row(Object... values) throws IOException {
+            Csv.writeRow(writer, values);
+        }
+    }
+}
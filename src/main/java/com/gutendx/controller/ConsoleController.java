@@ -2,26 +2,72 @@ package com.gutendx.controller;
 
 import com.gutendx.entity.Author;
 import com.gutendx.entity.Book;
+import com.gutendx.entity.Language;
 import com.gutendx.exception.ApiException;
 import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.export.CatalogExporter;
+import com.gutendx.export.ExportReport;
+import com.gutendx.export.ExportRequest;
+import com.gutendx.fulltext.FullTextIndex;
+import com.gutendx.fulltext.FullTextIndexer;
+import com.gutendx.profiling.FlightRecorderProfiler;
+import com.gutendx.profiling.ProfileReport;
 import com.gutendx.service.BookService;
+import com.gutendx.service.CatalogFacets;
+import com.gutendx.service.CatalogStatistics;
+import com.gutendx.service.DownloadHistoryService;
+import com.gutendx.service.FacetQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
 @Component
+@Profile("!test") // el menú interactivo bloquearía los tests
+@ConditionalOnProperty(name = "gutendx.console.mode", havingValue = "interactive", matchIfMissing = true)
 public class ConsoleController implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(ConsoleController.class);
 
+    // Libros por pantalla en los listados por idioma
+    private static final int LIST_PAGE_SIZE = 20;
+
+    // Resuelto al primer uso: con el perfil "fast" el menú aparece sin esperar a JPA
+    @Autowired
+    private ObjectProvider<BookService> bookServiceProvider;
+
+    @Autowired
+    private ObjectProvider<CatalogExporter> catalogExporterProvider;
+
+    @Autowired
+    private ObjectProvider<CatalogFacets> catalogFacetsProvider;
+
+    @Autowired
+    private ObjectProvider<CatalogStatistics> catalogStatisticsProvider;
+
+    @Autowired
+    private ObjectProvider<DownloadHistoryService> downloadHistoryProvider;
+
+    @Autowired
+    private ObjectProvider<FullTextIndexer> fullTextIndexerProvider;
+
+    @Autowired
+    private ObjectProvider<FullTextIndex> fullTextIndexProvider;
+
     @Autowired
-    private BookService bookService;
+    private FlightRecorderProfiler profiler;
 
     private final Scanner scanner = new Scanner(System.in);
 
@@ -52,12 +98,39 @@ public class ConsoleController implements CommandLineRunner {
                     case 5:
                         listBooksByLanguage();
                         break;
+                    case 6:
+                        exportCatalog();
+                        break;
+                    case 7:
+                        browseFacets();
+                        break;
+                    case 8:
+                        toggleProfiling();
+                        break;
+                    case 9:
+                        listTopMovers();
+                        break;
+                    case 10:
+                        showDownloadHistory();
+                        break;
+                    case 11:
+                        takeDownloadSnapshot();
+                        break;
+                    case 12:
+                        indexBookTexts();
+                        break;
+                    case 13:
+                        searchBookTexts();
+                        break;
+                    case 14:
+                        showCatalogStatistics();
+                        break;
                     case 0:
                         running = false;
                         System.out.println("¡Hasta luego!");
                         break;
                     default:
-                        System.out.println("Opción no válida. Por favor, seleccione una opción del 0 al 5.");
+                        System.out.println("Opción no válida. Por favor, seleccione una opción del 0 al 14.");
                 }
 
             } catch (NumberFormatException e) {
@@ -77,6 +150,10 @@ public class ConsoleController implements CommandLineRunner {
         // scanner.close();
     }
 
+    private BookService bookService() {
+        return bookServiceProvider.getObject();
+    }
+
     private void showMenu() {
         System.out.println("\n=== GUTENDX CONSOLE APP ===");
         System.out.println("1) Buscar libro por título (y registrar en DB)");
@@ -84,6 +161,17 @@ public class ConsoleController implements CommandLineRunner {
         System.out.println("3) Listar autores registrados");
         System.out.println("4) Listar autores vivos en un año");
         System.out.println("5) Listar libros por idioma");
+        System.out.println("6) Exportar catálogo (CSV, JSONL o Parquet)");
+        System.out.println("7) Explorar por temas, estanterías e idioma");
+        System.out.println(profiler.isRecording()
+                ? "8) Detener la grabación de rendimiento y ver el resumen"
+                : "8) Iniciar una grabación de rendimiento (JFR)");
+        System.out.println("9) Libros con más descargas nuevas en N días");
+        System.out.println("10) Historial de descargas de un libro");
+        System.out.println("11) Tomar ahora la muestra diaria de descargas");
+        System.out.println("12) Indexar el texto de los libros registrados");
+        System.out.println("13) Buscar dentro del texto de los libros");
+        System.out.println("14) Estadísticas del catálogo");
         System.out.println("0) Salir");
         System.out.print("Ingrese opción: ");
     }
@@ -97,18 +185,25 @@ public class ConsoleController implements CommandLineRunner {
             return;
         }
 
+        System.out.print("Filtrar por idiomas (ej: es,en; Enter para cualquiera): ");
+        List<String> languageCodes = Arrays.stream(scanner.nextLine().trim().toLowerCase().split("[,\\s]+"))
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toList());
+
         try {
             System.out.println("Buscando libro...");
-            Book book = bookService.searchAndSaveBook(title);
+            Book book = bookService().searchAndSaveBook(title, languageCodes);
 
             // Verificar si ya existía
-            boolean alreadyExisted = bookService.getAllBooksOrderedByCreatedAt()
+            boolean alreadyExisted = book.getId() != null && bookService().getAllBooksOrderedByCreatedAt()
                     .stream()
                     .anyMatch(b -> b.getGutendxBookId().equals(book.getGutendxBookId())
                             && !b.getId().equals(book.getId()));
 
             if (alreadyExisted) {
                 System.out.println("El libro ya existe en la base de datos. Mostrando registro:");
+            } else if (book.getId() == null) {
+                System.out.println("Libro encontrado (se registrará en segundo plano):");
             } else {
                 System.out.println("Libro encontrado y registrado:");
             }
@@ -122,9 +217,17 @@ public class ConsoleController implements CommandLineRunner {
                 System.out.println("Autor: " + firstAuthor.getFormattedName());
             }
 
-            System.out.println("Idioma del libro: " + bookService.getLanguageName(book.getLanguageCode()));
+            System.out.println("Idioma del libro: " + bookService().getLanguageName(book.getLanguageCode()));
             System.out.println("Número de descargas: " + book.getDownloadCount());
 
+            if (book.getId() != null) {
+                List<Book> related = bookService().getRelatedBooks(book.getId());
+                if (!related.isEmpty()) {
+                    System.out.println("Relacionados:");
+                    related.stream().limit(5).forEach(r -> System.out.println("  - " + r.getTitle()));
+                }
+            }
+
         } catch (BookNotFoundException e) {
             System.out.println("No se encontraron libros para la búsqueda: " + title);
         } catch (ApiException e) {
@@ -140,7 +243,7 @@ public class ConsoleController implements CommandLineRunner {
     private void listRegisteredBooks() {
         System.out.println("\n=== LIBROS REGISTRADOS ===");
 
-        List<Book> books = bookService.getAllBooksOrderedByCreatedAt();
+        List<Book> books = bookService().getAllBooksOrderedByCreatedAt();
 
         if (books.isEmpty()) {
             System.out.println("No hay libros registrados.");
@@ -153,7 +256,7 @@ public class ConsoleController implements CommandLineRunner {
                     .collect(Collectors.joining("; "));
 
             System.out.println("[" + book.getTitle() + "] — Autor(es): " + authorsNames +
-                    "; Idioma: " + bookService.getLanguageName(book.getLanguageCode()) +
+                    "; Idioma: " + formatLanguages(book) +
                     "; Descargas: " + book.getDownloadCount());
         }
     }
@@ -161,7 +264,7 @@ public class ConsoleController implements CommandLineRunner {
     private void listRegisteredAuthors() {
         System.out.println("\n=== AUTORES REGISTRADOS ===");
 
-        List<Author> authors = bookService.getAllAuthors();
+        List<Author> authors = bookService().getAllAuthors();
 
         if (authors.isEmpty()) {
             System.out.println("No hay autores registrados.");
@@ -174,7 +277,7 @@ public class ConsoleController implements CommandLineRunner {
             System.out.println("Fecha de fallecimiento: " + author.getDeathStatus());
 
             // Mostrar hasta 3 libros más famosos
-            List<Book> topBooks = bookService.getTop3BooksByAuthor(author.getId());
+            List<Book> topBooks = bookService().getTop3BooksByAuthor(author.getId());
             if (!topBooks.isEmpty()) {
                 String bookTitles = topBooks.stream()
                         .map(Book::getTitle)
@@ -195,7 +298,7 @@ public class ConsoleController implements CommandLineRunner {
 
             System.out.println("\n=== AUTORES VIVOS EN " + year + " ===");
 
-            List<Author> aliveAuthors = bookService.getAuthorsAliveInYear(year);
+            List<Author> aliveAuthors = bookService().getAuthorsAliveInYear(year);
 
             if (aliveAuthors.isEmpty()) {
                 System.out.println("No se encontraron autores vivos en el año " + year + ".");
@@ -208,7 +311,7 @@ public class ConsoleController implements CommandLineRunner {
                 System.out.println("Fecha de fallecimiento: " + author.getDeathStatus());
 
                 // Mostrar hasta 3 libros más famosos
-                List<Book> topBooks = bookService.getTop3BooksByAuthor(author.getId());
+                List<Book> topBooks = bookService().getTop3BooksByAuthor(author.getId());
                 if (!topBooks.isEmpty()) {
                     String bookTitles = topBooks.stream()
                             .map(Book::getTitle)
@@ -226,33 +329,261 @@ public class ConsoleController implements CommandLineRunner {
     }
 
     private void listBooksByLanguage() {
-        System.out.println("\nSeleccione idioma: (es - Español, en - Ingles, fr - Frances, pt - Portugues)");
-        System.out.print("Ingrese código de idioma: ");
+        System.out.println("\nSeleccione idioma(s): códigos ISO separados por coma (es - Español, en - Ingles, fr - Frances, pt - Portugues, de - Alemán...)");
+        System.out.print("Ingrese código(s) de idioma: ");
 
-        String languageCode = scanner.nextLine().trim().toLowerCase();
+        List<String> languageCodes = Arrays.stream(scanner.nextLine().trim().toLowerCase().split("[,\\s]+"))
+                .filter(code -> !code.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
 
-        if (!bookService.isLanguageSupported(languageCode)) {
-            System.out.println("Idioma no soportado. Opciones válidas: es, en, fr, pt");
+        BookService bookService = bookService();
+        if (languageCodes.isEmpty() || !languageCodes.stream().allMatch(bookService::isLanguageSupported)) {
+            System.out.println("Idioma no soportado. Use códigos ISO 639-1, por ejemplo: es, en, fr, pt");
             return;
         }
 
-        System.out.println("\n=== LIBROS EN " + bookService.getLanguageName(languageCode).toUpperCase() + " ===");
+        String languageNames = languageCodes.stream()
+                .map(bookService::getLanguageName)
+                .collect(Collectors.joining(", "));
 
-        List<Book> books = bookService.getBooksByLanguage(languageCode);
+        System.out.println("\n=== LIBROS EN " + languageNames.toUpperCase() + " ===");
+
+        // Por páginas: con un idioma grande el listado completo es casi todo el catálogo
+        List<Book> books = bookService.getBooksByLanguages(languageCodes, null, LIST_PAGE_SIZE);
 
         if (books.isEmpty()) {
-            System.out.println("No hay libros registrados en " + bookService.getLanguageName(languageCode) + ".");
+            System.out.println("No hay libros registrados en " + languageNames + ".");
             return;
         }
 
-        for (Book book : books) {
-            String authorsNames = book.getAuthors().stream()
-                    .map(Author::getFormattedName)
-                    .collect(Collectors.joining("; "));
+        while (true) {
+            for (Book book : books) {
+                String authorsNames = book.getAuthors().stream()
+                        .map(Author::getFormattedName)
+                        .collect(Collectors.joining("; "));
 
-            System.out.println("[" + book.getTitle() + "] — Autor(es): " + authorsNames +
-                    "; Idioma: " + bookService.getLanguageName(book.getLanguageCode()) +
-                    "; Descargas: " + book.getDownloadCount());
+                System.out.println("[" + book.getTitle() + "] — Autor(es): " + authorsNames +
+                        "; Idioma: " + formatLanguages(book) +
+                        "; Descargas: " + book.getDownloadCount());
+            }
+            if (books.size() < LIST_PAGE_SIZE) {
+                return;
+            }
+            System.out.print("Enter para ver más, q para volver: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            books = bookService.getBooksByLanguages(languageCodes, books.get(books.size() - 1).getId(), LIST_PAGE_SIZE);
+            if (books.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void exportCatalog() {
+        System.out.print("\nDirectorio de destino: ");
+        String directory = scanner.nextLine().trim();
+        System.out.print("Formato (csv, jsonl, parquet) [csv]: ");
+        String format = scanner.nextLine().trim();
+        System.out.print("Particiones en paralelo [1]: ");
+        String partitions = scanner.nextLine().trim();
+        System.out.print("Compresión (none, gzip) [none]: ");
+        String compression = scanner.nextLine().trim();
+
+        try {
+            ExportRequest request = ExportRequest.parse(directory
+                    + (format.isEmpty() ? "" : " format=" + format)
+                    + (partitions.isEmpty() ? "" : " partitions=" + partitions)
+                    + (compression.isEmpty() ? "" : " compression=" + compression));
+
+            System.out.println("Exportando...");
+            ExportReport report = catalogExporterProvider.getObject().export(request);
+            System.out.println("Exportación terminada: " + report);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error al exportar", e);
+            System.out.println("No se pudo exportar: " + e.getMessage());
+        }
+    }
+
+    private void browseFacets() {
+        System.out.print("\nIdiomas (ej: es,en) [todos]: ");
+        String languages = scanner.nextLine().trim();
+        System.out.print("Tema (ej: Science fiction) [todos]: ");
+        String subject = scanner.nextLine().trim();
+        System.out.print("Estantería (ej: Movie Books) [todas]: ");
+        String bookshelf = scanner.nextLine().trim();
+        System.out.print("Con algún autor vivo en el año [cualquiera]: ");
+        String year = scanner.nextLine().trim();
+
+        CatalogFacets catalogFacets = catalogFacetsProvider.getObject();
+        if (!catalogFacets.isEnabled()) {
+            System.out.println("La navegación por facetas está deshabilitada.");
+            return;
+        }
+
+        try {
+            FacetQuery query = FacetQuery.parse((languages.isEmpty() ? "" : "lang=" + languages + ";")
+                    + (subject.isEmpty() ? "" : "subject=" + subject + ";")
+                    + (bookshelf.isEmpty() ? "" : "shelf=" + bookshelf + ";")
+                    + (year.isEmpty() ? "" : "alive=" + year));
+
+            CatalogFacets.Summary summary = catalogFacets.browse(query, 10);
+            System.out.println("\n=== " + summary.books() + " LIBROS ===");
+            printEntries("Idiomas", summary.languages());
+            printEntries("Temas", summary.subjects());
+            printEntries("Estanterías", summary.bookshelves());
+
+            List<Book> books = bookService().getBooksByFacets(query, 10);
+            if (!books.isEmpty()) {
+                System.out.println("\nPrimeros libros:");
+                for (Book book : books) {
+                    System.out.println("- " + book.getTitle() + " (" + book.getDownloadCount() + " descargas)");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void toggleProfiling() {
+        if (!profiler.isRecording()) {
+            profiler.start();
+            System.out.println("Grabando. Use el menú con normalidad y elija 8 otra vez para ver el resumen.");
+            return;
+        }
+
+        System.out.print("\nArchivo .jfr [en gutendx.profiling.dir]: ");
+        String file = scanner.nextLine().trim();
+        try {
+            ProfileReport report = profiler.stop(file.isEmpty() ? null : Paths.get(file));
+            System.out.println();
+            report.lines().forEach(System.out::println);
+        } catch (IOException e) {
+            logger.error("Error al guardar la grabación", e);
+            System.out.println("No se pudo guardar la grabación: " + e.getMessage());
+        }
+    }
+
+    private void listTopMovers() {
+        System.out.print("\nVentana en días (" + DownloadHistoryService.WINDOWS.stream().map(String::valueOf)
+                .collect(Collectors.joining(", ")) + ") [7]: ");
+        String days = scanner.nextLine().trim();
+
+        try {
+            int window = days.isEmpty() ? 7 : Integer.parseInt(days);
+            List<DownloadHistoryService.Mover> movers = downloadHistoryProvider.getObject().topMovers(window, 10);
+            if (movers.isEmpty()) {
+                System.out.println("Todavía no hay historial que cubra " + window + " días.");
+                return;
+            }
+            System.out.println("\n=== EN ALZA EN " + window + " DÍAS ===");
+            movers.forEach(mover -> System.out.println(mover));
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, ingrese un número de días válido.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void showDownloadHistory() {
+        System.out.print("\nId del libro en Gutenberg: ");
+        String id = scanner.nextLine().trim();
+        System.out.print("Días hacia atrás [30]: ");
+        String days = scanner.nextLine().trim();
+
+        try {
+            LocalDate from = LocalDate.now().minusDays(days.isEmpty() ? 30 : Integer.parseInt(days));
+            List<DownloadHistoryService.Sample> samples = downloadHistoryProvider.getObject()
+                    .history(Long.parseLong(id), from);
+            if (samples.isEmpty()) {
+                System.out.println("No hay muestras desde el " + from + ".");
+                return;
+            }
+            for (DownloadHistoryService.Sample sample : samples) {
+                System.out.println(sample.day() + ": " + sample.downloads() + " descargas");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, ingrese un número válido.");
+        } catch (BookNotFoundException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void takeDownloadSnapshot() {
+        System.out.println("Tomando la muestra...");
+        System.out.println("Listo: " + downloadHistoryProvider.getObject().snapshot(LocalDate.now()));
+    }
+
+    private void indexBookTexts() {
+        System.out.print("\nIds de Gutenberg separados por coma [todos los que faltan]: ");
+        String ids = scanner.nextLine().trim();
+
+        try {
+            List<Long> gutendxBookIds = Arrays.stream(ids.split("[,\\s]+"))
+                    .filter(id -> !id.isEmpty())
+                    .map(Long::parseLong)
+                    .collect(Collectors.toList());
+            System.out.println("Indexando...");
+            System.out.println("Listo: " + fullTextIndexerProvider.getObject().index(gutendxBookIds));
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, ingrese ids válidos.");
+        } catch (IOException e) {
+            logger.error("Error al indexar", e);
+            System.out.println("No se pudo indexar: " + e.getMessage());
+        }
+    }
+
+    private void searchBookTexts() {
+        System.out.print("\nPalabras o \"frase exacta\": ");
+        String query = scanner.nextLine().trim();
+        System.out.print("Idioma de la búsqueda [en]: ");
+        String language = scanner.nextLine().trim();
+
+        try {
+            FullTextIndex index = fullTextIndexProvider.getObject();
+            List<FullTextIndex.Hit> hits = index.search(query, language.isEmpty() ? "en" : language, 10);
+            List<Book> books = bookService().getBooksByGutendxIds(hits.stream()
+                    .map(FullTextIndex.Hit::gutendxBookId)
+                    .collect(Collectors.toList()));
+            if (books.isEmpty()) {
+                System.out.println("Ningún libro indexado contiene: " + query);
+            }
+            for (Book book : books) {
+                System.out.println("- " + book.getTitle() + " (Gutenberg " + book.getGutendxBookId() + ")");
+            }
+            System.out.println("\nÍndice: " + index.stats());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void showCatalogStatistics() {
+        System.out.println();
+        for (String line : catalogStatisticsProvider.getObject().report().lines()) {
+            System.out.println(line);
+        }
+    }
+
+    private static void printEntries(String label, List<CatalogFacets.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        System.out.println(label + ":");
+        for (CatalogFacets.Entry entry : entries) {
+            System.out.println("  " + entry.name() + ": " + entry.count());
+        }
+    }
+
+    private String formatLanguages(Book book) {
+        if (book.getLanguages().isEmpty()) {
+            return bookService().getLanguageName(book.getLanguageCode());
         }
+        return book.getLanguages().stream()
+                .map(Language::getName)
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 }
@@ -0,0 +1,63 @@
+package com.gutendx.controller;
+
+import com.gutendx.entity.IngestTask;
+import com.gutendx.service.IngestQueue;
+import com.gutendx.service.IngestWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Ingesta masiva repartida entre instancias: --spring.profiles.active=ingest. Cada instancia
+ * planifica lo que falte (solo una lo hace de verdad), vacía la cola junto con las demás y
+ * sale cuando no queda nada; con 1 si alguna tarea agotó sus intentos.
+ *
+ *   java -jar app.jar --spring.profiles.active=ingest --gutendx.ingest.node-id=a &
+ *   java -jar app.jar --spring.profiles.active=ingest --gutendx.ingest.node-id=b &
+ */
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "gutendx.console.mode", havingValue = "ingest")
+public class IngestRunner implements CommandLineRunner, ExitCodeGenerator {
+
+    @Autowired
+    private IngestWorker ingestWorker;
+
+    @Autowired
+    private IngestQueue ingestQueue;
+
+    @Value("${gutendx.ingest.plan:true}")
+    private boolean plan;
+
+    @Value("${gutendx.ingest.retry-failed:false}")
+    private boolean retryFailed;
+
+    private int exitCode;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (retryFailed) {
+            System.out.println("Tareas fallidas devueltas a la cola: " + ingestQueue.requeueFailed());
+        }
+        if (plan) {
+            System.out.println("Tareas nuevas: " + ingestWorker.plan());
+        }
+
+        IngestWorker.Summary summary = ingestWorker.drain();
+        Map<IngestTask.Status, Long> counts = ingestQueue.countByStatus();
+        System.out.println("Ingesta terminada: " + summary);
+        System.out.println("Cola: " + counts);
+        exitCode = counts.get(IngestTask.Status.FAILED) > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
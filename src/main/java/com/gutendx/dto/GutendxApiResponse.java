@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
+import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 
@@ -36,6 +37,11 @@ public class GutendxApiResponse {
         private String title;
         private List<AuthorDto> authors;
         private List<String> languages;
+        private List<String> subjects;
+        private List<String> bookshelves;
+
+        // mime type -> URL del archivo
+        private Map<String, String> formats;
 
         @JsonProperty("download_count")
         private Integer downloadCount;
@@ -54,6 +60,15 @@ public class GutendxApiResponse {
         public List<String> getLanguages() { return languages; }
         public void setLanguages(List<String> languages) { this.languages = languages; }
 
+        public List<String> getSubjects() { return subjects; }
+        public void setSubjects(List<String> subjects) { this.subjects = subjects; }
+
+        public List<String> getBookshelves() { return bookshelves; }
+        public void setBookshelves(List<String> bookshelves) { this.bookshelves = bookshelves; }
+
+        public Map<String, String> getFormats() { return formats; }
+        public void setFormats(Map<String, String> formats) { this.formats = formats; }
+
         public Integer getDownloadCount() { return downloadCount != null ? downloadCount : 0; }
         public void setDownloadCount(Integer downloadCount) { this.downloadCount = downloadCount; }
     }
@@ -0,0 +1,58 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un archivo de Gutenberg ya descargado: su URL y el SHA-256 con el que se guarda en el almacén local.
+ */
+@Entity
+@Table(name = "asset")
+public class Asset {
+
+    @Id
+    @Column(name = "url", length = 512)
+    private String url;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "content_type", nullable = false, length = 128)
+    private String contentType;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    public Asset() {}
+
+    public Asset(String url, String sha256, long sizeBytes, String contentType) {
+        this.url = url;
+        this.sha256 = sha256;
+        this.sizeBytes = sizeBytes;
+        this.contentType = contentType;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.fetchedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getUrl() { return url; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+}
@@ -1,5 +1,6 @@
 package com.gutendx.entity;
 
+import com.gutendx.util.AuthorNames;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
@@ -17,6 +18,9 @@ public class Author {
     @Column(name = "gutendx_author_name", nullable = false, unique = true)
     private String gutendxAuthorName;
 
+    @Column(name = "name_key", nullable = false, unique = true)
+    private String nameKey;
+
     @Column(name = "last_name")
     private String lastName;
 
@@ -40,6 +44,7 @@ public class Author {
     public Author(String gutendxAuthorName, String lastName, String firstName,
                   Integer birthYear, Integer deathYear) {
         this.gutendxAuthorName = gutendxAuthorName;
+        this.nameKey = AuthorNames.key(gutendxAuthorName);
         this.lastName = lastName;
         this.firstName = firstName;
         this.birthYear = birthYear;
@@ -50,6 +55,9 @@ public class Author {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        if (this.nameKey == null) {
+            this.nameKey = AuthorNames.key(gutendxAuthorName);
+        }
     }
 
     public String getFormattedName() {
@@ -91,6 +99,9 @@ public class Author {
     public String getGutendxAuthorName() { return gutendxAuthorName; }
     public void setGutendxAuthorName(String gutendxAuthorName) { this.gutendxAuthorName = gutendxAuthorName; }
 
+    public String getNameKey() { return nameKey; }
+    public void setNameKey(String nameKey) { this.nameKey = nameKey; }
+
     public String getLastName() { return lastName; }
     public void setLastName(String lastName) { this.lastName = lastName; }
 
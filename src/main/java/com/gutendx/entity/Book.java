@@ -1,19 +1,26 @@
 package com.gutendx.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+// En PostgreSQL book está particionada por hash de id y book_author por hash de author_id (V10):
+// las búsquedas por id leen una sola partición, las de gutendx_book_id un índice por partición
 @Entity
 @Table(name = "book")
 public class Book {
 
+    // BIGINT con secuencia propia como DEFAULT: identity no se admite en tablas particionadas antes de PG 17
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // En PostgreSQL la unicidad la garantiza book_gutendx_key (no puede haber UNIQUE global sin el id)
     @Column(name = "gutendx_book_id", unique = true, nullable = false)
     private Long gutendxBookId;
 
@@ -26,6 +33,9 @@ public class Book {
     @Column(name = "download_count")
     private Integer downloadCount = 0;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -37,6 +47,29 @@ public class Book {
     )
     private Set<Author> authors = new HashSet<>();
 
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "book_language",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "language_id")
+    )
+    private Set<Language> languages = new HashSet<>();
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "book_facet",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "facet_id")
+    )
+    private Set<Facet> facets = new HashSet<>();
+
+    // Tipo MIME -> URL del archivo en Gutenberg; AssetStore los descarga a pedido
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "book_format", joinColumns = @JoinColumn(name = "book_id"))
+    @MapKeyColumn(name = "mime_type", length = 128)
+    @Column(name = "url", nullable = false, length = 512)
+    private Map<String, String> formats = new HashMap<>();
+
     public Book() {}
 
     public Book(Long gutendxBookId, String title, String languageCode, Integer downloadCount) {
@@ -68,15 +101,30 @@ public class Book {
     public Integer getDownloadCount() { return downloadCount; }
     public void setDownloadCount(Integer downloadCount) { this.downloadCount = downloadCount; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public Set<Author> getAuthors() { return authors; }
     public void setAuthors(Set<Author> authors) { this.authors = authors; }
 
+    public Set<Language> getLanguages() { return languages; }
+    public void setLanguages(Set<Language> languages) { this.languages = languages; }
+
+    public Set<Facet> getFacets() { return facets; }
+    public void setFacets(Set<Facet> facets) { this.facets = facets; }
+
+    public Map<String, String> getFormats() { return formats; }
+    public void setFormats(Map<String, String> formats) { this.formats = formats; }
+
     public void addAuthor(Author author) {
         this.authors.add(author);
-        author.getBooks().add(this);
+        // No inicializar la colección lazy del autor solo para mantener el lado inverso
+        if (Hibernate.isInitialized(author.getBooks())) {
+            author.getBooks().add(this);
+        }
     }
 
     public void removeAuthor(Author author) {
@@ -0,0 +1,75 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Muestras de descargas de un libro en un año, codificadas con {@link com.gutendx.util.DownloadSeries}.
+ */
+@Entity
+@Table(name = "download_block", uniqueConstraints = @UniqueConstraint(columnNames = {"book_id", "block_year"}))
+public class DownloadBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "block_year", nullable = false)
+    private Short year;
+
+    @Column(name = "first_day", nullable = false)
+    private Integer firstDay;
+
+    @Column(name = "last_day", nullable = false)
+    private Integer lastDay;
+
+    @Column(name = "last_count", nullable = false)
+    private Integer lastCount;
+
+    @Column(name = "samples", nullable = false)
+    private Integer samples;
+
+    // Un año de muestras diarias ocupa cerca de 1 KB; el máximo sólo importa en H2
+    @Column(name = "data", nullable = false, length = 8192)
+    private byte[] data;
+
+    // Dos instancias que agreguen la misma muestra a la vez: una falla en vez de pisar a la otra
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    public DownloadBlock() {}
+
+    public DownloadBlock(Long bookId, short year, int day, int count, byte[] data) {
+        this.bookId = bookId;
+        this.year = year;
+        this.firstDay = day;
+        this.lastDay = day;
+        this.lastCount = count;
+        this.samples = 1;
+        this.data = data;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public Long getBookId() { return bookId; }
+
+    public Short getYear() { return year; }
+
+    public Integer getFirstDay() { return firstDay; }
+
+    public Integer getLastDay() { return lastDay; }
+    public void setLastDay(Integer lastDay) { this.lastDay = lastDay; }
+
+    public Integer getLastCount() { return lastCount; }
+    public void setLastCount(Integer lastCount) { this.lastCount = lastCount; }
+
+    public Integer getSamples() { return samples; }
+    public void setSamples(Integer samples) { this.samples = samples; }
+
+    public byte[] getData() { return data; }
+    public void setData(byte[] data) { this.data = data; }
+}
@@ -0,0 +1,80 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Variación de descargas de un libro en cada ventana, al día de la última muestra. Se
+ * recalcula al tomar cada muestra, así "los que más subieron" no recorre el historial.
+ */
+@Entity
+@Table(name = "download_trend")
+public class DownloadTrend {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "sample_day", nullable = false)
+    private Integer day;
+
+    @Column(name = "download_count", nullable = false)
+    private Integer downloadCount;
+
+    @Column(name = "delta_1d")
+    private Integer delta1d;
+
+    @Column(name = "delta_7d")
+    private Integer delta7d;
+
+    @Column(name = "delta_30d")
+    private Integer delta30d;
+
+    @Column(name = "delta_90d")
+    private Integer delta90d;
+
+    @Column(name = "delta_365d")
+    private Integer delta365d;
+
+    // Con el id asignado a mano, la versión en null es lo que le indica a save() que es nueva
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    public DownloadTrend() {}
+
+    public DownloadTrend(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    /** Variación en la ventana de días dada (1, 7, 30, 90 o 365). */
+    public Integer getDelta(int days) {
+        return switch (days) {
+            case 1 -> delta1d;
+            case 7 -> delta7d;
+            case 30 -> delta30d;
+            case 90 -> delta90d;
+            case 365 -> delta365d;
+            default -> throw new IllegalArgumentException("Ventana no soportada: " + days + " días");
+        };
+    }
+
+    public void setDelta(int days, Integer delta) {
+        switch (days) {
+            case 1 -> delta1d = delta;
+            case 7 -> delta7d = delta;
+            case 30 -> delta30d = delta;
+            case 90 -> delta90d = delta;
+            case 365 -> delta365d = delta;
+            default -> throw new IllegalArgumentException("Ventana no soportada: " + days + " días");
+        }
+    }
+
+    // Getters and Setters
+    public Long getBookId() { return bookId; }
+
+    public Integer getDay() { return day; }
+    public void setDay(Integer day) { this.day = day; }
+
+    public Integer getDownloadCount() { return downloadCount; }
+    public void setDownloadCount(Integer downloadCount) { this.downloadCount = downloadCount; }
+}
@@ -0,0 +1,53 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Un tema (subject) o una estantería (bookshelf) de Gutendx, guardado una sola vez.
+ */
+@Entity
+@Table(name = "facet", uniqueConstraints = @UniqueConstraint(columnNames = {"kind", "name"}))
+public class Facet {
+
+    public enum Kind { SUBJECT, BOOKSHELF }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(name = "name", nullable = false, length = 1024)
+    private String name;
+
+    public Facet() {}
+
+    public Facet(Kind kind, String name) {
+        this.kind = kind;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Facet other)) return false;
+        return kind == other.kind && name != null && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name != null ? 31 * kind.hashCode() + name.hashCode() : 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "language")
+public class Language {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(name = "code", nullable = false, unique = true, length = 8)
+    private String code;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    public Language() {}
+
+    public Language(String code, String name) {
+        this.code = code;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public Short getId() { return id; }
+    public void setId(Short id) { this.id = id; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Language other)) return false;
+        return code != null && code.equals(other.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return code != null ? code.hashCode() : 0;
+    }
+}
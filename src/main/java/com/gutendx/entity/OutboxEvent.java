@@ -0,0 +1,83 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un cambio de libro o autor pendiente de publicar, con el estado después del cambio en JSON.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    public enum AggregateType { BOOK, AUTHOR }
+
+    public enum Type {
+        BOOK_CREATED(AggregateType.BOOK),
+        BOOK_UPDATED(AggregateType.BOOK),
+        AUTHOR_CREATED(AggregateType.AUTHOR),
+        AUTHOR_UPDATED(AggregateType.AUTHOR);
+
+        private final AggregateType aggregateType;
+
+        Type(AggregateType aggregateType) {
+            this.aggregateType = aggregateType;
+        }
+
+        public AggregateType getAggregateType() { return aggregateType; }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 16)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private Type type;
+
+    // TEXT en la migración; el máximo sólo importa en H2
+    @Column(name = "payload", nullable = false, length = 65535)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(Type type, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateType = type.getAggregateType();
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public AggregateType getAggregateType() { return aggregateType; }
+
+    public Long getAggregateId() { return aggregateId; }
+
+    public Type getType() { return type; }
+
+    public String getPayload() { return payload; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
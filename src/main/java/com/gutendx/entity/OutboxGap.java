@@ -0,0 +1,50 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ids del outbox que un destino saltó por no confirmarse a tiempo y que sigue vigilando hasta
+ * watchUntil, por si la transacción no estaba revertida sino lenta.
+ */
+@Entity
+@Table(name = "outbox_gap")
+public class OutboxGap {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sink", nullable = false, length = 64)
+    private String sink;
+
+    @Column(name = "first_id", nullable = false)
+    private Long firstId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "watch_until", nullable = false)
+    private LocalDateTime watchUntil;
+
+    public OutboxGap() {}
+
+    public OutboxGap(String sink, Long firstId, Long lastId, LocalDateTime watchUntil) {
+        this.sink = sink;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.watchUntil = watchUntil;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getSink() { return sink; }
+
+    public Long getFirstId() { return firstId; }
+
+    public Long getLastId() { return lastId; }
+
+    public LocalDateTime getWatchUntil() { return watchUntil; }
+}
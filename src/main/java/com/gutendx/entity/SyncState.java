@@ -0,0 +1,43 @@
+package com.gutendx.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_state")
+public class SyncState {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "high_water_mark", nullable = false)
+    private Long highWaterMark = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SyncState() {}
+
+    public SyncState(String name) {
+        this.name = name;
+        this.highWaterMark = 0L;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getHighWaterMark() { return highWaterMark; }
+    public void setHighWaterMark(Long highWaterMark) { this.highWaterMark = highWaterMark; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,159 @@
+package com.gutendx.export;
+
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Exporta book, author y book_author leyendo por cursor (solo hacia adelante, fetch size 1000)
+ * y escribiendo cada fila apenas llega. Con partitions &gt; 1 cada tabla se corta en rangos de id
+ * y cada rango va a su propio archivo, en paralelo y en su propia transacción de solo lectura;
+ * book_author se corta por book_id con los mismos rangos que book.
+ */
+@Service
+public class CatalogExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExporter.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Cada partición en curso retiene una conexión: no más que el pool
+    @Value("${gutendx.export.threads:4}")
+    private int threads;
+
+    @Value("${gutendx.export.parquet.row-group-rows:65536}")
+    private int rowGroupRows;
+
+    private record Partition(ExportTable table, int index, long afterId, long lastId) {}
+
+    private record PartitionResult(Partition partition, Path file, long rows, long bytes) {}
+
+    public ExportReport export(ExportRequest request) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(request.directory());
+
+        List<Partition> partitions = new ArrayList<>();
+        long lastBookId = bookRepository.findMaxId();
+        long lastAuthorId = authorRepository.findMaxId();
+        partitions.addAll(split(ExportTable.BOOK, lastBookId, request.partitions()));
+        partitions.addAll(split(ExportTable.AUTHOR, lastAuthorId, request.partitions()));
+        partitions.addAll(split(ExportTable.BOOK_AUTHOR, lastBookId, request.partitions()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, partitions.size())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gutendx-export");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<Future<PartitionResult>> pending = new ArrayList<>();
+            for (Partition partition : partitions) {
+                pending.add(executor.submit(() -> exportPartition(partition, request)));
+            }
+
+            List<Path> files = new ArrayList<>();
+            Map<ExportTable, Long> rows = new EnumMap<>(ExportTable.class);
+            long bytes = 0;
+            for (Future<PartitionResult> future : pending) {
+                PartitionResult result = future.get();
+                files.add(result.file());
+                rows.merge(result.partition().table(), result.rows(), Long::sum);
+                bytes += result.bytes();
+            }
+
+            ExportReport report = new ExportReport(files, rows, bytes, System.nanoTime() - started);
+            logger.info("Exportación {} en {}: {}", request.format(), request.directory(), report);
+            return report;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Falló la exportación: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PartitionResult exportPartition(Partition partition, ExportRequest request) {
+        Path file = request.directory().resolve(
+                request.format().fileName(partition.table(), partition.index(), request.compression()));
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long rows = readOnly.execute(status -> {
+            long written = 0;
+            try (RowWriter writer = request.format().open(partition.table(), Files.newOutputStream(file),
+                         request.compression(), rowGroupRows);
+                 Stream<Object[]> cursor = open(partition)) {
+                for (Object[] row : (Iterable<Object[]>) cursor::iterator) {
+                    writer.write(row);
+                    written++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return written;
+        });
+
+        try {
+            long bytes = Files.size(file);
+            logger.debug("{}: {} filas, {} bytes", file.getFileName(), rows, bytes);
+            return new PartitionResult(partition, file, rows, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Stream<Object[]> open(Partition partition) {
+        switch (partition.table()) {
+            case BOOK:
+                return bookRepository.streamForExport(partition.afterId(), partition.lastId());
+            case AUTHOR:
+                return authorRepository.streamForExport(partition.afterId(), partition.lastId());
+            default:
+                return bookRepository.streamAuthorLinks(partition.afterId(), partition.lastId());
+        }
+    }
+
+    // Rangos (afterId, lastId] de igual ancho sobre [1, maxId]; siempre al menos un archivo por tabla
+    private static List<Partition> split(ExportTable table, long maxId, int count) {
+        List<Partition> partitions = new ArrayList<>(count);
+        long width = Math.max(1, (maxId + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            long afterId = i * width;
+            long lastId = i == count - 1 ? Math.max(maxId, afterId) : Math.min(maxId, afterId + width);
+            partitions.add(new Partition(table, i, afterId, lastId));
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gutendx.export;
+
+import com.gutendx.util.Csv;
+
+import java.io.IOException;
+import java.io.Writer;
+
+class CsvRowWriter implements RowWriter {
+
+    private final Writer writer;
+
+    CsvRowWriter(ExportTable table, Writer writer) throws IOException {
+        this.writer = writer;
+        Csv.writeRow(writer, table.getColumns().stream().map(ExportTable.Column::name).toArray());
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        // LocalDateTime.toString() ya es ISO-8601
+        Csv.writeRow(writer, row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.gutendx.export;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public enum ExportFormat {
+
+    CSV("csv"),
+    JSONL("jsonl"),
+    PARQUET("parquet");
+
+    public enum Compression { NONE, GZIP }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación desconocido: " + value + " (csv, jsonl, parquet)");
+    }
+
+    /**
+     * En Parquet la compresión va por página, dentro del archivo; en texto, el archivo entero es .gz.
+     */
+    public String fileName(ExportTable table, int partition, Compression compression) {
+        String name = String.format("%s-%05d.%s", table.getTableName(), partition, extension);
+        return this != PARQUET && compression == Compression.GZIP ? name + ".gz" : name;
+    }
+
+    public RowWriter open(ExportTable table, OutputStream out, Compression compression, int rowGroupRows)
+            throws IOException {
+        if (this == PARQUET) {
+            return new ParquetRowWriter(table, new BufferedOutputStream(out, BUFFER_SIZE), compression, rowGroupRows);
+        }
+
+        OutputStream stream = compression == Compression.GZIP
+                ? new GZIPOutputStream(out, BUFFER_SIZE)
+                : out;
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return this == CSV ? new CsvRowWriter(table, writer) : new JsonLinesRowWriter(table, writer);
+    }
+}
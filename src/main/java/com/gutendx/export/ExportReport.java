@@ -0,0 +1,19 @@
+package com.gutendx.export;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public record ExportReport(List<Path> files, Map<ExportTable, Long> rows, long bytes, long elapsedNanos) {
+
+    public long rows(ExportTable table) {
+        return rows.getOrDefault(table, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d libros, %d autores, %d relaciones en %d archivos (%d KB) en %d ms",
+                rows(ExportTable.BOOK), rows(ExportTable.AUTHOR), rows(ExportTable.BOOK_AUTHOR),
+                files.size(), bytes / 1024, elapsedNanos / 1_000_000);
+    }
+}
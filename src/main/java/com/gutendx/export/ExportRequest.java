@@ -0,0 +1,55 @@
+package com.gutendx.export;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Qué exportar y cómo. Desde texto: "&lt;directorio&gt; [format=csv|jsonl|parquet]
+ * [partitions=N] [compression=none|gzip]".
+ */
+public record ExportRequest(Path directory, ExportFormat format, ExportFormat.Compression compression,
+                            int partitions) {
+
+    public ExportRequest {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions debe ser al menos 1");
+        }
+    }
+
+    public static ExportRequest parse(String spec) {
+        String[] parts = spec.trim().split("\\s+");
+        if (parts[0].isEmpty() || parts[0].contains("=")) {
+            throw new IllegalArgumentException("Falta el directorio de destino");
+        }
+
+        ExportFormat format = ExportFormat.CSV;
+        ExportFormat.Compression compression = ExportFormat.Compression.NONE;
+        int partitions = 1;
+        for (int i = 1; i < parts.length; i++) {
+            String[] option = parts[i].split("=", 2);
+            String value = option.length > 1 ? option[1] : "";
+            switch (option[0]) {
+                case "format":
+                    format = ExportFormat.of(value);
+                    break;
+                case "compression":
+                    try {
+                        compression = ExportFormat.Compression.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Compresión desconocida: " + value + " (none, gzip)");
+                    }
+                    break;
+                case "partitions":
+                    try {
+                        partitions = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("partitions inválido: " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción de exportación desconocida: " + parts[i]);
+            }
+        }
+        return new ExportRequest(Paths.get(parts[0]), format, compression, partitions);
+    }
+}
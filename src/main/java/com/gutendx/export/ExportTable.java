@@ -0,0 +1,55 @@
+package com.gutendx.export;
+
+import java.util.List;
+
+/**
+ * Tablas exportables y sus columnas, en el mismo orden que las proyecciones de los repositorios.
+ */
+public enum ExportTable {
+
+    BOOK("book", List.of(
+            Column.required("id", ColumnType.LONG),
+            Column.required("gutendx_book_id", ColumnType.LONG),
+            Column.required("title", ColumnType.STRING),
+            Column.required("language_code", ColumnType.STRING),
+            Column.optional("download_count", ColumnType.INT),
+            Column.optional("created_at", ColumnType.TIMESTAMP))),
+
+    AUTHOR("author", List.of(
+            Column.required("id", ColumnType.LONG),
+            Column.required("gutendx_author_name", ColumnType.STRING),
+            Column.optional("last_name", ColumnType.STRING),
+            Column.optional("first_name", ColumnType.STRING),
+            Column.optional("birth_year", ColumnType.INT),
+            Column.optional("death_year", ColumnType.INT),
+            Column.optional("created_at", ColumnType.TIMESTAMP))),
+
+    // Particionada por book_id, igual que BOOK
+    BOOK_AUTHOR("book_author", List.of(
+            Column.required("book_id", ColumnType.LONG),
+            Column.required("author_id", ColumnType.LONG)));
+
+    public enum ColumnType { LONG, INT, STRING, TIMESTAMP }
+
+    public record Column(String name, ColumnType type, boolean nullable) {
+
+        static Column required(String name, ColumnType type) {
+            return new Column(name, type, false);
+        }
+
+        static Column optional(String name, ColumnType type) {
+            return new Column(name, type, true);
+        }
+    }
+
+    private final String tableName;
+    private final List<Column> columns;
+
+    ExportTable(String tableName, List<Column> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public String getTableName() { return tableName; }
+    public List<Column> getColumns() { return columns; }
+}
@@ -0,0 +1,49 @@
+package com.gutendx.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+class JsonLinesRowWriter implements RowWriter {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final List<ExportTable.Column> columns;
+    private final JsonGenerator json;
+
+    JsonLinesRowWriter(ExportTable table, Writer writer) throws IOException {
+        this.columns = table.getColumns();
+        this.json = FACTORY.createGenerator(writer);
+        // Una fila por línea: sin el espacio que Jackson pone entre valores raíz
+        json.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < row.length; i++) {
+            json.writeFieldName(columns.get(i).name());
+            Object value = row[i];
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Long) {
+                json.writeNumber((Long) value);
+            } else if (value instanceof Integer) {
+                json.writeNumber((Integer) value);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Cierra también el Writer (AUTO_CLOSE_TARGET)
+        json.close();
+    }
+}
@@ -0,0 +1,303 @@
+package com.gutendx.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escritor Parquet mínimo: columnas planas, codificación PLAIN, niveles de definición RLE
+ * y una página por columna en cada grupo de filas. En memoria solo vive el grupo en curso
+ * (rowGroupRows filas, o ROW_GROUP_BYTES si llega antes), así que el heap no depende del
+ * tamaño de la tabla.
+ */
+final class ParquetRowWriter implements RowWriter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final int ROW_GROUP_BYTES = 16 * 1024 * 1024;
+
+    // Constantes de parquet.thrift
+    private static final int TYPE_INT32 = 1;
+    private static final int TYPE_INT64 = 2;
+    private static final int TYPE_BYTE_ARRAY = 6;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_UNCOMPRESSED = 0;
+    private static final int CODEC_GZIP = 2;
+    private static final int REPETITION_REQUIRED = 0;
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int PAGE_DATA = 0;
+
+    private final ExportTable table;
+    private final OutputStream out;
+    private final ExportFormat.Compression compression;
+    private final int rowGroupRows;
+    private final ColumnBuffer[] columns;
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+
+    private long position;
+    private int bufferedRows;
+    private long totalRows;
+
+    private record ColumnChunk(long offset, long values, long uncompressedSize, long compressedSize) {}
+
+    private record RowGroup(List<ColumnChunk> columns, long rows, long byteSize) {}
+
+    ParquetRowWriter(ExportTable table, OutputStream out, ExportFormat.Compression compression, int rowGroupRows)
+            throws IOException {
+        this.table = table;
+        this.out = out;
+        this.compression = compression;
+        this.rowGroupRows = Math.max(1, rowGroupRows);
+        this.columns = table.getColumns().stream().map(ColumnBuffer::new).toArray(ColumnBuffer[]::new);
+        write(MAGIC);
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(row[i]);
+            bytes += columns[i].size;
+        }
+        bufferedRows++;
+        totalRows++;
+        if (bufferedRows >= rowGroupRows || bytes >= ROW_GROUP_BYTES) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (bufferedRows > 0) {
+                flushRowGroup();
+            }
+            byte[] footer = fileMetaData();
+            write(footer);
+            write(littleEndian(footer.length));
+            write(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        List<ColumnChunk> chunks = new ArrayList<>(columns.length);
+        long byteSize = 0;
+        for (ColumnBuffer column : columns) {
+            ColumnChunk chunk = writePage(column);
+            chunks.add(chunk);
+            byteSize += chunk.uncompressedSize();
+            column.reset();
+        }
+        rowGroups.add(new RowGroup(chunks, bufferedRows, byteSize));
+        bufferedRows = 0;
+    }
+
+    private ColumnChunk writePage(ColumnBuffer column) throws IOException {
+        // Página v1: [niveles de definición] [valores]; sin niveles de repetición (columnas planas)
+        ByteArrayOutputStream body = new ByteArrayOutputStream(column.size + 64);
+        if (column.definition.nullable()) {
+            byte[] levels = column.encodedLevels();
+            body.write(littleEndian(levels.length));
+            body.write(levels);
+        }
+        body.write(column.values, 0, column.size);
+        byte[] uncompressed = body.toByteArray();
+        byte[] compressed = compression == ExportFormat.Compression.GZIP ? gzip(uncompressed) : uncompressed;
+
+        byte[] header = new ThriftCompactWriter()
+                .i32(1, PAGE_DATA)
+                .i32(2, uncompressed.length)
+                .i32(3, compressed.length)
+                .beginStruct(5)
+                    .i32(1, column.rows)
+                    .i32(2, ENCODING_PLAIN)
+                    .i32(3, ENCODING_RLE)
+                    .i32(4, ENCODING_RLE)
+                .endStruct()
+                .endStruct()
+                .toByteArray();
+
+        long offset = position;
+        write(header);
+        write(compressed);
+        return new ColumnChunk(offset, column.rows,
+                header.length + uncompressed.length, header.length + compressed.length);
+    }
+
+    private byte[] fileMetaData() {
+        List<ExportTable.Column> definitions = table.getColumns();
+        ThriftCompactWriter meta = new ThriftCompactWriter().i32(1, 1);
+
+        meta.beginList(2, ThriftCompactWriter.TYPE_STRUCT, definitions.size() + 1);
+        meta.beginStruct().string(4, "schema").i32(5, definitions.size()).endStruct();
+        for (ExportTable.Column definition : definitions) {
+            meta.beginStruct()
+                    .i32(1, physicalType(definition))
+                    .i32(3, definition.nullable() ? REPETITION_OPTIONAL : REPETITION_REQUIRED)
+                    .string(4, definition.name());
+            if (definition.type() == ExportTable.ColumnType.STRING) {
+                meta.i32(6, CONVERTED_UTF8)
+                        .beginStruct(10).beginStruct(1).endStruct().endStruct();
+            } else if (definition.type() == ExportTable.ColumnType.TIMESTAMP) {
+                // TIMESTAMP(isAdjustedToUTC=false, MILLIS): created_at es hora local sin zona
+                meta.beginStruct(10)
+                        .beginStruct(8).bool(1, false).beginStruct(2).beginStruct(1).endStruct().endStruct().endStruct()
+                        .endStruct();
+            }
+            meta.endStruct();
+        }
+
+        meta.i64(3, totalRows);
+        meta.beginList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            meta.beginStruct().beginList(1, ThriftCompactWriter.TYPE_STRUCT, columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                ColumnChunk chunk = rowGroup.columns().get(i);
+                ExportTable.Column definition = definitions.get(i);
+                meta.beginStruct()
+                        .i64(2, chunk.offset())
+                        .beginStruct(3)
+                            .i32(1, physicalType(definition));
+                meta.beginList(2, ThriftCompactWriter.TYPE_I32, 2).i32(ENCODING_PLAIN).i32(ENCODING_RLE);
+                meta.beginList(3, ThriftCompactWriter.TYPE_BINARY, 1).string(definition.name());
+                meta.i32(4, compression == ExportFormat.Compression.GZIP ? CODEC_GZIP : CODEC_UNCOMPRESSED)
+                        .i64(5, chunk.values())
+                        .i64(6, chunk.uncompressedSize())
+                        .i64(7, chunk.compressedSize())
+                        .i64(9, chunk.offset())
+                        .endStruct()
+                        .endStruct();
+            }
+            meta.i64(2, rowGroup.byteSize()).i64(3, rowGroup.rows()).endStruct();
+        }
+        meta.string(6, "literalura export");
+        return meta.endStruct().toByteArray();
+    }
+
+    private static int physicalType(ExportTable.Column column) {
+        switch (column.type()) {
+            case INT:
+                return TYPE_INT32;
+            case STRING:
+                return TYPE_BYTE_ARRAY;
+            default:
+                return TYPE_INT64;
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] littleEndian(int value) {
+        return new byte[] {(byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24)};
+    }
+
+    /**
+     * Valores PLAIN (little-endian; texto con prefijo de largo) y un nivel de definición por fila.
+     */
+    private static final class ColumnBuffer {
+
+        final ExportTable.Column definition;
+        byte[] values = new byte[8192];
+        int size;
+        byte[] levels = new byte[1024];
+        int rows;
+
+        ColumnBuffer(ExportTable.Column definition) {
+            this.definition = definition;
+        }
+
+        void add(Object value) {
+            if (definition.nullable()) {
+                if (rows == levels.length) {
+                    levels = Arrays.copyOf(levels, rows * 2);
+                }
+                levels[rows] = (byte) (value == null ? 0 : 1);
+            } else if (value == null) {
+                throw new IllegalArgumentException("Columna " + definition.name() + " sin valor");
+            }
+            rows++;
+            if (value == null) {
+                return;
+            }
+
+            switch (definition.type()) {
+                case INT:
+                    putLittleEndian(((Number) value).intValue(), 4);
+                    break;
+                case LONG:
+                    putLittleEndian(((Number) value).longValue(), 8);
+                    break;
+                case TIMESTAMP:
+                    putLittleEndian(((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli(), 8);
+                    break;
+                default:
+                    byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                    putLittleEndian(bytes.length, 4);
+                    ensure(bytes.length);
+                    System.arraycopy(bytes, 0, values, size, bytes.length);
+                    size += bytes.length;
+            }
+        }
+
+        /** Híbrido RLE/bit-packed con ancho 1, solo con corridas RLE. */
+        byte[] encodedLevels() {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            int i = 0;
+            while (i < rows) {
+                byte level = levels[i];
+                int run = 1;
+                while (i + run < rows && levels[i + run] == level) {
+                    run++;
+                }
+                int header = run << 1;
+                while ((header & ~0x7F) != 0) {
+                    encoded.write(header & 0x7F | 0x80);
+                    header >>>= 7;
+                }
+                encoded.write(header);
+                encoded.write(level);
+                i += run;
+            }
+            return encoded.toByteArray();
+        }
+
+        void reset() {
+            size = 0;
+            rows = 0;
+        }
+
+        private void putLittleEndian(long value, int bytes) {
+            ensure(bytes);
+            for (int i = 0; i < bytes; i++) {
+                values[size++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.gutendx.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escribe filas de una tabla en un formato de archivo. Las filas llegan como los Object[] de la
+ * proyección (Long, Integer, String, LocalDateTime o null) y no se retienen después de escribirlas,
+ * salvo el grupo de filas en curso en Parquet.
+ */
+public interface RowWriter extends Closeable {
+
+    void write(Object[] row) throws IOException;
+}
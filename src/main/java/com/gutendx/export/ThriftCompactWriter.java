@@ -0,0 +1,121 @@
+package com.gutendx.export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Lo mínimo del protocolo compacto de Thrift para escribir los encabezados de página y el
+ * pie de un archivo Parquet: structs con campos i32/i64/string, listas y structs anidados.
+ */
+final class ThriftCompactWriter {
+
+    static final byte TYPE_BOOLEAN_TRUE = 1;
+    static final byte TYPE_BOOLEAN_FALSE = 2;
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    private final Deque<Short> lastFieldIds = new ArrayDeque<>();
+    private short lastFieldId;
+
+    ThriftCompactWriter bool(int fieldId, boolean value) {
+        // En el protocolo compacto el valor va en el tipo del encabezado
+        fieldHeader(fieldId, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+        return this;
+    }
+
+    ThriftCompactWriter i32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter i64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter string(int fieldId, String value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        string(value);
+        return this;
+    }
+
+    ThriftCompactWriter beginStruct(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+        return beginStruct();
+    }
+
+    /** Struct como elemento de una lista. */
+    ThriftCompactWriter beginStruct() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+        return this;
+    }
+
+    ThriftCompactWriter endStruct() {
+        out.write(0); // STOP
+        lastFieldId = lastFieldIds.isEmpty() ? 0 : lastFieldIds.pop();
+        return this;
+    }
+
+    ThriftCompactWriter beginList(int fieldId, byte elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            out.write(size << 4 | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            varint(size);
+        }
+        return this;
+    }
+
+    ThriftCompactWriter i32(int value) {
+        varint(zigzag(value));
+        return this;
+    }
+
+    ThriftCompactWriter string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        varint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void fieldHeader(int fieldId, byte type) {
+        int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write(delta << 4 | type);
+        } else {
+            out.write(type);
+            varint(zigzag(fieldId));
+        }
+        lastFieldId = (short) fieldId;
+    }
+
+    private void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+}
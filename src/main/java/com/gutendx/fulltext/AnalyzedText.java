@@ -0,0 +1,64 @@
+package com.gutendx.fulltext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Un libro ya cortado en términos: las posiciones de cada término, en orden. Se arma fuera del
+ * lock del índice (es lo caro: leer y analizar); agregarlo al índice es sólo copiar listas.
+ */
+public final class AnalyzedText {
+
+    private final Map<String, Positions> terms = new HashMap<>(4096);
+    private int length;
+    private long chars;
+
+    static final class Positions {
+        int[] values = new int[4];
+        int count;
+
+        void add(int position) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = position;
+        }
+    }
+
+    private AnalyzedText() {}
+
+    /** Lee el cuerpo del .txt de Gutenberg (sin cabecera ni licencia) y lo analiza. */
+    public static AnalyzedText read(BufferedReader in, TextAnalyzer analyzer) throws IOException {
+        AnalyzedText text = new AnalyzedText();
+        TextAnalyzer.TokenSink sink = text::add;
+        GutenbergText.forEachBodyLine(in, line -> {
+            text.chars += line.length() + 1;
+            // Las frases siguen de una línea a la otra: la posición no se reinicia
+            analyzer.analyze(line, sink);
+        });
+        return text;
+    }
+
+    public static AnalyzedText of(CharSequence body, TextAnalyzer analyzer) {
+        AnalyzedText text = new AnalyzedText();
+        text.chars = body.length();
+        analyzer.analyze(body, text::add);
+        return text;
+    }
+
+    private void add(String term) {
+        terms.computeIfAbsent(term, key -> new Positions()).add(length++);
+    }
+
+    /** Cantidad de términos del libro (la longitud que usa BM25). */
+    public int length() { return length; }
+
+    public long chars() { return chars; }
+
+    public int distinctTerms() { return terms.size(); }
+
+    Map<String, Positions> terms() { return terms; }
+}
@@ -0,0 +1,127 @@
+package com.gutendx.fulltext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Codificación de las listas de apariciones: bloques de 128 enteros empaquetados con el mínimo
+ * de bits que necesita el mayor del bloque (las diferencias entre ids de documento y las
+ * frecuencias suelen caber en pocos bits), y varint para las posiciones.
+ */
+final class BlockCodec {
+
+    static final int BLOCK = 128;
+
+    private BlockCodec() {}
+
+    /** Bytes que se van agregando al final, con escritura de enteros en big-endian como ByteBuffer. */
+    static final class Bytes {
+        byte[] data = new byte[1024];
+        int size;
+
+        void write(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            data[size++] = (byte) (value >>> 24);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, data, size, length);
+            size += length;
+        }
+
+        void write(Bytes other) {
+            write(other.data, 0, other.size);
+        }
+
+        /** Los primeros count valores, de bits bits cada uno, desde el bit menos significativo. */
+        void pack(int[] values, int count, int bits) {
+            if (bits == 0) {
+                return;
+            }
+            ensure((count * bits + 7) / 8);
+            long accumulator = 0;
+            int pending = 0;
+            for (int i = 0; i < count; i++) {
+                accumulator |= (values[i] & 0xFFFFFFFFL) << pending;
+                pending += bits;
+                while (pending >= 8) {
+                    data[size++] = (byte) accumulator;
+                    accumulator >>>= 8;
+                    pending -= 8;
+                }
+            }
+            if (pending > 0) {
+                data[size++] = (byte) accumulator;
+            }
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(data, 0, size);
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void ensure(int more) {
+            if (size + more > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + more, data.length * 2));
+            }
+        }
+    }
+
+    static int bitsRequired(int[] values, int count) {
+        int or = 0;
+        for (int i = 0; i < count; i++) {
+            or |= values[i];
+        }
+        return 32 - Integer.numberOfLeadingZeros(or);
+    }
+
+    /** Inversa de {@link Bytes#pack}; devuelve la posición siguiente al bloque. */
+    static int unpack(ByteBuffer data, int offset, int[] values, int count, int bits) {
+        if (bits == 0) {
+            Arrays.fill(values, 0, count, 0);
+            return offset;
+        }
+        long mask = (1L << bits) - 1;
+        long accumulator = 0;
+        int available = 0;
+        int position = offset;
+        for (int i = 0; i < count; i++) {
+            while (available < bits) {
+                accumulator |= (data.get(position++) & 0xFFL) << available;
+                available += 8;
+            }
+            values[i] = (int) (accumulator & mask);
+            accumulator >>>= bits;
+            available -= bits;
+        }
+        return offset + (count * bits + 7) / 8;
+    }
+}
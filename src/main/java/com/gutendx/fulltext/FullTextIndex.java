@@ -0,0 +1,556 @@
+package com.gutendx.fulltext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Índice de texto completo de los libros: segmentos inmutables en gutendx.fulltext.dir
+ * (ver {@link Segment}), mapeados en memoria, más los libros agregados desde el último segmento,
+ * que esperan en memoria hasta commit() o hasta ocupar buffer-mb.
+ * <p>
+ * Un libro indexado otra vez queda en un segmento más nuevo; la versión vieja se marca como
+ * reemplazada y desaparece cuando un merge junta su segmento con los vecinos. Los merges corren
+ * en un hilo aparte cuando hay más de merge-factor segmentos y juntan siempre segmentos
+ * consecutivos: el resultado toma el número del más nuevo, así al arrancar el segmento de número
+ * mayor sigue ganando aunque un corte deje archivos a medio borrar.
+ * <p>
+ * Las búsquedas trabajan sobre la lista de segmentos vigente al empezar, sin locks. Todas las
+ * palabras y frases tienen que aparecer; el orden es por BM25.
+ */
+@Component
+public class FullTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextIndex.class);
+
+    private static final String SUFFIX = ".seg";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int LATENCY_SAMPLES = 4096;
+    private static final long MB = 1024 * 1024;
+
+    // El peor de los mejores primero: menor puntaje y, a igual puntaje, mayor id
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Hit::gutendxBookId, Comparator.reverseOrder());
+
+    @Value("${gutendx.fulltext.dir:./data/fulltext}")
+    private String dir;
+
+    @Value("${gutendx.fulltext.buffer-mb:64}")
+    private int bufferMb;
+
+    @Value("${gutendx.fulltext.merge-factor:8}")
+    private int mergeFactor;
+
+    @Value("${gutendx.fulltext.max-segment-mb:1024}")
+    private int maxSegmentMb;
+
+    private Path root;
+    private ExecutorService merger;
+
+    // Buffer, numeración, ubicaciones y publicación de segmentos
+    private final Object lock = new Object();
+    private IndexBuffer buffer = new IndexBuffer();
+    private long nextGeneration = 1;
+    private boolean mergeScheduled;
+
+    // Dónde está la versión vigente de cada libro
+    private final Map<Long, Location> locations = new HashMap<>();
+
+    private volatile List<View> views = List.of();
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_SAMPLES);
+
+    private record Location(Segment segment, int doc) {}
+
+    // Un segmento con sus documentos reemplazados; no se modifica, se cambia por otro
+    private record View(Segment segment, BitSet deleted, int live) {}
+
+    public record Hit(long gutendxBookId, double score) {}
+
+    public record Stats(int segments, long books, long bytes, int buffered, long queries,
+                        double p50Millis, double p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%d segmentos, %d libros (%d MB), %d sin volcar; %d búsquedas, p50 %.2f ms, p99 %.2f ms",
+                    segments, books, bytes / MB, buffered, queries, p50Millis, p99Millis);
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        root = Paths.get(dir).toAbsolutePath();
+        merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gutendx-fulltext-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!Files.isDirectory(root)) {
+            // Se crea con el primer segmento
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(root)) {
+            files = list.collect(Collectors.toList());
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                // Segmento o merge que quedó a medias
+                Files.deleteIfExists(file);
+            } else if (name.matches("\\d{12}\\" + SUFFIX)) {
+                long generation = Long.parseLong(name.substring(0, 12));
+                try {
+                    segments.add(Segment.open(file, generation));
+                } catch (IOException e) {
+                    logger.error("Segmento ignorado, sus libros se indexarán de nuevo: {}", file, e);
+                }
+                nextGeneration = Math.max(nextGeneration, generation + 1);
+            }
+        }
+        segments.sort(Comparator.comparingLong(Segment::generation));
+
+        // Del más nuevo al más viejo: la primera versión que aparece de cada libro es la vigente
+        View[] loaded = new View[segments.size()];
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            BitSet deleted = new BitSet();
+            for (int doc = 0; doc < segment.docCount(); doc++) {
+                if (locations.putIfAbsent(segment.bookId(doc), new Location(segment, doc)) != null) {
+                    deleted.set(doc);
+                }
+            }
+            loaded[s] = new View(segment, deleted, segment.docCount() - deleted.cardinality());
+        }
+        synchronized (lock) {
+            views = List.of(loaded);
+            scheduleMerge();
+        }
+        logger.info("Índice de texto: {}", stats());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        merger.shutdown();
+        if (!merger.awaitTermination(1, TimeUnit.MINUTES)) {
+            logger.warn("Se cierra con un merge del índice de texto en curso; se descarta al arrancar");
+        }
+    }
+
+    /**
+     * Agrega un libro o reemplaza su versión anterior. Queda buscable después del próximo
+     * volcado a segmento (commit() o buffer lleno).
+     */
+    public void add(long gutendxBookId, AnalyzedText text) throws IOException {
+        synchronized (lock) {
+            if (buffer.contains(gutendxBookId)) {
+                // Dos versiones en un mismo segmento no se distinguirían
+                flush();
+            }
+            buffer.add(gutendxBookId, text);
+            if (buffer.bytesUsed() >= bufferMb * MB) {
+                flush();
+            }
+        }
+    }
+
+    /** Vuelca a un segmento los libros agregados; desde acá son buscables y sobreviven a un reinicio. */
+    public void commit() throws IOException {
+        synchronized (lock) {
+            flush();
+        }
+    }
+
+    public boolean isIndexed(long gutendxBookId) {
+        synchronized (lock) {
+            return locations.containsKey(gutendxBookId) || buffer.contains(gutendxBookId);
+        }
+    }
+
+    /**
+     * Los libros que contienen todas las palabras y frases, del más relevante al menos.
+     *
+     * @param languageCode idioma con el que se analiza la búsqueda (null: reglas generales)
+     * @throws IllegalArgumentException si la búsqueda no tiene palabras
+     */
+    public List<Hit> search(String query, String languageCode, int limit) {
+        long started = System.nanoTime();
+        FullTextQuery parsed = FullTextQuery.parse(query, TextAnalyzer.forLanguage(languageCode));
+        List<Hit> hits = search(parsed, views, limit);
+        long index = queries.getAndIncrement();
+        latencies.set((int) (index % LATENCY_SAMPLES), System.nanoTime() - started);
+        return hits;
+    }
+
+    /** Tamaño del índice y latencia de las últimas búsquedas. */
+    public Stats stats() {
+        List<View> current = views;
+        long books = 0;
+        long bytes = 0;
+        for (View view : current) {
+            books += view.live();
+            bytes += view.segment().sizeInBytes();
+        }
+        int buffered;
+        synchronized (lock) {
+            buffered = buffer.docCount();
+        }
+
+        long count = queries.get();
+        int samples = (int) Math.min(count, LATENCY_SAMPLES);
+        long[] sorted = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        return new Stats(current.size(), books, bytes, buffered, count,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+    }
+
+    /** Espera a que terminen los merges pendientes. */
+    public void awaitMerges() throws InterruptedException {
+        try {
+            merger.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        Files.createDirectories(root);
+        long generation = nextGeneration++;
+        Path target = file(generation);
+        Path tmp = root.resolve(target.getFileName() + ".tmp");
+        try (SegmentWriter writer = new SegmentWriter(tmp)) {
+            buffer.writeTo(writer);
+            writer.finish();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = Segment.open(target, generation);
+        buffer = new IndexBuffer();
+        publish(segment);
+        logger.debug("Segmento {} escrito en {} ms", segment, (System.nanoTime() - started) / 1_000_000);
+        scheduleMerge();
+    }
+
+    // Con el lock: marca como reemplazadas las versiones anteriores de los libros del segmento
+    private void publish(Segment segment) {
+        Map<Segment, BitSet> changed = new IdentityHashMap<>();
+        for (int doc = 0; doc < segment.docCount(); doc++) {
+            Location previous = locations.put(segment.bookId(doc), new Location(segment, doc));
+            if (previous != null) {
+                changed.computeIfAbsent(previous.segment(), key -> deletedOf(key)).set(previous.doc());
+            }
+        }
+        List<View> next = new ArrayList<>(views.size() + 1);
+        for (View view : views) {
+            BitSet deleted = changed.get(view.segment());
+            next.add(deleted == null ? view
+                    : new View(view.segment(), deleted, view.segment().docCount() - deleted.cardinality()));
+        }
+        next.add(new View(segment, new BitSet(), segment.docCount()));
+        views = List.copyOf(next);
+    }
+
+    private BitSet deletedOf(Segment segment) {
+        for (View view : views) {
+            if (view.segment() == segment) {
+                return (BitSet) view.deleted().clone();
+            }
+        }
+        throw new IllegalStateException("Segmento no publicado: " + segment);
+    }
+
+    // Con el lock
+    private void scheduleMerge() {
+        if (!mergeScheduled && views.size() > mergeFactor) {
+            mergeScheduled = true;
+            merger.execute(this::mergeWhileNeeded);
+        }
+    }
+
+    private void mergeWhileNeeded() {
+        try {
+            while (true) {
+                List<View> inputs;
+                synchronized (lock) {
+                    inputs = pickMerge(views);
+                    if (inputs == null) {
+                        mergeScheduled = false;
+                        return;
+                    }
+                }
+                merge(inputs);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudieron juntar segmentos del índice de texto", e);
+            synchronized (lock) {
+                mergeScheduled = false;
+            }
+        }
+    }
+
+    // Los merge-factor segmentos consecutivos más chicos en total, sin pasar de max-segment-mb
+    private List<View> pickMerge(List<View> current) {
+        if (current.size() <= mergeFactor) {
+            return null;
+        }
+        long maxBytes = maxSegmentMb * MB;
+        for (int width = Math.max(2, mergeFactor); width >= 2; width--) {
+            int best = -1;
+            long bestBytes = Long.MAX_VALUE;
+            for (int start = 0; start + width <= current.size(); start++) {
+                long bytes = 0;
+                for (int i = start; i < start + width; i++) {
+                    bytes += current.get(i).segment().sizeInBytes();
+                }
+                if (bytes <= maxBytes && bytes < bestBytes) {
+                    best = start;
+                    bestBytes = bytes;
+                }
+            }
+            if (best >= 0) {
+                return List.copyOf(current.subList(best, best + width));
+            }
+        }
+        return null;
+    }
+
+    private void merge(List<View> inputs) throws IOException {
+        long started = System.nanoTime();
+        List<Segment> segments = inputs.stream().map(View::segment).collect(Collectors.toList());
+        long generation = segments.get(segments.size() - 1).generation();
+        Path target = file(generation);
+        Path tmp = root.resolve(target.getFileName() + ".merge.tmp");
+        int[][] docMaps;
+        try {
+            docMaps = SegmentMerger.merge(segments, inputs.stream().map(View::deleted).collect(Collectors.toList()), tmp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Segment merged;
+        synchronized (lock) {
+            // Reemplaza al más nuevo de los juntados; los demás se borran después
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            merged = Segment.open(target, generation);
+
+            // Los reemplazos que llegaron durante el merge pasan al segmento nuevo
+            List<View> current = views;
+            int first = 0;
+            while (current.get(first).segment() != segments.get(0)) {
+                first++;
+            }
+            BitSet deleted = new BitSet();
+            for (int s = 0; s < segments.size(); s++) {
+                Segment segment = segments.get(s);
+                BitSet now = current.get(first + s).deleted();
+                for (int doc = 0; doc < segment.docCount(); doc++) {
+                    int mapped = docMaps[s][doc];
+                    if (mapped < 0) {
+                        continue;
+                    }
+                    if (now.get(doc)) {
+                        deleted.set(mapped);
+                    } else {
+                        locations.put(segment.bookId(doc), new Location(merged, mapped));
+                    }
+                }
+            }
+            List<View> next = new ArrayList<>(current.subList(0, first));
+            next.add(new View(merged, deleted, merged.docCount() - deleted.cardinality()));
+            next.addAll(current.subList(first + segments.size(), current.size()));
+            views = List.copyOf(next);
+        }
+        for (Segment segment : segments) {
+            if (segment.generation() != generation) {
+                Files.deleteIfExists(segment.file());
+            }
+        }
+        logger.info("Índice de texto: {} segmentos juntados en {} en {} ms", segments.size(), merged,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private Path file(long generation) {
+        return root.resolve(String.format("%012d%s", generation, SUFFIX));
+    }
+
+    private static List<Hit> search(FullTextQuery query, List<View> views, int limit) {
+        List<String> terms = new ArrayList<>(query.terms());
+        byte[][] utf8 = new byte[terms.size()][];
+        for (int t = 0; t < terms.size(); t++) {
+            utf8[t] = terms.get(t).getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Estadísticas de todo el índice; docFreq y el largo promedio cuentan también las
+        // versiones reemplazadas que todavía no se juntaron (la diferencia es chica)
+        long docs = 0;
+        long tokens = 0;
+        long live = 0;
+        long[] docFreq = new long[terms.size()];
+        int[][] ordinals = new int[views.size()][terms.size()];
+        for (int v = 0; v < views.size(); v++) {
+            Segment segment = views.get(v).segment();
+            docs += segment.docCount();
+            tokens += segment.totalTokens();
+            live += views.get(v).live();
+            for (int t = 0; t < terms.size(); t++) {
+                ordinals[v][t] = segment.find(utf8[t]);
+                if (ordinals[v][t] >= 0) {
+                    docFreq[t] += segment.docFreq(ordinals[v][t]);
+                }
+            }
+        }
+        if (live == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        int[][] clauses = new int[query.clauses().size()][];
+        double[] weights = new double[clauses.length];
+        for (int c = 0; c < clauses.length; c++) {
+            List<String> clause = query.clauses().get(c);
+            clauses[c] = new int[clause.size()];
+            for (int i = 0; i < clause.size(); i++) {
+                int t = terms.indexOf(clause.get(i));
+                long df = Math.min(docFreq[t], live);
+                clauses[c][i] = t;
+                weights[c] += Math.log(1 + (live - df + 0.5) / (df + 0.5));
+            }
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(WORST_FIRST);
+        double averageLength = (double) tokens / docs;
+        for (int v = 0; v < views.size(); v++) {
+            searchSegment(views.get(v), ordinals[v], clauses, weights, averageLength, limit, top);
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(WORST_FIRST.reversed());
+        return hits;
+    }
+
+    private static void searchSegment(View view, int[] ordinals, int[][] clauses, double[] weights,
+                                      double averageLength, int limit, PriorityQueue<Hit> top) {
+        Segment segment = view.segment();
+        PostingsCursor[] cursors = new PostingsCursor[ordinals.length];
+        for (int t = 0; t < ordinals.length; t++) {
+            if (ordinals[t] < 0) {
+                return;
+            }
+            cursors[t] = segment.postings(ordinals[t]);
+        }
+        // Guía la lista más corta; las demás saltan hasta su documento
+        PostingsCursor[] byLength = cursors.clone();
+        Arrays.sort(byLength, Comparator.comparingInt(PostingsCursor::docFreq));
+        PostingsCursor lead = byLength[0];
+
+        int doc = lead.nextDoc();
+        candidates:
+        while (doc != PostingsCursor.NO_MORE_DOCS) {
+            for (int i = 1; i < byLength.length; i++) {
+                int other = byLength[i].advance(doc);
+                if (other != doc) {
+                    doc = lead.advance(other);
+                    continue candidates;
+                }
+            }
+            if (!view.deleted().get(doc)) {
+                double score = score(segment, doc, cursors, clauses, weights, averageLength);
+                if (score > 0) {
+                    Hit hit = new Hit(segment.bookId(doc), score);
+                    if (top.size() < limit) {
+                        top.add(hit);
+                    } else if (WORST_FIRST.compare(hit, top.peek()) > 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+            }
+            doc = lead.nextDoc();
+        }
+    }
+
+    // BM25; una frase cuenta como un término con la frecuencia de la frase. 0 si una frase no aparece
+    private static double score(Segment segment, int doc, PostingsCursor[] cursors, int[][] clauses,
+                                double[] weights, double averageLength) {
+        double norm = K1 * (1 - B + B * segment.length(doc) / averageLength);
+        double score = 0;
+        for (int c = 0; c < clauses.length; c++) {
+            int frequency = clauses[c].length == 1 ? cursors[clauses[c][0]].freq() : phraseFrequency(cursors, clauses[c]);
+            if (frequency == 0) {
+                return 0;
+            }
+            score += weights[c] * frequency * (K1 + 1) / (frequency + norm);
+        }
+        return score;
+    }
+
+    private static int phraseFrequency(PostingsCursor[] cursors, int[] clause) {
+        PostingsCursor first = cursors[clause[0]];
+        int[] firstPositions = first.positions();
+        int firstFrom = first.positionsFrom();
+        int[] next = new int[clause.length];
+        int matches = 0;
+        for (int a = 0; a < first.freq(); a++) {
+            int start = firstPositions[firstFrom + a];
+            boolean match = true;
+            for (int i = 1; i < clause.length; i++) {
+                PostingsCursor cursor = cursors[clause[i]];
+                int[] positions = cursor.positions();
+                int from = cursor.positionsFrom();
+                while (next[i] < cursor.freq() && positions[from + next[i]] < start + i) {
+                    next[i]++;
+                }
+                if (next[i] == cursor.freq()) {
+                    return matches;
+                }
+                if (positions[from + next[i]] != start + i) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * fraction) - 1)];
+    }
+}
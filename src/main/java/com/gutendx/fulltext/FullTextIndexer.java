@@ -0,0 +1,208 @@
+package com.gutendx.fulltext;
+
+import com.gutendx.assets.AssetFormat;
+import com.gutendx.assets.AssetStore;
+import com.gutendx.exception.ApiException;
+import com.gutendx.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Llena el índice de texto con los .txt de los libros registrados. El texto sale de
+ * gutendx.fulltext.source-dir si está (84.txt, pg84.txt, 84-0.txt o 84-8.txt, como los publica
+ * Gutenberg) y si no del almacén de archivos, que lo baja la primera vez. Cada libro se analiza
+ * con las reglas de su idioma en un hilo del pool; agregarlo al índice es lo único en serie.
+ */
+@Component
+public class FullTextIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextIndexer.class);
+
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private AssetStore assetStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.fulltext.source-dir:}")
+    private String sourceDir;
+
+    @Value("${gutendx.fulltext.use-asset-store:true}")
+    private boolean useAssetStore;
+
+    @Value("${gutendx.fulltext.threads:4}")
+    private int threads;
+
+    private enum Status { INDEXED, SKIPPED, MISSING, FAILED }
+
+    private record Outcome(Status status, long bytes, long terms) {}
+
+    private record Source(Path file, Charset charset) {}
+
+    /**
+     * Indexa los libros dados, aunque ya estén; sin ids, todos los registrados que todavía no
+     * están en el índice.
+     */
+    public IndexReport index(Collection<Long> gutendxBookIds) throws IOException {
+        long started = System.nanoTime();
+        boolean all = gutendxBookIds.isEmpty();
+        Set<Long> wanted = new HashSet<>(gutendxBookIds);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Map<Long, String> languages = readOnly.execute(status -> {
+            Map<Long, String> byBook = new LinkedHashMap<>();
+            try (Stream<Object[]> rows = bookRepository.streamLanguageCodes()) {
+                rows.forEach(row -> {
+                    long id = ((Number) row[0]).longValue();
+                    if (all || wanted.contains(id)) {
+                        byBook.put(id, (String) row[1]);
+                    }
+                });
+            }
+            return byBook;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "gutendx-fulltext");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Outcome>> outcomes = new ArrayList<>(languages.size());
+        try {
+            for (Map.Entry<Long, String> book : languages.entrySet()) {
+                outcomes.add(executor.submit(() -> index(book.getKey(), book.getValue(), !all)));
+            }
+            long[] counts = new long[Status.values().length];
+            long bytes = 0;
+            long terms = 0;
+            for (Future<Outcome> future : outcomes) {
+                Outcome outcome = future.get();
+                counts[outcome.status().ordinal()]++;
+                bytes += outcome.bytes();
+                terms += outcome.terms();
+            }
+            // Los pedidos que no están en la BD
+            counts[Status.MISSING.ordinal()] += wanted.size() - (all ? 0 : languages.size());
+            fullTextIndex.commit();
+
+            IndexReport report = new IndexReport(counts[Status.INDEXED.ordinal()], counts[Status.SKIPPED.ordinal()],
+                    counts[Status.MISSING.ordinal()], counts[Status.FAILED.ordinal()], bytes, terms,
+                    System.nanoTime() - started, fullTextIndex.stats());
+            logger.info("Indexación de texto: {}", report);
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Indexación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Outcome index(long gutendxBookId, String languageCode, boolean reindex) throws IOException {
+        if (!reindex && fullTextIndex.isIndexed(gutendxBookId)) {
+            return new Outcome(Status.SKIPPED, 0, 0);
+        }
+        Optional<Source> source;
+        try {
+            source = open(gutendxBookId);
+        } catch (ApiException e) {
+            logger.warn("Sin texto para el libro {}: {}", gutendxBookId, e.getMessage());
+            return new Outcome(Status.FAILED, 0, 0);
+        }
+        if (source.isEmpty()) {
+            return new Outcome(Status.MISSING, 0, 0);
+        }
+
+        AnalyzedText text;
+        long bytes;
+        try (BufferedReader in = reader(source.get())) {
+            bytes = Files.size(source.get().file());
+            text = AnalyzedText.read(in, TextAnalyzer.forLanguage(languageCode));
+        } catch (IOException e) {
+            // Un archivo ilegible (o desalojado del almacén mientras tanto) no corta la pasada
+            logger.warn("No se pudo leer el texto del libro {}: {}", gutendxBookId, e.getMessage());
+            return new Outcome(Status.FAILED, 0, 0);
+        }
+        // Un error acá es del índice: sí corta
+        fullTextIndex.add(gutendxBookId, text);
+        return new Outcome(Status.INDEXED, bytes, text.length());
+    }
+
+    private Optional<Source> open(long gutendxBookId) throws ApiException {
+        if (!sourceDir.isBlank()) {
+            Path root = Paths.get(sourceDir);
+            for (String name : List.of(gutendxBookId + ".txt", "pg" + gutendxBookId + ".txt",
+                    gutendxBookId + "-0.txt", gutendxBookId + "-8.txt")) {
+                Path file = root.resolve(name);
+                if (Files.isRegularFile(file)) {
+                    // -8 es la variante en Latin-1; las demás son UTF-8 o ASCII
+                    return Optional.of(new Source(file, name.endsWith("-8.txt")
+                            ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8));
+                }
+            }
+        }
+        if (!useAssetStore) {
+            return Optional.empty();
+        }
+        return assetStore.open(gutendxBookId, AssetFormat.TEXT)
+                .map(asset -> new Source(asset.file(), charsetOf(asset.contentType())));
+    }
+
+    private static BufferedReader reader(Source source) throws IOException {
+        // Un byte inválido no debe tirar el libro entero
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(source.file()),
+                source.charset().newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)), 1 << 16);
+    }
+
+    static Charset charsetOf(String contentType) {
+        Matcher matcher = CHARSET.matcher(contentType == null ? "" : contentType);
+        if (matcher.find()) {
+            String name = matcher.group(1);
+            if (name.equalsIgnoreCase("us-ascii")) {
+                return StandardCharsets.UTF_8;
+            }
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Charset desconocido {}, se usa UTF-8", name);
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
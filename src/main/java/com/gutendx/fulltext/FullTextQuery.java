@@ -0,0 +1,53 @@
+package com.gutendx.fulltext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Una búsqueda de texto: palabras sueltas y "frases entre comillas", todas obligatorias. Cada
+ * cláusula es la lista de términos que produce el analizador; con más de uno es una frase
+ * (también una palabra que el analizador corta en varios, como en chino o japonés).
+ */
+public record FullTextQuery(List<List<String>> clauses) {
+
+    private static final Pattern CLAUSE = Pattern.compile("\"([^\"]*)\"?|([^\\s\"]+)");
+
+    /**
+     * @throws IllegalArgumentException si no queda ningún término
+     */
+    public static FullTextQuery parse(String query, TextAnalyzer analyzer) {
+        List<List<String>> clauses = new ArrayList<>();
+        Matcher matcher = CLAUSE.matcher(query == null ? "" : query);
+        while (matcher.find()) {
+            String text = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            List<String> terms = analyzer.terms(text);
+            if (!terms.isEmpty() && !clauses.contains(terms)) {
+                clauses.add(List.copyOf(terms));
+            }
+        }
+        if (clauses.isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda no tiene palabras: " + query);
+        }
+        return new FullTextQuery(List.copyOf(clauses));
+    }
+
+    /** Los términos distintos de todas las cláusulas. */
+    public Set<String> terms() {
+        Set<String> terms = new LinkedHashSet<>();
+        clauses.forEach(terms::addAll);
+        return terms;
+    }
+
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        for (List<String> clause : clauses) {
+            parts.add(clause.size() == 1 ? clause.get(0) : "\"" + String.join(" ", clause) + "\"");
+        }
+        return String.join(" ", parts);
+    }
+}
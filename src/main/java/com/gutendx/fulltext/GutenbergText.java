@@ -0,0 +1,60 @@
+package com.gutendx.fulltext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * El cuerpo de un .txt de Project Gutenberg, sin la cabecera ni la licencia del final: lo que
+ * hay entre "*** START OF ..." y "*** END OF ...". Los archivos viejos usan otras variantes;
+ * si no aparece el inicio en las primeras líneas se toma el archivo entero desde el principio.
+ */
+final class GutenbergText {
+
+    // Las cabeceras más largas (licencia completa al principio) rondan las 400 líneas
+    private static final int MAX_HEADER_LINES = 1000;
+
+    private GutenbergText() {}
+
+    static void forEachBodyLine(BufferedReader in, Consumer<String> body) throws IOException {
+        List<String> head = new ArrayList<>();
+        String line;
+        boolean started = false;
+        while (!started && (line = in.readLine()) != null) {
+            if (isStart(line)) {
+                head.clear();
+                started = true;
+            } else if (head.size() < MAX_HEADER_LINES) {
+                head.add(line);
+            } else {
+                // Sin marca de inicio: lo leído hasta acá ya es texto
+                head.add(line);
+                started = true;
+            }
+        }
+        for (String buffered : head) {
+            if (isEnd(buffered)) {
+                return;
+            }
+            body.accept(buffered);
+        }
+        while ((line = in.readLine()) != null) {
+            if (isEnd(line)) {
+                return;
+            }
+            body.accept(line);
+        }
+    }
+
+    private static boolean isStart(String line) {
+        return line.startsWith("*** START OF") || line.startsWith("***START OF")
+                || line.startsWith("*END*THE SMALL PRINT");
+    }
+
+    private static boolean isEnd(String line) {
+        return line.startsWith("*** END OF") || line.startsWith("***END OF")
+                || line.startsWith("End of the Project Gutenberg") || line.startsWith("End of Project Gutenberg");
+    }
+}
@@ -0,0 +1,104 @@
+package com.gutendx.fulltext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Los libros agregados desde el último segmento, invertidos en memoria: por término, los
+ * documentos, frecuencias y posiciones en arreglos que crecen. Se vuelca entero a un segmento.
+ */
+final class IndexBuffer {
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int[] positions = new int[8];
+        int docCount;
+        int positionCount;
+    }
+
+    private record Encoded(byte[] utf8, Postings postings) {}
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Set<Long> books = new HashSet<>();
+    private long[] bookIds = new long[64];
+    private int[] lengths = new int[64];
+    private int docCount;
+    private long bytesUsed;
+
+    boolean isEmpty() { return docCount == 0; }
+
+    int docCount() { return docCount; }
+
+    boolean contains(long gutendxBookId) {
+        return books.contains(gutendxBookId);
+    }
+
+    /** Aproximado: posiciones, ids y frecuencias más un costo fijo por término nuevo. */
+    long bytesUsed() { return bytesUsed; }
+
+    void add(long gutendxBookId, AnalyzedText text) {
+        if (docCount == bookIds.length) {
+            bookIds = Arrays.copyOf(bookIds, docCount * 2);
+            lengths = Arrays.copyOf(lengths, docCount * 2);
+        }
+        int doc = docCount++;
+        bookIds[doc] = gutendxBookId;
+        lengths[doc] = text.length();
+        books.add(gutendxBookId);
+
+        for (Map.Entry<String, AnalyzedText.Positions> entry : text.terms().entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+                bytesUsed += 96 + 2L * entry.getKey().length();
+            }
+            AnalyzedText.Positions positions = entry.getValue();
+            if (postings.docCount == postings.docs.length) {
+                postings.docs = Arrays.copyOf(postings.docs, postings.docCount * 2);
+                postings.freqs = Arrays.copyOf(postings.freqs, postings.docCount * 2);
+            }
+            postings.docs[postings.docCount] = doc;
+            postings.freqs[postings.docCount] = positions.count;
+            postings.docCount++;
+            if (postings.positionCount + positions.count > postings.positions.length) {
+                postings.positions = Arrays.copyOf(postings.positions,
+                        Math.max(postings.positionCount + positions.count, postings.positions.length * 2));
+            }
+            System.arraycopy(positions.values, 0, postings.positions, postings.positionCount, positions.count);
+            postings.positionCount += positions.count;
+            bytesUsed += 8 + 4L * positions.count;
+        }
+    }
+
+    void writeTo(SegmentWriter writer) throws IOException {
+        for (int doc = 0; doc < docCount; doc++) {
+            writer.addDoc(bookIds[doc], lengths[doc]);
+        }
+
+        // Orden de bytes UTF-8, el mismo que usa la búsqueda binaria del segmento
+        Encoded[] sorted = new Encoded[terms.size()];
+        int i = 0;
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            sorted[i++] = new Encoded(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+        }
+        Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(a.utf8(), b.utf8()));
+
+        for (Encoded term : sorted) {
+            Postings postings = term.postings();
+            writer.startTerm(term.utf8());
+            int from = 0;
+            for (int d = 0; d < postings.docCount; d++) {
+                writer.addPosting(postings.docs[d], postings.positions, from, postings.freqs[d]);
+                from += postings.freqs[d];
+            }
+            writer.finishTerm();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.gutendx.fulltext;
+
+/**
+ * Resultado de una pasada del indexador. bytes son los de los .txt leídos (con cabecera y
+ * licencia), así MB/s se compara con el tamaño de los archivos.
+ */
+public record IndexReport(long indexed, long skipped, long missing, long failed, long bytes, long terms,
+                          long elapsedNanos, FullTextIndex.Stats index) {
+
+    public double megabytesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : bytes / (1024.0 * 1024.0) / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d libros indexados (%d MB, %d términos) en %d ms, %.1f MB/s; "
+                        + "%d ya estaban, %d sin texto, %d con error. Índice: %s",
+                indexed, bytes / (1024 * 1024), terms, elapsedNanos / 1_000_000, megabytesPerSecond(),
+                skipped, missing, failed, index);
+    }
+}
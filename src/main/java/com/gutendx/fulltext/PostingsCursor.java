@@ -0,0 +1,157 @@
+package com.gutendx.fulltext;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Recorre las apariciones de un término en orden de documento, un bloque de 128 por vez.
+ * advance() salta bloques enteros con la tabla de saltos sin decodificarlos; las posiciones
+ * se decodifican sólo si alguien las pide (frases).
+ */
+final class PostingsCursor {
+
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private final ByteBuffer data;
+    private final int base;
+    private final int docFreq;
+    private final int blockCount;
+
+    private final int[] docs = new int[BlockCodec.BLOCK];
+    private final int[] freqs = new int[BlockCodec.BLOCK];
+    private final int[] positionStarts = new int[BlockCodec.BLOCK + 1];
+    private int[] positions = new int[256];
+    private int block = -1;
+    private int count;
+    private int index = -1;
+    private int doc = -1;
+    private int positionsAt;
+    private boolean positionsRead;
+
+    PostingsCursor(ByteBuffer data, int base, int docFreq) {
+        this.data = data;
+        this.base = base;
+        this.docFreq = docFreq;
+        this.blockCount = (docFreq + BlockCodec.BLOCK - 1) / BlockCodec.BLOCK;
+    }
+
+    int docFreq() { return docFreq; }
+
+    int doc() { return doc; }
+
+    int freq() { return freqs[index]; }
+
+    int nextDoc() {
+        if (doc == NO_MORE_DOCS) {
+            return doc;
+        }
+        if (++index < count) {
+            return doc = docs[index];
+        }
+        if (block + 1 >= blockCount) {
+            return doc = NO_MORE_DOCS;
+        }
+        load(block + 1);
+        index = 0;
+        return doc = docs[0];
+    }
+
+    /** El primer documento mayor o igual a target. */
+    int advance(int target) {
+        if (doc >= target) {
+            return doc;
+        }
+        if (block < 0 || lastDoc(block) < target) {
+            // Búsqueda binaria en la tabla de saltos, desde el bloque siguiente
+            int low = block + 1;
+            int high = blockCount - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (lastDoc(middle) < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            if (low >= blockCount || lastDoc(low) < target) {
+                return doc = NO_MORE_DOCS;
+            }
+            load(low);
+            index = 0;
+        }
+        while (docs[index] < target) {
+            index++;
+        }
+        return doc = docs[index];
+    }
+
+    /** Las posiciones del documento actual están en positions()[positionsFrom() .. + freq()). */
+    int[] positions() {
+        if (!positionsRead) {
+            readPositions();
+        }
+        return positions;
+    }
+
+    int positionsFrom() {
+        if (!positionsRead) {
+            readPositions();
+        }
+        return positionStarts[index];
+    }
+
+    private int lastDoc(int block) {
+        return data.getInt(base + block * 8);
+    }
+
+    private void load(int next) {
+        int offset = base + data.getInt(base + next * 8 + 4);
+        int docBits = data.get(offset) & 0xFF;
+        int freqBits = data.get(offset + 1) & 0xFF;
+        count = Math.min(BlockCodec.BLOCK, docFreq - next * BlockCodec.BLOCK);
+        offset = BlockCodec.unpack(data, offset + 2, docs, count, docBits);
+        int previous = next == 0 ? -1 : lastDoc(next - 1);
+        for (int i = 0; i < count; i++) {
+            previous += docs[i] + 1;
+            docs[i] = previous;
+        }
+        offset = BlockCodec.unpack(data, offset, freqs, count, freqBits);
+        for (int i = 0; i < count; i++) {
+            freqs[i]++;
+        }
+        block = next;
+        positionsAt = offset;
+        positionsRead = false;
+    }
+
+    private void readPositions() {
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            positionStarts[i] = total;
+            total += freqs[i];
+        }
+        positionStarts[count] = total;
+        if (positions.length < total) {
+            positions = Arrays.copyOf(positions, Math.max(total, positions.length * 2));
+        }
+
+        int offset = positionsAt;
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            int last = 0;
+            for (int f = 0; f < freqs[i]; f++) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data.get(offset++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                last += value;
+                positions[p++] = last;
+            }
+        }
+        positionsRead = true;
+    }
+}
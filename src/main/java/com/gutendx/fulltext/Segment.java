@@ -0,0 +1,144 @@
+package com.gutendx.fulltext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Un segmento del índice: un archivo inmutable que se mapea entero en memoria y se lee con
+ * accesos absolutos (varios hilos a la vez, sin copiarlo al heap). Formato, en big-endian:
+ * <pre>
+ *   cabecera (64 bytes): magic, versión, docs, términos, total de términos de los docs y la
+ *                        posición de cada sección y del final del archivo
+ *   apariciones:   por término, tabla de saltos (último doc y desplazamiento de cada bloque de
+ *                  128 docs) y los bloques: bits de ids, bits de frecuencias, ids como diferencia
+ *                  y frecuencias empaquetados, y las posiciones en varint
+ *   documentos:    id de Gutenberg (long) y cantidad de términos (int), por número de doc
+ *   diccionario:   inicio de cada término (int, uno más al final), los términos en UTF-8
+ *                  ordenados por bytes, y por término su cantidad de docs (int) y su posición (long)
+ * </pre>
+ * El mapeo se libera cuando el recolector junta el buffer; hasta entonces el archivo borrado
+ * sigue ocupando disco.
+ */
+final class Segment {
+
+    static final int MAGIC = 0x47585431; // "GXT1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    private static final int DOC_BYTES = 12;
+    private static final int TERM_INFO_BYTES = 12;
+
+    private final long generation;
+    private final Path file;
+    private final ByteBuffer data;
+    private final int docCount;
+    private final int termCount;
+    private final long totalTokens;
+    private final int docsOffset;
+    private final int termOffsetsOffset;
+    private final int termBytesOffset;
+    private final int termInfoOffset;
+
+    private Segment(long generation, Path file, ByteBuffer data) throws IOException {
+        this.generation = generation;
+        this.file = file;
+        this.data = data;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION
+                || data.getLong(56) != data.capacity()) {
+            throw new IOException("Segmento inválido o incompleto: " + file);
+        }
+        docCount = data.getInt(8);
+        termCount = data.getInt(12);
+        totalTokens = data.getLong(16);
+        docsOffset = (int) data.getLong(24);
+        termOffsetsOffset = (int) data.getLong(32);
+        termBytesOffset = (int) data.getLong(40);
+        termInfoOffset = (int) data.getLong(48);
+    }
+
+    static Segment open(Path file, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segmento demasiado grande para mapear: " + file);
+            }
+            return new Segment(generation, file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long generation() { return generation; }
+
+    Path file() { return file; }
+
+    int docCount() { return docCount; }
+
+    int termCount() { return termCount; }
+
+    long totalTokens() { return totalTokens; }
+
+    long sizeInBytes() { return data.capacity(); }
+
+    long bookId(int doc) {
+        return data.getLong(docsOffset + doc * DOC_BYTES);
+    }
+
+    int length(int doc) {
+        return data.getInt(docsOffset + doc * DOC_BYTES + 8);
+    }
+
+    /** Número del término en el diccionario, o -1 si no está. */
+    int find(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compare(middle, term);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    byte[] term(int ordinal) {
+        int start = data.getInt(termOffsetsOffset + ordinal * 4);
+        int end = data.getInt(termOffsetsOffset + ordinal * 4 + 4);
+        byte[] term = new byte[end - start];
+        data.get(termBytesOffset + start, term);
+        return term;
+    }
+
+    int docFreq(int ordinal) {
+        return data.getInt(termInfoOffset + ordinal * TERM_INFO_BYTES);
+    }
+
+    PostingsCursor postings(int ordinal) {
+        int offset = (int) data.getLong(termInfoOffset + ordinal * TERM_INFO_BYTES + 4);
+        return new PostingsCursor(data, offset, docFreq(ordinal));
+    }
+
+    private int compare(int ordinal, byte[] term) {
+        int start = termBytesOffset + data.getInt(termOffsetsOffset + ordinal * 4);
+        int length = termBytesOffset + data.getInt(termOffsetsOffset + ordinal * 4 + 4) - start;
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (data.get(start + i) & 0xFF) - (term[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - term.length;
+    }
+
+    @Override
+    public String toString() {
+        return file.getFileName() + " (" + docCount + " docs, " + termCount + " términos, "
+                + sizeInBytes() / 1024 + " KB)";
+    }
+}
@@ -0,0 +1,81 @@
+package com.gutendx.fulltext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Junta segmentos consecutivos en uno solo, sin los documentos reemplazados: los documentos se
+ * renumeran en el mismo orden y los diccionarios se recorren a la vez, ya ordenados.
+ */
+final class SegmentMerger {
+
+    private SegmentMerger() {}
+
+    private static final class Source {
+        final int segment;
+        final byte[] term;
+        int ordinal;
+
+        Source(int segment, int ordinal, byte[] term) {
+            this.segment = segment;
+            this.ordinal = ordinal;
+            this.term = term;
+        }
+    }
+
+    /**
+     * @return por segmento, el número nuevo de cada documento viejo, o -1 si se descartó
+     */
+    static int[][] merge(List<Segment> segments, List<BitSet> deleted, Path target) throws IOException {
+        int[][] docMaps = new int[segments.size()][];
+        try (SegmentWriter writer = new SegmentWriter(target)) {
+            for (int s = 0; s < segments.size(); s++) {
+                Segment segment = segments.get(s);
+                int[] docMap = new int[segment.docCount()];
+                Arrays.fill(docMap, -1);
+                for (int doc = 0; doc < segment.docCount(); doc++) {
+                    if (!deleted.get(s).get(doc)) {
+                        docMap[doc] = writer.addDoc(segment.bookId(doc), segment.length(doc));
+                    }
+                }
+                docMaps[s] = docMap;
+            }
+
+            // A igual término, primero el segmento más viejo: así los documentos quedan en orden
+            PriorityQueue<Source> queue = new PriorityQueue<>((a, b) -> {
+                int compared = Arrays.compareUnsigned(a.term, b.term);
+                return compared != 0 ? compared : Integer.compare(a.segment, b.segment);
+            });
+            for (int s = 0; s < segments.size(); s++) {
+                if (segments.get(s).termCount() > 0) {
+                    queue.add(new Source(s, 0, segments.get(s).term(0)));
+                }
+            }
+            while (!queue.isEmpty()) {
+                byte[] term = queue.peek().term;
+                writer.startTerm(term);
+                while (!queue.isEmpty() && Arrays.equals(queue.peek().term, term)) {
+                    Source source = queue.poll();
+                    Segment segment = segments.get(source.segment);
+                    int[] docMap = docMaps[source.segment];
+                    PostingsCursor postings = segment.postings(source.ordinal);
+                    for (int doc = postings.nextDoc(); doc != PostingsCursor.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                        if (docMap[doc] >= 0) {
+                            writer.addPosting(docMap[doc], postings.positions(), postings.positionsFrom(), postings.freq());
+                        }
+                    }
+                    if (source.ordinal + 1 < segment.termCount()) {
+                        queue.add(new Source(source.segment, source.ordinal + 1, segment.term(source.ordinal + 1)));
+                    }
+                }
+                writer.finishTerm();
+            }
+            writer.finish();
+        }
+        return docMaps;
+    }
+}
@@ -0,0 +1,184 @@
+package com.gutendx.fulltext;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Escribe un segmento de una pasada: primero los documentos, después los términos en orden de
+ * bytes UTF-8 con sus apariciones en orden de documento. Formato en {@link Segment}.
+ */
+final class SegmentWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private long position = Segment.HEADER_BYTES;
+
+    private final BlockCodec.Bytes docs = new BlockCodec.Bytes();
+    private int docCount;
+    private long totalTokens;
+
+    private final BlockCodec.Bytes termBytes = new BlockCodec.Bytes();
+    private final BlockCodec.Bytes termInfo = new BlockCodec.Bytes();
+    private int[] termOffsets = new int[1024];
+    private int termCount;
+
+    // Término en curso
+    private byte[] term;
+    private int[] postingDocs = new int[BlockCodec.BLOCK];
+    private int[] postingFreqs = new int[BlockCodec.BLOCK];
+    private int[] postingPositions = new int[1024];
+    private int postingCount;
+    private int positionCount;
+
+    private final int[] scratch = new int[BlockCodec.BLOCK];
+    private final BlockCodec.Bytes blocks = new BlockCodec.Bytes();
+    private final BlockCodec.Bytes skips = new BlockCodec.Bytes();
+
+    SegmentWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.position(Segment.HEADER_BYTES);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+    }
+
+    /** Los documentos van numerados 0, 1, 2... en el orden en que se agregan. */
+    int addDoc(long gutendxBookId, int length) {
+        docs.writeLong(gutendxBookId);
+        docs.writeInt(length);
+        totalTokens += length;
+        return docCount++;
+    }
+
+    void startTerm(byte[] utf8) {
+        term = utf8;
+        postingCount = 0;
+        positionCount = 0;
+    }
+
+    /** Una aparición del término en curso; doc crece de llamada en llamada. */
+    void addPosting(int doc, int[] positions, int offset, int freq) {
+        if (postingCount == postingDocs.length) {
+            postingDocs = Arrays.copyOf(postingDocs, postingCount * 2);
+            postingFreqs = Arrays.copyOf(postingFreqs, postingCount * 2);
+        }
+        if (positionCount + freq > postingPositions.length) {
+            postingPositions = Arrays.copyOf(postingPositions, Math.max(positionCount + freq, postingPositions.length * 2));
+        }
+        postingDocs[postingCount] = doc;
+        postingFreqs[postingCount] = freq;
+        postingCount++;
+        System.arraycopy(positions, offset, postingPositions, positionCount, freq);
+        positionCount += freq;
+    }
+
+    void finishTerm() throws IOException {
+        if (postingCount == 0) {
+            // Sólo aparecía en documentos borrados
+            return;
+        }
+        // Tabla de saltos (último doc y desplazamiento de cada bloque) y después los bloques
+        int blockCount = (postingCount + BlockCodec.BLOCK - 1) / BlockCodec.BLOCK;
+        blocks.clear();
+        skips.clear();
+        int previous = -1;
+        int positionIndex = 0;
+        for (int start = 0; start < postingCount; start += BlockCodec.BLOCK) {
+            int count = Math.min(BlockCodec.BLOCK, postingCount - start);
+            skips.writeInt(postingDocs[start + count - 1]);
+            skips.writeInt(blockCount * 8 + blocks.size);
+
+            // Ids como diferencia con el anterior menos uno (dos docs seguidos valen 0)
+            for (int i = 0; i < count; i++) {
+                scratch[i] = postingDocs[start + i] - previous - 1;
+                previous = postingDocs[start + i];
+            }
+            int docBits = BlockCodec.bitsRequired(scratch, count);
+            blocks.write(docBits);
+            int freqBitsAt = blocks.size;
+            blocks.write(0);
+            blocks.pack(scratch, count, docBits);
+
+            for (int i = 0; i < count; i++) {
+                scratch[i] = postingFreqs[start + i] - 1;
+            }
+            int freqBits = BlockCodec.bitsRequired(scratch, count);
+            blocks.data[freqBitsAt] = (byte) freqBits;
+            blocks.pack(scratch, count, freqBits);
+
+            // Posiciones: la primera de cada documento completa, las demás como diferencia
+            for (int i = 0; i < count; i++) {
+                int last = 0;
+                for (int f = 0; f < postingFreqs[start + i]; f++) {
+                    int value = postingPositions[positionIndex++];
+                    blocks.writeVarint(value - last);
+                    last = value;
+                }
+            }
+        }
+
+        long offset = position;
+        skips.writeTo(out);
+        blocks.writeTo(out);
+        position += skips.size + blocks.size;
+
+        if (termCount + 1 >= termOffsets.length) {
+            termOffsets = Arrays.copyOf(termOffsets, termOffsets.length * 2);
+        }
+        termOffsets[termCount] = termBytes.size;
+        termBytes.write(term, 0, term.length);
+        termInfo.writeInt(postingCount);
+        termInfo.writeLong(offset);
+        termCount++;
+    }
+
+    /** Escribe el diccionario y la cabecera y baja el archivo a disco; devuelve su tamaño. */
+    long finish() throws IOException {
+        long docsOffset = position;
+        docs.writeTo(out);
+        position += docs.size;
+
+        long termOffsetsOffset = position;
+        BlockCodec.Bytes offsets = new BlockCodec.Bytes();
+        termOffsets[termCount] = termBytes.size;
+        for (int i = 0; i <= termCount; i++) {
+            offsets.writeInt(termOffsets[i]);
+        }
+        offsets.writeTo(out);
+        position += offsets.size;
+
+        long termBytesOffset = position;
+        termBytes.writeTo(out);
+        position += termBytes.size;
+
+        long termInfoOffset = position;
+        termInfo.writeTo(out);
+        position += termInfo.size;
+        out.flush();
+
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Segmento de " + position + " bytes: no se puede mapear entero");
+        }
+        ByteBuffer header = ByteBuffer.allocate(Segment.HEADER_BYTES);
+        header.putInt(Segment.MAGIC).putInt(Segment.VERSION).putInt(docCount).putInt(termCount)
+                .putLong(totalTokens).putLong(docsOffset).putLong(termOffsetsOffset)
+                .putLong(termBytesOffset).putLong(termInfoOffset).putLong(position);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
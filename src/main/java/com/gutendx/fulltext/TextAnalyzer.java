@@ -0,0 +1,197 @@
+package com.gutendx.fulltext;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Corta texto en términos según el idioma del libro (los códigos ISO de LanguageDictionary).
+ * Para todos: letras y dígitos en minúscula, sin acentos en los alfabetos latino y griego
+ * ("Corazón" y "corazon" son el mismo término). Además:
+ * <ul>
+ *   <li>tr, az: la I mayúscula baja a ı y la İ a i;</li>
+ *   <li>fr, it, ca: se descarta el artículo o pronombre elidido ("l'homme" es "homme");</li>
+ *   <li>en: se descarta el posesivo ("Alice's" es "alice") y las contracciones se pegan ("dont");</li>
+ *   <li>de: ß es ss; ru, uk, be: ё es е;</li>
+ *   <li>zh, ja, ko: cada ideograma o sílaba es un término; las palabras se buscan como frase.</li>
+ * </ul>
+ * No se quitan palabras vacías: las frases las necesitan y BM25 ya les da poco peso.
+ * Los mismos analizadores se usan al indexar y al consultar.
+ */
+public final class TextAnalyzer {
+
+    // Tokens más largos son basura de OCR, tablas o URL
+    static final int MAX_TERM_LENGTH = 64;
+
+    private static final Set<String> ELISIONS = Set.of(
+            "l", "d", "j", "m", "n", "s", "t", "c", "qu", "lorsqu", "puisqu", "quoiqu", "jusqu",
+            "un", "dell", "all", "dall", "nell", "sull", "coll", "quell", "quest", "gl", "po");
+
+    // Letra latina o griega con diacríticos -> letra base, calculado una vez con NFD
+    private static final char[] FOLD = new char[0x400];
+
+    // ASCII en minúscula si es letra o dígito, 0 si corta el término: la mayoría del texto pasa por acá
+    private static final char[] ASCII = new char[0x80];
+
+    private static final Map<String, TextAnalyzer> BY_LANGUAGE = new ConcurrentHashMap<>();
+
+    static {
+        for (char c = 0; c < FOLD.length; c++) {
+            FOLD[c] = c;
+            if (c < 0xC0 || (c > 0x24F && c < 0x370)) {
+                continue;
+            }
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            if (base.length() == 1) {
+                FOLD[c] = base.charAt(0);
+            }
+        }
+        FOLD['ø'] = 'o';
+        FOLD['ł'] = 'l';
+        FOLD['đ'] = 'd';
+        FOLD['ς'] = 'σ';
+        for (char c = 0; c < ASCII.length; c++) {
+            ASCII[c] = Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+        }
+    }
+
+    @FunctionalInterface
+    public interface TokenSink {
+        void accept(String term);
+    }
+
+    private final String language;
+    private final boolean turkish;
+    private final boolean elision;
+    private final boolean possessive;
+    private final boolean cyrillicYo;
+    private final boolean cjk;
+
+    private TextAnalyzer(String language) {
+        this.language = language;
+        this.turkish = language.equals("tr") || language.equals("az");
+        this.elision = language.equals("fr") || language.equals("it") || language.equals("ca");
+        this.possessive = language.equals("en");
+        this.cyrillicYo = language.equals("ru") || language.equals("uk") || language.equals("be");
+        this.cjk = language.equals("zh") || language.equals("ja") || language.equals("ko");
+    }
+
+    /** El analizador del idioma; un código nulo o vacío usa las reglas generales. */
+    public static TextAnalyzer forLanguage(String code) {
+        String normalized = code == null ? "" : code.trim().toLowerCase(Locale.ROOT);
+        return BY_LANGUAGE.computeIfAbsent(normalized, TextAnalyzer::new);
+    }
+
+    public String getLanguage() { return language; }
+
+    /** Los términos del texto, en orden (para consultas). */
+    public List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, terms::add);
+        return terms;
+    }
+
+    public void analyze(CharSequence text, TokenSink sink) {
+        StringBuilder term = new StringBuilder(32);
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c < 0x80 && c != '\'' && !(turkish && c == 'I')) {
+                if (ASCII[c] != 0) {
+                    term.append(ASCII[c]);
+                } else {
+                    emit(term, sink);
+                }
+                i++;
+                continue;
+            }
+            int codePoint = Character.codePointAt(text, i);
+            int next = i + Character.charCount(codePoint);
+
+            if (cjk && isSyllabic(codePoint)) {
+                emit(term, sink);
+                sink.accept(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                append(term, codePoint);
+            } else if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                // Acento suelto de un texto ya descompuesto: se pliega igual que el compuesto
+            } else if ((codePoint == '\'' || codePoint == '’') && term.length() > 0
+                    && next < length && Character.isLetter(Character.codePointAt(text, next))) {
+                next = apostrophe(text, next, term, sink);
+            } else {
+                emit(term, sink);
+            }
+            i = next;
+        }
+        emit(term, sink);
+    }
+
+    // Devuelve dónde sigue el recorrido después del apóstrofo
+    private int apostrophe(CharSequence text, int next, StringBuilder term, TokenSink sink) {
+        if (elision) {
+            if (ELISIONS.contains(term.toString())) {
+                term.setLength(0);
+            } else {
+                emit(term, sink);
+            }
+            return next;
+        }
+        if (possessive) {
+            char c = text.charAt(next);
+            if ((c == 's' || c == 'S') && (next + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(next + 1)))) {
+                emit(term, sink);
+                return next + 1;
+            }
+            // Contracción: "don't" queda "dont"
+            return next;
+        }
+        emit(term, sink);
+        return next;
+    }
+
+    private void append(StringBuilder term, int codePoint) {
+        if (turkish && (codePoint == 'I' || codePoint == 'İ')) {
+            term.append(codePoint == 'I' ? 'ı' : 'i');
+            return;
+        }
+        int lower = Character.toLowerCase(codePoint);
+        if (lower >= FOLD.length) {
+            if (cyrillicYo && lower == 'ё') {
+                lower = 'е';
+            }
+            term.appendCodePoint(lower);
+            return;
+        }
+        char c = (char) lower;
+        switch (c) {
+            case 'ß': term.append("ss"); return;
+            case 'æ': term.append("ae"); return;
+            case 'œ': term.append("oe"); return;
+            default: term.append(FOLD[c]);
+        }
+    }
+
+    private static void emit(StringBuilder term, TokenSink sink) {
+        if (term.length() == 0) {
+            return;
+        }
+        if (term.length() <= MAX_TERM_LENGTH) {
+            sink.accept(term.toString());
+        }
+        term.setLength(0);
+    }
+
+    private static boolean isSyllabic(int codePoint) {
+        if (Character.isIdeographic(codePoint)) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
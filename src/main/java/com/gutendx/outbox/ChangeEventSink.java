@@ -0,0 +1,20 @@
+package com.gutendx.outbox;
+
+import com.gutendx.entity.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destino de los eventos del outbox. Recibe lotes en orden de id y tiene que devolver recién
+ * cuando el lote quedó a salvo del otro lado: ahí OutboxRelay avanza la posición. Si falla,
+ * el mismo lote se vuelve a entregar más tarde; también después de una caída entre la entrega
+ * y el avance, así que el destino tiene que tolerar eventos repetidos (el id los identifica).
+ */
+public interface ChangeEventSink {
+
+    // La posición se guarda en sync_state como "outbox:" + name(); no cambiarlo una vez en uso
+    String name();
+
+    void deliver(List<OutboxEvent> events) throws IOException;
+}
@@ -0,0 +1,31 @@
+package com.gutendx.outbox;
+
+import com.gutendx.entity.OutboxEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Los eventos como JSON Lines, una línea por evento:
+ * {"id":1,"type":"BOOK_CREATED","aggregate":"BOOK","aggregate_id":7,"created_at":"...","payload":{...}}.
+ * El payload ya está en JSON y se copia tal cual, sin volver a parsearlo; los demás campos son
+ * números, nombres de enum y fechas ISO, que no necesitan escaparse.
+ */
+final class ChangeEvents {
+
+    private ChangeEvents() {}
+
+    static byte[] toJsonLines(List<OutboxEvent> events) {
+        StringBuilder out = new StringBuilder(events.size() * 256);
+        for (OutboxEvent event : events) {
+            out.append("{\"id\":").append(event.getId())
+                    .append(",\"type\":\"").append(event.getType().name())
+                    .append("\",\"aggregate\":\"").append(event.getAggregateType().name())
+                    .append("\",\"aggregate_id\":").append(event.getAggregateId())
+                    .append(",\"created_at\":\"").append(event.getCreatedAt())
+                    .append("\",\"payload\":").append(event.getPayload())
+                    .append("}\n");
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
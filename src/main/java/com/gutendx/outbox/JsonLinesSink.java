@@ -0,0 +1,71 @@
+package com.gutendx.outbox;
+
+import com.gutendx.entity.OutboxEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Agrega cada lote al final de un archivo JSON Lines y lo fuerza a disco antes de devolver:
+ * un fsync por lote, no por evento. Un lote reintentado queda repetido en el archivo.
+ */
+public class JsonLinesSink implements ChangeEventSink, Closeable {
+
+    private final String name;
+    private final Path file;
+    private FileChannel channel;
+
+    public JsonLinesSink(String name, Path file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void deliver(List<OutboxEvent> events) throws IOException {
+        if (channel == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(ChangeEvents.toJsonLines(events));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Se reabre en el próximo intento
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            try {
+                channel.close();
+            } finally {
+                channel = null;
+            }
+        }
+    }
+}
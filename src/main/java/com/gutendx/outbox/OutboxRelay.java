@@ -0,0 +1,306 @@
+package com.gutendx.outbox;
+
+import com.gutendx.entity.OutboxEvent;
+import com.gutendx.entity.OutboxGap;
+import com.gutendx.entity.SyncState;
+import com.gutendx.repository.OutboxEventRepository;
+import com.gutendx.repository.OutboxGapRepository;
+import com.gutendx.repository.SyncStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega el outbox a cada {@link ChangeEventSink} en lotes y en orden de id, con una posición
+ * por destino en sync_state ("outbox:<destino>"). La posición avanza recién después de que el
+ * destino confirma el lote: al menos una vez, nunca se saltea un evento confirmado.
+ * <p>
+ * Los ids salen de una secuencia al insertar pero se ven al confirmar, así que un id más alto
+ * puede aparecer antes que uno más bajo cuya transacción sigue abierta. Un lote termina en el
+ * primer hueco; si el hueco sigue ahí después de gap-timeout-ms se da por transacción revertida
+ * y se sigue, pero esos ids se vigilan durante late-window-ms: si aparecen, se entregan tarde y
+ * fuera de orden. Los huecos vigilados se guardan como rangos en outbox_gap junto con la
+ * posición, así que un reinicio los retoma y un salto grande de la secuencia cuesta una fila.
+ * <p>
+ * Un solo relay por destino (gutendx.outbox.relay-enabled en una instancia): dos a la vez
+ * entregan todo dos veces.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final String STATE_PREFIX = "outbox:";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxGapRepository outboxGapRepository;
+
+    @Autowired
+    private SyncStateRepository syncStateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private List<ChangeEventSink> sinks = List.of();
+
+    @Value("${gutendx.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${gutendx.outbox.gap-timeout-ms:10000}")
+    private long gapTimeoutMs;
+
+    @Value("${gutendx.outbox.late-window-ms:600000}")
+    private long lateWindowMs;
+
+    @Value("${gutendx.outbox.cleanup:true}")
+    private boolean cleanup;
+
+    private final Map<String, Cursor> cursors = new TreeMap<>();
+
+    private long deletedUpTo;
+
+    // Posición de un destino y los huecos que se están esperando o vigilando
+    private static final class Cursor {
+        long offset;
+        long gapId;
+        long gapSince;
+        // Primer id -> hueco vigilado; lo mismo que hay en outbox_gap para el destino
+        final TreeMap<Long, Gap> late = new TreeMap<>();
+        boolean lateChanged;
+
+        Cursor(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    // Ids first a last, vigilados hasta until
+    private record Gap(long first, long last, LocalDateTime until) {}
+
+    public List<ChangeEventSink> getSinks() {
+        return sinks;
+    }
+
+    /**
+     * Una pasada por todos los destinos hasta alcanzar el final del outbox o el primer hueco
+     * reciente; después borra lo que ya entregaron todos.
+     */
+    public synchronized List<RelayReport> drain() {
+        List<RelayReport> reports = new ArrayList<>();
+        for (ChangeEventSink sink : sinks) {
+            RelayReport report = drain(sink);
+            reports.add(report);
+            if (report.delivered() > 0 || report.error() != null) {
+                logger.info("Outbox {}", report);
+            }
+        }
+        if (cleanup && !sinks.isEmpty()) {
+            deleteDelivered();
+        }
+        return reports;
+    }
+
+    private RelayReport drain(ChangeEventSink sink) {
+        long started = System.nanoTime();
+        Cursor cursor = cursor(sink);
+        long delivered = 0;
+        long lateDelivered = 0;
+        int batches = 0;
+        String error = null;
+        try {
+            lateDelivered = deliverLate(sink, cursor);
+            while (true) {
+                long after = cursor.offset;
+                List<OutboxEvent> events = readOnly().execute(status ->
+                        outboxEventRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize)));
+                List<OutboxEvent> ready = contiguous(cursor, events);
+                if (ready.isEmpty()) {
+                    break;
+                }
+                sink.deliver(ready);
+                // Los huecos saltados se guardan con la posición que los deja atrás
+                saveOffset(sink, cursor, ready.get(ready.size() - 1).getId());
+                cursor.offset = ready.get(ready.size() - 1).getId();
+                delivered += ready.size();
+                batches++;
+                if (ready.size() < events.size() || events.size() < batchSize) {
+                    // Un hueco reciente o el final del outbox
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            logger.warn("Outbox {}: entrega fallida después de la posición {}: {}", sink.name(), cursor.offset,
+                    e.getMessage());
+        }
+        long pending = Math.max(0, outboxEventRepository.findMaxId() - cursor.offset);
+        return new RelayReport(sink.name(), delivered + lateDelivered, batches, lateDelivered, cursor.offset, pending,
+                error, System.nanoTime() - started);
+    }
+
+    // El prefijo del lote sin huecos desde la posición; salta los huecos vencidos
+    private List<OutboxEvent> contiguous(Cursor cursor, List<OutboxEvent> events) {
+        long expected = cursor.offset + 1;
+        long now = System.nanoTime();
+        int ready = 0;
+        for (OutboxEvent event : events) {
+            long id = event.getId();
+            if (id != expected) {
+                if (cursor.gapId != expected) {
+                    cursor.gapId = expected;
+                    cursor.gapSince = now;
+                }
+                if (now - cursor.gapSince < TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs)) {
+                    break;
+                }
+                logger.warn("Outbox: ids {}-{} sin confirmar después de {} ms; se siguen vigilando", expected, id - 1,
+                        gapTimeoutMs);
+                cursor.late.put(expected, new Gap(expected, id - 1,
+                        LocalDateTime.now().plus(lateWindowMs, ChronoUnit.MILLIS)));
+                cursor.lateChanged = true;
+                cursor.gapId = 0;
+            }
+            ready++;
+            expected = id + 1;
+        }
+        return events.subList(0, ready);
+    }
+
+    // Los ids de huecos vencidos que terminaron confirmándose, fuera de orden
+    private long deliverLate(ChangeEventSink sink, Cursor cursor) throws IOException {
+        if (cursor.late.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        cursor.lateChanged |= cursor.late.values().removeIf(gap -> gap.until().isBefore(now));
+        long delivered = 0;
+        for (Gap gap : new ArrayList<>(cursor.late.values())) {
+            long after = gap.first() - 1;
+            while (true) {
+                long from = after;
+                List<OutboxEvent> events = readOnly().execute(status -> outboxEventRepository
+                        .findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(from, gap.last(), Limit.of(batchSize)));
+                if (events.isEmpty()) {
+                    break;
+                }
+                sink.deliver(events);
+                delivered += events.size();
+                // Lo entregado sale del hueco: quedan los tramos entre un evento y el siguiente
+                for (OutboxEvent event : events) {
+                    long id = event.getId();
+                    Gap current = cursor.late.floorEntry(id).getValue();
+                    cursor.late.remove(current.first());
+                    if (current.first() < id) {
+                        cursor.late.put(current.first(), new Gap(current.first(), id - 1, current.until()));
+                    }
+                    if (id < current.last()) {
+                        cursor.late.put(id + 1, new Gap(id + 1, current.last(), current.until()));
+                    }
+                }
+                cursor.lateChanged = true;
+                saveGaps(sink, cursor);
+                if (events.size() < batchSize) {
+                    break;
+                }
+                after = events.get(events.size() - 1).getId();
+            }
+        }
+        if (cursor.lateChanged) {
+            saveGaps(sink, cursor);
+        }
+        return delivered;
+    }
+
+    private Cursor cursor(ChangeEventSink sink) {
+        return cursors.computeIfAbsent(sink.name(), name -> new TransactionTemplate(transactionManager).execute(status -> {
+            String stateName = STATE_PREFIX + name;
+            if (syncStateRepository.insertIfAbsent(stateName) > 0) {
+                // Destino nuevo: recibe todo lo que quede en el outbox, aunque ya se haya limpiado una parte
+                SyncState state = syncStateRepository.findForUpdate(stateName).orElseThrow();
+                state.setHighWaterMark(Math.max(0, outboxEventRepository.findMinId() - 1));
+                syncStateRepository.save(state);
+                logger.info("Outbox {}: destino nuevo, desde el id {}", name, state.getHighWaterMark() + 1);
+            }
+            Cursor cursor = new Cursor(syncStateRepository.findById(stateName).orElseThrow().getHighWaterMark());
+            // Los huecos que se vigilaban antes de reiniciar
+            for (OutboxGap gap : outboxGapRepository.findBySinkOrderByFirstIdAsc(name)) {
+                cursor.late.put(gap.getFirstId(), new Gap(gap.getFirstId(), gap.getLastId(), gap.getWatchUntil()));
+            }
+            if (!cursor.late.isEmpty()) {
+                logger.info("Outbox {}: {} huecos vigilados desde antes del reinicio, desde el id {}", name,
+                        cursor.late.size(), cursor.late.firstKey());
+            }
+            return cursor;
+        }));
+    }
+
+    private void saveOffset(ChangeEventSink sink, Cursor cursor, long offset) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            SyncState state = syncStateRepository.findForUpdate(STATE_PREFIX + sink.name()).orElseThrow();
+            // Nunca hacia atrás, aunque haya otro relay entregando lo mismo
+            state.setHighWaterMark(Math.max(state.getHighWaterMark(), offset));
+            if (cursor.lateChanged) {
+                writeGaps(sink, cursor);
+            }
+        });
+        cursor.lateChanged = false;
+    }
+
+    private void saveGaps(ChangeEventSink sink, Cursor cursor) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writeGaps(sink, cursor));
+        cursor.lateChanged = false;
+    }
+
+    private void writeGaps(ChangeEventSink sink, Cursor cursor) {
+        outboxGapRepository.deleteBySink(sink.name());
+        List<OutboxGap> rows = new ArrayList<>(cursor.late.size());
+        for (Gap gap : cursor.late.values()) {
+            rows.add(new OutboxGap(sink.name(), gap.first(), gap.last(), gap.until()));
+        }
+        outboxGapRepository.saveAll(rows);
+    }
+
+    // Hasta la posición más atrasada, sin tocar los ids que algún destino todavía vigila
+    private void deleteDelivered() {
+        long upTo = Long.MAX_VALUE;
+        for (ChangeEventSink sink : sinks) {
+            Cursor cursor = cursors.get(sink.name());
+            if (cursor == null) {
+                return;
+            }
+            upTo = Math.min(upTo, cursor.late.isEmpty() ? cursor.offset : cursor.late.firstKey() - 1);
+        }
+        long bound = upTo;
+        if (bound > deletedUpTo) {
+            int deleted = new TransactionTemplate(transactionManager).execute(status ->
+                    outboxEventRepository.deleteUpTo(bound));
+            if (deleted > 0) {
+                logger.debug("Outbox: {} eventos entregados borrados", deleted);
+            }
+            deletedUpTo = bound;
+        }
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,22 @@
+package com.gutendx.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "gutendx.outbox.relay-enabled", havingValue = "true")
+@Lazy(false) // @Scheduled solo se registra si el bean se crea
+public class OutboxRelayScheduler {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    // fixedDelay: la pasada siguiente empieza cuando termina la anterior
+    @Scheduled(fixedDelayString = "${gutendx.outbox.poll-ms:1000}")
+    public void drain() {
+        outboxRelay.drain();
+    }
+}
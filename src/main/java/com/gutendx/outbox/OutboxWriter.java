@@ -0,0 +1,94 @@
+package com.gutendx.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.entity.Facet;
+import com.gutendx.entity.Language;
+import com.gutendx.entity.OutboxEvent;
+import com.gutendx.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+
+/**
+ * Agrega al outbox el estado de un libro o autor recién guardado. Exige una transacción en
+ * curso: el evento se confirma o se revierte junto con el cambio que describe, así un destino
+ * nunca ve un libro que no quedó guardado ni se pierde uno que sí.
+ */
+@Component
+public class OutboxWriter {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Value("${gutendx.outbox.enabled:false}")
+    private boolean enabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookSaved(Book book, boolean created) {
+        if (!enabled) {
+            return;
+        }
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("id", book.getId());
+        payload.put("gutendx_id", book.getGutendxBookId());
+        payload.put("title", book.getTitle());
+        payload.put("language", book.getLanguageCode());
+        ArrayNode languages = payload.putArray("languages");
+        book.getLanguages().stream().map(Language::getCode).sorted().forEach(languages::add);
+        payload.put("download_count", book.getDownloadCount());
+        ArrayNode authors = payload.putArray("authors");
+        book.getAuthors().stream().sorted(Comparator.comparing(Author::getId)).forEach(author ->
+                authors.addObject().put("id", author.getId()).put("name", author.getGutendxAuthorName()));
+        ArrayNode subjects = payload.putArray("subjects");
+        ArrayNode bookshelves = payload.putArray("bookshelves");
+        book.getFacets().stream().sorted(Comparator.comparing(Facet::getName)).forEach(facet ->
+                (facet.getKind() == Facet.Kind.SUBJECT ? subjects : bookshelves).add(facet.getName()));
+        payload.put("content_hash", book.getContentHash());
+        append(created ? OutboxEvent.Type.BOOK_CREATED : OutboxEvent.Type.BOOK_UPDATED, book.getId(), payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void authorSaved(Author author, boolean created) {
+        authorSaved(author.getId(), author.getGutendxAuthorName(), author.getBirthYear(), author.getDeathYear(), created);
+    }
+
+    /**
+     * Para los autores que se actualizan con UPDATE directo (la entidad en memoria no se entera).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void authorSaved(Long id, String name, Integer birthYear, Integer deathYear, boolean created) {
+        if (!enabled) {
+            return;
+        }
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("id", id);
+        payload.put("name", name);
+        payload.put("birth_year", birthYear);
+        payload.put("death_year", deathYear);
+        append(created ? OutboxEvent.Type.AUTHOR_CREATED : OutboxEvent.Type.AUTHOR_UPDATED, id, payload);
+    }
+
+    private void append(OutboxEvent.Type type, Long aggregateId, ObjectNode payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(type, aggregateId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            // Sólo strings y números: no debería pasar
+            throw new IllegalStateException("No se pudo serializar el evento " + type, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.gutendx.outbox;
+
+/**
+ * Resultado de una pasada del relay por un destino. error es null si la pasada terminó sin
+ * fallos; si no, la posición quedó en el último lote entregado y el resto se reintenta.
+ */
+public record RelayReport(String sink, long delivered, int batches, long lateDelivered, long offset, long pending,
+                          String error, long elapsedNanos) {
+
+    public double eventsPerSecond() {
+        return delivered * 1e9 / Math.max(1, elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d eventos en %d lotes (%d tardíos), posición %d, %d pendientes, %d ms (%.0f eventos/s)%s",
+                sink, delivered, batches, lateDelivered, offset, pending, elapsedNanos / 1_000_000, eventsPerSecond(),
+                error != null ? "; error: " + error : "");
+    }
+}
@@ -0,0 +1,56 @@
+package com.gutendx.outbox;
+
+import com.gutendx.entity.OutboxEvent;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Envía cada lote en un POST con el cuerpo en JSON Lines (application/x-ndjson) y el rango de
+ * ids en las cabeceras X-Outbox-First-Id y X-Outbox-Last-Id. Cualquier respuesta que no sea
+ * 2xx, o un timeout, cuenta como fallo y el lote se reintenta.
+ */
+public class WebhookSink implements ChangeEventSink {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final String name;
+    private final URI url;
+    private final RestTemplate restTemplate;
+
+    public WebhookSink(String name, URI url, int timeoutMs) {
+        this.name = name;
+        this.url = url;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(NDJSON);
+        headers.set("X-Outbox-First-Id", String.valueOf(events.get(0).getId()));
+        headers.set("X-Outbox-Last-Id", String.valueOf(events.get(events.size() - 1).getId()));
+        try {
+            restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(ChangeEvents.toJsonLines(events), headers),
+                    Void.class);
+        } catch (RestClientException e) {
+            throw new IOException("Webhook " + url + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Un GET a Gutendx: desde que sale el pedido hasta tener el cuerpo en bytes, sin convertirlo. */
+@Name("gutendx.ApiCall")
+@Label("Llamada a Gutendx")
+@Category({"Gutendx", "API"})
+@Description("Pedido HTTP a la API de Gutendx")
+@StackTrace(false)
+public class ApiCallEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Estado HTTP")
+    public int status;
+
+    @Label("Cuerpo")
+    @DataAmount
+    public long bytes;
+}
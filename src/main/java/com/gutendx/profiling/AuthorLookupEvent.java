@@ -0,0 +1,23 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Búsqueda o alta de un autor al guardar un libro (BookService.findOrCreateAuthor y upsertAuthors). */
+@Name("gutendx.AuthorLookup")
+@Label("Búsqueda de autor")
+@Category({"Gutendx", "Persistencia"})
+@StackTrace(false)
+public class AuthorLookupEvent extends jdk.jfr.Event {
+
+    public static final String FOUND = "existente";
+    public static final String CREATED = "nuevo";
+
+    @Label("Clave")
+    public String nameKey;
+
+    @Label("Resultado")
+    public String outcome;
+}
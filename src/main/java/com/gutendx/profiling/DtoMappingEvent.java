@@ -0,0 +1,36 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Conversión de datos de Gutendx: del JSON a los DTO ("json") y de un DTO a la entidad que se
+ * guarda ("entidad").
+ */
+@Name("gutendx.DtoMapping")
+@Label("Mapeo de DTO")
+@Category({"Gutendx", "Mapeo"})
+@Description("JSON a DTO o DTO a entidad")
+@StackTrace(false)
+public class DtoMappingEvent extends jdk.jfr.Event {
+
+    public static final String JSON = "json";
+    public static final String ENTITY = "entidad";
+
+    @Label("Etapa")
+    public String stage;
+
+    @Label("Tipo")
+    public String type;
+
+    @Label("Entrada")
+    @DataAmount
+    public long bytes;
+
+    @Label("Elementos")
+    public int items;
+}
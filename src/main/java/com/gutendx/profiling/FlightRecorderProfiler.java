@@ -0,0 +1,95 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Arranca y detiene una grabación de JDK Flight Recorder con los eventos de Gutendx y
+ * muestreo de CPU, y al detenerla resume dónde se fue el tiempo ({@link ProfileReport}).
+ * Hay una sola grabación a la vez; el archivo .jfr queda para abrirlo en JDK Mission Control.
+ */
+@Component
+public class FlightRecorderProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderProfiler.class);
+
+    static final List<Class<? extends Event>> EVENTS = List.of(ApiCallEvent.class, DtoMappingEvent.class,
+            RepositoryCallEvent.class, SqlStatementEvent.class, FlushEvent.class, TransactionEvent.class,
+            AuthorLookupEvent.class);
+
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'gutendx-'yyyyMMdd-HHmmss'.jfr'");
+
+    @Value("${gutendx.profiling.dir:./data/profiles}")
+    private String directory;
+
+    @Value("${gutendx.profiling.sample-ms:10}")
+    private long samplePeriodMillis;
+
+    @Value("${gutendx.profiling.top:15}")
+    private int top;
+
+    private Recording recording;
+
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * @throws IllegalStateException si ya hay una grabación en curso
+     */
+    public synchronized void start() {
+        if (recording != null) {
+            throw new IllegalStateException("Ya hay una grabación en curso");
+        }
+        Recording started = new Recording();
+        started.setName("gutendx");
+        for (Class<? extends Event> type : EVENTS) {
+            started.enable(type).withThreshold(Duration.ZERO);
+        }
+        started.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(samplePeriodMillis));
+        started.setToDisk(true);
+        started.start();
+        recording = started;
+        logger.info("Grabación JFR iniciada");
+    }
+
+    /**
+     * Detiene la grabación, la guarda en destination (o en gutendx.profiling.dir si es null) y
+     * devuelve el resumen.
+     *
+     * @throws IllegalStateException si no hay una grabación en curso
+     */
+    public synchronized ProfileReport stop(Path destination) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No hay una grabación en curso");
+        }
+        Recording stopped = recording;
+        recording = null;
+        try {
+            stopped.stop();
+            Path file = destination != null ? destination
+                    : Paths.get(directory).resolve(LocalDateTime.now().format(FILE_NAME));
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            stopped.dump(file);
+            logger.info("Grabación JFR guardada en {}", file);
+            return ProfileReport.read(file, top);
+        } finally {
+            stopped.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flush de una sesión de Hibernate: revisión de entidades sucias y escritura de los cambios. */
+@Name("gutendx.Flush")
+@Label("Flush de Hibernate")
+@Category({"Gutendx", "Persistencia"})
+@StackTrace(false)
+public class FlushEvent extends jdk.jfr.Event {
+
+    @Label("Entidades")
+    public int entities;
+
+    @Label("Colecciones")
+    public int collections;
+
+    @Label("Parcial")
+    public boolean partial;
+}
@@ -0,0 +1,122 @@
+package com.gutendx.profiling;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Emite {@link SqlStatementEvent} y {@link FlushEvent} desde los avisos que Hibernate da a cada
+ * sesión (hibernate.session.events.auto: una instancia por sesión, usada desde un solo hilo).
+ * El texto de la sentencia lo anota {@link Inspector} al prepararla, justo antes de ejecutarla.
+ */
+public class HibernateSessionEvents implements SessionEventListener {
+
+    private static final int MAX_SQL_LENGTH = 500;
+
+    private static final ThreadLocal<String> preparedSql = new ThreadLocal<>();
+
+    private transient SqlStatementEvent statement;
+
+    private transient FlushEvent flush;
+
+    /** Guarda el SQL que se va a preparar, sólo si hay una grabación que pida sentencias. */
+    public static class Inspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            if (new SqlStatementEvent().isEnabled()) {
+                preparedSql.set(sql);
+            }
+            return sql;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        beginStatement();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        endStatement(false);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        beginStatement();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        endStatement(true);
+    }
+
+    @Override
+    public void flushStart() {
+        beginFlush();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        endFlush(numberOfEntities, numberOfCollections, false);
+    }
+
+    @Override
+    public void partialFlushStart() {
+        beginFlush();
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        endFlush(numberOfEntities, numberOfCollections, true);
+    }
+
+    private void beginStatement() {
+        SqlStatementEvent event = new SqlStatementEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            statement = event;
+        }
+    }
+
+    private void endStatement(boolean batch) {
+        SqlStatementEvent event = statement;
+        if (event == null) {
+            return;
+        }
+        statement = null;
+        event.end();
+        if (event.shouldCommit()) {
+            String sql = preparedSql.get();
+            if (sql != null) {
+                sql = sql.replaceAll("\\s+", " ").trim();
+                event.sql = sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "…" : sql;
+            }
+            event.batch = batch;
+            event.commit();
+        }
+        preparedSql.remove();
+    }
+
+    private void beginFlush() {
+        FlushEvent event = new FlushEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            flush = event;
+        }
+    }
+
+    private void endFlush(int entities, int collections, boolean partial) {
+        FlushEvent event = flush;
+        if (event == null) {
+            return;
+        }
+        flush = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.entities = entities;
+            event.collections = collections;
+            event.partial = partial;
+            event.commit();
+        }
+    }
+}
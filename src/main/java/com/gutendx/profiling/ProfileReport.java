@@ -0,0 +1,174 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen de una grabación: los eventos de Gutendx agrupados por lo que hicieron (qué
+ * repositorio y método, qué sentencia, qué transacción), ordenados por tiempo total, y los
+ * métodos propios que más aparecen en las muestras de CPU. Los tiempos son inclusivos: una
+ * transacción incluye sus consultas, y una consulta su SQL.
+ */
+public record ProfileReport(Path file, Duration recorded, long events, List<HotPath> paths, long samples,
+                            List<HotMethod> methods) {
+
+    private static final String PACKAGE = "com.gutendx.";
+
+    public record HotPath(String name, long count, long totalNanos, long maxNanos, long rows, long bytes) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d veces, %.1f ms (máx %.1f ms)%s%s", name, count, totalNanos / 1e6,
+                    maxNanos / 1e6, rows > 0 ? ", " + rows + " filas" : "",
+                    bytes > 0 ? ", " + bytes / 1024 + " KB" : "");
+        }
+    }
+
+    public record HotMethod(String method, long samples, double percent) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d muestras (%.1f%%)", method, samples, percent);
+        }
+    }
+
+    private static final class Totals {
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long rows;
+        long bytes;
+
+        void add(long nanos, long rows, long bytes) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.rows += Math.max(rows, 0);
+            this.bytes += bytes;
+        }
+    }
+
+    public static ProfileReport read(Path file, int top) throws IOException {
+        Map<String, Totals> paths = new HashMap<>();
+        Map<String, Long> methods = new HashMap<>();
+        long events = 0;
+        long samples = 0;
+        Instant first = null;
+        Instant last = null;
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            String type = event.getEventType().getName();
+            if (type.equals("jdk.ExecutionSample")) {
+                samples++;
+                String method = firstOwnFrame(event.getStackTrace());
+                if (method != null) {
+                    methods.merge(method, 1L, Long::sum);
+                }
+                continue;
+            }
+            if (!type.startsWith("gutendx.")) {
+                continue;
+            }
+
+            events++;
+            first = first == null || event.getStartTime().isBefore(first) ? event.getStartTime() : first;
+            last = last == null || event.getEndTime().isAfter(last) ? event.getEndTime() : last;
+            long nanos = event.getDuration().toNanos();
+            switch (type) {
+                case "gutendx.ApiCall" -> total(paths, "API " + URI.create(event.getString("url")).getPath()
+                        + " (" + event.getInt("status") + ")").add(nanos, 0, event.getLong("bytes"));
+                case "gutendx.DtoMapping" -> total(paths, "Mapeo " + event.getString("stage") + " "
+                        + event.getString("type")).add(nanos, event.getInt("items"), event.getLong("bytes"));
+                case "gutendx.RepositoryCall" -> total(paths, "Repositorio " + event.getString("repository") + "."
+                        + event.getString("method")).add(nanos, event.getLong("rows"), 0);
+                case "gutendx.SqlStatement" -> total(paths, (event.getBoolean("batch") ? "SQL (lote) " : "SQL ")
+                        + abbreviate(event.getString("sql"))).add(nanos, 0, 0);
+                case "gutendx.Flush" -> total(paths, event.getBoolean("partial") ? "Flush parcial" : "Flush")
+                        .add(nanos, event.getInt("entities"), 0);
+                case "gutendx.Transaction" -> {
+                    String name = event.getString("name");
+                    total(paths, "Transacción " + name + " (" + event.getString("outcome") + ")").add(nanos, 0, 0);
+                    if (TransactionEvent.COMMIT.equals(event.getString("outcome"))) {
+                        total(paths, "Commit " + name).add(event.getLong("commitNanos"), 0, 0);
+                    }
+                }
+                case "gutendx.AuthorLookup" -> total(paths, "Autor " + event.getString("outcome")).add(nanos, 0, 0);
+                default -> { }
+            }
+        }
+
+        List<HotPath> hotPaths = paths.entrySet().stream()
+                .map(e -> new HotPath(e.getKey(), e.getValue().count, e.getValue().totalNanos, e.getValue().maxNanos,
+                        e.getValue().rows, e.getValue().bytes))
+                .sorted(Comparator.comparingLong(HotPath::totalNanos).reversed().thenComparing(HotPath::name))
+                .limit(top)
+                .toList();
+        long totalSamples = samples;
+        List<HotMethod> hotMethods = methods.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(top)
+                .map(e -> new HotMethod(e.getKey(), e.getValue(), 100.0 * e.getValue() / totalSamples))
+                .toList();
+        Duration recorded = first == null ? Duration.ZERO : Duration.between(first, last);
+        return new ProfileReport(file, recorded, events, hotPaths, samples, hotMethods);
+    }
+
+    /** El resumen en líneas de texto, para la consola o para la salida batch. */
+    public List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Grabación %s: %d eventos en %.1f s, %d muestras de CPU", file, events,
+                recorded.toNanos() / 1e9, samples));
+        if (!paths.isEmpty()) {
+            lines.add("Caminos calientes (tiempo inclusivo):");
+            paths.forEach(path -> lines.add("  " + path));
+        }
+        if (!methods.isEmpty()) {
+            lines.add("Métodos propios más muestreados:");
+            methods.forEach(method -> lines.add("  " + method));
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), lines());
+    }
+
+    private static Totals total(Map<String, Totals> paths, String name) {
+        return paths.computeIfAbsent(name, key -> new Totals());
+    }
+
+    // El primer marco de código propio, contando desde la cima de la pila
+    private static String firstOwnFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(PACKAGE) && !type.startsWith(PACKAGE + "profiling.")) {
+                return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+            }
+        }
+        return null;
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) {
+            return "(sin texto)";
+        }
+        return sql.length() > 120 ? sql.substring(0, 120) + "…" : sql;
+    }
+}
@@ -0,0 +1,29 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Un método de un repositorio de Spring Data, con su consulta y cuántas filas devolvió o tocó. */
+@Name("gutendx.RepositoryCall")
+@Label("Llamada a repositorio")
+@Category({"Gutendx", "Persistencia"})
+@Description("Método de repositorio JPA")
+@StackTrace(false)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Repositorio")
+    public String repository;
+
+    @Label("Método")
+    public String method;
+
+    @Label("Consulta")
+    public String query;
+
+    @Label("Filas")
+    @Description("Elementos devueltos o filas modificadas; -1 si es un Stream")
+    public long rows;
+}
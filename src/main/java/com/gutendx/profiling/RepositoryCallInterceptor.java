@@ -0,0 +1,91 @@
+package com.gutendx.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+
+/**
+ * Envuelve cada método de un repositorio en un {@link RepositoryCallEvent}. Sin una grabación
+ * que lo pida, sólo cuesta la consulta a isEnabled().
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+    private static final int MAX_QUERY_LENGTH = 500;
+
+    private final String repository;
+
+    // La consulta declarada de cada método, resuelta una sola vez
+    private final Map<Method, String> queries = new ConcurrentHashMap<>();
+
+    public RepositoryCallInterceptor(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+
+        event.begin();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Method method = invocation.getMethod();
+                event.repository = repository;
+                event.method = method.getName();
+                event.query = queries.computeIfAbsent(method, RepositoryCallInterceptor::queryOf);
+                event.rows = rows(method, result);
+                event.commit();
+            }
+        }
+    }
+
+    private static String queryOf(Method method) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query == null || query.value().isEmpty()) {
+            // Consulta derivada del nombre o método de CrudRepository
+            return method.getName();
+        }
+        String text = query.value().replaceAll("\\s+", " ").trim();
+        return text.length() > MAX_QUERY_LENGTH ? text.substring(0, MAX_QUERY_LENGTH) + "…" : text;
+    }
+
+    private static long rows(Method method, Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof BaseStream<?, ?>) {
+            // Se consume después de volver: no se sabe cuántas filas trae
+            return -1;
+        }
+        if (result instanceof Number number && AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+            return number.longValue();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,20 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Ejecución JDBC de una sentencia (o de un lote) generada por Hibernate. */
+@Name("gutendx.SqlStatement")
+@Label("Sentencia SQL")
+@Category({"Gutendx", "Persistencia"})
+@StackTrace(false)
+public class SqlStatementEvent extends jdk.jfr.Event {
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Lote")
+    public boolean batch;
+}
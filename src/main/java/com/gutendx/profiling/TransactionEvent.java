@@ -0,0 +1,31 @@
+package com.gutendx.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** Una transacción de Spring de principio a fin; el commit se mide aparte. */
+@Name("gutendx.Transaction")
+@Label("Transacción")
+@Category({"Gutendx", "Persistencia"})
+@StackTrace(false)
+public class TransactionEvent extends jdk.jfr.Event {
+
+    public static final String COMMIT = "commit";
+    public static final String ROLLBACK = "rollback";
+
+    @Label("Nombre")
+    public String name;
+
+    @Label("Solo lectura")
+    public boolean readOnly;
+
+    @Label("Resultado")
+    public String outcome;
+
+    @Label("Duración del commit")
+    @Timespan
+    public long commitNanos;
+}
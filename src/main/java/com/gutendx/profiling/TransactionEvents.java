@@ -0,0 +1,91 @@
+package com.gutendx.profiling;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Emite un {@link TransactionEvent} por transacción nueva (las que sólo se suman a otra no
+ * pasan por acá). Las REQUIRES_NEW se anidan en el mismo hilo, de ahí la pila.
+ */
+public class TransactionEvents implements TransactionExecutionListener {
+
+    private record Open(TransactionExecution transaction, TransactionEvent event, long[] commitStarted) {}
+
+    private final ThreadLocal<Deque<Open>> open = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        TransactionEvent event = new TransactionEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            open.get().push(new Open(transaction, event, new long[1]));
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null) {
+            pop(transaction);
+        }
+    }
+
+    @Override
+    public void beforeCommit(TransactionExecution transaction) {
+        Open current = open.get().peek();
+        if (current != null && current.transaction() == transaction) {
+            current.commitStarted()[0] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        Open current = pop(transaction);
+        if (current != null) {
+            long commitNanos = System.nanoTime() - current.commitStarted()[0];
+            commit(current, commitFailure == null ? TransactionEvent.COMMIT : TransactionEvent.ROLLBACK, commitNanos);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        Open current = pop(transaction);
+        if (current != null) {
+            commit(current, TransactionEvent.ROLLBACK, 0);
+        }
+    }
+
+    // Una grabación que empezó con la transacción ya abierta no la encuentra en la pila
+    private Open pop(TransactionExecution transaction) {
+        Deque<Open> stack = open.get();
+        Open current = stack.peek();
+        if (current == null || current.transaction() != transaction) {
+            return null;
+        }
+        return stack.pop();
+    }
+
+    private static void commit(Open current, String outcome, long commitNanos) {
+        TransactionEvent event = current.event();
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = shortName(current.transaction().getTransactionName());
+            event.readOnly = current.transaction().isReadOnly();
+            event.outcome = outcome;
+            event.commitNanos = commitNanos;
+            event.commit();
+        }
+    }
+
+    // "com.gutendx.service.BookService.getAllAuthors" -> "BookService.getAllAuthors"
+    private static String shortName(String name) {
+        if (name == null || name.isEmpty()) {
+            return "(TransactionTemplate)";
+        }
+        int method = name.lastIndexOf('.');
+        int type = method > 0 ? name.lastIndexOf('.', method - 1) : -1;
+        return type >= 0 ? name.substring(type + 1) : name;
+    }
+}
@@ -0,0 +1,9 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.Asset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AssetRepository extends JpaRepository<Asset, String> {
+}
@@ -1,25 +1,89 @@
 package com.gutendx.repository;
 
 import com.gutendx.entity.Author;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
 
     Optional<Author> findByGutendxAuthorName(String gutendxAuthorName);
 
+    Optional<Author> findByNameKey(String nameKey);
+
     List<Author> findAllByOrderByLastNameAsc();
 
+    List<Author> findByNameKeyIn(Collection<String> nameKeys);
+
+    // Alta concurrente entre instancias: si otra ya insertó el autor (misma clave o mismo
+    // nombre), no hace nada en vez de violar la restricción única. Devuelve las filas insertadas.
+    // Los CAST fijan el tipo de los años aunque lleguen nulos
+    @Modifying
+    @Query(value = "INSERT INTO author (gutendx_author_name, name_key, last_name, first_name, birth_year, death_year, created_at) " +
+            "VALUES (:name, :nameKey, :lastName, :firstName, CAST(:birthYear AS INTEGER), CAST(:deathYear AS INTEGER), now()) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("nameKey") String nameKey,
+                       @Param("lastName") String lastName, @Param("firstName") String firstName,
+                       @Param("birthYear") Integer birthYear, @Param("deathYear") Integer deathYear);
+
+    // Completa los años que falten sin pisar los conocidos, sin leer la fila antes
+    @Modifying
+    @Query(value = "UPDATE author SET birth_year = COALESCE(birth_year, CAST(:birthYear AS INTEGER)), " +
+            "death_year = COALESCE(death_year, CAST(:deathYear AS INTEGER)) WHERE name_key = :nameKey",
+            nativeQuery = true)
+    int fillMissingYears(@Param("nameKey") String nameKey, @Param("birthYear") Integer birthYear,
+                         @Param("deathYear") Integer deathYear);
+
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM Author a")
+    long findMaxId();
+
+    // Pares (id, nameKey) en orden de id, leídos por cursor para no cargar la tabla entera
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.nameKey FROM Author a WHERE a.id > :afterId ORDER BY a.id")
+    Stream<Object[]> streamNameKeysAfter(@Param("afterId") Long afterId);
+
+    // Columnas de ExportTable.AUTHOR para el rango (afterId, lastId], por cursor y sin entidades
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.gutendxAuthorName, a.lastName, a.firstName, a.birthYear, a.deathYear, a.createdAt " +
+            "FROM Author a WHERE a.id > :afterId AND a.id <= :lastId ORDER BY a.id")
+    Stream<Object[]> streamForExport(@Param("afterId") long afterId, @Param("lastId") long lastId);
+
+    // (id, birthYear, deathYear) de todos los autores, para "vivo en el año X" y las estadísticas en memoria
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.birthYear, a.deathYear FROM Author a ORDER BY a.id")
+    Stream<Object[]> streamLifeYears();
+
     @Query("SELECT a FROM Author a WHERE a.birthYear IS NOT NULL AND a.birthYear <= :year " +
             "AND (a.deathYear IS NULL OR a.deathYear >= :year) ORDER BY a.lastName")
     List<Author> findAuthorsAliveInYear(@Param("year") int year);
 
     @Query("SELECT DISTINCT a FROM Author a JOIN FETCH a.books ORDER BY a.lastName")
     List<Author> findAllWithBooks();
+
+    // Una fila: (autores, con año de nacimiento, con año de muerte)
+    @Query("SELECT COUNT(a), COUNT(a.birthYear), COUNT(a.deathYear) FROM Author a")
+    List<Object[]> countLifeYears();
+
+    // (siglo como floor(año / 100), autores nacidos en él); los años negativos son a. C.
+    @Query(value = "SELECT FLOOR(birth_year / 100.0), COUNT(*) FROM author WHERE birth_year IS NOT NULL " +
+            "GROUP BY FLOOR(birth_year / 100.0)", nativeQuery = true)
+    List<Object[]> countByBirthCentury();
+
+    // Por década de vida: (autores, suma de años vividos, vida más corta, vida más larga)
+    @Query(value = "SELECT COUNT(*), SUM(death_year - birth_year), MIN(death_year - birth_year), " +
+            "MAX(death_year - birth_year) FROM author WHERE death_year >= birth_year " +
+            "GROUP BY FLOOR((death_year - birth_year) / 10.0)", nativeQuery = true)
+    List<Object[]> aggregateLifespans();
 }
@@ -1,23 +1,118 @@
 package com.gutendx.repository;
 
 import com.gutendx.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    @EntityGraph(attributePaths = {"authors", "languages"})
     Optional<Book> findByGutendxBookId(Long gutendxBookId);
 
+    List<Book> findByGutendxBookIdIn(Collection<Long> gutendxBookIds);
+
+    @EntityGraph(attributePaths = {"authors", "languages"})
+    @Query("SELECT b FROM Book b WHERE b.gutendxBookId IN :gutendxBookIds")
+    List<Book> findWithAuthorsByGutendxBookIdIn(@Param("gutendxBookIds") Collection<Long> gutendxBookIds);
+
+    @EntityGraph(attributePaths = {"authors", "languages"})
+    List<Book> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT b.gutendxBookId FROM Book b WHERE b.gutendxBookId IN :ids")
+    Set<Long> findExistingGutendxBookIds(@Param("ids") Collection<Long> ids);
+
+    // Los más descargados primero; sin consulta de conteo aparte
+    @Query("SELECT b.gutendxBookId FROM Book b ORDER BY b.downloadCount DESC")
+    List<Long> findMostDownloadedGutendxBookIds(Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM Book b")
+    long findMaxId();
+
+    // Pares (tipo MIME, URL) de los archivos publicados del libro, sin cargar la entidad
+    @Query("SELECT KEY(f), VALUE(f) FROM Book b JOIN b.formats f WHERE b.gutendxBookId = :gutendxBookId")
+    List<Object[]> findFormats(@Param("gutendxBookId") Long gutendxBookId);
+
+    // Pares (id, gutendxBookId) en orden de id, leídos por cursor para no cargar la tabla entera
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.gutendxBookId FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    Stream<Object[]> streamGutendxBookIdsAfter(@Param("afterId") Long afterId);
+
+    // (gutendxBookId, languageCode) de todos los libros, para elegir el analizador del índice de texto
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.gutendxBookId, b.languageCode FROM Book b ORDER BY b.id")
+    Stream<Object[]> streamLanguageCodes();
+
+    // Columnas de ExportTable.BOOK para el rango (afterId, lastId], por cursor y sin entidades
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.gutendxBookId, b.title, b.languageCode, b.downloadCount, b.createdAt FROM Book b " +
+            "WHERE b.id > :afterId AND b.id <= :lastId ORDER BY b.id")
+    Stream<Object[]> streamForExport(@Param("afterId") long afterId, @Param("lastId") long lastId);
+
+    // (id, downloadCount, languageCode) de todos los libros, para armar el grafo de relacionados
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.downloadCount, b.languageCode FROM Book b ORDER BY b.id")
+    Stream<Object[]> streamGraphNodes();
+
+    // Filas de book_author cuyo book_id cae en (afterId, lastId]
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, a.id FROM Book b JOIN b.authors a " +
+            "WHERE b.id > :afterId AND b.id <= :lastId ORDER BY b.id, a.id")
+    Stream<Object[]> streamAuthorLinks(@Param("afterId") long afterId, @Param("lastId") long lastId);
+
+    // Libros de los autores de un libro, los más descargados primero: lo que usa el grafo de
+    // relacionados mientras todavía se está cargando
+    @Query(value = "SELECT CAST(b.id AS BIGINT) FROM book b JOIN book_author ba ON ba.book_id = b.id " +
+            "WHERE ba.author_id IN (SELECT author_id FROM book_author WHERE book_id = :bookId) AND b.id <> :bookId " +
+            "GROUP BY b.id, b.download_count ORDER BY COALESCE(b.download_count, 0) DESC, b.id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findSameAuthorBookIds(@Param("bookId") long bookId, @Param("limit") int limit);
+
+    // Pares (book_id, language_id) y (book_id, facet_id) para armar los índices de facetas
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, l.id FROM Book b JOIN b.languages l")
+    Stream<Object[]> streamLanguageLinks();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, f.id FROM Book b JOIN b.facets f")
+    Stream<Object[]> streamFacetLinks();
+
     List<Book> findByLanguageCodeOrderByCreatedAtDesc(String languageCode);
 
+    @EntityGraph(attributePaths = {"authors", "languages"})
     List<Book> findAllByOrderByCreatedAtDesc();
 
+    // Ids de libros en un idioma, de mayor a menor: recorrido hacia atrás de la PK (language_id, book_id)
+    // que corta en limit filas, sin tocar book
+    @Query(value = "SELECT CAST(book_id AS BIGINT) FROM book_language WHERE language_id = :languageId " +
+            "AND book_id < :beforeId ORDER BY book_id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findBookIdsByLanguageBefore(@Param("languageId") short languageId, @Param("beforeId") long beforeId,
+                                           @Param("limit") int limit);
+
     @Query("SELECT b FROM Book b JOIN b.authors a WHERE a.id = :authorId ORDER BY b.downloadCount DESC")
     List<Book> findByAuthorIdOrderByDownloadCountDesc(@Param("authorId") Long authorId);
+
+    // (languageCode, libros, suma de descargas, máximo de descargas) por idioma principal
+    @Query("SELECT b.languageCode, COUNT(b), COALESCE(SUM(b.downloadCount), 0), COALESCE(MAX(b.downloadCount), 0) " +
+            "FROM Book b GROUP BY b.languageCode")
+    List<Object[]> aggregateByLanguage();
+
+    // (dígitos de las descargas, libros): 1 es 0-9, 2 es 10-99...
+    @Query(value = "SELECT LENGTH(CAST(COALESCE(download_count, 0) AS VARCHAR(12))), COUNT(*) FROM book " +
+            "GROUP BY LENGTH(CAST(COALESCE(download_count, 0) AS VARCHAR(12)))", nativeQuery = true)
+    List<Object[]> countByDownloadDigits();
 }
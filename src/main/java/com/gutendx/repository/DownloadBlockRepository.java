@@ -0,0 +1,16 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.DownloadBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DownloadBlockRepository extends JpaRepository<DownloadBlock, Long> {
+
+    List<DownloadBlock> findByBookIdInAndYearIn(Collection<Long> bookIds, Collection<Short> years);
+
+    List<DownloadBlock> findByBookIdOrderByYear(Long bookId);
+}
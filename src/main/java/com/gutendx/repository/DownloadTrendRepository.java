@@ -0,0 +1,23 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.DownloadTrend;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Una consulta por ventana: cada una usa su índice parcial (idx_download_trend_*)
+@Repository
+public interface DownloadTrendRepository extends JpaRepository<DownloadTrend, Long> {
+
+    List<DownloadTrend> findByDelta1dNotNullOrderByDelta1dDesc(Limit limit);
+
+    List<DownloadTrend> findByDelta7dNotNullOrderByDelta7dDesc(Limit limit);
+
+    List<DownloadTrend> findByDelta30dNotNullOrderByDelta30dDesc(Limit limit);
+
+    List<DownloadTrend> findByDelta90dNotNullOrderByDelta90dDesc(Limit limit);
+
+    List<DownloadTrend> findByDelta365dNotNullOrderByDelta365dDesc(Limit limit);
+}
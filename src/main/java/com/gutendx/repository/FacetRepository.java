@@ -0,0 +1,20 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.Facet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FacetRepository extends JpaRepository<Facet, Integer> {
+
+    Optional<Facet> findByKindAndName(Facet.Kind kind, String name);
+
+    @Modifying
+    @Query(value = "INSERT INTO facet (kind, name) VALUES (:kind, :name) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("kind") String kind, @Param("name") String name);
+}
@@ -0,0 +1,66 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.IngestTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IngestTaskRepository extends JpaRepository<IngestTask, Long> {
+
+    // Los tiempos de la cola salen del reloj de la BD, no del de cada instancia: con relojes
+    // desfasados, una instancia adelantada tomaría tareas con el lease de otra todavía vigente.
+    // Las columnas son TIMESTAMP sin zona, como LOCALTIMESTAMP
+
+    // Tareas que se pueden tomar: pendientes ya disponibles o con el lease vencido. SKIP LOCKED
+    // saltea las que otra instancia está tomando en este momento en vez de esperarla
+    @Query(value = "SELECT id FROM ingest_task " +
+            "WHERE (status = 'PENDING' AND available_at <= LOCALTIMESTAMP) " +
+            "OR (status = 'RUNNING' AND lease_expires_at < LOCALTIMESTAMP) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE IngestTask t SET t.status = :status, t.leaseOwner = :owner, " +
+            "t.leaseExpiresAt = LOCAL DATETIME + :lease NANOSECOND, t.attempts = t.attempts + 1, " +
+            "t.updatedAt = LOCAL DATETIME WHERE t.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") IngestTask.Status status,
+              @Param("owner") String owner, @Param("lease") long leaseNanos);
+
+    // Las escrituras siguientes solo valen si el lease sigue siendo de esta instancia
+    @Modifying
+    @Query("UPDATE IngestTask t SET t.leaseExpiresAt = LOCAL DATETIME + :lease NANOSECOND, t.updatedAt = LOCAL DATETIME " +
+            "WHERE t.id IN :ids AND t.leaseOwner = :owner AND t.status = :running")
+    int extendLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                     @Param("running") IngestTask.Status running, @Param("lease") long leaseNanos);
+
+    @Modifying
+    @Query("UPDATE IngestTask t SET t.status = :status, t.availableAt = LOCAL DATETIME + :delay NANOSECOND, " +
+            "t.lastError = :error, t.leaseOwner = NULL, t.leaseExpiresAt = NULL, t.updatedAt = LOCAL DATETIME " +
+            "WHERE t.id = :id AND t.leaseOwner = :owner AND t.status = :running")
+    int release(@Param("id") Long id, @Param("owner") String owner, @Param("running") IngestTask.Status running,
+                @Param("status") IngestTask.Status status, @Param("delay") long delayNanos,
+                @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE IngestTask t SET t.status = :pending, t.attempts = 0, t.availableAt = LOCAL DATETIME, " +
+            "t.updatedAt = LOCAL DATETIME WHERE t.status = :failed")
+    int requeue(@Param("failed") IngestTask.Status failed, @Param("pending") IngestTask.Status pending);
+
+    // Las tareas nuevas quedan disponibles desde ya según la BD, no según esta instancia
+    @Modifying
+    @Query("UPDATE IngestTask t SET t.availableAt = LOCAL DATETIME WHERE t.id IN :ids")
+    int makeAvailable(@Param("ids") Collection<Long> ids);
+
+    List<IngestTask> findByIdInOrderById(Collection<Long> ids);
+
+    long countByStatusIn(Collection<IngestTask.Status> statuses);
+
+    @Query("SELECT t.status, COUNT(t) FROM IngestTask t GROUP BY t.status")
+    List<Object[]> countByStatus();
+}
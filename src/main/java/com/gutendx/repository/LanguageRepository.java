@@ -0,0 +1,20 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.Language;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LanguageRepository extends JpaRepository<Language, Short> {
+
+    Optional<Language> findByCode(String code);
+
+    @Modifying
+    @Query(value = "INSERT INTO language (code, name) VALUES (:code, :name) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("code") String code, @Param("name") String name);
+}
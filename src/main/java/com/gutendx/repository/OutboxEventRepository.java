@@ -0,0 +1,32 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // El lote siguiente de un destino, por la clave primaria
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Lo que apareció dentro de un hueco vigilado (afterId, lastId], por la clave primaria
+    List<OutboxEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long lastId, Limit limit);
+
+    @Query("SELECT COALESCE(MIN(e.id), 0) FROM OutboxEvent e")
+    long findMinId();
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM OutboxEvent e")
+    long findMaxId();
+
+    // Limpieza de lo que ya entregaron todos los destinos
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :id")
+    int deleteUpTo(@Param("id") Long id);
+}
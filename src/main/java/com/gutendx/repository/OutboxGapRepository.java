@@ -0,0 +1,21 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.OutboxGap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxGapRepository extends JpaRepository<OutboxGap, Long> {
+
+    List<OutboxGap> findBySinkOrderByFirstIdAsc(String sink);
+
+    // Los huecos de un destino se reescriben enteros cada vez que cambian
+    @Modifying
+    @Query("DELETE FROM OutboxGap g WHERE g.sink = :sink")
+    int deleteBySink(@Param("sink") String sink);
+}
@@ -0,0 +1,27 @@
+package com.gutendx.repository;
+
+import com.gutendx.entity.SyncState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SyncStateRepository extends JpaRepository<SyncState, String> {
+
+    // Si otra instancia lo crea al mismo tiempo, el INSERT no hace nada en vez de fallar
+    @Modifying
+    @Query(value = "INSERT INTO sync_state (name, high_water_mark, updated_at) VALUES (:name, 0, now()) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // SELECT ... FOR UPDATE: serializa a las instancias que avanzan la misma marca
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SyncState s WHERE s.name = :name")
+    Optional<SyncState> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,73 @@
+package com.gutendx.service;
+
+import com.gutendx.dto.GutendxApiResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hash SHA-256 de los campos de un libro que guardamos localmente
+ * (título, autores, idiomas, descargas, temas, estanterías y archivos). Si el hash no cambia, no hay nada que escribir.
+ */
+public final class BookContentHash {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private BookContentHash() {}
+
+    public static String of(GutendxApiResponse.BookDto bookDto) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(bookDto.getTitle()).append(SEPARATOR);
+
+        List<GutendxApiResponse.AuthorDto> authors = bookDto.getAuthors();
+        if (authors != null) {
+            for (GutendxApiResponse.AuthorDto author : authors) {
+                sb.append(author.getName()).append('|')
+                        .append(author.getBirthYear()).append('|')
+                        .append(author.getDeathYear()).append(SEPARATOR);
+            }
+        }
+        sb.append(SEPARATOR);
+
+        List<String> languages = bookDto.getLanguages();
+        if (languages != null) {
+            for (String language : languages) {
+                sb.append(language).append(',');
+            }
+        }
+        sb.append(SEPARATOR).append(bookDto.getDownloadCount()).append(SEPARATOR);
+
+        appendAll(sb, bookDto.getSubjects());
+        appendAll(sb, bookDto.getBookshelves());
+
+        // Ordenados: el orden del mapa en el JSON no es un cambio
+        Map<String, String> formats = bookDto.getFormats();
+        if (formats != null) {
+            new TreeMap<>(formats).forEach((mimeType, url) -> sb.append(mimeType).append('=').append(url).append('|'));
+        }
+
+        return HexFormat.of().formatHex(sha256().digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void appendAll(StringBuilder sb, List<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                sb.append(value).append('|');
+            }
+        }
+        sb.append(SEPARATOR);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
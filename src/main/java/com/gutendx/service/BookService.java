@@ -3,33 +3,36 @@ package com.gutendx.service;
 import com.gutendx.dto.GutendxApiResponse;
 import com.gutendx.entity.Author;
 import com.gutendx.entity.Book;
+import com.gutendx.entity.Facet;
+import com.gutendx.entity.Language;
 import com.gutendx.exception.ApiException;
 import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.outbox.OutboxWriter;
+import com.gutendx.profiling.AuthorLookupEvent;
+import com.gutendx.profiling.DtoMappingEvent;
 import com.gutendx.repository.AuthorRepository;
 import com.gutendx.repository.BookRepository;
-import jakarta.transaction.Transactional;
+import com.gutendx.util.AuthorNames;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
-import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 public class BookService {
 
-    private static final Logger logger = (Logger) LoggerFactory.getLogger(BookService.class);
+    private static final Logger logger = LoggerFactory.getLogger(BookService.class);
 
-    private static final Set<String> SUPPORTED_LANGUAGES = Set.of("en", "es", "fr", "pt");
-    private static final Map<String, String> LANGUAGE_NAMES = Map.of(
-            "en", "ingles",
-            "es", "español",
-            "fr", "frances",
-            "pt", "portugues",
-            "other", "otro idioma"
-    );
+    // Página con la que getBooksByLanguages recorre un listado completo
+    private static final int LANGUAGE_PAGE_SIZE = 500;
 
     @Autowired
     private BookRepository bookRepository;
@@ -40,11 +43,47 @@ public class BookService {
     @Autowired
     private GutendxApiService apiService;
 
+    @Autowired
+    private LanguageDictionary languageDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogFilters catalogFilters;
+
+    @Autowired
+    private CatalogGraph catalogGraph;
+
+    @Autowired
+    private FacetDictionary facetDictionary;
+
+    @Autowired
+    private CatalogFacets catalogFacets;
+
+    @Autowired
+    private CatalogStatistics catalogStatistics;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    // Solo presente con gutendx.persistence.mode=write-behind
+    @Autowired(required = false)
+    private WriteBehindQueue writeBehindQueue;
+
     public Book searchAndSaveBook(String title) throws ApiException, BookNotFoundException {
-        logger.info("Buscando y guardando libro: {}", title);
+        return searchAndSaveBook(title, List.of());
+    }
 
-        // Buscar en la API
-        GutendxApiResponse apiResponse = apiService.searchBooks(title);
+    public Book searchAndSaveBook(String title, Collection<String> languageCodes)
+            throws ApiException, BookNotFoundException {
+        logger.info("Buscando y guardando libro: {} (idiomas: {})", title, languageCodes);
+
+        // Buscar en la API; el filtro de idioma lo aplica Gutendx
+        GutendxApiResponse apiResponse = apiService.search(GutendxQuery.builder()
+                .search(title)
+                .languages(languageCodes)
+                .build());
 
         if (apiResponse.getResults() == null || apiResponse.getResults().isEmpty()) {
             throw new BookNotFoundException("No se encontraron libros para la búsqueda: " + title);
@@ -53,12 +92,79 @@ public class BookService {
         // Tomar el primer resultado
         GutendxApiResponse.BookDto bookDto = apiResponse.getResults().get(0);
 
-        // Verificar si ya existe en la BD
-        Optional<Book> existingBook = bookRepository.findByGutendxBookId(bookDto.getId());
-        if (existingBook.isPresent()) {
-            logger.info("El libro ya existe en la BD: {}", bookDto.getTitle());
-            return existingBook.get();
+        if (writeBehindQueue != null) {
+            // Modo write-behind: encolar y responder sin esperar a la BD
+            writeBehindQueue.enqueue(bookDto);
+            return previewBook(bookDto);
+        }
+
+        // Autores, idiomas y facetas antes, cada uno en su transacción corta: la del libro usa una sola conexión
+        upsertReferences(List.of(bookDto));
+
+        // La llamada HTTP queda fuera de la transacción: no retener una conexión mientras esperamos a Gutendx
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                // Verificar si ya existe en la BD
+                Optional<Book> existingBook = catalogFilters.findBook(bookDto.getId(),
+                        bookRepository::findByGutendxBookId);
+                if (existingBook.isPresent()) {
+                    logger.info("El libro ya existe en la BD: {}", bookDto.getTitle());
+                    return existingBook.get();
+                }
+
+                Book savedBook = saveNewBook(bookDto);
+                logger.info("Libro guardado exitosamente: {}", savedBook.getTitle());
+
+                return savedBook;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // El filtro Bloom no sabía del libro: lo guardó otra instancia después de cargarlo
+            Book existing = bookRepository.findByGutendxBookId(bookDto.getId()).orElseThrow(() -> e);
+            catalogFilters.bookAdded(bookDto.getId());
+            logger.info("El libro ya existe en la BD (guardado por otra instancia): {}", bookDto.getTitle());
+            return existing;
+        }
+    }
+
+    /**
+     * Guarda los libros que no están en la BD, en una transacción. Si el filtro Bloom los dio por
+     * nuevos pero otra instancia guardó alguno, el alta choca con la restricción UNIQUE: se
+     * vuelve a intentar una vez, buscando los existentes en la BD en lugar del filtro.
+     */
+    public int saveNewBooks(List<GutendxApiResponse.BookDto> bookDtos) {
+        Set<Long> ids = bookDtos.stream()
+                .map(GutendxApiResponse.BookDto::getId)
+                .collect(Collectors.toSet());
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        try {
+            return template.execute(status -> saveMissingBooks(bookDtos,
+                    catalogFilters.findBooks(ids, bookRepository::findExistingGutendxBookIds, HashSet::new)));
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Otra instancia ya guardó alguno de los {} libros; se reintenta consultando la BD",
+                    ids.size());
+            return template.execute(status -> {
+                Set<Long> existing = new HashSet<>(bookRepository.findExistingGutendxBookIds(ids));
+                existing.forEach(catalogFilters::bookAdded);
+                return saveMissingBooks(bookDtos, existing);
+            });
         }
+    }
+
+    private int saveMissingBooks(List<GutendxApiResponse.BookDto> bookDtos, Set<Long> existing) {
+        int saved = 0;
+        for (GutendxApiResponse.BookDto bookDto : bookDtos) {
+            if (existing.add(bookDto.getId())) {
+                saveNewBook(bookDto);
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    @Transactional
+    public Book saveNewBook(GutendxApiResponse.BookDto bookDto) {
+        DtoMappingEvent mapping = new DtoMappingEvent();
+        mapping.begin();
 
         // Crear nuevo libro
         Book book = createBookFromDto(bookDto);
@@ -68,34 +174,135 @@ public class BookService {
         for (Author author : authors) {
             book.addAuthor(author);
         }
+        commitMapping(mapping, authors.size());
+
+        Book saved = bookRepository.save(book);
+        outboxWriter.bookSaved(saved, true);
+        catalogFilters.bookAdded(saved.getGutendxBookId());
+        catalogGraph.bookSaved(saved);
+        catalogFacets.bookSaved(saved);
+        catalogStatistics.bookSaved(saved);
+        return saved;
+    }
+
+    private Book previewBook(GutendxApiResponse.BookDto bookDto) {
+        // Libro mapeado pero todavía sin guardar (sin id)
+        Book book = createBookFromDto(bookDto);
+        if (bookDto.getAuthors() != null) {
+            for (GutendxApiResponse.AuthorDto authorDto : bookDto.getAuthors()) {
+                String[] names = AuthorNames.parse(authorDto.getName());
+                book.addAuthor(new Author(authorDto.getName(), names[0], names[1],
+                        authorDto.getBirthYear(), authorDto.getDeathYear()));
+            }
+        }
+        return book;
+    }
 
-        Book savedBook = bookRepository.save(book);
-        logger.info("Libro guardado exitosamente: {}", savedBook.getTitle());
+    @Transactional
+    public Book updateBookFromDto(Book book, GutendxApiResponse.BookDto bookDto) {
+        DtoMappingEvent mapping = new DtoMappingEvent();
+        mapping.begin();
+
+        book.setTitle(bookDto.getTitle());
+        book.setLanguageCode(determineLanguageCode(bookDto.getLanguages()));
+        book.setLanguages(internLanguages(bookDto.getLanguages()));
+        book.setDownloadCount(bookDto.getDownloadCount());
+        book.setFacets(internFacets(bookDto));
+        book.setFormats(formats(bookDto));
+        book.setContentHash(BookContentHash.of(bookDto));
+
+        // Reemplazar autores por los publicados actualmente
+        for (Author author : new HashSet<>(book.getAuthors())) {
+            book.removeAuthor(author);
+        }
+        for (Author author : processAuthors(bookDto.getAuthors())) {
+            book.addAuthor(author);
+        }
+        commitMapping(mapping, book.getAuthors().size());
+
+        Book saved = bookRepository.save(book);
+        outboxWriter.bookSaved(saved, false);
+        catalogGraph.bookSaved(saved);
+        catalogFacets.bookSaved(saved);
+        catalogStatistics.bookSaved(saved);
+        return saved;
+    }
 
-        return savedBook;
+    // Mapeo de DTO a entidad, con la búsqueda o el alta de sus idiomas, facetas y autores
+    private static void commitMapping(DtoMappingEvent mapping, int authors) {
+        mapping.end();
+        if (mapping.shouldCommit()) {
+            mapping.stage = DtoMappingEvent.ENTITY;
+            mapping.type = Book.class.getSimpleName();
+            mapping.items = authors;
+            mapping.commit();
+        }
     }
 
     private Book createBookFromDto(GutendxApiResponse.BookDto bookDto) {
         String languageCode = determineLanguageCode(bookDto.getLanguages());
 
-        return new Book(
+        Book book = new Book(
                 bookDto.getId(),
                 bookDto.getTitle(),
                 languageCode,
                 bookDto.getDownloadCount()
         );
+        book.setLanguages(internLanguages(bookDto.getLanguages()));
+        book.setFacets(internFacets(bookDto));
+        book.setFormats(formats(bookDto));
+        book.setContentHash(BookContentHash.of(bookDto));
+        return book;
+    }
+
+    private static Map<String, String> formats(GutendxApiResponse.BookDto bookDto) {
+        Map<String, String> formats = new HashMap<>();
+        if (bookDto.getFormats() != null) {
+            // Lo que no entra en las columnas no se podría servir igual
+            bookDto.getFormats().forEach((mimeType, url) -> {
+                if (mimeType.length() <= 128 && url != null && url.length() <= 512) {
+                    formats.put(mimeType, url);
+                }
+            });
+        }
+        return formats;
     }
 
     private String determineLanguageCode(List<String> languages) {
         if (languages == null || languages.isEmpty()) {
-            return "other";
+            return LanguageDictionary.OTHER;
+        }
+
+        // El primer idioma declarado es el principal
+        return languageDictionary.intern(languages.get(0)).getCode();
+    }
+
+    private Set<Language> internLanguages(List<String> languages) {
+        Set<Language> interned = new HashSet<>();
+        if (languages == null || languages.isEmpty()) {
+            // Como language_code: sin idioma declarado, el libro se lista en "otro idioma"
+            interned.add(languageDictionary.intern(LanguageDictionary.OTHER));
+            return interned;
+        }
+        for (String code : languages) {
+            interned.add(languageDictionary.intern(code));
         }
+        return interned;
+    }
 
-        // Buscar el primer idioma soportado
-        return languages.stream()
-                .filter(SUPPORTED_LANGUAGES::contains)
-                .findFirst()
-                .orElse("other");
+    private Set<Facet> internFacets(GutendxApiResponse.BookDto bookDto) {
+        Set<Facet> interned = new HashSet<>();
+        if (bookDto.getSubjects() != null) {
+            for (String subject : bookDto.getSubjects()) {
+                interned.add(facetDictionary.intern(Facet.Kind.SUBJECT, subject));
+            }
+        }
+        if (bookDto.getBookshelves() != null) {
+            for (String bookshelf : bookDto.getBookshelves()) {
+                interned.add(facetDictionary.intern(Facet.Kind.BOOKSHELF, bookshelf));
+            }
+        }
+        return interned;
     }
 
     private Set<Author> processAuthors(List<GutendxApiResponse.AuthorDto> authorDtos) {
@@ -114,51 +321,130 @@ public class BookService {
     }
 
     private Author findOrCreateAuthor(GutendxApiResponse.AuthorDto authorDto) {
-        // Buscar autor existente por nombre original
-        Optional<Author> existingAuthor = authorRepository.findByGutendxAuthorName(authorDto.getName());
+        // Buscar autor existente por clave normalizada ("Twain, Mark" == "Mark Twain")
+        String nameKey = AuthorNames.key(authorDto.getName());
+        AuthorLookupEvent lookup = new AuthorLookupEvent();
+        lookup.begin();
+        Optional<Author> existingAuthor = catalogFilters.findAuthor(nameKey, authorRepository::findByNameKey);
 
         if (existingAuthor.isPresent()) {
             // Actualizar datos si es necesario
             Author author = existingAuthor.get();
+            boolean changed = false;
             if (author.getBirthYear() == null && authorDto.getBirthYear() != null) {
                 author.setBirthYear(authorDto.getBirthYear());
+                changed = true;
             }
             if (author.getDeathYear() == null && authorDto.getDeathYear() != null) {
                 author.setDeathYear(authorDto.getDeathYear());
+                changed = true;
+            }
+            Author saved = author;
+            if (changed) {
+                saved = authorRepository.save(author);
+                outboxWriter.authorSaved(saved, false);
             }
-            return authorRepository.save(author);
+            commitLookup(lookup, nameKey, AuthorLookupEvent.FOUND);
+            return saved;
         }
 
-        // Crear nuevo autor
-        String[] names = parseAuthorName(authorDto.getName());
-        Author newAuthor = new Author(
-                authorDto.getName(),
-                names[0], // lastName
-                names[1], // firstName
-                authorDto.getBirthYear(),
-                authorDto.getDeathYear()
-        );
-
-        return authorRepository.save(newAuthor);
+        // Crear nuevo autor, en su propia transacción y sin fallar si otra instancia se adelantó
+        upsertAuthors(List.of(authorDto));
+        Author created = authorRepository.findByNameKey(nameKey)
+                .orElseThrow(() -> new IllegalStateException("Autor no encontrado después del alta: " + nameKey));
+        commitLookup(lookup, nameKey, AuthorLookupEvent.CREATED);
+        return created;
     }
 
-    private String[] parseAuthorName(String fullName) {
-        if (fullName == null || fullName.trim().isEmpty()) {
-            return new String[]{null, null};
+    private static void commitLookup(AuthorLookupEvent lookup, String nameKey, String outcome) {
+        lookup.end();
+        if (lookup.shouldCommit()) {
+            lookup.nameKey = nameKey;
+            lookup.outcome = outcome;
+            lookup.commit();
         }
+    }
 
-        String[] parts = fullName.trim().split("\\s+");
+    /**
+     * Da de alta los idiomas, temas, estanterías y autores de estos libros que falten, cada uno
+     * en su transacción corta. Llamado antes de abrir la transacción que guarda los libros, esa
+     * los encuentra todos y no pide al pool una segunda conexión mientras retiene la suya.
+     */
+    public void upsertReferences(Collection<GutendxApiResponse.BookDto> bookDtos) {
+        List<GutendxApiResponse.AuthorDto> authorDtos = new ArrayList<>();
+        for (GutendxApiResponse.BookDto bookDto : bookDtos) {
+            internLanguages(bookDto.getLanguages());
+            internFacets(bookDto);
+            if (bookDto.getAuthors() != null) {
+                authorDtos.addAll(bookDto.getAuthors());
+            }
+        }
+        upsertAuthors(authorDtos);
+    }
 
-        if (parts.length == 1) {
-            return new String[]{parts[0], null}; // Solo apellido
-        } else if (parts.length == 2) {
-            return new String[]{parts[1], parts[0]}; // Apellido, Nombre
-        } else {
-            // Más de dos partes: último como apellido, resto como nombre
-            String lastName = parts[parts.length - 1];
-            String firstName = String.join(" ", Arrays.copyOfRange(parts, 0, parts.length - 1));
-            return new String[]{lastName, firstName};
+    /**
+     * Da de alta los autores que falten y completa los años desconocidos, en una transacción
+     * propia y corta (como los idiomas). Llamado antes de la transacción que guarda los libros,
+     * esa ya no escribe autores: varias instancias pueden guardar libros del mismo autor sin
+     * esperarse entre sí. Las altas usan INSERT ... ON CONFLICT DO NOTHING y van ordenadas por
+     * clave, así dos instancias nunca se bloquean en cruz.
+     */
+    public void upsertAuthors(Collection<GutendxApiResponse.AuthorDto> authorDtos) {
+        // Un solo registro por clave, juntando los años que traiga cada variante del nombre
+        SortedMap<String, GutendxApiResponse.AuthorDto> byKey = new TreeMap<>();
+        for (GutendxApiResponse.AuthorDto authorDto : authorDtos) {
+            byKey.merge(AuthorNames.key(authorDto.getName()), authorDto, (first, other) -> {
+                GutendxApiResponse.AuthorDto merged = new GutendxApiResponse.AuthorDto();
+                merged.setName(first.getName());
+                merged.setBirthYear(first.getBirthYear() != null ? first.getBirthYear() : other.getBirthYear());
+                merged.setDeathYear(first.getDeathYear() != null ? first.getDeathYear() : other.getDeathYear());
+                return merged;
+            });
         }
+        if (byKey.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.executeWithoutResult(status -> {
+            Map<String, Author> existing = authorRepository.findByNameKeyIn(byKey.keySet()).stream()
+                    .collect(Collectors.toMap(Author::getNameKey, author -> author));
+            // Altas (true) y cambios por otra instancia (false) que hay que releer para el outbox
+            Map<String, Boolean> reread = new TreeMap<>();
+            byKey.forEach((nameKey, authorDto) -> {
+                Author author = existing.get(nameKey);
+                if (author == null) {
+                    String[] names = AuthorNames.parse(authorDto.getName());
+                    AuthorLookupEvent lookup = new AuthorLookupEvent();
+                    lookup.begin();
+                    if (authorRepository.insertIfAbsent(authorDto.getName(), nameKey,
+                            names[0], // lastName
+                            names[1], // firstName
+                            authorDto.getBirthYear(), authorDto.getDeathYear()) > 0) {
+                        reread.put(nameKey, true);
+                        commitLookup(lookup, nameKey, AuthorLookupEvent.CREATED);
+                    } else if (authorRepository.fillMissingYears(nameKey, authorDto.getBirthYear(),
+                            authorDto.getDeathYear()) > 0) {
+                        // Lo insertó otra instancia entre la lectura y el alta
+                        reread.put(nameKey, false);
+                    }
+                } else if ((author.getBirthYear() == null && authorDto.getBirthYear() != null)
+                        || (author.getDeathYear() == null && authorDto.getDeathYear() != null)) {
+                    authorRepository.fillMissingYears(nameKey, authorDto.getBirthYear(), authorDto.getDeathYear());
+                    // El UPDATE no pasa por la entidad ya cargada: los años resultantes se arman acá
+                    outboxWriter.authorSaved(author.getId(), author.getGutendxAuthorName(),
+                            author.getBirthYear() != null ? author.getBirthYear() : authorDto.getBirthYear(),
+                            author.getDeathYear() != null ? author.getDeathYear() : authorDto.getDeathYear(), false);
+                }
+            });
+            if (outboxWriter.isEnabled() && !reread.isEmpty()) {
+                for (Author author : authorRepository.findByNameKeyIn(reread.keySet())) {
+                    outboxWriter.authorSaved(author, reread.get(author.getNameKey()));
+                }
+            }
+        });
+        byKey.keySet().forEach(catalogFilters::authorAdded);
     }
 
     @Transactional(readOnly = true)
@@ -168,7 +454,47 @@ public class BookService {
 
     @Transactional(readOnly = true)
     public List<Book> getBooksByLanguage(String languageCode) {
-        return bookRepository.findByLanguageCodeOrderByCreatedAtDesc(languageCode);
+        return getBooksByLanguages(List.of(languageCode));
+    }
+
+    /** Todos los libros en cualquiera de los idiomas; para listados largos, mejor por páginas. */
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByLanguages(Collection<String> languageCodes) {
+        List<Book> books = new ArrayList<>();
+        List<Book> page = getBooksByLanguages(languageCodes, null, LANGUAGE_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            books.addAll(page);
+            page = page.size() < LANGUAGE_PAGE_SIZE ? List.of()
+                    : getBooksByLanguages(languageCodes, page.get(page.size() - 1).getId(), LANGUAGE_PAGE_SIZE);
+        }
+        return books;
+    }
+
+    /**
+     * Una página de libros en cualquiera de los idiomas, de los más nuevos a los más viejos (por
+     * id, que crece con cada alta). beforeId es el id del último libro de la página anterior, o
+     * null para la primera. Cada idioma lee a lo sumo limit filas de book_language y los
+     * autores e idiomas se cargan sólo para los libros de la página, así que el costo no
+     * depende del tamaño del catálogo.
+     */
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByLanguages(Collection<String> languageCodes, Long beforeId, int limit) {
+        List<Short> languageIds = languageDictionary.idsOf(languageCodes);
+        if (languageIds.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        NavigableSet<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+        for (Short languageId : languageIds) {
+            ids.addAll(bookRepository.findBookIdsByLanguageBefore(languageId, before, limit));
+        }
+        List<Long> page = ids.stream().limit(limit).collect(Collectors.toList());
+        if (page.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Book> books = new ArrayList<>(bookRepository.findByIdIn(page));
+        books.sort(Comparator.comparing(Book::getId).reversed());
+        return books;
     }
 
     @Transactional(readOnly = true)
@@ -189,11 +515,55 @@ public class BookService {
                 .collect(Collectors.toList());
     }
 
+    // Relacionados precalculados en el grafo, en su orden de relevancia
+    @Transactional(readOnly = true)
+    public List<Book> getRelatedBooks(Long bookId) {
+        return findInOrder(catalogGraph.related(bookId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getCoAuthorBooks(Long bookId, int limit) {
+        return findInOrder(catalogGraph.coAuthorBooks(bookId, limit));
+    }
+
+    private List<Book> findInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Long, Book> byId = bookRepository.findByIdIn(Arrays.stream(ids).boxed().collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        return Arrays.stream(ids)
+                .mapToObj(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // En el orden dado: el de relevancia de la búsqueda de texto
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByGutendxIds(List<Long> gutendxBookIds) {
+        if (gutendxBookIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Book> byId = bookRepository.findWithAuthorsByGutendxBookIdIn(gutendxBookIds)
+                .stream()
+                .collect(Collectors.toMap(Book::getGutendxBookId, book -> book));
+        return gutendxBookIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByFacets(FacetQuery query, int limit) {
+        return findInOrder(catalogFacets.bookIds(query, limit));
+    }
+
     public String getLanguageName(String languageCode) {
-        return LANGUAGE_NAMES.getOrDefault(languageCode, "idioma desconocido");
+        return languageDictionary.nameOf(languageCode);
     }
 
     public boolean isLanguageSupported(String languageCode) {
-        return SUPPORTED_LANGUAGES.contains(languageCode);
+        return languageDictionary.isKnown(languageCode);
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.gutendx.service;
+
+import com.gutendx.exception.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "gutendx.sync.enabled", havingValue = "true")
+@Lazy(false) // @Scheduled solo se registra si el bean se crea
+public class BookSyncScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSyncScheduler.class);
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Scheduled(initialDelayString = "${gutendx.sync.initial-delay-ms:60000}",
+            fixedDelayString = "${gutendx.sync.interval-ms:3600000}")
+    public void sync() {
+        try {
+            bookSyncService.runOnce();
+        } catch (ApiException e) {
+            logger.warn("Sincronización con Gutendx fallida, se reintentará: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.gutendx.service;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.Book;
+import com.gutendx.entity.SyncState;
+import com.gutendx.exception.ApiException;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.SyncStateRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Sincronización incremental contra Gutendx: recorre los ids por rangos a partir de la marca
+ * guardada en {@code sync_state} y solo escribe libros nuevos o cuyo hash de contenido cambió.
+ */
+@Service
+public class BookSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSyncService.class);
+
+    static final String STATE_NAME = "gutendx-books";
+
+    @Autowired
+    private GutendxApiService apiService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private SyncStateRepository syncStateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.sync.range-size:32}")
+    private int rangeSize;
+
+    @Value("${gutendx.sync.ranges-per-run:50}")
+    private int rangesPerRun;
+
+    @Value("${gutendx.sync.threads:4}")
+    private int threads;
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        // Pool acotado: si la cola se llena, el hilo que sincroniza descarga el rango él mismo
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, rangesPerRun)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gutendx-sync");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized SyncReport runOnce() throws ApiException {
+        SyncState state = syncStateRepository.findById(STATE_NAME).orElseGet(() -> new SyncState(STATE_NAME));
+        long latestId = apiService.fetchLatestBookId();
+
+        long cursor = state.getHighWaterMark();
+        if (cursor >= latestId) {
+            // Llegamos al final del catálogo: empezar una nueva pasada desde el principio
+            logger.info("Sincronización: nueva pasada completa (marca {} >= último id {})", cursor, latestId);
+            cursor = 0;
+        }
+
+        // Descargar los rangos en paralelo
+        List<Long> rangeEnds = new ArrayList<>();
+        List<Future<List<GutendxApiResponse.BookDto>>> pending = new ArrayList<>();
+        long from = cursor + 1;
+        for (int i = 0; i < rangesPerRun && from <= latestId; i++) {
+            long end = Math.min(from + rangeSize - 1, latestId);
+            List<Long> ids = LongStream.rangeClosed(from, end).boxed().collect(Collectors.toList());
+            pending.add(executor.submit(() -> apiService.fetchBooksByIds(ids)));
+            rangeEnds.add(end);
+            from = end + 1;
+        }
+
+        // Aplicarlos en orden, un rango por transacción junto con la nueva marca
+        SyncReport report = new SyncReport();
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                List<GutendxApiResponse.BookDto> books = await(pending.get(i));
+                long rangeEnd = rangeEnds.get(i);
+                prepareBooks(books);
+                transactionTemplate.executeWithoutResult(status -> applyRange(books, rangeEnd, state, report));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        logger.info("Sincronización terminada: {}", report);
+        return report;
+    }
+
+    private void applyRange(List<GutendxApiResponse.BookDto> books, long rangeEnd,
+                            SyncState state, SyncReport report) {
+        applyBooks(books, report);
+
+        state.setHighWaterMark(rangeEnd);
+        syncStateRepository.save(state);
+        report.rangeScanned(rangeEnd);
+    }
+
+    /**
+     * Da de alta los autores, idiomas y facetas de lo que se va a escribir, cada uno en su
+     * transacción corta. Se llama antes de abrir la transacción del rango: dentro de ella,
+     * {@link #applyBooks} ya encuentra todo y cada hilo usa una sola conexión del pool.
+     */
+    void prepareBooks(List<GutendxApiResponse.BookDto> books) {
+        Map<Long, Book> existing = findExisting(books);
+        bookService.upsertReferences(books.stream()
+                .filter(bookDto -> !existing.containsKey(bookDto.getId())
+                        || !BookContentHash.of(bookDto).equals(existing.get(bookDto.getId()).getContentHash()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Inserta los libros nuevos y actualiza los que cambiaron (por hash de contenido). Se llama
+     * dentro de la transacción del rango, que también avanza la marca o cierra la tarea, después
+     * de {@link #prepareBooks} con los mismos libros.
+     */
+    void applyBooks(List<GutendxApiResponse.BookDto> books, SyncReport report) {
+        Map<Long, Book> existing = findExisting(books);
+
+        for (GutendxApiResponse.BookDto bookDto : books) {
+            Book book = existing.get(bookDto.getId());
+            if (book == null) {
+                bookService.saveNewBook(bookDto);
+                report.inserted();
+            } else if (!BookContentHash.of(bookDto).equals(book.getContentHash())) {
+                bookService.updateBookFromDto(book, bookDto);
+                report.updated();
+            } else {
+                report.unchanged();
+            }
+        }
+    }
+
+    // Siempre contra la BD, sin los filtros Bloom: son de esta instancia y no ven lo que
+    // guardaron las demás, así que un "seguro que no está" acá terminaría en una clave duplicada
+    private Map<Long, Book> findExisting(List<GutendxApiResponse.BookDto> books) {
+        return bookRepository.findByGutendxBookIdIn(books.stream()
+                        .map(GutendxApiResponse.BookDto::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Book::getGutendxBookId, Function.identity()));
+    }
+
+    private List<GutendxApiResponse.BookDto> await(Future<List<GutendxApiResponse.BookDto>> future)
+            throws ApiException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiException apiException) {
+                throw apiException;
+            }
+            throw new ApiException("Error al descargar un rango: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Sincronización interrumpida", e);
+        }
+    }
+}
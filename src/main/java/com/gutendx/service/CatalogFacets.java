@@ -0,0 +1,227 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.entity.Facet;
+import com.gutendx.entity.Language;
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.util.BackgroundLoad;
+import com.gutendx.util.FacetIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Navegación por temas, estanterías, idioma y "autor vivo en el año X" sin consultar la BD
+ * (ver {@link FacetIndex}). Se arma al arrancar leyendo las tablas de relación por cursor, en
+ * segundo plano salvo con gutendx.catalog.background-load=false (una consulta que llega antes
+ * espera a que termine), y se actualiza con cada libro que BookService guarda, después del commit.
+ * Lo que guarda otra instancia (o una carga por JDBC) no aparece hasta el próximo arranque; con
+ * varias instancias escribiendo, conviene gutendx.facets.enabled=false.
+ */
+@Component
+public class CatalogFacets {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFacets.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private FacetDictionary facetDictionary;
+
+    @Autowired
+    private LanguageDictionary languageDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.facets.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gutendx.catalog.background-load:true}")
+    private boolean backgroundLoad;
+
+    private final BackgroundLoad<FacetIndex> index = new BackgroundLoad<>("índice de facetas");
+
+    public record Entry(String name, long count) {
+
+        @Override
+        public String toString() {
+            return name + " (" + count + ")";
+        }
+    }
+
+    public record Summary(long books, List<Entry> languages, List<Entry> subjects, List<Entry> bookshelves) {
+
+        @Override
+        public String toString() {
+            return books + " libros; idiomas: " + languages + "; temas: " + subjects + "; estanterías: " + bookshelves;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Índice de facetas deshabilitado");
+            return;
+        }
+
+        index.start(backgroundLoad, this::load);
+    }
+
+    private FacetIndex load() {
+        long started = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        FacetIndex built = readOnly.execute(status -> {
+            FacetIndex loaded = new FacetIndex((int) bookRepository.count(), (int) authorRepository.count());
+            try (Stream<Object[]> rows = bookRepository.streamGutendxBookIdsAfter(0L)) {
+                rows.forEach(row -> loaded.addBook(((Number) row[0]).longValue()));
+            }
+            try (Stream<Object[]> rows = bookRepository.streamLanguageLinks()) {
+                rows.forEach(row -> loaded.addLanguage(((Number) row[0]).longValue(), ((Number) row[1]).shortValue()));
+            }
+            try (Stream<Object[]> rows = bookRepository.streamFacetLinks()) {
+                rows.forEach(row -> loaded.addFacet(((Number) row[0]).longValue(), ((Number) row[1]).intValue()));
+            }
+            try (Stream<Object[]> rows = authorRepository.streamLifeYears()) {
+                rows.forEach(row -> loaded.putAuthor(((Number) row[0]).longValue(), (Integer) row[1], (Integer) row[2]));
+            }
+            try (Stream<Object[]> rows = bookRepository.streamAuthorLinks(0, Long.MAX_VALUE)) {
+                rows.forEach(row -> loaded.addAuthor(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            }
+            loaded.optimize();
+            return loaded;
+        });
+        logger.info("Índice de facetas listo en {} ms: {} libros, {} facetas, {} KB",
+                (System.nanoTime() - started) / 1_000_000, built.bookCount(), built.facetCount(),
+                built.sizeInBytes() / 1024);
+        return built;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Cuántos libros cumplen el filtro y cómo se reparten por idioma, tema y estantería. */
+    public Summary browse(FacetQuery query, int limit) {
+        FacetIndex current = requireIndex();
+        FacetIndex.Filter filter = toFilter(query);
+
+        List<Entry> languages = current.languageCounts(filter).stream()
+                .limit(limit)
+                .map(count -> new Entry(languageName((short) count.key()), count.count()))
+                .collect(Collectors.toList());
+        return new Summary(current.count(filter), languages,
+                facetEntries(current, filter, Facet.Kind.SUBJECT, limit),
+                facetEntries(current, filter, Facet.Kind.BOOKSHELF, limit));
+    }
+
+    /** Ids (de la BD) de los primeros libros que cumplen el filtro. */
+    public long[] bookIds(FacetQuery query, int limit) {
+        return requireIndex().bookIds(toFilter(query), limit);
+    }
+
+    /** Registra un libro guardado o modificado; dentro de una transacción, al confirmarse. */
+    public void bookSaved(Book book) {
+        if (!enabled || book.getId() == null) {
+            return;
+        }
+
+        long bookId = book.getId();
+        short[] languageIds = new short[book.getLanguages().size()];
+        int i = 0;
+        for (Language language : book.getLanguages()) {
+            languageIds[i++] = language.getId();
+        }
+        int[] facetIds = book.getFacets().stream().mapToInt(Facet::getId).toArray();
+        List<Author> authors = new ArrayList<>(book.getAuthors());
+        long[] authorIds = authors.stream().mapToLong(Author::getId).toArray();
+
+        // Si el índice todavía se está cargando, se aplica al terminar
+        Runnable apply = () -> index.apply(current -> {
+            for (Author author : authors) {
+                current.putAuthor(author.getId(), author.getBirthYear(), author.getDeathYear());
+            }
+            current.putBook(bookId, languageIds, facetIds, authorIds);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private FacetIndex.Filter toFilter(FacetQuery query) {
+        FacetIndex.Filter filter = new FacetIndex.Filter();
+        if (!query.languages().isEmpty()) {
+            List<Short> ids = languageDictionary.idsOf(query.languages());
+            short[] languageIds = new short[ids.size()];
+            for (int i = 0; i < languageIds.length; i++) {
+                languageIds[i] = ids.get(i);
+            }
+            filter.languages(languageIds);
+        }
+        for (String subject : query.subjects()) {
+            filter.anyOf(facetIds(Facet.Kind.SUBJECT, subject));
+        }
+        for (String bookshelf : query.bookshelves()) {
+            filter.anyOf(facetIds(Facet.Kind.BOOKSHELF, bookshelf));
+        }
+        if (query.aliveIn() != null) {
+            filter.aliveIn(query.aliveIn());
+        }
+        return filter;
+    }
+
+    private int[] facetIds(Facet.Kind kind, String text) {
+        return facetDictionary.find(kind, text).stream().mapToInt(Facet::getId).toArray();
+    }
+
+    private List<Entry> facetEntries(FacetIndex current, FacetIndex.Filter filter, Facet.Kind kind, int limit) {
+        List<Integer> ids = facetDictionary.ofKind(kind).stream().map(Facet::getId).collect(Collectors.toList());
+        return current.facetCounts(filter, ids, limit).stream()
+                .map(count -> new Entry(facetDictionary.byId(count.key()).map(Facet::getName).orElse("?"), count.count()))
+                .collect(Collectors.toList());
+    }
+
+    private String languageName(short languageId) {
+        Optional<Language> language = languageDictionary.byId(languageId);
+        return language.map(Language::getCode).orElse("?");
+    }
+
+    // Los filtros combinados no tienen equivalente por SQL: la primera consulta espera a que termine la carga
+    private FacetIndex requireIndex() {
+        if (!enabled) {
+            throw new IllegalStateException("El índice de facetas está deshabilitado (gutendx.facets.enabled)");
+        }
+        FacetIndex current = index.await();
+        if (current == null) {
+            throw new IllegalStateException("El índice de facetas no se pudo cargar (ver el log)");
+        }
+        return current;
+    }
+}
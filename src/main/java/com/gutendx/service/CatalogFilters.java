@@ -0,0 +1,310 @@
+package com.gutendx.service;
+
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.util.BackgroundLoad;
+import com.gutendx.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Filtros Bloom delante de las búsquedas por gutendx_book_id y por clave de autor. Si el filtro
+ * dice que la clave no existe, no se consulta la BD. Se cargan del snapshot al arrancar y se
+ * completan leyendo solo las filas con id mayor al guardado en el snapshot, en segundo plano
+ * salvo con gutendx.catalog.background-load=false; hasta entonces toda búsqueda va a la BD.
+ *
+ * Cada instancia tiene sus filtros y solo se entera de lo que guarda ella: un libro o un autor
+ * que otra instancia guardó después de la carga da "seguro que no existe". Para autores no
+ * importa (el alta es INSERT ... ON CONFLICT DO NOTHING); para libros, el alta choca con la
+ * restricción UNIQUE y BookService relee el existente en la BD.
+ */
+@Component
+public class CatalogFilters {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFilters.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x424C4D31; // "BLM1"
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gutendx.bloom.snapshot:./data/bloom.snapshot}")
+    private String snapshot;
+
+    @Value("${gutendx.bloom.expected-books:100000}")
+    private long expectedBooks;
+
+    @Value("${gutendx.bloom.expected-authors:50000}")
+    private long expectedAuthors;
+
+    @Value("${gutendx.bloom.fpp:0.01}")
+    private double fpp;
+
+    @Value("${gutendx.catalog.background-load:true}")
+    private boolean backgroundLoad;
+
+    private final Probes bookProbes = new Probes();
+    private final Probes authorProbes = new Probes();
+
+    private final BackgroundLoad<Filters> filters = new BackgroundLoad<>("filtros Bloom");
+
+    private record Filters(BloomFilter books, BloomFilter authors) {}
+
+    public record Stats(long probes, long definiteMisses, long falsePositives, long roundTripsSaved,
+                        double expectedFpp) {
+
+        /** Falsos positivos sobre todas las claves que no estaban en la BD. */
+        public double observedFpp() {
+            long negatives = definiteMisses + falsePositives;
+            return negatives == 0 ? 0.0 : (double) falsePositives / negatives;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Filtros Bloom deshabilitados");
+            return;
+        }
+
+        filters.start(backgroundLoad, this::load);
+    }
+
+    private Filters load() {
+        long started = System.nanoTime();
+        Path path = Paths.get(snapshot);
+        long[] lastIds = new long[2];
+        Filters loaded = loadSnapshot(path, lastIds);
+        if (loaded == null) {
+            loaded = new Filters(BloomFilter.create(Math.max(expectedBooks, 2 * bookRepository.count()), fpp),
+                    BloomFilter.create(Math.max(expectedAuthors, 2 * authorRepository.count()), fpp));
+            lastIds[0] = 0L;
+            lastIds[1] = 0L;
+        }
+
+        long scanned = catchUp(loaded, lastIds[0], lastIds[1]);
+        logger.info("Filtros Bloom listos en {} ms: {} filas leídas de la BD ({} bits libros, {} bits autores)",
+                (System.nanoTime() - started) / 1_000_000, scanned, loaded.books().bitSize(),
+                loaded.authors().bitSize());
+        return loaded;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (filters.get() == null) {
+            return;
+        }
+        logger.info("Filtros Bloom - libros: {} / autores: {}", bookStats(), authorStats());
+        try {
+            writeSnapshot(Paths.get(snapshot));
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el snapshot de filtros Bloom: {}", e.getMessage());
+        }
+    }
+
+    public <T> Optional<T> findBook(Long gutendxBookId, Function<Long, Optional<T>> lookup) {
+        Filters current = filters.get();
+        if (current == null) {
+            return lookup.apply(gutendxBookId);
+        }
+        return probe(current.books().mightContain(gutendxBookId), bookProbes, () -> lookup.apply(gutendxBookId));
+    }
+
+    public <T> Optional<T> findAuthor(String nameKey, Function<String, Optional<T>> lookup) {
+        Filters current = filters.get();
+        if (current == null) {
+            return lookup.apply(nameKey);
+        }
+        return probe(current.authors().mightContain(nameKey), authorProbes, () -> lookup.apply(nameKey));
+    }
+
+    /**
+     * Consulta en lote solo los ids que el filtro no descarta; sin candidatos no hay consulta.
+     */
+    public <T, C extends Collection<T>> C findBooks(Collection<Long> gutendxBookIds,
+                                                    Function<Collection<Long>, C> lookup, Supplier<C> empty) {
+        Filters current = filters.get();
+        if (current == null) {
+            return lookup.apply(gutendxBookIds);
+        }
+
+        BloomFilter filter = current.books();
+        List<Long> candidates = gutendxBookIds.stream()
+                .filter(filter::mightContain)
+                .collect(Collectors.toList());
+        bookProbes.probes.addAndGet(gutendxBookIds.size());
+        bookProbes.definiteMisses.addAndGet(gutendxBookIds.size() - candidates.size());
+
+        if (candidates.isEmpty()) {
+            bookProbes.roundTripsSaved.incrementAndGet();
+            return empty.get();
+        }
+
+        C found = lookup.apply(candidates);
+        bookProbes.falsePositives.addAndGet(candidates.size() - found.size());
+        return found;
+    }
+
+    // Mientras se cargan, las altas se anotan y se agregan al terminar: la lectura pudo haberlas pasado de largo
+    public void bookAdded(long gutendxBookId) {
+        if (enabled) {
+            filters.apply(current -> current.books().put(gutendxBookId));
+        }
+    }
+
+    public void authorAdded(String nameKey) {
+        if (enabled) {
+            filters.apply(current -> current.authors().put(nameKey));
+        }
+    }
+
+    public Stats bookStats() {
+        Filters current = filters.get();
+        return bookProbes.stats(current != null ? current.books() : null);
+    }
+
+    public Stats authorStats() {
+        Filters current = filters.get();
+        return authorProbes.stats(current != null ? current.authors() : null);
+    }
+
+    public void writeSnapshot(Path path) throws IOException {
+        Filters current = filters.get();
+        if (current == null) {
+            throw new IllegalStateException("Los filtros Bloom todavía no están cargados");
+        }
+        // Leer los ids máximos antes de volcar los bits: todo lo que esté por debajo ya está en el filtro
+        long lastBookId = bookRepository.findMaxId();
+        long lastAuthorId = authorRepository.findMaxId();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastBookId);
+            out.writeLong(lastAuthorId);
+            current.books().writeTo(out);
+            current.authors().writeTo(out);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Snapshot de filtros Bloom guardado en {}", path);
+    }
+
+    // Deja en lastIds los ids máximos que el snapshot ya cubre
+    private Filters loadSnapshot(Path path, long[] lastIds) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("formato desconocido");
+            }
+            long lastBookId = in.readLong();
+            long lastAuthorId = in.readLong();
+            BloomFilter loadedBooks = BloomFilter.readFrom(in);
+            BloomFilter loadedAuthors = BloomFilter.readFrom(in);
+
+            // Un snapshot "adelantado" respecto de la BD es de otra base (o de una que se vació)
+            if (lastBookId > bookRepository.findMaxId() || lastAuthorId > authorRepository.findMaxId()) {
+                logger.info("Snapshot de filtros Bloom descartado: no corresponde a esta base de datos");
+                return null;
+            }
+            // Demasiado lleno: reconstruir con más bits
+            if (loadedBooks.expectedFpp() > 2 * fpp || loadedAuthors.expectedFpp() > 2 * fpp) {
+                logger.info("Snapshot de filtros Bloom descartado: tasa de falsos positivos por encima de {}", fpp);
+                return null;
+            }
+
+            lastIds[0] = lastBookId;
+            lastIds[1] = lastAuthorId;
+            return new Filters(loadedBooks, loadedAuthors);
+        } catch (IOException e) {
+            logger.warn("Snapshot de filtros Bloom ilegible ({}), se reconstruye desde la BD", e.getMessage());
+            return null;
+        }
+    }
+
+    private long catchUp(Filters loaded, long afterBookId, long afterAuthorId) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        AtomicLong scanned = new AtomicLong();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = bookRepository.streamGutendxBookIdsAfter(afterBookId)) {
+                rows.forEach(row -> {
+                    loaded.books().put(((Number) row[1]).longValue());
+                    scanned.incrementAndGet();
+                });
+            }
+            try (Stream<Object[]> rows = authorRepository.streamNameKeysAfter(afterAuthorId)) {
+                rows.forEach(row -> {
+                    loaded.authors().put((String) row[1]);
+                    scanned.incrementAndGet();
+                });
+            }
+        });
+        return scanned.get();
+    }
+
+    private static <T> Optional<T> probe(boolean mightContain, Probes probes, Supplier<Optional<T>> lookup) {
+        probes.probes.incrementAndGet();
+        if (!mightContain) {
+            probes.definiteMisses.incrementAndGet();
+            probes.roundTripsSaved.incrementAndGet();
+            return Optional.empty();
+        }
+
+        Optional<T> found = lookup.get();
+        if (found.isEmpty()) {
+            probes.falsePositives.incrementAndGet();
+        }
+        return found;
+    }
+
+    private static final class Probes {
+        final AtomicLong probes = new AtomicLong();
+        final AtomicLong definiteMisses = new AtomicLong();
+        final AtomicLong falsePositives = new AtomicLong();
+        final AtomicLong roundTripsSaved = new AtomicLong();
+
+        Stats stats(BloomFilter filter) {
+            return new Stats(probes.get(), definiteMisses.get(), falsePositives.get(), roundTripsSaved.get(),
+                    filter != null ? filter.expectedFpp() : 0.0);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.util.BackgroundLoad;
+import com.gutendx.util.BookGraph;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Grafo libro-autor en memoria (ver {@link BookGraph}) con los relacionados de cada libro ya
+ * calculados. Se arma al arrancar leyendo book y book_author por cursor, en segundo plano salvo
+ * con gutendx.catalog.background-load=false, y se actualiza con cada libro que BookService
+ * guarda, recién cuando la transacción confirma. Hasta que está listo (o si está deshabilitado),
+ * los relacionados salen por SQL: los libros de los mismos autores, los más descargados primero.
+ * Lo que guarda otra instancia (o una carga por JDBC) no llega al grafo hasta el próximo
+ * arranque; con varias instancias escribiendo, conviene gutendx.graph.enabled=false.
+ */
+@Component
+public class CatalogGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogGraph.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.graph.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gutendx.graph.top-k:10}")
+    private int topK;
+
+    // Tope de aristas recorridas por libro al puntuar: acota el costo de autores con miles de libros
+    @Value("${gutendx.graph.max-visits:20000}")
+    private int maxVisits;
+
+    @Value("${gutendx.catalog.background-load:true}")
+    private boolean backgroundLoad;
+
+    // Idioma principal -> número; solo importa si dos libros comparten idioma
+    private final Map<String, Short> languageIds = new ConcurrentHashMap<>();
+    private final AtomicInteger lastLanguageId = new AtomicInteger();
+
+    private final BackgroundLoad<BookGraph> graph = new BackgroundLoad<>("grafo de relacionados");
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Grafo de relacionados deshabilitado: los relacionados salen por SQL");
+            return;
+        }
+
+        graph.start(backgroundLoad, this::load);
+    }
+
+    private BookGraph load() {
+        long started = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        BookGraph loaded = readOnly.execute(status -> {
+            BookGraph.Builder builder = BookGraph.builder((int) bookRepository.count(), 0);
+            try (Stream<Object[]> rows = bookRepository.streamGraphNodes()) {
+                rows.forEach(row -> builder.book(((Number) row[0]).longValue(),
+                        row[1] != null ? ((Number) row[1]).intValue() : 0, languageId((String) row[2])));
+            }
+            try (Stream<Object[]> rows = bookRepository.streamAuthorLinks(0, Long.MAX_VALUE)) {
+                rows.forEach(row -> builder.link(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            }
+            return builder.build(topK, maxVisits);
+        });
+        logger.info("Grafo de relacionados listo en {} ms: {} libros, {} autores, {} aristas",
+                (System.nanoTime() - started) / 1_000_000, loaded.bookCount(), loaded.authorCount(),
+                loaded.edgeCount());
+        return loaded;
+    }
+
+    /** Si ya terminó de cargarse; antes, las consultas van por SQL. */
+    public boolean isLoaded() {
+        return graph.get() != null;
+    }
+
+    /** Ids (de la BD) de los libros relacionados, del más al menos relevante. */
+    public long[] related(long bookId) {
+        BookGraph current = graph.get();
+        return current != null ? current.related(bookId) : sameAuthorBooks(bookId, topK);
+    }
+
+    /** Ids de libros de los autores del libro y de sus coautores, los más descargados primero. */
+    public long[] coAuthorBooks(long bookId, int limit) {
+        BookGraph current = graph.get();
+        // Sin el grafo, sólo los de los mismos autores: los coautores de coautores necesitan recorrerlo
+        return current != null ? current.coAuthorBooks(bookId, limit) : sameAuthorBooks(bookId, limit);
+    }
+
+    private long[] sameAuthorBooks(long bookId, int limit) {
+        return bookRepository.findSameAuthorBookIds(bookId, limit).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Registra un libro guardado o modificado. Dentro de una transacción espera al commit: un
+     * rollback no deja aristas hacia filas que no existen.
+     */
+    public void bookSaved(Book book) {
+        if (!enabled || book.getId() == null) {
+            return;
+        }
+
+        long bookId = book.getId();
+        int downloads = book.getDownloadCount() != null ? book.getDownloadCount() : 0;
+        short language = languageId(book.getLanguageCode());
+        long[] authorIds = book.getAuthors().stream().mapToLong(Author::getId).toArray();
+        // Si el grafo todavía se está cargando, se aplica al terminar
+        Runnable apply = () -> graph.apply(current -> current.putBook(bookId, downloads, language, authorIds));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private short languageId(String code) {
+        if (code == null) {
+            return 0;
+        }
+        // computeIfAbsent corre la función una sola vez por código: dos idiomas nunca comparten número
+        return languageIds.computeIfAbsent(code, key -> (short) lastLanguageId.incrementAndGet());
+    }
+}
@@ -0,0 +1,241 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.util.BackgroundLoad;
+import com.gutendx.util.CatalogColumns;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Estadísticas del catálogo ({@link CatalogStats}) con dos motores:
+ * <ul>
+ *   <li>parallel: columnas primitivas en memoria ({@link CatalogColumns}), cargadas al arrancar
+ *       (en segundo plano salvo con gutendx.catalog.background-load=false; mientras tanto
+ *       {@link #report()} usa sql) y actualizadas con cada libro que BookService guarda; cada
+ *       cálculo es una reducción fork-join sin tocar la BD;</li>
+ *   <li>sql: agregados GROUP BY que resuelve la BD; nada en memoria.</li>
+ * </ul>
+ * El resultado se guarda hasta que cambia la versión del catálogo, que BookService incrementa
+ * con cada libro guardado (al confirmarse la transacción). Las escrituras que no pasan por
+ * BookService (cargas masivas por JDBC, otra instancia) no la incrementan ni llegan a las
+ * columnas: para eso está {@link #refresh()}, que las vuelve a leer.
+ */
+@Component
+public class CatalogStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogStatistics.class);
+
+    public enum Engine { PARALLEL, SQL }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.stats.engine:parallel}")
+    private String engineName;
+
+    // 0: todos los núcleos
+    @Value("${gutendx.stats.threads:0}")
+    private int threads;
+
+    @Value("${gutendx.catalog.background-load:true}")
+    private boolean backgroundLoad;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private Engine engine = Engine.PARALLEL;
+    private ForkJoinPool pool;
+    private final BackgroundLoad<CatalogColumns> columns = new BackgroundLoad<>("columnas de estadísticas");
+    private volatile CatalogStats cached;
+
+    @PostConstruct
+    void start() {
+        engine = Engine.valueOf(engineName.trim().toUpperCase(Locale.ROOT));
+        if (engine == Engine.PARALLEL) {
+            pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+            columns.start(backgroundLoad, this::load);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /** Cambia con cada escritura del catálogo; el resultado guardado vale mientras no cambie. */
+    public long version() {
+        return version.get();
+    }
+
+    /** Las estadísticas de la versión actual del catálogo, calculadas una sola vez por versión. */
+    public CatalogStats report() {
+        CatalogStats current = cached;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            // La versión se lee antes de calcular: una escritura durante el cálculo deja el resultado viejo
+            long seen = version.get();
+            current = cached;
+            if (current == null || current.version() != seen) {
+                // Con las columnas todavía cargándose, lo resuelve la BD
+                current = compute(engine == Engine.PARALLEL && columns.get() == null ? Engine.SQL : engine, seen);
+                cached = current;
+            }
+            return current;
+        }
+    }
+
+    /** Calcula sin mirar lo guardado; con PARALLEL espera a que las columnas estén cargadas. */
+    public CatalogStats compute(Engine engine) {
+        return compute(engine, version.get());
+    }
+
+    /** Vuelve a leer las columnas de la BD e invalida el resultado guardado. */
+    public void refresh() {
+        // Un libro guardado mientras se recorre la tabla puede quedar afuera hasta la próxima recarga
+        if (columns.get() != null) {
+            columns.replace(load());
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Registra un libro guardado o modificado y sus autores. Dentro de una transacción espera al
+     * commit, como el grafo y las facetas: un rollback no cambia la versión.
+     */
+    public void bookSaved(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        long bookId = book.getId();
+        Integer downloads = book.getDownloadCount();
+        String languageCode = book.getLanguageCode();
+        List<Author> authors = new ArrayList<>(book.getAuthors());
+
+        Runnable apply = () -> {
+            if (engine == Engine.PARALLEL) {
+                // Si todavía se están cargando, se aplica al terminar
+                columns.apply(current -> {
+                    for (Author author : authors) {
+                        current.putAuthor(author.getId(), author.getBirthYear(), author.getDeathYear());
+                    }
+                    current.putBook(bookId, downloads, languageCode);
+                });
+            }
+            // Después de aplicar: quien lea la versión nueva ve las columnas al día
+            version.incrementAndGet();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private CatalogStats compute(Engine engine, long atVersion) {
+        long started = System.nanoTime();
+        CatalogColumns.Totals totals;
+        if (engine == Engine.PARALLEL) {
+            if (this.engine != Engine.PARALLEL) {
+                throw new IllegalStateException("Las columnas en memoria sólo se cargan con gutendx.stats.engine=parallel");
+            }
+            CatalogColumns current = columns.await();
+            if (current == null) {
+                throw new IllegalStateException("Las columnas de estadísticas no se pudieron cargar (ver el log)");
+            }
+            totals = current.reduce(pool);
+        } else {
+            totals = aggregate();
+        }
+        CatalogStats stats = CatalogStats.of(atVersion, engine.name().toLowerCase(Locale.ROOT), totals,
+                System.nanoTime() - started);
+        logger.debug("Estadísticas del catálogo (versión {}) en {} ms con {}",
+                atVersion, stats.elapsedNanos() / 1_000_000, stats.engine());
+        return stats;
+    }
+
+    private CatalogColumns.Totals aggregate() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            List<Object[]> byLanguage = bookRepository.aggregateByLanguage();
+            CatalogColumns.Totals totals = new CatalogColumns.Totals(byLanguage.stream()
+                    .map(row -> (String) row[0])
+                    .toArray(String[]::new));
+            for (Object[] row : byLanguage) {
+                totals.addLanguage((String) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue(),
+                        ((Number) row[3]).intValue());
+            }
+            for (Object[] row : bookRepository.countByDownloadDigits()) {
+                totals.addDownloadDigits(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            for (Object[] row : authorRepository.countLifeYears()) {
+                totals.addAuthorCounts(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue());
+            }
+            for (Object[] row : authorRepository.countByBirthCentury()) {
+                totals.addCentury(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            for (Object[] row : authorRepository.aggregateLifespans()) {
+                totals.addLifespans(((Number) row[1]).longValue(), ((Number) row[0]).longValue(),
+                        ((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+            }
+            return totals;
+        });
+    }
+
+    private CatalogColumns load() {
+        long started = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        CatalogColumns loaded = readOnly.execute(status -> {
+            CatalogColumns fresh = new CatalogColumns((int) bookRepository.count(), (int) authorRepository.count());
+            try (Stream<Object[]> rows = bookRepository.streamGraphNodes()) {
+                rows.forEach(row -> fresh.putBook(((Number) row[0]).longValue(), (Integer) row[1], (String) row[2]));
+            }
+            try (Stream<Object[]> rows = authorRepository.streamLifeYears()) {
+                rows.forEach(row -> fresh.putAuthor(((Number) row[0]).longValue(), (Integer) row[1], (Integer) row[2]));
+            }
+            return fresh;
+        });
+        logger.info("Columnas de estadísticas listas en {} ms: {} libros, {} autores",
+                (System.nanoTime() - started) / 1_000_000, loaded.bookCount(), loaded.authorCount());
+        return loaded;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gutendx.service;
+
+import com.gutendx.util.CatalogColumns;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Estadísticas del catálogo calculadas con la versión dada: descargas por idioma y por
+ * magnitud, autores por siglo de nacimiento y duración de las vidas conocidas.
+ * Los mapas van ordenados por su clave: el primer año del siglo (1800 es 1800-1899, -400 es
+ * 400-301 a. C.), la primera cantidad de descargas del rango (100 es 100-999) o la primera
+ * edad de la década.
+ */
+public record CatalogStats(long version, String engine, long books, long downloads, List<LanguageStats> languages,
+                           SortedMap<Long, Long> booksByDownloads, long authors, long authorsWithBirthYear,
+                           long authorsWithDeathYear, SortedMap<Integer, Long> authorsByCentury,
+                           Lifespans lifespans, long elapsedNanos) {
+
+    public record LanguageStats(String code, long books, long downloads, int maxDownloads) {
+
+        public double averageDownloads() {
+            return books == 0 ? 0.0 : (double) downloads / books;
+        }
+    }
+
+    public record Lifespans(long count, double averageYears, int minYears, int maxYears,
+                            SortedMap<Integer, Long> byDecade) {}
+
+    static CatalogStats of(long version, String engine, CatalogColumns.Totals totals, long elapsedNanos) {
+        List<LanguageStats> languages = new ArrayList<>();
+        for (int language = 0; language < totals.languageCount(); language++) {
+            if (totals.languageBooks(language) > 0) {
+                languages.add(new LanguageStats(totals.languageCode(language), totals.languageBooks(language),
+                        totals.languageDownloads(language), totals.languageMaxDownloads(language)));
+            }
+        }
+        languages.sort(Comparator.comparingLong(LanguageStats::books).reversed().thenComparing(LanguageStats::code));
+
+        SortedMap<Long, Long> booksByDownloads = new TreeMap<>();
+        long from = 0;
+        for (int magnitude = 0; magnitude < CatalogColumns.Totals.DOWNLOAD_MAGNITUDES; magnitude++) {
+            if (totals.booksByMagnitude(magnitude) > 0) {
+                booksByDownloads.put(from, totals.booksByMagnitude(magnitude));
+            }
+            from = from == 0 ? 10 : from * 10;
+        }
+
+        SortedMap<Integer, Long> authorsByCentury = new TreeMap<>();
+        for (int century = CatalogColumns.Totals.MIN_CENTURY; century <= CatalogColumns.Totals.MAX_CENTURY; century++) {
+            if (totals.authorsInCentury(century) > 0) {
+                authorsByCentury.put(century * 100, totals.authorsInCentury(century));
+            }
+        }
+
+        SortedMap<Integer, Long> byDecade = new TreeMap<>();
+        for (int decade = 0; decade <= CatalogColumns.Totals.MAX_LIFESPAN_DECADE; decade++) {
+            if (totals.lifespansInDecade(decade) > 0) {
+                byDecade.put(decade * 10, totals.lifespansInDecade(decade));
+            }
+        }
+        long count = totals.lifespans();
+        Lifespans lifespans = new Lifespans(count, count == 0 ? 0.0 : (double) totals.lifespanYears() / count,
+                count == 0 ? 0 : totals.minLifespan(), count == 0 ? 0 : totals.maxLifespan(),
+                Collections.unmodifiableSortedMap(byDecade));
+
+        return new CatalogStats(version, engine, totals.books(), totals.downloads(), List.copyOf(languages),
+                Collections.unmodifiableSortedMap(booksByDownloads), totals.authors(), totals.authorsWithBirthYear(),
+                totals.authorsWithDeathYear(), Collections.unmodifiableSortedMap(authorsByCentury), lifespans,
+                elapsedNanos);
+    }
+
+    /** El resumen para la consola, una línea por tema. */
+    public List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%d libros, %d descargas; %d autores (%d con año de nacimiento, %d con año de muerte)",
+                books, downloads, authors, authorsWithBirthYear, authorsWithDeathYear));
+
+        List<String> perLanguage = new ArrayList<>();
+        for (LanguageStats language : languages) {
+            perLanguage.add(String.format("%s %d libros, %d descargas (%.0f promedio, %d máximo)", language.code(),
+                    language.books(), language.downloads(), language.averageDownloads(), language.maxDownloads()));
+        }
+        lines.add("Por idioma: " + (perLanguage.isEmpty() ? "-" : String.join("; ", perLanguage)));
+
+        List<String> ranges = new ArrayList<>();
+        booksByDownloads.forEach((from, count) ->
+                ranges.add((from == 0 ? "0-9" : from + "-" + (from * 10 - 1)) + ": " + count));
+        lines.add("Libros por descargas: " + (ranges.isEmpty() ? "-" : String.join(", ", ranges)));
+
+        List<String> centuries = new ArrayList<>();
+        authorsByCentury.forEach((from, count) -> centuries.add(century(from) + ": " + count));
+        lines.add("Autores por siglo de nacimiento: " + (centuries.isEmpty() ? "-" : String.join(", ", centuries)));
+
+        List<String> decades = new ArrayList<>();
+        lifespans.byDecade().forEach((from, count) -> decades.add(
+                (from == CatalogColumns.Totals.MAX_LIFESPAN_DECADE * 10 ? from + "+" : from + "-" + (from + 9)) + ": " + count));
+        lines.add(String.format("Vidas conocidas: %d, promedio %.1f años (%d-%d); por década: %s", lifespans.count(),
+                lifespans.averageYears(), lifespans.minYears(), lifespans.maxYears(),
+                decades.isEmpty() ? "-" : String.join(", ", decades)));
+
+        lines.add(String.format("Calculado con %s en %d ms (versión %d del catálogo)",
+                engine, elapsedNanos / 1_000_000, version));
+        return lines;
+    }
+
+    private static String century(int from) {
+        return from >= 0 ? from + "-" + (from + 99) : (-from) + "-" + (-from - 99) + " a. C.";
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", lines());
+    }
+}
@@ -0,0 +1,24 @@
+package com.gutendx.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@ConditionalOnProperty(name = "gutendx.downloads.snapshot-enabled", havingValue = "true")
+@Lazy(false) // @Scheduled solo se registra si el bean se crea
+public class DownloadHistoryScheduler {
+
+    @Autowired
+    private DownloadHistoryService downloadHistoryService;
+
+    // Después de la sincronización nocturna, para muestrear descargas ya actualizadas
+    @Scheduled(cron = "${gutendx.downloads.snapshot-cron:0 30 3 * * *}")
+    public void snapshot() {
+        downloadHistoryService.snapshot(LocalDate.now());
+    }
+}
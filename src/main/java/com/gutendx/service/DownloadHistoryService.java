@@ -0,0 +1,225 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Book;
+import com.gutendx.entity.DownloadBlock;
+import com.gutendx.entity.DownloadTrend;
+import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.DownloadBlockRepository;
+import com.gutendx.repository.DownloadTrendRepository;
+import com.gutendx.util.DownloadSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Historial de descargas: una muestra diaria de Book.downloadCount por libro, guardada como
+ * serie compacta ({@link DownloadSeries}) en un bloque por libro y año. Al tomar cada muestra
+ * se recalcula la variación en cada ventana (download_trend), y "los que más subieron en N
+ * días" es una lectura por índice de esa tabla.
+ */
+@Service
+public class DownloadHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadHistoryService.class);
+
+    /** Ventanas precalculadas, en días. */
+    public static final List<Integer> WINDOWS = List.of(1, 7, 30, 90, 365);
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DownloadBlockRepository downloadBlockRepository;
+
+    @Autowired
+    private DownloadTrendRepository downloadTrendRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.downloads.batch-size:500}")
+    private int batchSize;
+
+    public record Sample(LocalDate day, int downloads) {}
+
+    public record Mover(Book book, int downloads, int delta) {
+
+        @Override
+        public String toString() {
+            return String.format("%+d (%d descargas): %s", delta, downloads, book.getTitle());
+        }
+    }
+
+    public record SnapshotReport(LocalDate day, long books, long sampled, long skipped, long elapsedNanos) {
+
+        @Override
+        public String toString() {
+            return String.format("muestra del %s: %d libros, %d nuevas, %d ya tomadas, %d ms",
+                    day, books, sampled, skipped, elapsedNanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Agrega la muestra del día con las descargas actuales de cada libro y recalcula sus
+     * variaciones. Va por lotes, cada uno en su transacción. Los libros que ya tienen la
+     * muestra de ese día (o una posterior) se saltean: repetirla no cambia nada.
+     */
+    public SnapshotReport snapshot(LocalDate day) {
+        long started = System.nanoTime();
+
+        // (id, descargas) de todo el catálogo, así no queda un cursor abierto entre lotes
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<long[]> catalog = readOnly.execute(status -> {
+            try (Stream<Object[]> rows = bookRepository.streamGraphNodes()) {
+                return rows.map(row -> new long[] {((Number) row[0]).longValue(),
+                                row[1] == null ? 0 : ((Number) row[1]).longValue()})
+                        .collect(Collectors.toList());
+            }
+        });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long sampled = 0;
+        for (int from = 0; from < catalog.size(); from += batchSize) {
+            List<long[]> batch = catalog.subList(from, Math.min(from + batchSize, catalog.size()));
+            Long appended = transactionTemplate.execute(status -> sample(batch, day));
+            sampled += appended;
+        }
+
+        SnapshotReport report = new SnapshotReport(day, catalog.size(), sampled, catalog.size() - sampled,
+                System.nanoTime() - started);
+        logger.info("Historial de descargas: {}", report);
+        return report;
+    }
+
+    private long sample(List<long[]> batch, LocalDate date) {
+        int day = (int) date.toEpochDay();
+        short year = (short) date.getYear();
+        List<Long> bookIds = batch.stream().map(row -> row[0]).collect(Collectors.toList());
+
+        // Este año y el anterior: alcanzan para mirar hasta 365 días atrás
+        Map<Long, DownloadBlock> current = new HashMap<>();
+        Map<Long, DownloadBlock> previous = new HashMap<>();
+        for (DownloadBlock block : downloadBlockRepository.findByBookIdInAndYearIn(bookIds,
+                List.of(year, (short) (year - 1)))) {
+            (block.getYear() == year ? current : previous).put(block.getBookId(), block);
+        }
+        Map<Long, DownloadTrend> trends = downloadTrendRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(DownloadTrend::getBookId, Function.identity()));
+
+        List<DownloadBlock> newBlocks = new ArrayList<>();
+        List<DownloadTrend> newTrends = new ArrayList<>();
+        long appended = 0;
+        for (long[] row : batch) {
+            long bookId = row[0];
+            int count = (int) row[1];
+
+            DownloadBlock block = current.get(bookId);
+            if (block == null) {
+                block = new DownloadBlock(bookId, year, day, count, DownloadSeries.start(day, count));
+                newBlocks.add(block);
+            } else if (block.getLastDay() >= day) {
+                continue;
+            } else {
+                // Entidad ya cargada: el flush del commit escribe el bloque nuevo
+                block.setData(DownloadSeries.append(block.getData(), block.getLastDay(), block.getLastCount(), day, count));
+                block.setLastDay(day);
+                block.setLastCount(count);
+                block.setSamples(block.getSamples() + 1);
+            }
+            appended++;
+
+            DownloadTrend trend = trends.get(bookId);
+            if (trend == null) {
+                trend = new DownloadTrend(bookId);
+                newTrends.add(trend);
+            }
+            trend.setDay(day);
+            trend.setDownloadCount(count);
+            for (int window : WINDOWS) {
+                int before = countAt(block, previous.get(bookId), day - window);
+                trend.setDelta(window, before == MISSING ? null : count - before);
+            }
+        }
+        downloadBlockRepository.saveAll(newBlocks);
+        downloadTrendRepository.saveAll(newTrends);
+        return appended;
+    }
+
+    // Descargas al día dado según el bloque de este año o, si cae antes, el del año anterior
+    private static int countAt(DownloadBlock current, DownloadBlock previous, int day) {
+        int count = DownloadSeries.countAt(current.getData(), day, MISSING);
+        if (count == MISSING && previous != null) {
+            count = previous.getLastDay() <= day ? previous.getLastCount()
+                    : DownloadSeries.countAt(previous.getData(), day, MISSING);
+        }
+        return count;
+    }
+
+    /**
+     * Los libros con mayor suba de descargas en la ventana, según la última muestra de cada uno.
+     *
+     * @throws IllegalArgumentException si days no es una de las {@link #WINDOWS}
+     */
+    @Transactional(readOnly = true)
+    public List<Mover> topMovers(int days, int limit) {
+        Limit top = Limit.of(limit);
+        List<DownloadTrend> trends = switch (days) {
+            case 1 -> downloadTrendRepository.findByDelta1dNotNullOrderByDelta1dDesc(top);
+            case 7 -> downloadTrendRepository.findByDelta7dNotNullOrderByDelta7dDesc(top);
+            case 30 -> downloadTrendRepository.findByDelta30dNotNullOrderByDelta30dDesc(top);
+            case 90 -> downloadTrendRepository.findByDelta90dNotNullOrderByDelta90dDesc(top);
+            case 365 -> downloadTrendRepository.findByDelta365dNotNullOrderByDelta365dDesc(top);
+            default -> throw new IllegalArgumentException("Ventana no disponible: " + days + " días (use "
+                    + WINDOWS.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")");
+        };
+
+        Map<Long, Book> books = bookRepository.findByIdIn(trends.stream().map(DownloadTrend::getBookId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Mover> movers = new ArrayList<>();
+        for (DownloadTrend trend : trends) {
+            Book book = books.get(trend.getBookId());
+            if (book != null) {
+                movers.add(new Mover(book, trend.getDownloadCount(), trend.getDelta(days)));
+            }
+        }
+        return movers;
+    }
+
+    /** Las muestras de un libro (por su id de Gutendx) desde el día dado, en orden. */
+    @Transactional(readOnly = true)
+    public List<Sample> history(long gutendxBookId, LocalDate from) throws BookNotFoundException {
+        Book book = bookRepository.findByGutendxBookId(gutendxBookId)
+                .orElseThrow(() -> new BookNotFoundException("No hay un libro registrado con id " + gutendxBookId));
+
+        int fromDay = (int) from.toEpochDay();
+        List<Sample> samples = new ArrayList<>();
+        for (DownloadBlock block : downloadBlockRepository.findByBookIdOrderByYear(book.getId())) {
+            if (block.getLastDay() < fromDay) {
+                continue;
+            }
+            DownloadSeries.forEach(block.getData(), (day, count) -> {
+                if (day >= fromDay) {
+                    samples.add(new Sample(LocalDate.ofEpochDay(day), count));
+                }
+            });
+        }
+        return samples;
+    }
+}
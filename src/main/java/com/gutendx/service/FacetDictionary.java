@@ -0,0 +1,107 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Facet;
+import com.gutendx.repository.FacetRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Copia en memoria de la tabla {@code facet}, igual que {@link LanguageDictionary} con los
+ * idiomas: cada tema o estantería se interna una sola vez y se referencia por id.
+ */
+@Component
+public class FacetDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetDictionary.class);
+
+    private static final char SEPARATOR = '\u001F';
+
+    @Autowired
+    private FacetRepository facetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Facet> byKey = new ConcurrentHashMap<>();
+    private final Map<Integer, Facet> byId = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        for (Facet facet : facetRepository.findAll()) {
+            register(facet);
+        }
+        logger.debug("Diccionario de facetas cargado: {} temas y estanterías", byId.size());
+    }
+
+    public Facet intern(Facet.Kind kind, String name) {
+        String normalized = name.trim();
+        Facet cached = byKey.get(key(kind, normalized));
+        return cached != null ? cached : create(kind, normalized);
+    }
+
+    private synchronized Facet create(Facet.Kind kind, String name) {
+        Facet cached = byKey.get(key(kind, name));
+        if (cached != null) {
+            return cached;
+        }
+
+        // Transacción propia y corta, y alta con ON CONFLICT, como en LanguageDictionary: solo
+        // la primera vez que aparece un tema o una estantería
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Facet facet = template.execute(status -> {
+            facetRepository.insertIfAbsent(kind.name(), name);
+            return facetRepository.findByKindAndName(kind, name).orElseThrow();
+        });
+
+        register(facet);
+        return facet;
+    }
+
+    public Optional<Facet> byId(int id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Facetas de ese tipo cuyo nombre es exactamente el texto (sin distinguir mayúsculas) o,
+     * si no hay ninguna, las que lo contienen.
+     */
+    public List<Facet> find(Facet.Kind kind, String text) {
+        String needle = text.trim().toLowerCase(Locale.ROOT);
+        List<Facet> candidates = ofKind(kind);
+        List<Facet> exact = candidates.stream()
+                .filter(facet -> facet.getName().toLowerCase(Locale.ROOT).equals(needle))
+                .collect(Collectors.toList());
+        if (!exact.isEmpty()) {
+            return exact;
+        }
+        return candidates.stream()
+                .filter(facet -> facet.getName().toLowerCase(Locale.ROOT).contains(needle))
+                .collect(Collectors.toList());
+    }
+
+    public List<Facet> ofKind(Facet.Kind kind) {
+        return byId.values().stream()
+                .filter(facet -> facet.getKind() == kind)
+                .collect(Collectors.toList());
+    }
+
+    private void register(Facet facet) {
+        byKey.put(key(facet.getKind(), facet.getName()), facet);
+        byId.put(facet.getId(), facet);
+    }
+
+    private static String key(Facet.Kind kind, String name) {
+        return kind.name() + SEPARATOR + name;
+    }
+}
@@ -0,0 +1,65 @@
+package com.gutendx.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro de navegación por facetas. Desde texto, condiciones separadas por ';':
+ * "lang=es,en; subject=Science fiction; shelf=Movie Books; alive=1900".
+ * Los idiomas se combinan con OR; cada subject= o shelf= es una condición más (AND) que
+ * acepta cualquier faceta cuyo nombre coincida con el texto.
+ */
+public record FacetQuery(List<String> languages, List<String> subjects, List<String> bookshelves,
+                         Integer aliveIn) {
+
+    public FacetQuery {
+        languages = List.copyOf(languages);
+        subjects = List.copyOf(subjects);
+        bookshelves = List.copyOf(bookshelves);
+    }
+
+    public static FacetQuery parse(String spec) {
+        List<String> languages = new ArrayList<>();
+        List<String> subjects = new ArrayList<>();
+        List<String> bookshelves = new ArrayList<>();
+        Integer aliveIn = null;
+
+        for (String part : spec.split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] option = part.split("=", 2);
+            String key = option[0].trim().toLowerCase(Locale.ROOT);
+            String value = option.length > 1 ? option[1].trim() : "";
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Falta el valor en: " + part.trim());
+            }
+            switch (key) {
+                case "lang":
+                    languages.addAll(Arrays.stream(value.toLowerCase(Locale.ROOT).split("[,\\s]+"))
+                            .filter(code -> !code.isEmpty())
+                            .collect(Collectors.toList()));
+                    break;
+                case "subject":
+                    subjects.add(value);
+                    break;
+                case "shelf":
+                    bookshelves.add(value);
+                    break;
+                case "alive":
+                    try {
+                        aliveIn = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Año inválido: " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Filtro desconocido: " + key + " (lang, subject, shelf, alive)");
+            }
+        }
+        return new FacetQuery(languages, subjects, bookshelves, aliveIn);
+    }
+}
@@ -1,15 +1,27 @@
 package com.gutendx.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.exception.ApiException;
+import com.gutendx.profiling.ApiCallEvent;
+import com.gutendx.profiling.DtoMappingEvent;
+import com.gutendx.service.UpstreamScheduler.Priority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class GutendxApiService {
@@ -21,39 +33,166 @@ public class GutendxApiService {
 
     private final RestTemplate restTemplate;
 
+    // Sin scheduler (instancias creadas a mano en tests) los pedidos salen directo
+    @Autowired(required = false)
+    private UpstreamScheduler scheduler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     public GutendxApiService() {
         this.restTemplate = new RestTemplate();
     }
 
     public GutendxApiResponse searchBooks(String query) throws ApiException {
-        try {
-            logger.info("Buscando libros con query: {}", query);
+        return search(GutendxQuery.builder().search(query).build());
+    }
 
-            String url = UriComponentsBuilder
-                    .fromHttpUrl(baseUrl)
-                    .path("/books")
-                    .queryParam("search", query)
-                    .build()
-                    .toUriString();
+    /** Búsqueda pedida por el usuario: pasa delante de la sincronización y la ingesta. */
+    public GutendxApiResponse search(GutendxQuery query) throws ApiException {
+        logger.info("Buscando libros con query: {}", query);
 
-            logger.debug("URL de búsqueda: {}", url);
+        URI url = query.toUri(baseUrl);
+        logger.debug("URL de búsqueda: {}", url);
 
-            ResponseEntity<GutendxApiResponse> response = restTemplate.getForEntity(
-                    url, GutendxApiResponse.class);
+        GutendxApiResponse body = get(url, Priority.INTERACTIVE);
+        logger.info("Búsqueda exitosa. Libros encontrados: {}", body.getCount());
+        return body;
+    }
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                logger.info("Búsqueda exitosa. Libros encontrados: {}", response.getBody().getCount());
-                return response.getBody();
-            } else {
-                throw new ApiException("Respuesta inválida de la API de Gutendx");
+    /**
+     * Recorre las páginas de la consulta hasta agotarlas o llegar a maxPages.
+     */
+    public List<GutendxApiResponse.BookDto> fetchAll(GutendxQuery query, int maxPages) throws ApiException {
+        return fetchAll(query, maxPages, Priority.BACKGROUND);
+    }
+
+    public List<GutendxApiResponse.BookDto> fetchAll(GutendxQuery query, int maxPages, Priority priority)
+            throws ApiException {
+        List<GutendxApiResponse.BookDto> books = new ArrayList<>();
+        URI url = query.toUri(baseUrl);
+        int pages = 0;
+
+        // Recorrer todas las páginas de la respuesta
+        while (url != null && pages < maxPages) {
+            GutendxApiResponse page = get(url, priority);
+            pages++;
+            if (page.getResults() != null) {
+                books.addAll(page.getResults());
             }
+            url = page.getNext() != null ? URI.create(page.getNext()) : null;
+        }
+
+        logger.debug("Consulta {}: {} libros en {} páginas", query, books.size(), pages);
+        return books;
+    }
+
+    public List<GutendxApiResponse.BookDto> fetchBooksByIds(Collection<Long> ids) throws ApiException {
+        return fetchBooksByIds(ids, Priority.BACKGROUND);
+    }
+
+    /**
+     * Con scheduler, los ids van de a una página por pedido y los de fondo se juntan con los
+     * de otros llamadores concurrentes (ver {@link UpstreamScheduler#fetchByIds}).
+     */
+    public List<GutendxApiResponse.BookDto> fetchBooksByIds(Collection<Long> ids, Priority priority)
+            throws ApiException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<GutendxApiResponse.BookDto> books = scheduler == null
+                ? fetchAll(GutendxQuery.builder().ids(ids).build(), Integer.MAX_VALUE, priority)
+                : scheduler.fetchByIds(ids, priority, (chunk, chunkPriority) ->
+                        fetchAll(GutendxQuery.builder().ids(chunk).build(), Integer.MAX_VALUE, chunkPriority));
+        logger.debug("Libros obtenidos por id: {} de {} solicitados", books.size(), ids.size());
+        return books;
+    }
+
+    public long fetchLatestBookId() throws ApiException {
+        GutendxApiResponse page = get(GutendxQuery.builder()
+                .sort(GutendxQuery.Sort.DESCENDING)
+                .build()
+                .toUri(baseUrl), Priority.BACKGROUND);
+        if (page.getResults() == null || page.getResults().isEmpty()) {
+            return 0L;
+        }
+        return page.getResults().get(0).getId();
+    }
+
+    /** Convierte una respuesta ya descargada por el mismo camino que las de la API (el calentamiento lo usa). */
+    public GutendxApiResponse decode(byte[] payload) throws IOException {
+        return bind(payload);
+    }
+
+    private GutendxApiResponse get(URI url, Priority priority) throws ApiException {
+        return scheduler == null ? get(url) : scheduler.execute(priority, () -> get(url));
+    }
+
+    private GutendxApiResponse get(URI url) throws ApiException {
+        try {
+            // Bajar el cuerpo y convertirlo por separado, para medir cada parte
+            return bind(download(url));
 
+        } catch (ApiException e) {
+            throw e;
         } catch (RestClientException e) {
+            if (e instanceof RestClientResponseException response
+                    && UpstreamScheduler.isThrottling(response.getStatusCode().value())) {
+                // Lo maneja el scheduler: baja la tasa y reintenta
+                logger.debug("Gutendx respondió {} a {}", response.getStatusCode().value(), url);
+                throw new ApiException("Gutendx limitó los pedidos: " + e.getMessage(), e);
+            }
             logger.error("Error al comunicarse con la API de Gutendx", e);
             throw new ApiException("Error de conexión con la API de Gutendx: " + e.getMessage(), e);
+        } catch (IOException e) {
+            logger.error("Respuesta ilegible de la API de Gutendx", e);
+            throw new ApiException("Respuesta inválida de la API de Gutendx: " + e.getMessage(), e);
         } catch (Exception e) {
-            logger.error("Error inesperado al buscar libros", e);
-            throw new ApiException("Error inesperado al buscar libros: " + e.getMessage(), e);
+            logger.error("Error inesperado al consultar la API", e);
+            throw new ApiException("Error inesperado al consultar la API: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] download(URI url) throws ApiException {
+        ApiCallEvent event = new ApiCallEvent();
+        event.begin();
+        int status = 0;
+        byte[] payload = null;
+        try {
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
+            status = response.getStatusCode().value();
+            payload = response.getBody();
+
+            if (response.getStatusCode() != HttpStatus.OK || payload == null) {
+                throw new ApiException("Respuesta inválida de la API de Gutendx");
+            }
+            return payload;
+        } catch (RestClientResponseException e) {
+            status = e.getStatusCode().value();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.url = url.toString();
+                event.status = status;
+                event.bytes = payload == null ? 0 : payload.length;
+                event.commit();
+            }
+        }
+    }
+
+    private GutendxApiResponse bind(byte[] payload) throws IOException {
+        DtoMappingEvent event = new DtoMappingEvent();
+        event.begin();
+        GutendxApiResponse body = objectMapper.readValue(payload, GutendxApiResponse.class);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = DtoMappingEvent.JSON;
+            event.type = GutendxApiResponse.class.getSimpleName();
+            event.bytes = payload.length;
+            event.items = body.getResults() == null ? 0 : body.getResults().size();
+            event.commit();
         }
+        return body;
     }
 }
@@ -0,0 +1,193 @@
+package com.gutendx.service;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Consulta tipada contra /books de Gutendx. Los filtros se envían como parámetros
+ * para que Gutendx los aplique del lado del servidor y las páginas que bajamos
+ * contengan solo lo que vamos a usar.
+ */
+public final class GutendxQuery {
+
+    public enum Sort {
+        POPULAR("popular"),
+        ASCENDING("ascending"),
+        DESCENDING("descending");
+
+        private final String value;
+
+        Sort(String value) {
+            this.value = value;
+        }
+
+        public String getValue() { return value; }
+    }
+
+    private final String search;
+    private final List<String> languages;
+    private final Integer authorYearStart;
+    private final Integer authorYearEnd;
+    private final String topic;
+    private final List<Long> ids;
+    private final Sort sort;
+    private final String mimeType;
+
+    private GutendxQuery(Builder builder) {
+        this.search = builder.search;
+        this.languages = List.copyOf(builder.languages);
+        this.authorYearStart = builder.authorYearStart;
+        this.authorYearEnd = builder.authorYearEnd;
+        this.topic = builder.topic;
+        this.ids = List.copyOf(builder.ids);
+        this.sort = builder.sort;
+        this.mimeType = builder.mimeType;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getSearch() { return search; }
+    public List<String> getLanguages() { return languages; }
+    public Integer getAuthorYearStart() { return authorYearStart; }
+    public Integer getAuthorYearEnd() { return authorYearEnd; }
+    public String getTopic() { return topic; }
+    public List<Long> getIds() { return ids; }
+    public Sort getSort() { return sort; }
+    public String getMimeType() { return mimeType; }
+
+    /**
+     * URI ya codificada: "application/epub+zip" debe viajar como "%2B", no como espacio.
+     */
+    public URI toUri(String baseUrl) {
+        UriComponentsBuilder uri = UriComponentsBuilder
+                .fromHttpUrl(baseUrl)
+                .path("/books");
+
+        if (search != null) {
+            uri.queryParam("search", encode(search));
+        }
+        if (!languages.isEmpty()) {
+            uri.queryParam("languages", languages.stream().map(GutendxQuery::encode).collect(Collectors.joining(",")));
+        }
+        if (authorYearStart != null) {
+            uri.queryParam("author_year_start", authorYearStart);
+        }
+        if (authorYearEnd != null) {
+            uri.queryParam("author_year_end", authorYearEnd);
+        }
+        if (topic != null) {
+            uri.queryParam("topic", encode(topic));
+        }
+        if (!ids.isEmpty()) {
+            uri.queryParam("ids", ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        if (sort != null) {
+            uri.queryParam("sort", sort.getValue());
+        }
+        if (mimeType != null) {
+            uri.queryParam("mime_type", encode(mimeType));
+        }
+
+        return uri.build(true).toUri();
+    }
+
+    private static String encode(String value) {
+        return UriUtils.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toUri("http://gutendx").getRawQuery();
+    }
+
+    public static final class Builder {
+
+        private String search;
+        private final List<String> languages = new ArrayList<>();
+        private Integer authorYearStart;
+        private Integer authorYearEnd;
+        private String topic;
+        private final List<Long> ids = new ArrayList<>();
+        private Sort sort;
+        private String mimeType;
+
+        private Builder() {}
+
+        public Builder search(String search) {
+            this.search = blankToNull(search);
+            return this;
+        }
+
+        public Builder languages(Collection<String> codes) {
+            for (String code : codes) {
+                String normalized = blankToNull(code);
+                if (normalized != null && !languages.contains(normalized.toLowerCase(Locale.ROOT))) {
+                    languages.add(normalized.toLowerCase(Locale.ROOT));
+                }
+            }
+            return this;
+        }
+
+        public Builder language(String code) {
+            return languages(List.of(code));
+        }
+
+        /** Libros con al menos un autor vivo en o después de este año. */
+        public Builder authorYearStart(Integer year) {
+            this.authorYearStart = year;
+            return this;
+        }
+
+        /** Libros con al menos un autor vivo en o antes de este año. */
+        public Builder authorYearEnd(Integer year) {
+            this.authorYearEnd = year;
+            return this;
+        }
+
+        /** Autores vivos en un año concreto: mismo año como inicio y fin. */
+        public Builder authorAliveIn(int year) {
+            return authorYearStart(year).authorYearEnd(year);
+        }
+
+        public Builder topic(String topic) {
+            this.topic = blankToNull(topic);
+            return this;
+        }
+
+        public Builder ids(Collection<Long> ids) {
+            this.ids.addAll(ids);
+            return this;
+        }
+
+        public Builder sort(Sort sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder mimeType(String mimeType) {
+            this.mimeType = blankToNull(mimeType);
+            return this;
+        }
+
+        public GutendxQuery build() {
+            if (authorYearStart != null && authorYearEnd != null && authorYearStart > authorYearEnd) {
+                throw new IllegalArgumentException("author_year_start no puede ser mayor que author_year_end");
+            }
+            return new GutendxQuery(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
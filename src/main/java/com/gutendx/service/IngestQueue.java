@@ -0,0 +1,136 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.IngestTask;
+import com.gutendx.entity.SyncState;
+import com.gutendx.repository.IngestTaskRepository;
+import com.gutendx.repository.SyncStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Cola de ingesta en la BD, compartida por todas las instancias que apuntan a ella. Cada
+ * tarea es un rango de ids de Gutendx; una instancia la toma con un lease que vence si deja
+ * de renovarlo, y al terminar la cierra en la misma transacción que escribe los libros.
+ * Todas las escrituras sobre una tarea tomada exigen que el lease siga siendo de quien escribe.
+ * Vencimientos y esperas se calculan con el reloj de la BD, el mismo para todas las instancias.
+ */
+@Service
+public class IngestQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestQueue.class);
+
+    static final String PLAN_STATE_NAME = "ingest-plan";
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired
+    private IngestTaskRepository ingestTaskRepository;
+
+    @Autowired
+    private SyncStateRepository syncStateRepository;
+
+    /**
+     * Agrega tareas hasta cubrir los ids ≤ latestId. La marca de lo ya planificado se lee con
+     * SELECT ... FOR UPDATE: si varias instancias arrancan juntas, planifica una y las demás
+     * encuentran la marca ya avanzada.
+     */
+    @Transactional
+    public int plan(long latestId, int rangeSize) {
+        syncStateRepository.insertIfAbsent(PLAN_STATE_NAME);
+        SyncState state = syncStateRepository.findForUpdate(PLAN_STATE_NAME).orElseThrow();
+
+        List<IngestTask> tasks = new ArrayList<>();
+        for (long from = state.getHighWaterMark() + 1; from <= latestId; from += rangeSize) {
+            tasks.add(new IngestTask(from, Math.min(from + rangeSize - 1, latestId)));
+        }
+        if (!tasks.isEmpty()) {
+            ingestTaskRepository.makeAvailable(ingestTaskRepository.saveAll(tasks).stream()
+                    .map(IngestTask::getId)
+                    .toList());
+            state.setHighWaterMark(latestId);
+            syncStateRepository.save(state);
+            logger.info("Cola de ingesta: {} tareas nuevas hasta el id {}", tasks.size(), latestId);
+        }
+        return tasks.size();
+    }
+
+    /** Toma hasta 'limit' tareas disponibles, salteando las que otra instancia está tomando. */
+    @Transactional
+    public List<IngestTask> claim(String owner, int limit, Duration lease) {
+        List<Long> ids = ingestTaskRepository.lockClaimable(limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ingestTaskRepository.claim(ids, IngestTask.Status.RUNNING, owner, lease.toNanos());
+        return ingestTaskRepository.findByIdInOrderById(ids);
+    }
+
+    /** Renueva los leases; devuelve cuántos siguen siendo de esta instancia. */
+    @Transactional
+    public int heartbeat(String owner, Collection<Long> taskIds, Duration lease) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return ingestTaskRepository.extendLeases(taskIds, owner, IngestTask.Status.RUNNING, lease.toNanos());
+    }
+
+    /**
+     * Marca la tarea como hecha. Se llama dentro de la transacción que escribió los libros:
+     * si el lease ya no es de esta instancia devuelve false y el llamador debe deshacerla.
+     */
+    @Transactional
+    public boolean complete(String owner, long taskId) {
+        return ingestTaskRepository.release(taskId, owner, IngestTask.Status.RUNNING, IngestTask.Status.DONE,
+                0L, null) == 1;
+    }
+
+    /**
+     * Devuelve la tarea a la cola con una espera que se duplica en cada intento, o la marca
+     * como fallida si ya agotó los intentos.
+     */
+    @Transactional
+    public boolean fail(String owner, IngestTask task, String error, int maxAttempts, Duration backoff) {
+        boolean exhausted = task.getAttempts() >= maxAttempts;
+        IngestTask.Status status = exhausted ? IngestTask.Status.FAILED : IngestTask.Status.PENDING;
+        Duration delay = backoff.multipliedBy(1L << Math.min(task.getAttempts() - 1, 16));
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+
+        int released = ingestTaskRepository.release(task.getId(), owner, IngestTask.Status.RUNNING, status,
+                exhausted ? 0L : delay.toNanos(), message);
+        if (released == 1 && exhausted) {
+            logger.error("Tarea de ingesta {} (ids {}-{}) fallida tras {} intentos: {}",
+                    task.getId(), task.getFirstId(), task.getLastId(), task.getAttempts(), message);
+        }
+        return released == 1;
+    }
+
+    /** Vuelve a poner en la cola las tareas fallidas, con los intentos en cero. */
+    @Transactional
+    public int requeueFailed() {
+        return ingestTaskRepository.requeue(IngestTask.Status.FAILED, IngestTask.Status.PENDING);
+    }
+
+    /** Tareas que todavía pueden terminar: pendientes (aunque esperen un reintento) o en curso. */
+    @Transactional(readOnly = true)
+    public long outstanding() {
+        return ingestTaskRepository.countByStatusIn(List.of(IngestTask.Status.PENDING, IngestTask.Status.RUNNING));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<IngestTask.Status, Long> countByStatus() {
+        Map<IngestTask.Status, Long> counts = new EnumMap<>(IngestTask.Status.class);
+        for (IngestTask.Status status : IngestTask.Status.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : ingestTaskRepository.countByStatus()) {
+            counts.put((IngestTask.Status) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
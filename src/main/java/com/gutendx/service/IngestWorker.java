@@ -0,0 +1,240 @@
+package com.gutendx.service;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.IngestTask;
+import com.gutendx.exception.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Vacía la cola de ingesta desde esta instancia: varios hilos toman tareas de a una, descargan
+ * el rango de Gutendx y lo aplican en una transacción que también cierra la tarea. Mientras
+ * trabajan, un hilo aparte renueva los leases. Pueden correr varias instancias a la vez contra
+ * la misma BD: cada una termina cuando no quedan tareas pendientes ni en curso en ninguna.
+ */
+@Service
+public class IngestWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestWorker.class);
+
+    @Autowired
+    private IngestQueue ingestQueue;
+
+    @Autowired
+    private GutendxApiService apiService;
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gutendx.ingest.node-id:}")
+    private String nodeId;
+
+    @Value("${gutendx.ingest.threads:4}")
+    private int threads;
+
+    @Value("${gutendx.ingest.range-size:32}")
+    private int rangeSize;
+
+    @Value("${gutendx.ingest.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${gutendx.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${gutendx.ingest.retry-backoff-ms:5000}")
+    private long retryBackoffMillis;
+
+    @Value("${gutendx.ingest.idle-poll-ms:1000}")
+    private long idlePollMillis;
+
+    public record Summary(String node, long tasks, long failed, long inserted, long updated, long unchanged,
+                          long elapsedNanos) {
+
+        public double tasksPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : tasks * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("nodo=%s, tareas=%d, con error=%d, insertados=%d, actualizados=%d, sin cambios=%d, "
+                    + "%d ms (%.1f tareas/s)", node, tasks, failed, inserted, updated, unchanged,
+                    elapsedNanos / 1_000_000, tasksPerSecond());
+        }
+    }
+
+    /** Planifica las tareas que falten hasta el último id publicado en Gutendx. */
+    public int plan() throws ApiException {
+        return ingestQueue.plan(apiService.fetchLatestBookId(), rangeSize);
+    }
+
+    public String nodeId() {
+        if (nodeId != null && !nodeId.isBlank()) {
+            return nodeId;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+
+    public Summary drain() throws InterruptedException {
+        return drain(nodeId());
+    }
+
+    /** Trabaja con el nombre de nodo dado hasta que la cola quede vacía en todas las instancias. */
+    public Summary drain(String node) throws InterruptedException {
+        long started = System.nanoTime();
+        Duration lease = Duration.ofMillis(leaseMillis);
+        Set<Long> held = ConcurrentHashMap.newKeySet();
+        AtomicLong tasks = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        AtomicLong unchanged = new AtomicLong();
+
+        // Renovar a un tercio del lease: hace falta perder dos latidos seguidos para perderlo
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("gutendx-ingest-heartbeat"));
+        heartbeat.scheduleWithFixedDelay(() -> {
+            List<Long> ids = new ArrayList<>(held);
+            try {
+                int renewed = ingestQueue.heartbeat(node, ids, lease);
+                if (renewed < ids.size()) {
+                    logger.warn("Nodo {}: {} de {} leases ya no son propios", node, ids.size() - renewed, ids.size());
+                }
+            } catch (Exception e) {
+                logger.warn("Nodo {}: no se pudieron renovar los leases: {}", node, e.getMessage());
+            }
+        }, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, daemon("gutendx-ingest"));
+        try {
+            List<Future<?>> loops = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                loops.add(workers.submit(() -> {
+                    work(node, lease, held, tasks, failed, inserted, updated, unchanged);
+                    return null;
+                }));
+            }
+            for (Future<?> loop : loops) {
+                try {
+                    loop.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Error en un hilo de ingesta", e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            heartbeat.shutdownNow();
+        }
+
+        Summary summary = new Summary(node, tasks.get(), failed.get(), inserted.get(), updated.get(), unchanged.get(),
+                System.nanoTime() - started);
+        logger.info("Ingesta terminada: {}", summary);
+        return summary;
+    }
+
+    private void work(String node, Duration lease, Set<Long> held, AtomicLong tasks, AtomicLong failed,
+                      AtomicLong inserted, AtomicLong updated, AtomicLong unchanged) throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Duration backoff = Duration.ofMillis(retryBackoffMillis);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<IngestTask> claimed = ingestQueue.claim(node, 1, lease);
+            if (claimed.isEmpty()) {
+                // Nada para tomar: si quedan tareas en curso (de otra instancia, o esperando un
+                // reintento) seguir mirando, por si su lease vence; si no, la cola está vacía
+                if (ingestQueue.outstanding() == 0) {
+                    return;
+                }
+                Thread.sleep(idlePollMillis);
+                continue;
+            }
+
+            IngestTask task = claimed.get(0);
+            held.add(task.getId());
+            try {
+                if (task.getAttempts() > maxAttempts) {
+                    // Lease vencido una y otra vez: la instancia que la toma se cae con ella
+                    ingestQueue.fail(node, task, "Lease vencido en todos los intentos", maxAttempts, backoff);
+                    failed.incrementAndGet();
+                    continue;
+                }
+
+                List<Long> ids = LongStream.rangeClosed(task.getFirstId(), task.getLastId()).boxed()
+                        .collect(Collectors.toList());
+                List<GutendxApiResponse.BookDto> books = apiService.fetchBooksByIds(ids);
+
+                // Altas de autores, idiomas y facetas antes: la transacción de la tarea usa una sola conexión
+                bookSyncService.prepareBooks(books);
+                SyncReport report = new SyncReport();
+                transactionTemplate.executeWithoutResult(status -> {
+                    bookSyncService.applyBooks(books, report);
+                    if (!ingestQueue.complete(node, task.getId())) {
+                        // Otra instancia la tomó al vencer el lease: deshacer, ella escribe lo mismo
+                        throw new LeaseLostException(task);
+                    }
+                });
+                tasks.incrementAndGet();
+                inserted.addAndGet(report.getInserted());
+                updated.addAndGet(report.getUpdated());
+                unchanged.addAndGet(report.getUnchanged());
+            } catch (LeaseLostException e) {
+                logger.warn("Nodo {}: {}", node, e.getMessage());
+            } catch (Exception e) {
+                // Errores de Gutendx o de la BD (por ejemplo, el mismo libro insertado desde una
+                // búsqueda en otra instancia): reintentar más tarde; el próximo intento ve lo ya guardado
+                logger.warn("Nodo {}: tarea {} (ids {}-{}) falló en el intento {}: {}", node, task.getId(),
+                        task.getFirstId(), task.getLastId(), task.getAttempts(), e.getMessage());
+                try {
+                    if (ingestQueue.fail(node, task, e.getMessage(), maxAttempts, backoff)
+                            && task.getAttempts() >= maxAttempts) {
+                        failed.incrementAndGet();
+                    }
+                } catch (Exception failError) {
+                    // Sin poder devolverla, la tarea vuelve a la cola cuando venza el lease
+                    logger.warn("Nodo {}: no se pudo devolver la tarea {}: {}", node, task.getId(),
+                            failError.getMessage());
+                }
+            } finally {
+                held.remove(task.getId());
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+
+        LeaseLostException(IngestTask task) {
+            super("la tarea " + task.getId() + " (ids " + task.getFirstId() + "-" + task.getLastId()
+                    + ") cambió de dueño antes de terminar; se descarta lo escrito");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.gutendx.service;
+
+import com.gutendx.entity.Language;
+import com.gutendx.repository.LanguageRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copia en memoria de la tabla {@code language}. Cada código ISO se interna una sola vez:
+ * los libros referencian la misma instancia y las consultas usan sus ids smallint.
+ */
+@Component
+public class LanguageDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(LanguageDictionary.class);
+
+    public static final String OTHER = "other";
+
+    private static final Locale SPANISH = new Locale("es");
+    private static final Set<String> ISO_CODES = Set.of(Locale.getISOLanguages());
+    private static final Map<String, String> DEFAULT_NAMES = Map.of(
+            "en", "ingles",
+            "es", "español",
+            "fr", "frances",
+            "pt", "portugues",
+            OTHER, "otro idioma"
+    );
+
+    @Autowired
+    private LanguageRepository languageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Language> byCode = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        for (Language language : languageRepository.findAll()) {
+            byCode.put(language.getCode(), language);
+        }
+        logger.debug("Diccionario de idiomas cargado: {} idiomas", byCode.size());
+    }
+
+    public Language intern(String code) {
+        String normalized = normalize(code);
+        Language cached = byCode.get(normalized);
+        return cached != null ? cached : create(normalized);
+    }
+
+    private synchronized Language create(String code) {
+        Language cached = byCode.get(code);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Transacción propia y corta: se confirma antes de soltar el monitor, así otro hilo
+        // nunca espera el commit de una transacción ajena mientras lo tiene tomado.
+        // Solo ocurre la primera vez que aparece un código de idioma.
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // ON CONFLICT DO NOTHING: si otra instancia lo da de alta a la vez, se lee el suyo
+        Language language = template.execute(status -> {
+            languageRepository.insertIfAbsent(code, displayName(code));
+            return languageRepository.findByCode(code).orElseThrow();
+        });
+
+        byCode.put(code, language);
+        return language;
+    }
+
+    public List<Short> idsOf(Collection<String> codes) {
+        List<Short> ids = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            Language language = byCode.get(normalize(code));
+            if (language != null) {
+                ids.add(language.getId());
+            }
+        }
+        return ids;
+    }
+
+    public Optional<Language> byId(short id) {
+        return byCode.values().stream()
+                .filter(language -> language.getId() == id)
+                .findFirst();
+    }
+
+    public String nameOf(String code) {
+        if (code == null) {
+            return "idioma desconocido";
+        }
+        Language language = byCode.get(code);
+        if (language != null) {
+            return language.getName();
+        }
+        return isKnown(code) || OTHER.equals(code) ? displayName(code) : "idioma desconocido";
+    }
+
+    public boolean isKnown(String code) {
+        return code != null && (ISO_CODES.contains(code) || byCode.containsKey(code));
+    }
+
+    private static String displayName(String code) {
+        String name = DEFAULT_NAMES.get(code);
+        if (name != null) {
+            return name;
+        }
+        String display = new Locale(code).getDisplayLanguage(SPANISH);
+        return display.isEmpty() || display.equals(code) ? code : display;
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,31 @@
+package com.gutendx.service;
+
+public class SyncReport {
+
+    private int rangesScanned;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private long highWaterMark;
+
+    void rangeScanned(long rangeEnd) {
+        this.rangesScanned++;
+        this.highWaterMark = rangeEnd;
+    }
+
+    void inserted() { this.inserted++; }
+    void updated() { this.updated++; }
+    void unchanged() { this.unchanged++; }
+
+    public int getRangesScanned() { return rangesScanned; }
+    public int getInserted() { return inserted; }
+    public int getUpdated() { return updated; }
+    public int getUnchanged() { return unchanged; }
+    public long getHighWaterMark() { return highWaterMark; }
+
+    @Override
+    public String toString() {
+        return "rangos=" + rangesScanned + ", insertados=" + inserted + ", actualizados=" + updated +
+                ", sin cambios=" + unchanged + ", marca=" + highWaterMark;
+    }
+}
@@ -0,0 +1,389 @@
+package com.gutendx.service;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.exception.ApiException;
+import com.gutendx.util.AdaptiveRateLimiter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Todos los pedidos a Gutendx pasan por acá: un único {@link AdaptiveRateLimiter} para la
+ * instancia y dos clases de prioridad. Los pedidos de fondo (sincronización, ingesta) esperan
+ * mientras haya uno interactivo esperando y además dejan interactive-reserve tokens sin usar,
+ * así una búsqueda desde el menú no queda detrás de una importación. Los 429 y 503 bajan la
+ * tasa y se reintentan hasta max-retries veces.
+ * <p>
+ * Los pedidos de fondo por ids se agrupan: los ids de varios llamadores que esperan a la vez
+ * se juntan en un solo pedido de hasta {@link #IDS_PER_REQUEST} (una página de Gutendx) durante
+ * batch-window-ms. Si el pedido conjunto falla, cada llamador repite el suyo por separado, para
+ * que un id problemático no arrastre a los demás.
+ */
+@Component
+public class UpstreamScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamScheduler.class);
+
+    // Gutendex pagina de a 32 libros: más ids en un pedido son más páginas, no menos pedidos
+    public static final int IDS_PER_REQUEST = 32;
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    /** Un pedido HTTP; el scheduler lo repite si Gutendex responde 429 o 503. */
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws ApiException;
+    }
+
+    /** Pedido de libros por ids (una página como máximo). */
+    @FunctionalInterface
+    public interface IdFetch {
+        List<GutendxApiResponse.BookDto> fetch(List<Long> ids, Priority priority) throws ApiException;
+    }
+
+    public record Stats(double rate, long throttled, long slow, long requests, long retries, long batchedCalls,
+                        long batches, long interactiveWaitNanos, long interactiveCalls, long backgroundWaitNanos,
+                        long backgroundCalls) {
+
+        public long averageWaitNanos(Priority priority) {
+            return priority == Priority.INTERACTIVE
+                    ? interactiveWaitNanos / Math.max(1, interactiveCalls)
+                    : backgroundWaitNanos / Math.max(1, backgroundCalls);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f pedidos/s, %d pedidos (%d reintentos, %d rechazados por carga, %d lentos); "
+                            + "espera media %.1f ms interactivos, %.1f ms de fondo; %d llamadas por ids en %d pedidos",
+                    rate, requests, retries, throttled, slow, averageWaitNanos(Priority.INTERACTIVE) / 1e6,
+                    averageWaitNanos(Priority.BACKGROUND) / 1e6, batchedCalls, batches);
+        }
+    }
+
+    @Value("${gutendx.upstream.initial-rate:4}")
+    private double initialRate;
+
+    @Value("${gutendx.upstream.min-rate:0.5}")
+    private double minRate;
+
+    @Value("${gutendx.upstream.max-rate:20}")
+    private double maxRate;
+
+    @Value("${gutendx.upstream.burst:8}")
+    private double burst;
+
+    @Value("${gutendx.upstream.increase:1}")
+    private double increase;
+
+    @Value("${gutendx.upstream.target-latency-ms:3000}")
+    private long targetLatencyMillis;
+
+    @Value("${gutendx.upstream.interactive-reserve:2}")
+    private double interactiveReserve;
+
+    @Value("${gutendx.upstream.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${gutendx.upstream.batch-window-ms:25}")
+    private long batchWindowMillis;
+
+    private AdaptiveRateLimiter limiter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int interactiveWaiting;
+
+    private final Object batchLock = new Object();
+    private Batch open;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong batchedCalls = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong[] waitNanos = {new AtomicLong(), new AtomicLong()};
+    private final AtomicLong[] calls = {new AtomicLong(), new AtomicLong()};
+
+    @PostConstruct
+    void init() {
+        limiter = new AdaptiveRateLimiter(initialRate, minRate, maxRate, burst, increase,
+                TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis), System::nanoTime);
+    }
+
+    public Stats stats() {
+        return new Stats(limiter.rate(), limiter.throttled(), limiter.slow(), requests.get(), retries.get(),
+                batchedCalls.get(), batches.get(), waitNanos[0].get(), calls[0].get(), waitNanos[1].get(),
+                calls[1].get());
+    }
+
+    /** Corre un pedido cuando la tasa y la prioridad lo permiten; 429 y 503 se reintentan. */
+    public <T> T execute(Priority priority, Call<T> call) throws ApiException {
+        for (int attempt = 0; ; attempt++) {
+            acquire(priority);
+            long started = System.nanoTime();
+            requests.incrementAndGet();
+            try {
+                T result = call.run();
+                limiter.onSuccess(System.nanoTime() - started);
+                return result;
+            } catch (ApiException e) {
+                RestClientResponseException response = responseOf(e);
+                if (response == null || !isThrottling(response.getStatusCode().value())) {
+                    throw e;
+                }
+                limiter.onThrottled(retryAfterNanos(response));
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                logger.debug("Gutendx respondió {}: reintento {} a {} pedidos/s", response.getStatusCode().value(),
+                        attempt + 1, String.format("%.1f", limiter.rate()));
+            } finally {
+                signalAll();
+            }
+        }
+    }
+
+    /**
+     * Libros por ids, de a {@link #IDS_PER_REQUEST}. Los de fondo que no llenan un pedido se
+     * juntan con los de otros llamadores; el resultado sale en el orden de ids.
+     */
+    public List<GutendxApiResponse.BookDto> fetchByIds(Collection<Long> ids, Priority priority, IdFetch fetch)
+            throws ApiException {
+        List<Long> sorted = new ArrayList<>(new TreeSet<>(ids));
+        Map<Long, GutendxApiResponse.BookDto> found = new HashMap<>();
+        int full = sorted.size() / IDS_PER_REQUEST * IDS_PER_REQUEST;
+        // El resto primero, para que se sume a los conjuntos que otros están juntando ahora
+        List<Long> rest = sorted.subList(full, sorted.size());
+        if (!rest.isEmpty()) {
+            if (priority == Priority.INTERACTIVE || batchWindowMillis <= 0) {
+                collect(fetch.fetch(rest, priority), found);
+            } else {
+                found.putAll(batched(rest, fetch));
+            }
+        }
+        for (int from = 0; from < full; from += IDS_PER_REQUEST) {
+            collect(fetch.fetch(sorted.subList(from, from + IDS_PER_REQUEST), priority), found);
+        }
+        return sorted.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    private Map<Long, GutendxApiResponse.BookDto> batched(List<Long> ids, IdFetch fetch) throws ApiException {
+        Batch batch;
+        boolean leader;
+        synchronized (batchLock) {
+            if (open != null && open.ids.size() + ids.size() > IDS_PER_REQUEST) {
+                // No entra: el que lo abrió lo manda ya y este abre otro
+                open.close();
+                open = null;
+            }
+            leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            batch = open;
+            batch.ids.addAll(ids);
+            batch.callers++;
+            if (batch.ids.size() == IDS_PER_REQUEST) {
+                batch.close();
+                open = null;
+            }
+        }
+        batchedCalls.incrementAndGet();
+
+        if (leader) {
+            Map<Long, GutendxApiResponse.BookDto> found = null;
+            Exception error = null;
+            try {
+                batch.awaitClose(batchWindowMillis);
+                detach(batch);
+                batches.incrementAndGet();
+                Map<Long, GutendxApiResponse.BookDto> fetched = new HashMap<>();
+                collect(fetch.fetch(new ArrayList<>(batch.ids), Priority.BACKGROUND), fetched);
+                found = fetched;
+            } catch (ApiException | RuntimeException e) {
+                error = e;
+                if (Thread.currentThread().isInterrupted()) {
+                    // Apagando (shutdownNow): el que juntaba no reintenta; los demás sí, solos
+                    throw e;
+                }
+            } finally {
+                // Pase lo que pase, los que esperan en await() tienen que despertarse
+                detach(batch);
+                batch.complete(found, found != null ? null
+                        : error != null ? error : new ApiException("El pedido conjunto a Gutendx no terminó"));
+            }
+        }
+
+        Map<Long, GutendxApiResponse.BookDto> all = batch.await();
+        if (all == null) {
+            if (batch.callers == 1) {
+                if (batch.error instanceof ApiException api) {
+                    throw api;
+                }
+                throw (RuntimeException) batch.error;
+            }
+            // Pedido conjunto fallido: cada uno repite lo suyo, solo
+            Map<Long, GutendxApiResponse.BookDto> own = new HashMap<>();
+            collect(fetch.fetch(ids, Priority.BACKGROUND), own);
+            return own;
+        }
+        Map<Long, GutendxApiResponse.BookDto> own = new HashMap<>();
+        for (Long id : ids) {
+            GutendxApiResponse.BookDto book = all.get(id);
+            if (book != null) {
+                own.put(id, book);
+            }
+        }
+        return own;
+    }
+
+    private void detach(Batch batch) {
+        synchronized (batchLock) {
+            if (open == batch) {
+                open = null;
+            }
+        }
+    }
+
+    private void acquire(Priority priority) throws ApiException {
+        long started = System.nanoTime();
+        boolean interactive = priority == Priority.INTERACTIVE;
+        lock.lock();
+        try {
+            if (interactive) {
+                interactiveWaiting++;
+            }
+            try {
+                while (true) {
+                    if (!interactive && interactiveWaiting > 0) {
+                        changed.await(10, TimeUnit.MILLISECONDS);
+                        continue;
+                    }
+                    long wait = limiter.tryAcquire(interactive ? 0 : interactiveReserve);
+                    if (wait == 0) {
+                        break;
+                    }
+                    changed.awaitNanos(wait);
+                }
+            } finally {
+                if (interactive) {
+                    interactiveWaiting--;
+                    changed.signalAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrumpido esperando turno para Gutendx", e);
+        } finally {
+            lock.unlock();
+        }
+        waitNanos[priority.ordinal()].addAndGet(System.nanoTime() - started);
+        calls[priority.ordinal()].incrementAndGet();
+    }
+
+    private void signalAll() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void collect(List<GutendxApiResponse.BookDto> books, Map<Long, GutendxApiResponse.BookDto> into) {
+        for (GutendxApiResponse.BookDto book : books) {
+            into.put(book.getId(), book);
+        }
+    }
+
+    static boolean isThrottling(int status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    private static RestClientResponseException responseOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response) {
+                return response;
+            }
+        }
+        return null;
+    }
+
+    // Retry-After en segundos; la forma con fecha HTTP no la usa Gutendex
+    private static long retryAfterNanos(RestClientResponseException response) {
+        String value = response.getResponseHeaders() != null
+                ? response.getResponseHeaders().getFirst("Retry-After") : null;
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Ids de varios llamadores que salen en un solo pedido. */
+    private static final class Batch {
+
+        final TreeSet<Long> ids = new TreeSet<>();
+        int callers;
+        private boolean closed;
+        private boolean done;
+        private Map<Long, GutendxApiResponse.BookDto> result;
+        private Exception error;
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        synchronized void awaitClose(long windowMillis) throws ApiException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            try {
+                for (long left = deadline - System.nanoTime(); !closed && left > 0; left = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Interrumpido juntando ids para Gutendx", e);
+            }
+            closed = true;
+        }
+
+        synchronized void complete(Map<Long, GutendxApiResponse.BookDto> result, Exception error) {
+            this.result = result;
+            this.error = error;
+            done = true;
+            notifyAll();
+        }
+
+        synchronized Map<Long, GutendxApiResponse.BookDto> await() throws ApiException {
+            try {
+                while (!done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Interrumpido esperando un pedido conjunto a Gutendx", e);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.gutendx.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.dto.GutendxApiResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola write-behind: los libros encontrados se agregan a un log local append-only y un único
+ * hilo escritor los persiste en lotes, una transacción por lote. El log se reproduce al
+ * arrancar a partir del último checkpoint, así que nada encolado se pierde si la app se cae.
+ * <p>
+ * Un lote que falla max-batch-attempts veces se guarda de a un libro: los que fallan por sus
+ * datos (restricciones, un libro que otra instancia ya guardó) pasan a dead-letter.log, en el
+ * mismo formato que el log, y el checkpoint sigue adelante; un error transitorio de la BD no
+ * descarta nada y se sigue reintentando. Al apagar no se reintenta: lo que falte queda en el
+ * log para el próximo arranque.
+ */
+@Component
+@ConditionalOnProperty(name = "gutendx.persistence.mode", havingValue = "write-behind")
+@Lazy(false) // el log pendiente se reproduce al arrancar, no al primer uso
+public class WriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    @Autowired
+    @Lazy
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${gutendx.write-behind.dir:./data/write-behind}")
+    private String directory;
+
+    @Value("${gutendx.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${gutendx.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${gutendx.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${gutendx.write-behind.fsync:true}")
+    private boolean fsync;
+
+    @Value("${gutendx.write-behind.max-batch-attempts:3}")
+    private int maxBatchAttempts;
+
+    @Value("${gutendx.write-behind.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+
+    private BlockingQueue<Entry> queue;
+    private Semaphore slots;
+    private FileChannel log;
+    private FileChannel checkpoint;
+    private FileChannel deadLetter;
+    private Thread writer;
+    private volatile boolean running;
+
+    private static final class Entry {
+
+        final GutendxApiResponse.BookDto book;
+        final long endOffset;
+        // Encolado con enqueue, que reservó un lugar; los del log reproducido al arrancar no
+        final boolean holdsSlot;
+        // Ya guardado (o en dead-letter) por persistOneByOne: no se reintenta
+        boolean done;
+
+        Entry(GutendxApiResponse.BookDto book, long endOffset, boolean holdsSlot) {
+            this.book = book;
+            this.endOffset = endOffset;
+            this.holdsSlot = holdsSlot;
+        }
+
+        boolean done() {
+            return done;
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        this.log = FileChannel.open(dir.resolve("pending.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = FileChannel.open(dir.resolve("checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.deadLetter = FileChannel.open(dir.resolve("dead-letter.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Sin tope propio: la contrapresión la ponen los lugares de enqueue, y el log pendiente se
+        // carga entero aunque tenga más de 'capacity' registros (el escritor todavía no arrancó)
+        this.queue = new LinkedBlockingQueue<>();
+        this.slots = new Semaphore(capacity);
+
+        int replayed = replay();
+        if (replayed > 0) {
+            logger.info("Write-behind: {} libros pendientes recuperados del log", replayed);
+        }
+
+        this.running = true;
+        this.writer = new Thread(this::drainLoop, "gutendx-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void enqueue(GutendxApiResponse.BookDto bookDto) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(bookDto) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Contrapresión: reservar lugar antes de tomar el lock del log
+        slots.acquireUninterruptibly();
+        appendLock.lock();
+        try {
+            long end = log.size() + line.length;
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            long position = log.size();
+            while (buffer.hasRemaining()) {
+                position += log.write(buffer, position);
+            }
+            if (fsync) {
+                log.force(false);
+            }
+            queue.add(new Entry(bookDto, end, true));
+        } catch (IOException e) {
+            slots.release();
+            throw new UncheckedIOException("No se pudo escribir en el log write-behind", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    public long writtenBooks() {
+        return written.get();
+    }
+
+    /** Libros que no se pudieron guardar y quedaron en dead-letter.log. */
+    public long deadLetters() {
+        return deadLetters.get();
+    }
+
+    public double writesPerSecond() {
+        long nanos = writeNanos.get();
+        return nanos == 0 ? 0 : written.get() * 1_000_000_000.0 / nanos;
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    compact();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (attempts < maxBatchAttempts) {
+                    persist(batch);
+                } else {
+                    persistOneByOne(batch);
+                }
+                releaseSlots(batch);
+                batch.clear();
+                attempts = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                attempts++;
+                // Lo guardado de a uno ya avanzó el checkpoint; el resto sigue en el log y en orden
+                List<Entry> done = batch.stream().filter(Entry::done).toList();
+                releaseSlots(done);
+                batch.removeAll(done);
+                if (!running) {
+                    logger.error("Write-behind: error al persistir al apagar; {} libros quedan en el log para el "
+                            + "próximo arranque", batch.size() + queue.size(), e);
+                    break;
+                }
+                logger.error("Write-behind: error al persistir un lote de {} libros (intento {}), se reintentará{}",
+                        batch.size(), attempts, attempts >= maxBatchAttempts ? " de a uno" : "", e);
+                sleepQuietly();
+                requeue(batch);
+            }
+        }
+    }
+
+    private void persist(List<Entry> batch) {
+        List<GutendxApiResponse.BookDto> books = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            books.add(entry.book);
+        }
+
+        long start = System.nanoTime();
+        // Autores, idiomas y facetas antes del lote: su transacción usa una sola conexión
+        bookService.upsertReferences(books);
+        int saved = bookService.saveNewBooks(books);
+        writeCheckpoint(batch.get(batch.size() - 1).endOffset);
+        long elapsed = System.nanoTime() - start;
+
+        written.addAndGet(batch.size());
+        writeNanos.addAndGet(elapsed);
+        logger.debug("Write-behind: lote de {} libros ({} nuevos) en {} ms", batch.size(), saved, elapsed / 1_000_000);
+    }
+
+    /**
+     * Un libro por transacción, para aislar el que hace fallar el lote. Un error transitorio
+     * corta acá y se relanza: los que quedan se reintentan sin pasar a dead-letter.
+     */
+    private void persistOneByOne(List<Entry> batch) {
+        for (Entry entry : batch) {
+            long start = System.nanoTime();
+            try {
+                bookService.upsertReferences(List.of(entry.book));
+                bookService.saveNewBooks(List.of(entry.book));
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                logger.error("Write-behind: el libro {} no se pudo guardar, pasa a dead-letter.log",
+                        entry.book.getId(), e);
+                appendDeadLetter(entry.book);
+            }
+            writeCheckpoint(entry.endOffset);
+            writeNanos.addAndGet(System.nanoTime() - start);
+            entry.done = true;
+        }
+    }
+
+    // Los que no dependen del libro: conexión caída, pool agotado, timeouts, deadlocks, disco
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof NonTransientDataAccessResourceException
+                || e instanceof TransactionException
+                || e instanceof UncheckedIOException;
+    }
+
+    private void appendDeadLetter(GutendxApiResponse.BookDto book) {
+        try {
+            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(book) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                deadLetter.write(line);
+            }
+            deadLetter.force(false);
+            deadLetters.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en dead-letter.log", e);
+        }
+    }
+
+    private void releaseSlots(List<Entry> entries) {
+        int held = (int) entries.stream().filter(entry -> entry.holdsSlot).count();
+        if (held > 0) {
+            slots.release(held);
+        }
+    }
+
+    private void requeue(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Volver a poner el lote delante de lo que se haya encolado mientras tanto
+        List<Entry> rest = new ArrayList<>(batch);
+        queue.drainTo(rest);
+        queue.addAll(rest);
+        batch.clear();
+    }
+
+    private void compact() {
+        // Si todo lo escrito en el log ya está en la BD, vaciarlo
+        if (!queue.isEmpty() || !appendLock.tryLock()) {
+            return;
+        }
+        try {
+            if (queue.isEmpty() && log.size() > 0 && readCheckpoint() == log.size()) {
+                log.truncate(0);
+                writeCheckpoint(0);
+            }
+        } catch (IOException e) {
+            logger.warn("Write-behind: no se pudo compactar el log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private int replay() throws IOException {
+        long offset = readCheckpoint();
+        if (offset >= log.size()) {
+            return 0;
+        }
+
+        int replayed = 0;
+        InputStream in = Channels.newInputStream(log.position(offset));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            long start = offset;
+            offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            GutendxApiResponse.BookDto bookDto;
+            try {
+                bookDto = objectMapper.readValue(line, GutendxApiResponse.BookDto.class);
+            } catch (IOException e) {
+                // Última línea a medio escribir cuando se cayó la app: descartarla
+                logger.warn("Write-behind: registro incompleto en el offset {}, se descarta", start);
+                log.truncate(start);
+                break;
+            }
+            queue.add(new Entry(bookDto, offset, false));
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpoint.size() < Long.BYTES) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        checkpoint.read(buffer, 0);
+        return buffer.flip().getLong();
+    }
+
+    private void writeCheckpoint(long offset) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            checkpoint.write(buffer, 0);
+            checkpoint.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el checkpoint write-behind", e);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(Math.max(flushIntervalMs, retryBackoffMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        // Terminar de vaciar la cola antes de cerrar
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        log.close();
+        checkpoint.close();
+        deadLetter.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.gutendx.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket cuya tasa se ajusta con lo que responde el servidor (AIMD, como la ventana de
+ * TCP): cada respuesta rápida suma increase / tasa pedidos por segundo, así que la tasa crece
+ * unos increase pedidos/s por segundo; un 429 o 503 la divide por dos y frena los pedidos hasta
+ * Retry-After (o un intervalo de la tasa nueva); una respuesta más lenta que targetLatency la
+ * baja un 10%. Siempre entre minRate y maxRate.
+ * <p>
+ * {@link #tryAcquire(double)} no bloquea: devuelve cuánto esperar. La reserva permite que
+ * unos pedidos (los de fondo) sólo tomen un token si quedan más que esa cantidad, dejando
+ * ráfaga disponible para otros. Thread-safe.
+ */
+public class AdaptiveRateLimiter {
+
+    private static final double DECREASE = 0.5;
+    private static final double SLOW_DECREASE = 0.9;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double increase;
+    private final long targetLatencyNanos;
+    private final LongSupplier clock;
+
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+    private long throttled;
+    private long slow;
+
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double burst, double increase,
+                               long targetLatencyNanos, LongSupplier clock) {
+        if (minRate <= 0 || maxRate < minRate || burst < 1) {
+            throw new IllegalArgumentException("Tasas o ráfaga inválidas: " + minRate + "-" + maxRate + ", " + burst);
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = burst;
+        this.increase = increase;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.clock = clock;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Toma un token si después quedan al menos reserve. Devuelve 0 si lo tomó; si no, los
+     * nanosegundos hasta que podría tomarlo (la tasa puede cambiar mientras tanto).
+     */
+    public synchronized long tryAcquire(double reserve) {
+        long now = clock.getAsLong();
+        if (now - pausedUntil < 0) {
+            return pausedUntil - now;
+        }
+        refill(now);
+        double needed = 1 + Math.min(reserve, burst - 1);
+        if (tokens >= needed) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - tokens) / rate * 1e9));
+    }
+
+    /** Respuesta correcta (o un error que no es de carga): ajusta por latencia. */
+    public synchronized void onSuccess(long latencyNanos) {
+        // Lo acumulado hasta ahora va a la tasa vieja
+        refill(clock.getAsLong());
+        if (targetLatencyNanos > 0 && latencyNanos > targetLatencyNanos) {
+            slow++;
+            setRate(rate * SLOW_DECREASE);
+        } else {
+            setRate(rate + increase / rate);
+        }
+    }
+
+    /**
+     * 429 o 503: baja la tasa a la mitad y no deja pasar pedidos hasta retryAfterNanos (o un
+     * intervalo). Los rechazos de pedidos que salieron antes de la pausa no la vuelven a bajar:
+     * una ráfaga rechazada cuenta como una sola señal.
+     */
+    public synchronized void onThrottled(long retryAfterNanos) {
+        long now = clock.getAsLong();
+        throttled++;
+        boolean alreadyPaused = now - pausedUntil < 0;
+        if (!alreadyPaused) {
+            refill(now);
+            setRate(rate * DECREASE);
+            // La ráfaga acumulada es justamente lo que provocó el rechazo
+            tokens = Math.min(tokens, 1);
+        }
+        long pause = retryAfterNanos > 0 ? retryAfterNanos : (long) (1e9 / rate);
+        if (now + pause - pausedUntil > 0) {
+            pausedUntil = now + pause;
+            // Durante la pausa no se acumulan tokens
+            refilledAt = pausedUntil;
+        }
+    }
+
+    public synchronized double rate() {
+        return rate;
+    }
+
+    public synchronized long throttled() {
+        return throttled;
+    }
+
+    public synchronized long slow() {
+        return slow;
+    }
+
+    private void setRate(double newRate) {
+        rate = Math.max(minRate, Math.min(maxRate, newRate));
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * rate / 1e9);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.gutendx.util;
+
+import java.text.Normalizer;
+
+/**
+ * Parser y normalizador de nombres de autor de Gutendx ("Apellido, Nombre (Nombre completo)").
+ * Recorre el nombre una sola vez sobre un buffer de chars, sin split ni expresiones regulares.
+ */
+public final class AuthorNames {
+
+    private static final int FOLD_START = 0x00C0;
+    private static final int FOLD_END = 0x0180;
+
+    // Tabla de plegado (minúsculas sin diacríticos) para Latin-1 y Latin Extended-A
+    private static final String[] FOLD = new String[FOLD_END - FOLD_START];
+
+    static {
+        for (int c = FOLD_START; c < FOLD_END; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+            FOLD[c - FOLD_START] = String.valueOf(Character.toLowerCase(decomposed.charAt(0)));
+        }
+        setFold('ß', "ss");
+        setFold('Æ', "ae");
+        setFold('æ', "ae");
+        setFold('Œ', "oe");
+        setFold('œ', "oe");
+        setFold('Ø', "o");
+        setFold('ø', "o");
+        setFold('Đ', "d");
+        setFold('đ', "d");
+        setFold('Ł', "l");
+        setFold('ł', "l");
+        setFold('Þ', "th");
+        setFold('þ', "th");
+        setFold('×', " ");
+        setFold('÷', " ");
+    }
+
+    // Buffer de trabajo por hilo: el único objeto que se asigna por nombre es el resultado
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[256]);
+
+    private AuthorNames() {}
+
+    private static char[] scratch(int needed) {
+        char[] buffer = SCRATCH.get();
+        if (buffer.length < needed) {
+            buffer = new char[needed];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static void setFold(char c, String folded) {
+        FOLD[c - FOLD_START] = folded;
+    }
+
+    /**
+     * Devuelve {apellido, nombre} en su forma de presentación: sin la parte entre paréntesis
+     * y con los espacios colapsados. Sin coma, la última palabra se toma como apellido.
+     */
+    public static String[] parse(String fullName) {
+        if (fullName == null) {
+            return new String[]{null, null};
+        }
+
+        int length = fullName.length();
+        char[] buffer = scratch(length);
+        int size = 0;
+        int depth = 0;
+        int comma = -1;
+        int lastTokenStart = 0;
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = fullName.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            } else if (depth > 0) {
+                // Nombre completo alternativo entre paréntesis: se ignora
+            } else if (c == ',' && comma < 0) {
+                comma = size;
+                pendingSpace = false;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = size > 0 && size != comma;
+            } else {
+                if (pendingSpace) {
+                    buffer[size++] = ' ';
+                    pendingSpace = false;
+                }
+                if (size == 0 || buffer[size - 1] == ' ' || size == comma) {
+                    lastTokenStart = size;
+                }
+                buffer[size++] = c;
+            }
+        }
+
+        if (comma >= 0) {
+            return new String[]{slice(buffer, 0, comma), slice(buffer, comma, size)};
+        }
+        if (size == 0) {
+            return new String[]{null, null};
+        }
+        if (lastTokenStart == 0) {
+            return new String[]{slice(buffer, 0, size), null}; // Solo apellido
+        }
+        return new String[]{slice(buffer, lastTokenStart, size), slice(buffer, 0, lastTokenStart - 1)};
+    }
+
+    /**
+     * Clave canónica de deduplicación: "apellido,nombre" en minúsculas, sin diacríticos ni
+     * puntuación, con las iniciales separadas ("J.R.R." y "J. R. R." dan "j r r").
+     * "Twain, Mark" y "Mark Twain" producen la misma clave.
+     */
+    public static String key(String fullName) {
+        if (fullName == null) {
+            return "";
+        }
+
+        int length = fullName.length();
+        char[] buffer = scratch(length * 4 + 2);
+        int size = 0;
+        int depth = 0;
+        int comma = -1;
+        int lastTokenStart = 0;
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = fullName.charAt(i);
+            if (c == '(') {
+                depth++;
+                continue;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                continue;
+            } else if (depth > 0) {
+                continue;
+            }
+
+            if (c == ',' && comma < 0) {
+                buffer[size++] = ',';
+                comma = size;
+                pendingSpace = false;
+                continue;
+            }
+            if (c == '\'' || c == '’') {
+                continue; // "O'Brien" y "OBrien" son el mismo autor
+            }
+
+            String folded = null;
+            char lower;
+            if (c >= FOLD_START && c < FOLD_END) {
+                folded = FOLD[c - FOLD_START];
+                lower = folded.charAt(0);
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            } else {
+                lower = Character.toLowerCase(c);
+            }
+
+            if (!Character.isLetterOrDigit(lower)) {
+                // Puntos, espacios, guiones y demás separan palabras
+                pendingSpace = size > 0 && size != comma;
+                continue;
+            }
+
+            if (pendingSpace) {
+                buffer[size++] = ' ';
+                pendingSpace = false;
+            }
+            if (size == 0 || buffer[size - 1] == ' ' || size == comma) {
+                lastTokenStart = size;
+            }
+            if (folded != null) {
+                for (int j = 0; j < folded.length(); j++) {
+                    buffer[size++] = folded.charAt(j);
+                }
+            } else {
+                buffer[size++] = lower;
+            }
+        }
+
+        if (comma >= 0 || lastTokenStart == 0) {
+            // Ya está en formato "apellido,nombre" o es una sola palabra
+            return new String(buffer, 0, size);
+        }
+
+        // "Nombre Apellido" -> "apellido,nombre", armado a continuación en el mismo buffer
+        int out = size;
+        System.arraycopy(buffer, lastTokenStart, buffer, out, size - lastTokenStart);
+        out += size - lastTokenStart;
+        buffer[out++] = ',';
+        System.arraycopy(buffer, 0, buffer, out, lastTokenStart - 1);
+        out += lastTokenStart - 1;
+        return new String(buffer, size, out - size);
+    }
+
+    private static String slice(char[] buffer, int from, int to) {
+        while (from < to && buffer[from] == ' ') {
+            from++;
+        }
+        while (to > from && buffer[to - 1] == ' ') {
+            to--;
+        }
+        return from == to ? null : new String(buffer, from, to - from);
+    }
+}
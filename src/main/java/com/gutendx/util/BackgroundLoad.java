@@ -0,0 +1,105 @@
+package com.gutendx.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Una estructura en memoria que se arma leyendo la BD entera, en un hilo aparte para no demorar
+ * el arranque. Mientras se arma, {@link #get()} devuelve null y quien la usa resuelve por SQL
+ * (o espera con {@link #await()} si no tiene cómo);
+ * los cambios que llegan en ese tiempo ({@link #apply}) se guardan y se aplican apenas está
+ * lista, así no se pierde lo que la lectura ya había pasado de largo. Los cambios tienen que
+ * poder aplicarse dos veces (un alta que la lectura también vio).
+ */
+public final class BackgroundLoad<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundLoad.class);
+
+    private final String name;
+    private final CompletableFuture<T> loaded = new CompletableFuture<>();
+    private volatile T value;
+    // null una vez lista (o si falló): desde ahí los cambios van directo o se descartan
+    private List<Consumer<T>> pending = new ArrayList<>();
+
+    public BackgroundLoad(String name) {
+        this.name = name;
+    }
+
+    /** Arma la estructura en un hilo daemon, o acá mismo si background es false. */
+    public void start(boolean background, Supplier<T> build) {
+        if (!background) {
+            complete(build.get());
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                complete(build.get());
+            } catch (RuntimeException | Error e) {
+                logger.error("No se pudo cargar {}: se sigue resolviendo por SQL", name, e);
+                synchronized (this) {
+                    pending = null;
+                }
+                loaded.completeExceptionally(e);
+            }
+        }, "gutendx-load-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** La estructura, o null mientras se carga. */
+    public T get() {
+        return value;
+    }
+
+    /** Espera a que termine la carga; null si falló o si interrumpen la espera. */
+    public T await() {
+        try {
+            return loaded.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /** Aplica un cambio ya, o al terminar la carga si todavía no terminó. */
+    public void apply(Consumer<T> change) {
+        T current;
+        synchronized (this) {
+            current = value;
+            if (current == null) {
+                if (pending != null) {
+                    pending.add(change);
+                }
+                return;
+            }
+        }
+        change.accept(current);
+    }
+
+    /** Reemplaza la estructura ya cargada (una recarga completa). */
+    public void replace(T rebuilt) {
+        value = rebuilt;
+    }
+
+    private void complete(T built) {
+        synchronized (this) {
+            if (pending != null) {
+                for (Consumer<T> change : pending) {
+                    change.accept(built);
+                }
+            }
+            pending = null;
+            value = built;
+        }
+        loaded.complete(built);
+    }
+}
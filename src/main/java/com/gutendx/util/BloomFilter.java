@@ -0,0 +1,139 @@
+package com.gutendx.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro Bloom concurrente sobre claves long o texto. "No" es definitivo; "quizás" hay que
+ * confirmarlo en la BD. Usa doble hashing (h1 + i*h2) sobre un único hash de 64 bits.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitSize + 63) >>> 6));
+        this.bitSize = words.length() * 64L;
+        this.hashCount = hashCount;
+    }
+
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Parámetros inválidos para el filtro Bloom");
+        }
+        // m = -n ln p / (ln 2)^2, k = m/n ln 2
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        if (bits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtro Bloom demasiado grande: " + bits + " bits");
+        }
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + i * h2));
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            if (!getBit(index(h1 + i * h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(CharSequence key) {
+        put(fnv1a(key));
+    }
+
+    public boolean mightContain(CharSequence key) {
+        return mightContain(fnv1a(key));
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Tasa de falsos positivos esperada según la proporción de bits encendidos.
+     */
+    public double expectedFpp() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitSize, hashCount);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(bitSize);
+        out.writeInt(hashCount);
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    public static BloomFilter readFrom(DataInput in) throws IOException {
+        long bitSize = in.readLong();
+        int hashCount = in.readInt();
+        if (bitSize <= 0 || bitSize % 64 != 0 || bitSize > Integer.MAX_VALUE + 64L || hashCount <= 0) {
+            throw new IOException("Snapshot de filtro Bloom corrupto");
+        }
+        BloomFilter filter = new BloomFilter(bitSize, hashCount);
+        for (int i = 0; i < filter.words.length(); i++) {
+            filter.words.set(i, in.readLong());
+        }
+        return filter;
+    }
+
+    private long index(int combined) {
+        // Hash combinado no negativo módulo m
+        return (combined & Integer.MAX_VALUE) % bitSize;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current = words.get(word);
+        while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+            current = words.get(word);
+        }
+    }
+
+    private boolean getBit(long index) {
+        return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    // Finalizador de SplitMix64: dispersa ids consecutivos por todo el rango
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long fnv1a(CharSequence key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,737 @@
+package com.gutendx.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Grafo bipartito libro-autor en memoria. Cada lado es una lista de adyacencia comprimida (CSR:
+ * offsets + destinos en int[]) sobre índices densos; los ids de la BD se traducen con
+ * {@link LongIntHashMap}. Las altas y cambios posteriores a la construcción reescriben solo las
+ * filas afectadas y se vuelcan al CSR cuando se acumulan demasiadas.
+ *
+ * Para cada libro guarda los K relacionados con mayor puntaje:
+ * (1 por autor compartido + 0,25 por cada camino a través de un coautor)
+ * x 1,5 si comparten idioma x log(2 + descargas del relacionado).
+ * Los libros de cada autor están ordenados por descargas: de cada coautor se toman solo los
+ * primeros max(64, 4K) y el recorrido por libro se corta en maxVisits, así que para autores con
+ * miles de libros las listas son aproximadas (se pierden los candidatos menos descargados).
+ * El puntaje base es simétrico, así que al dar de alta un libro basta con ofrecerlo a las listas
+ * de los libros que alcanza y sumar los caminos de coautoría que abre.
+ * Lecturas concurrentes; las escrituras toman el lock exclusivo.
+ */
+public final class BookGraph {
+
+    private static final int NONE = -1;
+    private static final int[] NO_TARGETS = new int[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private static final float SHARED_AUTHOR = 1.0f;
+    private static final float CO_AUTHOR = 0.25f;
+    private static final float SAME_LANGUAGE = 1.5f;
+
+    private final int topK;
+    private final int maxVisits;
+    // Libros que se toman de cada coautor (los más descargados)
+    private final int coAuthorFanOut;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap bookIndex;
+    private final LongIntHashMap authorIndex;
+    private long[] bookIds;
+    private long[] authorIds;
+    private int bookCount;
+    private int authorCount;
+    private int[] downloads;
+    private short[] languages;
+
+    private final Adjacency bookAuthors;
+    private final Adjacency authorBooks;
+
+    // K relacionados por libro, en orden de puntaje descendente; NONE marca huecos al final
+    private int[] related;
+    private float[] relatedScores;
+
+    // Acumulador para las escrituras: solo se usa con el lock de escritura tomado
+    private final Scorer scorer;
+
+    private BookGraph(int topK, int maxVisits, Builder builder) {
+        this.topK = topK;
+        this.maxVisits = maxVisits;
+        this.coAuthorFanOut = Math.max(64, 4 * topK);
+        this.bookCount = builder.bookCount;
+        this.bookIds = Arrays.copyOf(builder.bookIds, Math.max(16, bookCount));
+        this.downloads = Arrays.copyOf(builder.downloads, bookIds.length);
+        this.languages = Arrays.copyOf(builder.languages, bookIds.length);
+        this.bookIndex = new LongIntHashMap(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            bookIndex.put(bookIds[i], i);
+        }
+
+        // Autores y aristas: traducir ids y descartar enlaces a libros desconocidos
+        this.authorIndex = new LongIntHashMap(Math.max(16, bookCount / 2));
+        this.authorIds = new long[Math.max(16, bookCount / 2)];
+        int[] sources = new int[builder.linkCount];
+        int[] targets = new int[builder.linkCount];
+        int edges = 0;
+        for (int i = 0; i < builder.linkCount; i++) {
+            int book = bookIndex.get(builder.linkBooks[i], NONE);
+            if (book != NONE) {
+                sources[edges] = book;
+                targets[edges] = authorIndexOf(builder.linkAuthors[i]);
+                edges++;
+            }
+        }
+        this.bookAuthors = Adjacency.of(bookCount, sources, targets, edges, null);
+        this.authorBooks = Adjacency.of(authorCount, targets, sources, edges, downloads);
+
+        this.related = new int[bookIds.length * topK];
+        this.relatedScores = new float[related.length];
+        Arrays.fill(related, NONE);
+        this.scorer = new Scorer(bookIds.length);
+
+        // Cada libro solo escribe su tramo de related: los rangos se reparten entre hilos
+        int parts = Math.max(1, Math.min(bookCount / 1024, ForkJoinPool.getCommonPoolParallelism() * 8));
+        int total = bookCount;
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            Scorer local = new Scorer(total);
+            for (int book = (int) ((long) total * part / parts), end = (int) ((long) total * (part + 1) / parts);
+                 book < end; book++) {
+                rankRelated(local, book);
+            }
+        });
+    }
+
+    public static Builder builder(int expectedBooks, int expectedLinks) {
+        return new Builder(expectedBooks, expectedLinks);
+    }
+
+    /** Relacionados precalculados, del más al menos relevante; vacío si el libro no está. */
+    public long[] related(long bookId) {
+        lock.readLock().lock();
+        try {
+            int book = bookIndex.get(bookId, NONE);
+            if (book == NONE) {
+                return NO_IDS;
+            }
+            int base = book * topK;
+            int count = 0;
+            while (count < topK && related[base + count] != NONE) {
+                count++;
+            }
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = bookIds[related[base + i]];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Libros de los autores del libro y de sus coautores (sin el propio libro), los más
+     * descargados primero.
+     */
+    public long[] coAuthorBooks(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            int book = bookIndex.get(bookId, NONE);
+            if (book == NONE || limit <= 0) {
+                return NO_IDS;
+            }
+
+            // Autores y coautores: autores de los libros de cada autor del libro
+            int[] authors = new int[16];
+            int authorsFound = 0;
+            int visits = 0;
+            int[] row = bookAuthors.row(book);
+            for (int i = bookAuthors.from(book), end = bookAuthors.to(book); i < end; i++) {
+                int author = row[i];
+                authors = append(authors, authorsFound++, author);
+                int[] books = authorBooks.row(author);
+                for (int j = authorBooks.from(author), jEnd = authorBooks.to(author); j < jEnd && visits < maxVisits; j++) {
+                    int coBook = books[j];
+                    int[] coAuthors = bookAuthors.row(coBook);
+                    for (int k = bookAuthors.from(coBook), kEnd = bookAuthors.to(coBook); k < kEnd; k++, visits++) {
+                        authors = append(authors, authorsFound++, coAuthors[k]);
+                    }
+                }
+            }
+            authorsFound = distinct(authors, authorsFound);
+
+            int[] candidates = new int[16];
+            int candidatesFound = 0;
+            for (int i = 0; i < authorsFound && visits < maxVisits; i++) {
+                int[] books = authorBooks.row(authors[i]);
+                for (int j = authorBooks.from(authors[i]), end = authorBooks.to(authors[i]); j < end; j++, visits++) {
+                    if (books[j] != book) {
+                        candidates = append(candidates, candidatesFound++, books[j]);
+                    }
+                }
+            }
+            candidatesFound = distinct(candidates, candidatesFound);
+
+            // Los 'limit' más descargados, en orden
+            int count = Math.min(limit, candidatesFound);
+            for (int i = 0; i < count; i++) {
+                int best = i;
+                for (int j = i + 1; j < candidatesFound; j++) {
+                    if (downloads[candidates[j]] > downloads[candidates[best]]) {
+                        best = j;
+                    }
+                }
+                int swap = candidates[i];
+                candidates[i] = candidates[best];
+                candidates[best] = swap;
+            }
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = bookIds[candidates[i]];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Alta o actualización de un libro con sus autores actuales. Recalcula sus relacionados y
+     * corrige, en las listas de los libros a su alcance, el puntaje que tenían para él.
+     */
+    public void putBook(long bookId, int downloadCount, short language, long[] authorDbIds) {
+        lock.writeLock().lock();
+        try {
+            int[] authors = new int[authorDbIds.length];
+            for (int i = 0; i < authorDbIds.length; i++) {
+                authors[i] = authorIndexOf(authorDbIds[i]);
+            }
+
+            int book = bookIndex.get(bookId, NONE);
+            int[] before = NO_TARGETS;
+            int[] oldAuthors = NO_TARGETS;
+            if (book == NONE) {
+                book = newBook(bookId);
+            } else {
+                // Libros que lo tenían a su alcance antes del cambio
+                before = Arrays.copyOf(scorer.touched, accumulate(scorer, book));
+                scorer.clear();
+                oldAuthors = Arrays.copyOfRange(bookAuthors.row(book), bookAuthors.from(book), bookAuthors.to(book));
+                for (int author : oldAuthors) {
+                    authorBooks.remove(author, book);
+                }
+            }
+
+            downloads[book] = downloadCount;
+            languages[book] = language;
+            for (int author : authors) {
+                authorBooks.insert(author, book, downloads);
+            }
+            bookAuthors.set(book, authors);
+
+            int reached = accumulate(scorer, book);
+            storeTopK(scorer, book, reached);
+            double weight = Math.log(2 + downloads[book]);
+            for (int i = 0; i < reached; i++) {
+                int other = scorer.touched[i];
+                upsert(other, book, (float) (scorer.scores[other] * languageFactor(other, book) * weight));
+            }
+            for (int other : before) {
+                if (scorer.scores[other] == 0f) {
+                    remove(other, book);
+                }
+            }
+            scorer.clear();
+
+            if (oldAuthors.length > 0 && !sameAuthors(oldAuthors, authors)) {
+                // Cambio de autores (raro): los caminos de coautoría que pasaban por el libro
+                // pueden desaparecer, y eso no se puede descontar sin recalcular
+                rankBooksOf(oldAuthors, book);
+                rankBooksOf(authors, book);
+            } else if (oldAuthors.length == 0) {
+                linkCoAuthors(book, authors);
+            }
+
+            bookAuthors.compactIfNeeded(bookCount, null);
+            authorBooks.compactIfNeeded(authorCount, downloads);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int bookCount() {
+        return bookCount;
+    }
+
+    public int authorCount() {
+        return authorCount;
+    }
+
+    public long edgeCount() {
+        return bookAuthors.edges;
+    }
+
+    private int newBook(long bookId) {
+        int book = bookCount++;
+        if (book == bookIds.length) {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            downloads = Arrays.copyOf(downloads, capacity);
+            languages = Arrays.copyOf(languages, capacity);
+            scorer.scores = Arrays.copyOf(scorer.scores, capacity);
+            related = Arrays.copyOf(related, capacity * topK);
+            relatedScores = Arrays.copyOf(relatedScores, capacity * topK);
+            Arrays.fill(related, book * topK, related.length, NONE);
+        }
+        bookIds[book] = bookId;
+        bookIndex.put(bookId, book);
+        return book;
+    }
+
+    private int authorIndexOf(long authorId) {
+        int author = authorIndex.get(authorId, NONE);
+        if (author == NONE) {
+            author = authorCount++;
+            if (author == authorIds.length) {
+                authorIds = Arrays.copyOf(authorIds, authorIds.length * 2);
+            }
+            authorIds[author] = authorId;
+            authorIndex.put(authorId, author);
+        }
+        return author;
+    }
+
+    /**
+     * Un libro nuevo con autores a1 y a2 abre caminos de coautoría entre los libros de a1 y los
+     * de a2. Se suma ese camino al puntaje que ya tenían en la lista; si el par no estaba en la
+     * lista se toma solo el camino nuevo (aproximación: no se recalcula la lista entera).
+     */
+    private void linkCoAuthors(int book, int[] authors) {
+        for (int first : authors) {
+            for (int second : authors) {
+                if (first == second) {
+                    continue;
+                }
+                int[] books = authorBooks.row(first);
+                int[] coBooks = authorBooks.row(second);
+                int coFrom = authorBooks.from(second);
+                int coEnd = Math.min(authorBooks.to(second), coFrom + coAuthorFanOut);
+                for (int i = authorBooks.from(first), end = authorBooks.to(first); i < end; i++) {
+                    int other = books[i];
+                    if (other == book || writtenBy(other, second)) {
+                        continue;
+                    }
+                    for (int j = coFrom; j < coEnd; j++) {
+                        int candidate = coBooks[j];
+                        if (candidate != book && !writtenBy(candidate, first)) {
+                            addToList(other, candidate, (float) (CO_AUTHOR * languageFactor(other, candidate)
+                                    * Math.log(2 + downloads[candidate])));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean writtenBy(int book, int author) {
+        return contains(bookAuthors.row(book), bookAuthors.from(book), bookAuthors.to(book), author);
+    }
+
+    private static boolean sameAuthors(int[] a, int[] b) {
+        int[] left = a.clone();
+        int[] right = b.clone();
+        Arrays.sort(left);
+        Arrays.sort(right);
+        return Arrays.equals(left, right);
+    }
+
+    private void rankBooksOf(int[] authors, int except) {
+        for (int author : authors) {
+            int[] books = authorBooks.row(author);
+            for (int i = authorBooks.from(author), end = authorBooks.to(author); i < end; i++) {
+                if (books[i] != except) {
+                    rankRelated(scorer, books[i]);
+                }
+            }
+        }
+    }
+
+    private void rankRelated(Scorer scorer, int book) {
+        storeTopK(scorer, book, accumulate(scorer, book));
+        scorer.clear();
+    }
+
+    /**
+     * Suma en el acumulador el puntaje base (sin idioma ni descargas) de los libros a dos y
+     * cuatro saltos; devuelve cuántos alcanzó. Corta al llegar a maxVisits.
+     */
+    private int accumulate(Scorer scorer, int book) {
+        scorer.count = 0;
+        int visits = 0;
+        int[] ownAuthors = bookAuthors.row(book);
+        int ownFrom = bookAuthors.from(book);
+        int ownTo = bookAuthors.to(book);
+
+        for (int i = ownFrom; i < ownTo && visits < maxVisits; i++) {
+            int author = ownAuthors[i];
+            int[] books = authorBooks.row(author);
+            int from = authorBooks.from(author);
+            int to = authorBooks.to(author);
+            for (int j = from; j < to && visits < maxVisits; j++, visits++) {
+                scorer.add(books[j], book, SHARED_AUTHOR);
+            }
+            // Coautores de este autor (que no sean autores del libro) y sus libros
+            for (int j = from; j < to && visits < maxVisits; j++) {
+                int coBook = books[j];
+                int[] coAuthors = bookAuthors.row(coBook);
+                for (int k = bookAuthors.from(coBook), kEnd = bookAuthors.to(coBook); k < kEnd && visits < maxVisits; k++) {
+                    int coAuthor = coAuthors[k];
+                    if (contains(ownAuthors, ownFrom, ownTo, coAuthor)) {
+                        continue;
+                    }
+                    int[] coBooks = authorBooks.row(coAuthor);
+                    int mFrom = authorBooks.from(coAuthor);
+                    int mEnd = Math.min(authorBooks.to(coAuthor), mFrom + coAuthorFanOut);
+                    for (int m = mFrom; m < mEnd && visits < maxVisits; m++, visits++) {
+                        // Simétrico: el camino cuenta igual visto desde el otro libro
+                        int other = coBooks[m];
+                        if (!contains(bookAuthors.row(other), bookAuthors.from(other), bookAuthors.to(other), author)) {
+                            scorer.add(other, book, CO_AUTHOR);
+                        }
+                    }
+                }
+            }
+        }
+        return scorer.count;
+    }
+
+    private void storeTopK(Scorer scorer, int book, int reached) {
+        int base = book * topK;
+        Arrays.fill(related, base, base + topK, NONE);
+        for (int i = 0; i < reached; i++) {
+            int other = scorer.touched[i];
+            offer(book, other, (float) (scorer.scores[other] * languageFactor(book, other) * Math.log(2 + downloads[other])));
+        }
+    }
+
+    private float languageFactor(int a, int b) {
+        return languages[a] == languages[b] ? SAME_LANGUAGE : 1.0f;
+    }
+
+    // Inserta manteniendo el orden; si la lista está llena y no supera al último, no entra
+    private void offer(int book, int other, float score) {
+        int base = book * topK;
+        int last = base + topK - 1;
+        if (related[last] != NONE && relatedScores[last] >= score) {
+            return;
+        }
+        int position = last;
+        while (position > base && (related[position - 1] == NONE || relatedScores[position - 1] < score)) {
+            related[position] = related[position - 1];
+            relatedScores[position] = relatedScores[position - 1];
+            position--;
+        }
+        related[position] = other;
+        relatedScores[position] = score;
+    }
+
+    private void addToList(int book, int other, float delta) {
+        int base = book * topK;
+        for (int i = base; i < base + topK && related[i] != NONE; i++) {
+            if (related[i] == other) {
+                delta += relatedScores[i];
+                break;
+            }
+        }
+        upsert(book, other, delta);
+    }
+
+    private void upsert(int book, int other, float score) {
+        remove(book, other);
+        offer(book, other, score);
+    }
+
+    private void remove(int book, int other) {
+        int base = book * topK;
+        int end = base + topK;
+        for (int i = base; i < end && related[i] != NONE; i++) {
+            if (related[i] == other) {
+                System.arraycopy(related, i + 1, related, i, end - i - 1);
+                System.arraycopy(relatedScores, i + 1, relatedScores, i, end - i - 1);
+                related[end - 1] = NONE;
+                return;
+            }
+        }
+    }
+
+    private static boolean contains(int[] values, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] append(int[] values, int size, int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        return values;
+    }
+
+    // Ordena y deja los valores distintos al principio; devuelve cuántos son
+    private static int distinct(int[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (count == 0 || values[count - 1] != values[i]) {
+                values[count++] = values[i];
+            }
+        }
+        return count;
+    }
+
+    /** Puntajes por libro y lista de los libros tocados, para limpiar solo esos. */
+    private static final class Scorer {
+
+        float[] scores;
+        int[] touched = new int[64];
+        int count;
+
+        Scorer(int books) {
+            scores = new float[books];
+        }
+
+        void add(int other, int book, float score) {
+            if (other == book) {
+                return;
+            }
+            if (scores[other] == 0f) {
+                if (count == touched.length) {
+                    touched = Arrays.copyOf(touched, count * 2);
+                }
+                touched[count++] = other;
+            }
+            scores[other] += score;
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++) {
+                scores[touched[i]] = 0f;
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * Un lado del grafo: CSR inmutable para los nodos del último volcado y filas propias
+     * (copiadas del CSR al primer cambio) para los nodos nuevos o modificados desde entonces.
+     * Con pesos, cada fila queda ordenada de mayor a menor peso.
+     */
+    private static final class Adjacency {
+
+        private int[] offsets;
+        private int[] targets;
+        private int baseNodes;
+        private int[][] rows = new int[16][];
+        private int[] rowSizes = new int[16];
+        private int rewritten;
+        long edges;
+
+        static Adjacency of(int nodes, int[] sources, int[] destinations, int count, int[] weights) {
+            Adjacency adjacency = new Adjacency();
+            adjacency.build(nodes, sources, destinations, count, weights);
+            return adjacency;
+        }
+
+        int[] row(int node) {
+            if (node < rows.length && rows[node] != null) {
+                return rows[node];
+            }
+            return node < baseNodes ? targets : NO_TARGETS;
+        }
+
+        int from(int node) {
+            if (node < rows.length && rows[node] != null) {
+                return 0;
+            }
+            return node < baseNodes ? offsets[node] : 0;
+        }
+
+        int to(int node) {
+            if (node < rows.length && rows[node] != null) {
+                return rowSizes[node];
+            }
+            return node < baseNodes ? offsets[node + 1] : 0;
+        }
+
+        // Inserta respetando el orden por peso (si hay pesos) o al final
+        void insert(int node, int target, int[] weights) {
+            int[] row = own(node);
+            int size = rowSizes[node];
+            if (size == row.length) {
+                row = rows[node] = Arrays.copyOf(row, Math.max(4, size * 2));
+            }
+            int position = size;
+            while (weights != null && position > 0 && weights[row[position - 1]] < weights[target]) {
+                row[position] = row[position - 1];
+                position--;
+            }
+            row[position] = target;
+            rowSizes[node] = size + 1;
+            edges++;
+        }
+
+        void remove(int node, int target) {
+            int[] row = own(node);
+            int size = rowSizes[node];
+            for (int i = 0; i < size; i++) {
+                if (row[i] == target) {
+                    System.arraycopy(row, i + 1, row, i, size - i - 1);
+                    rowSizes[node] = size - 1;
+                    edges--;
+                    return;
+                }
+            }
+        }
+
+        void set(int node, int[] values) {
+            edges += values.length - (to(node) - from(node));
+            own(node);
+            rows[node] = values;
+            rowSizes[node] = values.length;
+        }
+
+        // Vuelca las filas propias a un CSR nuevo cuando superan un octavo de los nodos
+        void compactIfNeeded(int nodes, int[] weights) {
+            if (rewritten <= Math.max(1024, nodes / 8)) {
+                return;
+            }
+            int[] sources = new int[(int) edges];
+            int[] destinations = new int[(int) edges];
+            int count = 0;
+            for (int node = 0; node < nodes; node++) {
+                int[] row = row(node);
+                for (int i = from(node), end = to(node); i < end; i++) {
+                    sources[count] = node;
+                    destinations[count++] = row[i];
+                }
+            }
+            rows = new int[16][];
+            rowSizes = new int[16];
+            rewritten = 0;
+            build(nodes, sources, destinations, count, weights);
+        }
+
+        private int[] own(int node) {
+            if (node >= rows.length) {
+                int capacity = Math.max(rows.length * 2, node + 1);
+                rows = Arrays.copyOf(rows, capacity);
+                rowSizes = Arrays.copyOf(rowSizes, capacity);
+            }
+            if (rows[node] == null) {
+                int from = node < baseNodes ? offsets[node] : 0;
+                int to = node < baseNodes ? offsets[node + 1] : 0;
+                rows[node] = to > from ? Arrays.copyOfRange(targets, from, to) : new int[4];
+                rowSizes[node] = to - from;
+                rewritten++;
+            }
+            return rows[node];
+        }
+
+        private void build(int nodes, int[] sources, int[] destinations, int count, int[] weights) {
+            offsets = new int[nodes + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int node = 0; node < nodes; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            targets = new int[count];
+            int[] next = Arrays.copyOf(offsets, nodes);
+            for (int i = 0; i < count; i++) {
+                targets[next[sources[i]]++] = destinations[i];
+            }
+            baseNodes = nodes;
+            edges = count;
+
+            if (weights != null) {
+                // Peso y destino empaquetados en un long: ordenar la fila es ordenar longs
+                long[] packed = new long[16];
+                for (int node = 0; node < nodes; node++) {
+                    int from = offsets[node];
+                    int size = offsets[node + 1] - from;
+                    if (size < 2) {
+                        continue;
+                    }
+                    if (packed.length < size) {
+                        packed = new long[size];
+                    }
+                    for (int i = 0; i < size; i++) {
+                        int target = targets[from + i];
+                        packed[i] = ((long) (Integer.MAX_VALUE - Math.max(0, weights[target])) << 32) | target;
+                    }
+                    Arrays.sort(packed, 0, size);
+                    for (int i = 0; i < size; i++) {
+                        targets[from + i] = (int) packed[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /** Acumula nodos y aristas para construir el grafo de una vez. */
+    public static final class Builder {
+
+        private long[] bookIds;
+        private int[] downloads;
+        private short[] languages;
+        private int bookCount;
+        private long[] linkBooks;
+        private long[] linkAuthors;
+        private int linkCount;
+
+        private Builder(int expectedBooks, int expectedLinks) {
+            bookIds = new long[Math.max(16, expectedBooks)];
+            downloads = new int[bookIds.length];
+            languages = new short[bookIds.length];
+            linkBooks = new long[Math.max(16, expectedLinks)];
+            linkAuthors = new long[linkBooks.length];
+        }
+
+        public Builder book(long bookId, int downloadCount, short language) {
+            if (bookCount == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, bookCount * 2);
+                downloads = Arrays.copyOf(downloads, bookCount * 2);
+                languages = Arrays.copyOf(languages, bookCount * 2);
+            }
+            bookIds[bookCount] = bookId;
+            downloads[bookCount] = downloadCount;
+            languages[bookCount] = language;
+            bookCount++;
+            return this;
+        }
+
+        public Builder link(long bookId, long authorId) {
+            if (linkCount == linkBooks.length) {
+                linkBooks = Arrays.copyOf(linkBooks, linkCount * 2);
+                linkAuthors = Arrays.copyOf(linkAuthors, linkCount * 2);
+            }
+            linkBooks[linkCount] = bookId;
+            linkAuthors[linkCount] = authorId;
+            linkCount++;
+            return this;
+        }
+
+        /** Construye el CSR y precalcula los topK relacionados de cada libro. */
+        public BookGraph build(int topK, int maxVisits) {
+            if (topK < 1 || maxVisits < 1) {
+                throw new IllegalArgumentException("topK y maxVisits deben ser positivos");
+            }
+            return new BookGraph(topK, maxVisits, this);
+        }
+    }
+}
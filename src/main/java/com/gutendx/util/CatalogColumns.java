@@ -0,0 +1,376 @@
+package com.gutendx.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * El catálogo en columnas primitivas para estadísticas: descargas e idioma principal por libro,
+ * años de nacimiento y muerte por autor. Las filas se cargan en orden de id, así que el id de
+ * cada fila alcanza para encontrarla por bisección; sólo las que llegan fuera de orden después
+ * van a un mapa aparte. Con 10M libros y 3M autores son ~190 MB.
+ * {@link #reduce} lo recorre una sola vez, repartido en tareas fork-join de a {@link #CHUNK}
+ * filas; cada tarea acumula en sus propios {@link Totals} y se suman al volver.
+ * Lecturas concurrentes; las escrituras toman el lock exclusivo.
+ */
+public final class CatalogColumns {
+
+    public static final int CHUNK = 1 << 16;
+
+    private static final int UNKNOWN_YEAR = Integer.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Rows bookRows;
+    private int[] downloads;
+    private short[] languages;
+    private int bookCount;
+
+    private final Map<String, Short> languageIds = new HashMap<>();
+    private final List<String> languageCodes = new ArrayList<>();
+
+    private final Rows authorRows;
+    private int[] births;
+    private int[] deaths;
+    private int authorCount;
+
+    public CatalogColumns(int expectedBooks, int expectedAuthors) {
+        bookRows = new Rows(expectedBooks);
+        downloads = new int[Math.max(16, expectedBooks)];
+        languages = new short[downloads.length];
+        authorRows = new Rows(expectedAuthors);
+        births = new int[Math.max(16, expectedAuthors)];
+        deaths = new int[births.length];
+    }
+
+    /** Agrega o reemplaza un libro; downloadCount nulo cuenta como 0. */
+    public void putBook(long bookId, Integer downloadCount, String languageCode) {
+        lock.writeLock().lock();
+        try {
+            int row = bookRows.find(bookId);
+            if (row < 0) {
+                if (bookCount == downloads.length) {
+                    downloads = Arrays.copyOf(downloads, bookCount * 2);
+                    languages = Arrays.copyOf(languages, bookCount * 2);
+                }
+                row = bookRows.add(bookId);
+                bookCount++;
+            }
+            downloads[row] = downloadCount != null ? downloadCount : 0;
+            languages[row] = languageId(languageCode);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Agrega o reemplaza un autor; un año nulo es desconocido. */
+    public void putAuthor(long authorId, Integer birthYear, Integer deathYear) {
+        lock.writeLock().lock();
+        try {
+            int row = authorRows.find(authorId);
+            if (row < 0) {
+                if (authorCount == births.length) {
+                    births = Arrays.copyOf(births, authorCount * 2);
+                    deaths = Arrays.copyOf(deaths, authorCount * 2);
+                }
+                row = authorRows.add(authorId);
+                authorCount++;
+            }
+            births[row] = birthYear != null ? birthYear : UNKNOWN_YEAR;
+            deaths[row] = deathYear != null ? deathYear : UNKNOWN_YEAR;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int bookCount() {
+        lock.readLock().lock();
+        try {
+            return bookCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int authorCount() {
+        lock.readLock().lock();
+        try {
+            return authorCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Todas las estadísticas en una pasada sobre las columnas, con los hilos del pool. */
+    public Totals reduce(ForkJoinPool pool) {
+        lock.readLock().lock();
+        try {
+            String[] codes = languageCodes.toArray(new String[0]);
+            return pool.invoke(new Reduction(codes, 0, bookCount + authorCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Filas [0, bookCount) son libros y las siguientes autores: un solo árbol de tareas para las dos tablas
+    private final class Reduction extends RecursiveTask<Totals> {
+
+        private final String[] codes;
+        private final int from;
+        private final int to;
+
+        Reduction(String[] codes, int from, int to) {
+            this.codes = codes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= CHUNK) {
+                Totals totals = new Totals(codes);
+                int books = Math.min(to, bookCount);
+                for (int row = from; row < books; row++) {
+                    totals.addBook(languages[row], downloads[row]);
+                }
+                for (int row = Math.max(from, bookCount); row < to; row++) {
+                    totals.addAuthor(births[row - bookCount], deaths[row - bookCount]);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            Reduction left = new Reduction(codes, from, middle);
+            left.fork();
+            Totals right = new Reduction(codes, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // Id -> fila: las primeras sorted filas tienen ids crecientes y se buscan por bisección
+    private static final class Rows {
+
+        private long[] ids;
+        private int count;
+        private int sorted;
+        private final LongIntHashMap late = new LongIntHashMap(16);
+
+        Rows(int expected) {
+            ids = new long[Math.max(16, expected)];
+        }
+
+        int find(long id) {
+            int row = Arrays.binarySearch(ids, 0, sorted, id);
+            return row >= 0 ? row : late.get(id, -1);
+        }
+
+        int add(long id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            int row = count++;
+            ids[row] = id;
+            if (sorted == row && (row == 0 || id > ids[row - 1])) {
+                sorted++;
+            } else {
+                late.put(id, row);
+            }
+            return row;
+        }
+    }
+
+    private short languageId(String code) {
+        Short id = languageIds.get(code);
+        if (id == null) {
+            id = (short) languageCodes.size();
+            languageIds.put(code, id);
+            languageCodes.add(code);
+        }
+        return id;
+    }
+
+    /**
+     * Acumulador de las estadísticas, el mismo para la reducción en memoria y para los
+     * agregados que devuelve la BD. Los siglos y las décadas de vida fuera de rango se suman al
+     * extremo más cercano.
+     */
+    public static final class Totals {
+
+        public static final int MIN_CENTURY = -30;
+        public static final int MAX_CENTURY = 30;
+        public static final int MAX_LIFESPAN_DECADE = 12;
+        // Descargas por cantidad de dígitos: 0-9, 10-99, ... hasta el máximo de un int
+        public static final int DOWNLOAD_MAGNITUDES = 10;
+
+        private final String[] codes;
+        final long[] languageBooks;
+        final long[] languageDownloads;
+        final int[] languageMaxDownloads;
+        final long[] booksByMagnitude = new long[DOWNLOAD_MAGNITUDES];
+        long books;
+        long downloads;
+
+        final long[] authorsByCentury = new long[MAX_CENTURY - MIN_CENTURY + 1];
+        final long[] lifespansByDecade = new long[MAX_LIFESPAN_DECADE + 1];
+        long authors;
+        long authorsWithBirthYear;
+        long authorsWithDeathYear;
+        long lifespans;
+        long lifespanYears;
+        int minLifespan = Integer.MAX_VALUE;
+        int maxLifespan = Integer.MIN_VALUE;
+
+        public Totals(String[] codes) {
+            this.codes = codes;
+            languageBooks = new long[codes.length];
+            languageDownloads = new long[codes.length];
+            languageMaxDownloads = new int[codes.length];
+        }
+
+        void addBook(int language, int downloadCount) {
+            books++;
+            downloads += downloadCount;
+            languageBooks[language]++;
+            languageDownloads[language] += downloadCount;
+            languageMaxDownloads[language] = Math.max(languageMaxDownloads[language], downloadCount);
+            booksByMagnitude[magnitude(downloadCount)]++;
+        }
+
+        // Años primitivos: en el recorrido de millones de autores no se crea ningún Integer
+        void addAuthor(int birthYear, int deathYear) {
+            authors++;
+            boolean born = birthYear != UNKNOWN_YEAR;
+            boolean died = deathYear != UNKNOWN_YEAR;
+            if (born) {
+                authorsWithBirthYear++;
+                authorsByCentury[century(birthYear) - MIN_CENTURY]++;
+            }
+            if (died) {
+                authorsWithDeathYear++;
+            }
+            if (born && died && deathYear >= birthYear) {
+                addLifespans(deathYear - birthYear, 1, deathYear - birthYear, deathYear - birthYear);
+            }
+        }
+
+        /** Agregados por idioma: libros, suma y máximo de descargas. */
+        public void addLanguage(String code, long bookCount, long downloadSum, int maxDownloads) {
+            int language = Arrays.asList(codes).indexOf(code);
+            if (language < 0) {
+                throw new IllegalArgumentException("Idioma fuera de la lista: " + code);
+            }
+            books += bookCount;
+            downloads += downloadSum;
+            languageBooks[language] += bookCount;
+            languageDownloads[language] += downloadSum;
+            languageMaxDownloads[language] = Math.max(languageMaxDownloads[language], maxDownloads);
+        }
+
+        /** Libros cuyas descargas tienen la cantidad de dígitos dada (0 tiene un dígito). */
+        public void addDownloadDigits(int digits, long bookCount) {
+            booksByMagnitude[Math.max(0, Math.min(DOWNLOAD_MAGNITUDES - 1, digits - 1))] += bookCount;
+        }
+
+        public void addAuthorCounts(long total, long withBirthYear, long withDeathYear) {
+            authors += total;
+            authorsWithBirthYear += withBirthYear;
+            authorsWithDeathYear += withDeathYear;
+        }
+
+        /** Autores nacidos en el siglo dado, numerado como floorDiv(año, 100). */
+        public void addCentury(int century, long authorCount) {
+            authorsByCentury[Math.max(MIN_CENTURY, Math.min(MAX_CENTURY, century)) - MIN_CENTURY] += authorCount;
+        }
+
+        /** count vidas que suman years años, de largo entre min y max (en la misma década). */
+        public void addLifespans(long years, long count, int min, int max) {
+            lifespans += count;
+            lifespanYears += years;
+            lifespansByDecade[Math.min(MAX_LIFESPAN_DECADE, min / 10)] += count;
+            minLifespan = Math.min(minLifespan, min);
+            maxLifespan = Math.max(maxLifespan, max);
+        }
+
+        Totals merge(Totals other) {
+            books += other.books;
+            downloads += other.downloads;
+            for (int i = 0; i < codes.length; i++) {
+                languageBooks[i] += other.languageBooks[i];
+                languageDownloads[i] += other.languageDownloads[i];
+                languageMaxDownloads[i] = Math.max(languageMaxDownloads[i], other.languageMaxDownloads[i]);
+            }
+            add(booksByMagnitude, other.booksByMagnitude);
+            authors += other.authors;
+            authorsWithBirthYear += other.authorsWithBirthYear;
+            authorsWithDeathYear += other.authorsWithDeathYear;
+            add(authorsByCentury, other.authorsByCentury);
+            add(lifespansByDecade, other.lifespansByDecade);
+            lifespans += other.lifespans;
+            lifespanYears += other.lifespanYears;
+            minLifespan = Math.min(minLifespan, other.minLifespan);
+            maxLifespan = Math.max(maxLifespan, other.maxLifespan);
+            return this;
+        }
+
+        public long books() { return books; }
+
+        public long downloads() { return downloads; }
+
+        public int languageCount() { return codes.length; }
+
+        public String languageCode(int language) { return codes[language]; }
+
+        public long languageBooks(int language) { return languageBooks[language]; }
+
+        public long languageDownloads(int language) { return languageDownloads[language]; }
+
+        public int languageMaxDownloads(int language) { return languageMaxDownloads[language]; }
+
+        /** Libros con descargas de magnitude + 1 dígitos. */
+        public long booksByMagnitude(int magnitude) { return booksByMagnitude[magnitude]; }
+
+        public long authors() { return authors; }
+
+        public long authorsWithBirthYear() { return authorsWithBirthYear; }
+
+        public long authorsWithDeathYear() { return authorsWithDeathYear; }
+
+        public long authorsInCentury(int century) { return authorsByCentury[century - MIN_CENTURY]; }
+
+        public long lifespans() { return lifespans; }
+
+        public long lifespanYears() { return lifespanYears; }
+
+        public int minLifespan() { return minLifespan; }
+
+        public int maxLifespan() { return maxLifespan; }
+
+        public long lifespansInDecade(int decade) { return lifespansByDecade[decade]; }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+    }
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000,
+            100_000_000, 1_000_000_000};
+
+    // floor(log10): los bits da una cota (log10(2) ~ 1233 / 4096) y una comparación la corrige
+    static int magnitude(int downloadCount) {
+        if (downloadCount <= 0) {
+            return 0;
+        }
+        int magnitude = (32 - Integer.numberOfLeadingZeros(downloadCount)) * 1233 >>> 12;
+        return downloadCount < POWERS_OF_TEN[magnitude] ? magnitude - 1 : magnitude;
+    }
+
+    static int century(int year) {
+        return Math.max(Totals.MIN_CENTURY, Math.min(Totals.MAX_CENTURY, Math.floorDiv(year, 100)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.gutendx.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritura de campos CSV según RFC 4180: comillas solo si hace falta, duplicando las internas.
+ */
+public final class Csv {
+
+    private Csv() {}
+
+    public static void writeField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /** Una fila completa; los null quedan como campo vacío. */
+    public static void writeRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeField(writer, values[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,118 @@
+package com.gutendx.util;
+
+import java.util.Arrays;
+
+/**
+ * Serie de muestras (día, descargas) de un libro codificada en bytes. La primera muestra va
+ * completa; cada una de las siguientes guarda los días desde la anterior y la diferencia de
+ * descargas (en zigzag, puede bajar), las dos en varint: con una muestra diaria y cambios
+ * chicos son unos 2-3 bytes por día. Los días se cuentan desde 1970-01-01 (LocalDate.toEpochDay).
+ * Sólo se agrega al final; para leer hay que recorrer desde el principio.
+ */
+public final class DownloadSeries {
+
+    // Un varint de 32 bits ocupa a lo sumo 5 bytes
+    private static final int MAX_SAMPLE_BYTES = 10;
+
+    private DownloadSeries() {}
+
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(int day, int count);
+    }
+
+    /** Bloque con una sola muestra. */
+    public static byte[] start(int day, int count) {
+        byte[] buffer = new byte[MAX_SAMPLE_BYTES];
+        int length = writeVarint(buffer, 0, day);
+        length = writeVarint(buffer, length, zigzag(count));
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Devuelve un bloque nuevo con la muestra agregada al final. lastDay y lastCount son los de
+     * la última muestra del bloque (los guarda quien lo persiste, para no decodificarlo).
+     *
+     * @throws IllegalArgumentException si day no es posterior a lastDay
+     */
+    public static byte[] append(byte[] block, int lastDay, int lastCount, int day, int count) {
+        if (day <= lastDay) {
+            throw new IllegalArgumentException("La muestra del día " + day + " no es posterior a " + lastDay);
+        }
+        byte[] grown = Arrays.copyOf(block, block.length + MAX_SAMPLE_BYTES);
+        int length = writeVarint(grown, block.length, day - lastDay);
+        length = writeVarint(grown, length, zigzag(count - lastCount));
+        return Arrays.copyOf(grown, length);
+    }
+
+    /** Recorre las muestras en orden. */
+    public static void forEach(byte[] block, SampleConsumer consumer) {
+        int[] position = {0};
+        if (block.length == 0) {
+            return;
+        }
+        int day = readVarint(block, position);
+        int count = unzigzag(readVarint(block, position));
+        consumer.accept(day, count);
+        while (position[0] < block.length) {
+            day += readVarint(block, position);
+            count += unzigzag(readVarint(block, position));
+            consumer.accept(day, count);
+        }
+    }
+
+    /**
+     * Descargas de la última muestra tomada hasta el día dado inclusive, o missing si el bloque
+     * empieza después.
+     */
+    public static int countAt(byte[] block, int day, int missing) {
+        int[] position = {0};
+        if (block.length == 0) {
+            return missing;
+        }
+        int sampleDay = readVarint(block, position);
+        if (sampleDay > day) {
+            return missing;
+        }
+        int count = unzigzag(readVarint(block, position));
+        while (position[0] < block.length) {
+            sampleDay += readVarint(block, position);
+            if (sampleDay > day) {
+                break;
+            }
+            count += unzigzag(readVarint(block, position));
+        }
+        return count;
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVarint(byte[] buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        int offset = position[0];
+        byte b;
+        do {
+            b = buffer[offset++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        position[0] = offset;
+        return value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
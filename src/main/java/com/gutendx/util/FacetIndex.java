@@ -0,0 +1,442 @@
+package com.gutendx.util;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria: un bitmap Roaring de libros por valor de faceta, por idioma y
+ * por autor. Los libros se numeran en orden de llegada (posiciones densas) para que los
+ * bitmaps queden compactos aunque los ids de la BD tengan huecos.
+ *
+ * Además de los bitmaps se guardan las facetas de cada libro: para contar facetas sobre un
+ * filtro chico es más barato recorrer sus libros que intersectar miles de bitmaps.
+ *
+ * Los filtros combinan: idiomas con OR, cada grupo de facetas con OR entre sí y AND con los
+ * demás grupos, y "autor vivo en el año X" con AND. Ese último se arma uniendo los bitmaps de
+ * los autores vivos ese año y se cachea por año hasta la próxima escritura.
+ * Lecturas concurrentes; las escrituras toman el lock exclusivo.
+ */
+public final class FacetIndex {
+
+    private static final int NONE = -1;
+    private static final int UNKNOWN_YEAR = Integer.MAX_VALUE;
+    private static final int ALIVE_CACHE_SIZE = 512;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap positions;
+    private long[] bookIds;
+    private int[][] bookFacets;
+    private int bookCount;
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    private final Map<Integer, RoaringBitmap> facets = new HashMap<>();
+    private final Map<Short, RoaringBitmap> languages = new HashMap<>();
+
+    private final LongIntHashMap authorPositions;
+    private int[] births;
+    private int[] deaths;
+    private RoaringBitmap[] authorBooks;
+    private int authorCount;
+
+    private final Map<Integer, RoaringBitmap> aliveByYear = new ConcurrentHashMap<>();
+
+    public FacetIndex(int expectedBooks, int expectedAuthors) {
+        positions = new LongIntHashMap(expectedBooks);
+        bookIds = new long[Math.max(16, expectedBooks)];
+        bookFacets = new int[bookIds.length][];
+        authorPositions = new LongIntHashMap(expectedAuthors);
+        births = new int[Math.max(16, expectedAuthors)];
+        deaths = new int[births.length];
+        authorBooks = new RoaringBitmap[births.length];
+    }
+
+    public record Count(int key, long count) {}
+
+    /** Filtro sobre el índice; vacío equivale a todos los libros. */
+    public static final class Filter {
+
+        private short[] languages;
+        private final List<int[]> facetGroups = new ArrayList<>();
+        private Integer aliveIn;
+
+        /** Libros en cualquiera de estos idiomas. */
+        public Filter languages(short... languageIds) {
+            this.languages = languageIds;
+            return this;
+        }
+
+        /** Libros con al menos una de estas facetas; cada llamada agrega una condición AND. */
+        public Filter anyOf(int... facetIds) {
+            facetGroups.add(facetIds);
+            return this;
+        }
+
+        /** Libros con al menos un autor vivo ese año. */
+        public Filter aliveIn(int year) {
+            this.aliveIn = year;
+            return this;
+        }
+    }
+
+    // --- Escritura ---
+
+    /** Registra (o reemplaza) los años de un autor. */
+    public void putAuthor(long authorId, Integer birthYear, Integer deathYear) {
+        lock.writeLock().lock();
+        try {
+            int author = authorPosition(authorId);
+            births[author] = birthYear != null ? birthYear : UNKNOWN_YEAR;
+            deaths[author] = deathYear != null ? deathYear : UNKNOWN_YEAR;
+            aliveByYear.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Da de alta un libro sin facetas; durante la carga inicial, en orden de id. */
+    public void addBook(long bookId) {
+        lock.writeLock().lock();
+        try {
+            position(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addLanguage(long bookId, short languageId) {
+        lock.writeLock().lock();
+        try {
+            languages.computeIfAbsent(languageId, key -> new RoaringBitmap()).add(position(bookId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addFacet(long bookId, int facetId) {
+        lock.writeLock().lock();
+        try {
+            int book = position(bookId);
+            if (facets.computeIfAbsent(facetId, key -> new RoaringBitmap()).checkedAdd(book)) {
+                int[] previous = bookFacets[book];
+                int[] updated = previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+                updated[updated.length - 1] = facetId;
+                bookFacets[book] = updated;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAuthor(long bookId, long authorId) {
+        lock.writeLock().lock();
+        try {
+            authorBooks(authorPosition(authorId)).add(position(bookId));
+            aliveByYear.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Alta o reemplazo completo de un libro. Al reemplazar se lo quita de sus facetas anteriores
+     * y de todos los bitmaps de idioma y autor (recorrerlos es más barato que guardar qué
+     * autores tenía cada libro: los cambios son raros).
+     */
+    public void putBook(long bookId, short[] languageIds, int[] facetIds, long[] authorIds) {
+        lock.writeLock().lock();
+        try {
+            int existing = positions.get(bookId, NONE);
+            int book = position(bookId);
+            if (existing != NONE) {
+                languages.values().forEach(bitmap -> bitmap.remove(book));
+                if (bookFacets[book] != null) {
+                    for (int facetId : bookFacets[book]) {
+                        facets.get(facetId).remove(book);
+                    }
+                }
+                for (int author = 0; author < authorCount; author++) {
+                    if (authorBooks[author] != null) {
+                        authorBooks[author].remove(book);
+                    }
+                }
+            }
+            for (short languageId : languageIds) {
+                languages.computeIfAbsent(languageId, key -> new RoaringBitmap()).add(book);
+            }
+            int[] distinct = Arrays.stream(facetIds).distinct().toArray();
+            for (int facetId : distinct) {
+                facets.computeIfAbsent(facetId, key -> new RoaringBitmap()).add(book);
+            }
+            bookFacets[book] = distinct.length == 0 ? null : distinct;
+            for (long authorId : authorIds) {
+                authorBooks(authorPosition(authorId)).add(book);
+            }
+            aliveByYear.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Recomprime los bitmaps (contenedores run) después de la carga inicial. */
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            all.runOptimize();
+            languages.values().forEach(RoaringBitmap::runOptimize);
+            facets.values().forEach(RoaringBitmap::runOptimize);
+            for (int author = 0; author < authorCount; author++) {
+                if (authorBooks[author] != null) {
+                    authorBooks[author].runOptimize();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Lectura ---
+
+    public long count(Filter filter) {
+        lock.readLock().lock();
+        try {
+            return evaluate(filter).getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids de la BD de los primeros libros (en orden de alta) que cumplen el filtro. */
+    public long[] bookIds(Filter filter, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter);
+            long[] ids = new long[(int) Math.min(limit, matches.getLongCardinality())];
+            IntIterator iterator = matches.getIntIterator();
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = bookIds[iterator.next()];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cuántos libros del filtro tiene cada una de las facetas dadas; las 'limit' con más
+     * libros, descartando las que no tienen ninguno.
+     */
+    public List<Count> facetCounts(Filter filter, Collection<Integer> facetIds, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter);
+            if (matches.getLongCardinality() < facetIds.size() * 4L) {
+                return top(scanFacets(matches, facetIds), limit);
+            }
+            List<Count> counts = new ArrayList<>();
+            for (int facetId : facetIds) {
+                RoaringBitmap bitmap = facets.get(facetId);
+                if (bitmap != null) {
+                    long count = RoaringBitmap.andCardinality(matches, bitmap);
+                    if (count > 0) {
+                        counts.add(new Count(facetId, count));
+                    }
+                }
+            }
+            return top(counts, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Count> languageCounts(Filter filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter);
+            List<Count> counts = new ArrayList<>();
+            languages.forEach((languageId, bitmap) -> {
+                long count = RoaringBitmap.andCardinality(matches, bitmap);
+                if (count > 0) {
+                    counts.add(new Count(languageId, count));
+                }
+            });
+            return top(counts, counts.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int bookCount() {
+        return bookCount;
+    }
+
+    public int facetCount() {
+        return facets.size();
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = all.getLongSizeInBytes();
+            for (RoaringBitmap bitmap : facets.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : languages.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+            for (int author = 0; author < authorCount; author++) {
+                if (authorBooks[author] != null) {
+                    bytes += authorBooks[author].getLongSizeInBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Se llama con el lock de lectura (o escritura) tomado; el resultado es una copia
+    private RoaringBitmap evaluate(Filter filter) {
+        List<RoaringBitmap> conditions = new ArrayList<>();
+        if (filter.languages != null) {
+            List<RoaringBitmap> any = new ArrayList<>();
+            for (short languageId : filter.languages) {
+                addIfPresent(any, languages.get(languageId));
+            }
+            conditions.add(union(any));
+        }
+        for (int[] group : filter.facetGroups) {
+            List<RoaringBitmap> any = new ArrayList<>();
+            for (int facetId : group) {
+                addIfPresent(any, facets.get(facetId));
+            }
+            conditions.add(union(any));
+        }
+        if (filter.aliveIn != null) {
+            conditions.add(aliveIn(filter.aliveIn));
+        }
+        if (conditions.isEmpty()) {
+            return all.clone();
+        }
+
+        // Intersectar empezando por la condición más chica
+        conditions.sort((a, b) -> Long.compare(a.getLongCardinality(), b.getLongCardinality()));
+        RoaringBitmap result = conditions.get(0).clone();
+        for (int i = 1; i < conditions.size() && !result.isEmpty(); i++) {
+            result.and(conditions.get(i));
+        }
+        return result;
+    }
+
+    // Pocos libros: se cuentan sus facetas en vez de intersectar cada bitmap con el filtro
+    private List<Count> scanFacets(RoaringBitmap matches, Collection<Integer> facetIds) {
+        Map<Integer, long[]> counts = new HashMap<>();
+        for (int facetId : facetIds) {
+            counts.put(facetId, new long[1]);
+        }
+        IntIterator iterator = matches.getIntIterator();
+        while (iterator.hasNext()) {
+            int[] ofBook = bookFacets[iterator.next()];
+            if (ofBook != null) {
+                for (int facetId : ofBook) {
+                    long[] count = counts.get(facetId);
+                    if (count != null) {
+                        count[0]++;
+                    }
+                }
+            }
+        }
+        List<Count> result = new ArrayList<>();
+        counts.forEach((facetId, count) -> {
+            if (count[0] > 0) {
+                result.add(new Count(facetId, count[0]));
+            }
+        });
+        return result;
+    }
+
+    private RoaringBitmap aliveIn(int year) {
+        RoaringBitmap cached = aliveByYear.get(year);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<RoaringBitmap> alive = new ArrayList<>();
+        for (int author = 0; author < authorCount; author++) {
+            // Mismo criterio que AuthorRepository.findAuthorsAliveInYear
+            if (births[author] <= year && (deaths[author] == UNKNOWN_YEAR || deaths[author] >= year)
+                    && authorBooks[author] != null) {
+                alive.add(authorBooks[author]);
+            }
+        }
+        RoaringBitmap books = union(alive);
+        if (aliveByYear.size() >= ALIVE_CACHE_SIZE) {
+            aliveByYear.clear();
+        }
+        aliveByYear.put(year, books);
+        return books;
+    }
+
+    private static void addIfPresent(List<RoaringBitmap> bitmaps, RoaringBitmap bitmap) {
+        if (bitmap != null) {
+            bitmaps.add(bitmap);
+        }
+    }
+
+    private static RoaringBitmap union(List<RoaringBitmap> bitmaps) {
+        return bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.or(bitmaps.iterator());
+    }
+
+    private static List<Count> top(List<Count> counts, int limit) {
+        counts.sort((a, b) -> a.count() != b.count() ? Long.compare(b.count(), a.count()) : Integer.compare(a.key(), b.key()));
+        return counts.size() > limit ? new ArrayList<>(counts.subList(0, limit)) : counts;
+    }
+
+    private int position(long bookId) {
+        int book = positions.get(bookId, NONE);
+        if (book == NONE) {
+            book = bookCount++;
+            if (book == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, bookIds.length * 2);
+                bookFacets = Arrays.copyOf(bookFacets, bookIds.length);
+            }
+            bookIds[book] = bookId;
+            positions.put(bookId, book);
+            all.add(book);
+        }
+        return book;
+    }
+
+    private int authorPosition(long authorId) {
+        int author = authorPositions.get(authorId, NONE);
+        if (author == NONE) {
+            author = authorCount++;
+            if (author == births.length) {
+                births = Arrays.copyOf(births, births.length * 2);
+                deaths = Arrays.copyOf(deaths, births.length);
+                authorBooks = Arrays.copyOf(authorBooks, births.length);
+            }
+            births[author] = UNKNOWN_YEAR;
+            deaths[author] = UNKNOWN_YEAR;
+            authorPositions.put(authorId, author);
+        }
+        return author;
+    }
+
+    private RoaringBitmap authorBooks(int author) {
+        if (authorBooks[author] == null) {
+            authorBooks[author] = new RoaringBitmap();
+        }
+        return authorBooks[author];
+    }
+}
@@ -0,0 +1,280 @@
+package com.gutendx.warmup;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.Author;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.gutendx.service.CatalogStatistics;
+import com.gutendx.service.GutendxApiService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Calentamiento antes de atender: abre las conexiones de los pools, hace que Hibernate
+ * interprete todas las consultas JPQL de los repositorios, convierte respuestas de Gutendx
+ * de ejemplo con el mismo ObjectMapper que la API y recorre los libros más descargados y sus
+ * autores por los mismos métodos de BookService que usa el menú (JIT, planes SQL, caché de la
+ * BD y estadísticas del catálogo).
+ * <p>
+ * Corre como SmartLifecycle en una fase anterior a la del servidor web, así que el menú (un
+ * CommandLineRunner) y los endpoints REST esperan a que termine. Publica REFUSING_TRAFFIC al
+ * empezar y ACCEPTING_TRAFFIC al terminar, con error o sin él: un calentamiento fallido no
+ * impide arrancar. Una misma consulta de prueba, medida antes y después, da la comparación
+ * en frío y en caliente que queda en {@link #report()} y en el log.
+ */
+@Component
+@ConditionalOnProperty(name = "gutendx.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUp implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    // Antes que el servidor web (DEFAULT_PHASE - 2048) y que su apagado ordenado
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final String FIXTURE = "warmup/gutendx-books.json";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectProvider<HikariDataSource> pools;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private GutendxApiService gutendxApiService;
+
+    @Autowired
+    private ObjectProvider<CatalogStatistics> catalogStatistics;
+
+    // 0: hasta el máximo de cada pool
+    @Value("${gutendx.warmup.connections:0}")
+    private int connections;
+
+    @Value("${gutendx.warmup.json-rounds:500}")
+    private int jsonRounds;
+
+    @Value("${gutendx.warmup.hot-books:100}")
+    private int hotBooks;
+
+    @Value("${gutendx.warmup.hot-authors:50}")
+    private int hotAuthors;
+
+    // Pasado este tiempo las etapas que faltan se saltean y las que corren cortan su recorrido
+    @Value("${gutendx.warmup.max-ms:30000}")
+    private long maxMillis;
+
+    private volatile boolean running;
+    private volatile WarmUpReport report;
+
+    @FunctionalInterface
+    private interface Step {
+        long run(long deadline) throws Exception;
+    }
+
+    @Override
+    public void start() {
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            report = run();
+            report.lines().forEach(logger::info);
+        } finally {
+            running = true;
+            AvailabilityChangeEvent.publish(applicationContext, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /** El del último arranque; null mientras no terminó. */
+    public WarmUpReport report() {
+        return report;
+    }
+
+    private WarmUpReport run() {
+        long started = System.nanoTime();
+        long deadline = started + maxMillis * 1_000_000;
+        byte[] fixture = fixture();
+
+        long cold = probe(fixture);
+        List<WarmUpReport.Stage> stages = new ArrayList<>();
+        stages.add(stage("conexiones", deadline, this::openPools));
+        stages.add(stage("consultas", deadline, this::parseQueries));
+        stages.add(stage("json", deadline, limit -> decode(fixture, limit)));
+        stages.add(stage("catálogo", deadline, this::visitHotCatalog));
+        long warm = probe(fixture);
+
+        return new WarmUpReport(stages, cold, warm, System.nanoTime() - deadline > 0, System.nanoTime() - started);
+    }
+
+    private static WarmUpReport.Stage stage(String name, long deadline, Step step) {
+        long started = System.nanoTime();
+        if (started - deadline > 0) {
+            return new WarmUpReport.Stage(name, 0, 0, "sin tiempo");
+        }
+        try {
+            return new WarmUpReport.Stage(name, step.run(deadline), System.nanoTime() - started, null);
+        } catch (Exception e) {
+            logger.warn("Calentamiento: falló la etapa {}", name, e);
+            return new WarmUpReport.Stage(name, 0, System.nanoTime() - started, e.getMessage());
+        }
+    }
+
+    // Pedir todas a la vez obliga al pool a crearlas ahora y no con la primera ráfaga
+    private long openPools(long deadline) throws Exception {
+        long opened = 0;
+        for (HikariDataSource pool : pools.orderedStream().toList()) {
+            int wanted = connections > 0 ? Math.min(connections, pool.getMaximumPoolSize()) : pool.getMaximumPoolSize();
+            List<Connection> held = new ArrayList<>(wanted);
+            try {
+                for (int i = 0; i < wanted && System.nanoTime() - deadline < 0; i++) {
+                    Connection connection = pool.getConnection();
+                    held.add(connection);
+                    connection.isValid(1);
+                }
+                opened += held.size();
+            } finally {
+                for (Connection connection : held) {
+                    connection.close();
+                }
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Cada @Query JPQL pasa por el intérprete de Hibernate y queda en su caché de consultas.
+     * No se ejecutan: con parámetros inventados algunas recorrerían tablas enteras.
+     */
+    private long parseQueries(long deadline) {
+        long parsed = 0;
+        Repositories repositories = new Repositories(applicationContext);
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            for (Class<?> domainType : repositories) {
+                RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElse(null);
+                if (information == null) {
+                    continue;
+                }
+                for (Method method : information.getQueryMethods()) {
+                    Query query = method.getAnnotation(Query.class);
+                    if (query == null || query.nativeQuery() || query.value().isEmpty()
+                            || method.isAnnotationPresent(Modifying.class)) {
+                        continue;
+                    }
+                    entityManager.createQuery(query.value());
+                    parsed++;
+                    if (System.nanoTime() - deadline > 0) {
+                        return parsed;
+                    }
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private long decode(byte[] fixture, long deadline) throws IOException {
+        long decoded = 0;
+        while (decoded < jsonRounds && System.nanoTime() - deadline < 0) {
+            gutendxApiService.decode(fixture);
+            decoded++;
+        }
+        return decoded;
+    }
+
+    private long visitHotCatalog(long deadline) {
+        List<Long> ids = bookRepository.findMostDownloadedGutendxBookIds(PageRequest.of(0, Math.max(1, hotBooks)));
+        List<Book> books = bookService.getBooksByGutendxIds(ids);
+        long visited = 0;
+        Set<Long> authorIds = new LinkedHashSet<>();
+        for (Book book : books) {
+            if (System.nanoTime() - deadline > 0) {
+                return visited;
+            }
+            bookService.getRelatedBooks(book.getId());
+            bookService.getLanguageName(book.getLanguageCode());
+            book.getAuthors().stream().map(Author::getId).forEach(authorIds::add);
+            visited++;
+        }
+        for (Long authorId : authorIds.stream().limit(hotAuthors).toList()) {
+            if (System.nanoTime() - deadline > 0) {
+                return visited;
+            }
+            bookService.getTop3BooksByAuthor(authorId);
+            visited++;
+        }
+        // Las estadísticas se calculan una vez por versión del catálogo: la primera ya queda hecha
+        catalogStatistics.ifAvailable(CatalogStatistics::report);
+        return visited;
+    }
+
+    /** Lo que paga el primer pedido de búsqueda: convertir la respuesta y buscar los libros en la BD. */
+    private long probe(byte[] fixture) {
+        long started = System.nanoTime();
+        try {
+            List<Long> ids = gutendxApiService.decode(fixture).getResults().stream()
+                    .map(GutendxApiResponse.BookDto::getId)
+                    .toList();
+            for (Book book : bookService.getBooksByGutendxIds(ids)) {
+                book.getAuthors().forEach(author -> bookService.getTop3BooksByAuthor(author.getId()));
+            }
+        } catch (Exception e) {
+            logger.warn("Calentamiento: falló la consulta de prueba", e);
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static byte[] fixture() {
+        try {
+            return new ClassPathResource(FIXTURE).getContentAsByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Falta " + FIXTURE, e);
+        }
+    }
+}
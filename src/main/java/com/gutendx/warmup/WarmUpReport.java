@@ -0,0 +1,46 @@
+package com.gutendx.warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado del calentamiento: cada etapa con lo que recorrió y su error, si lo hubo, y la
+ * misma consulta de prueba medida antes (en frío) y después (en caliente).
+ */
+public record WarmUpReport(List<Stage> stages, long coldProbeNanos, long warmProbeNanos, boolean timedOut,
+                           long elapsedNanos) {
+
+    public record Stage(String name, long items, long elapsedNanos, String error) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d en %d ms%s", name, items, elapsedNanos / 1_000_000,
+                    error != null ? "; error: " + error : "");
+        }
+    }
+
+    public WarmUpReport {
+        stages = List.copyOf(stages);
+    }
+
+    public double speedup() {
+        return coldProbeNanos / (double) Math.max(1, warmProbeNanos);
+    }
+
+    public List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Calentamiento en %d ms%s", elapsedNanos / 1_000_000,
+                timedOut ? " (cortado por tiempo)" : ""));
+        for (Stage stage : stages) {
+            lines.add("  " + stage);
+        }
+        lines.add(String.format("Primera consulta: %.1f ms en frío, %.1f ms en caliente (%.1fx)",
+                coldProbeNanos / 1e6, warmProbeNanos / 1e6, speedup()));
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", lines());
+    }
+}
@@ -0,0 +1,69 @@
+package db.migration;
+
+import com.gutendx.util.AuthorNames;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agrega author.name_key, corrige apellido/nombre de los autores ya guardados
+ * (el parser anterior no entendía el formato "Apellido, Nombre") y fusiona los
+ * autores duplicados antes de crear el índice único.
+ */
+public class V4__Normalize_author_names extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE author ADD COLUMN name_key TEXT");
+        }
+
+        Map<String, Long> canonicalByKey = new HashMap<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, gutendx_author_name FROM author ORDER BY id");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE author SET name_key = ?, last_name = ?, first_name = ? WHERE id = ?");
+             PreparedStatement relink = connection.prepareStatement(
+                     "INSERT INTO book_author (book_id, author_id) " +
+                             "SELECT book_id, ? FROM book_author WHERE author_id = ? ON CONFLICT DO NOTHING");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM author WHERE id = ?")) {
+
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                String rawName = rows.getString(2);
+                String key = AuthorNames.key(rawName);
+
+                Long canonicalId = canonicalByKey.putIfAbsent(key, id);
+                if (canonicalId != null) {
+                    // Duplicado: mover sus libros al autor canónico (ON DELETE CASCADE limpia el resto)
+                    relink.setLong(1, canonicalId);
+                    relink.setLong(2, id);
+                    relink.executeUpdate();
+                    delete.setLong(1, id);
+                    delete.executeUpdate();
+                    continue;
+                }
+
+                String[] names = AuthorNames.parse(rawName);
+                update.setString(1, key);
+                update.setString(2, names[0]);
+                update.setString(3, names[1]);
+                update.setLong(4, id);
+                update.executeUpdate();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE author ALTER COLUMN name_key SET NOT NULL");
+            statement.execute("CREATE UNIQUE INDEX idx_author_name_key ON author(name_key)");
+        }
+    }
+}
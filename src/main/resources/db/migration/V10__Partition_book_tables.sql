@@ -0,0 +1,150 @@
+-- V10__Partition_book_tables.sql
+-- Claves BIGINT en book y author (SERIAL es int4: se acaba en 2^31 altas, y las entidades ya
+-- las mapean como Long; las tablas que apuntan a book desde V3 ya nacieron con book_id BIGINT)
+-- y particionado declarativo de las dos tablas más grandes:
+--   book        PARTITION BY HASH (id)         16 particiones
+--   book_author PARTITION BY HASH (author_id)  16 particiones
+-- Requiere PostgreSQL 12 o superior (FK hacia una tabla particionada).
+--
+-- book se parte por id y no por idioma: la PK y toda FK hacia una tabla particionada deben
+-- incluir la clave de partición, y book_language, book_facet, book_format, download_block y
+-- download_trend apuntan a book(id). Por idioma habría que llevar language_code a cada una;
+-- además casi todo el catálogo está en inglés y una partición se llevaría el 80%.
+--
+-- Poda de particiones por consulta de los repositorios:
+--   book.id = ? / id IN (...) (findById, findByIdIn, cargas de colecciones) -> 1 partición por id
+--   book.gutendx_book_id = ? / IN (...)  -> sin poda: un acceso por índice en cada partición
+--   book_author.author_id = ? (libros de un autor)  -> 1 partición, y book por id (poda en ejecución)
+--   book_author.book_id = ? (autores de un libro, borrado de la colección)  -> sin poda: PK por partición
+--   recorridos completos (stream*, agregados de estadísticas, exportación por rangos de id) -> todas
+-- Con 16 particiones una búsqueda sin poda son 16 accesos por índice de pocos niveles; más
+-- particiones abaratarían poco el mantenimiento y encarecerían esas búsquedas.
+
+-- Identity en una tabla particionada recién llega con PostgreSQL 17: book usa una secuencia
+-- propia como DEFAULT (lo mismo que BIGSERIAL), que Hibernate lee igual con IDENTITY.
+
+-- 1. FK de las tablas hijas hacia book; se vuelven a crear al final contra la tabla nueva
+ALTER TABLE book_language DROP CONSTRAINT book_language_book_id_fkey;
+ALTER TABLE book_facet DROP CONSTRAINT book_facet_book_id_fkey;
+ALTER TABLE book_format DROP CONSTRAINT book_format_book_id_fkey;
+ALTER TABLE download_block DROP CONSTRAINT download_block_book_id_fkey;
+ALTER TABLE download_trend DROP CONSTRAINT download_trend_book_id_fkey;
+
+-- 2. Las tablas viejas quedan a un lado hasta copiar sus filas
+ALTER TABLE book_author RENAME TO book_author_v9;
+ALTER TABLE book RENAME TO book_v9;
+-- Los nombres de índices son únicos por esquema: las tablas nuevas los necesitan libres
+ALTER TABLE book_author_v9 RENAME CONSTRAINT book_author_pkey TO book_author_v9_pkey;
+ALTER TABLE book_v9 RENAME CONSTRAINT book_pkey TO book_v9_pkey;
+ALTER TABLE book_v9 RENAME CONSTRAINT book_gutendx_book_id_key TO book_v9_gutendx_book_id_key;
+ALTER INDEX idx_gutendx_book_id RENAME TO idx_gutendx_book_id_v9;
+ALTER INDEX idx_language_code RENAME TO idx_language_code_v9;
+
+-- 3. author: SERIAL -> BIGINT identity (no está particionada)
+ALTER TABLE book_author_v9 DROP CONSTRAINT book_author_author_id_fkey;
+-- Las dos secuencias nuevas siguen desde donde quedaron las viejas, no desde MAX(id): el id de
+-- un libro o un autor borrado (que el outbox ya publicó) no se vuelve a dar
+ALTER TABLE author ALTER COLUMN id DROP DEFAULT;
+-- Sin soltarla de la columna, pg_get_serial_sequence seguiría devolviendo la vieja
+ALTER SEQUENCE author_id_seq OWNED BY NONE;
+ALTER SEQUENCE author_id_seq RENAME TO author_id_seq_v9;
+ALTER TABLE author ALTER COLUMN id TYPE BIGINT;
+ALTER TABLE author ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+SELECT setval(pg_get_serial_sequence('author', 'id'), GREATEST(COALESCE(MAX(id), 0),
+    (SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM author_id_seq_v9)) + 1, false)
+FROM author;
+DROP SEQUENCE author_id_seq_v9;
+
+-- 4. book particionada
+CREATE SEQUENCE book_id_seq_v10 AS BIGINT;
+
+CREATE TABLE book (
+    id BIGINT NOT NULL DEFAULT nextval('book_id_seq_v10'),
+    gutendx_book_id BIGINT NOT NULL,
+    title TEXT NOT NULL,
+    language_code VARCHAR(10) NOT NULL,
+    download_count INTEGER DEFAULT 0,
+    content_hash VARCHAR(64),
+    created_at TIMESTAMP DEFAULT now(),
+    PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+-- Índices creados en la tabla madre: cada partición tiene el suyo
+CREATE INDEX idx_gutendx_book_id ON book(gutendx_book_id);
+CREATE INDEX idx_language_code ON book(language_code);
+
+-- Un UNIQUE sobre gutendx_book_id no puede ser global en una tabla partida por id (debería
+-- incluir id). La unicidad la da esta tabla de claves, que un trigger mantiene con cada alta
+-- o cambio: un duplicado falla con unique_violation, como antes con la restricción.
+CREATE TABLE book_gutendx_key (
+    gutendx_book_id BIGINT PRIMARY KEY,
+    book_id BIGINT NOT NULL
+);
+
+CREATE FUNCTION book_gutendx_key_sync() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO book_gutendx_key (gutendx_book_id, book_id) VALUES (NEW.gutendx_book_id, NEW.id);
+    ELSIF TG_OP = 'DELETE' THEN
+        DELETE FROM book_gutendx_key WHERE gutendx_book_id = OLD.gutendx_book_id;
+    ELSIF NEW.gutendx_book_id <> OLD.gutendx_book_id OR NEW.id <> OLD.id THEN
+        DELETE FROM book_gutendx_key WHERE gutendx_book_id = OLD.gutendx_book_id;
+        INSERT INTO book_gutendx_key (gutendx_book_id, book_id) VALUES (NEW.gutendx_book_id, NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 5. book_author particionada por autor: "libros de X" lee una sola partición
+CREATE TABLE book_author (
+    book_id BIGINT NOT NULL REFERENCES book(id) ON DELETE CASCADE,
+    author_id BIGINT NOT NULL REFERENCES author(id) ON DELETE CASCADE,
+    PRIMARY KEY (book_id, author_id)
+) PARTITION BY HASH (author_id);
+
+CREATE INDEX idx_book_author_author ON book_author(author_id, book_id);
+
+DO $$
+BEGIN
+    FOR p IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE book_p%s PARTITION OF book FOR VALUES WITH (MODULUS 16, REMAINDER %s)', p, p);
+        EXECUTE format('CREATE TABLE book_author_p%s PARTITION OF book_author FOR VALUES WITH (MODULUS 16, REMAINDER %s)', p, p);
+    END LOOP;
+END;
+$$;
+
+-- 6. Copia. El trigger se crea después: la tabla de claves se llena de una vez
+INSERT INTO book (id, gutendx_book_id, title, language_code, download_count, content_hash, created_at)
+SELECT id, gutendx_book_id, title, language_code, download_count, content_hash, created_at FROM book_v9;
+
+INSERT INTO book_gutendx_key (gutendx_book_id, book_id) SELECT gutendx_book_id, id FROM book;
+
+CREATE TRIGGER book_gutendx_key_sync
+    AFTER INSERT OR UPDATE OF id, gutendx_book_id OR DELETE ON book
+    FOR EACH ROW EXECUTE FUNCTION book_gutendx_key_sync();
+
+INSERT INTO book_author (book_id, author_id) SELECT book_id, author_id FROM book_author_v9;
+
+SELECT setval('book_id_seq_v10', GREATEST(COALESCE(MAX(id), 0),
+    (SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM book_id_seq)) + 1, false)
+FROM book;
+
+DROP TABLE book_author_v9;
+DROP TABLE book_v9;
+ALTER SEQUENCE book_id_seq_v10 RENAME TO book_id_seq;
+ALTER SEQUENCE book_id_seq OWNED BY book.id;
+
+-- 7. FK de vuelta, contra la tabla particionada
+ALTER TABLE book_language ADD CONSTRAINT book_language_book_id_fkey
+    FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE;
+ALTER TABLE book_facet ADD CONSTRAINT book_facet_book_id_fkey
+    FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE;
+ALTER TABLE book_format ADD CONSTRAINT book_format_book_id_fkey
+    FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE;
+ALTER TABLE download_block ADD CONSTRAINT download_block_book_id_fkey
+    FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE;
+ALTER TABLE download_trend ADD CONSTRAINT download_trend_book_id_fkey
+    FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE;
+
+ANALYZE book;
+ANALYZE book_author;
@@ -0,0 +1,13 @@
+-- V11__Create_outbox_gap.sql
+-- Huecos del outbox (ids first_id a last_id) que OutboxRelay dio por transacciones revertidas
+-- pero sigue vigilando hasta watch_until, por destino: si alguno se confirma tarde se entrega
+-- igual, aunque el relay se haya reiniciado en el medio.
+CREATE TABLE outbox_gap (
+    id BIGSERIAL PRIMARY KEY,
+    sink VARCHAR(64) NOT NULL,
+    first_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    watch_until TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_outbox_gap_sink ON outbox_gap (sink, first_id);
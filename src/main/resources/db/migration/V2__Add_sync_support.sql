@@ -0,0 +1,10 @@
+-- V2__Add_sync_support.sql
+-- Hash del contenido publicado por Gutendx (título, autores, idiomas, descargas)
+ALTER TABLE book ADD COLUMN content_hash VARCHAR(64);
+
+-- Estado durable de la sincronización incremental
+CREATE TABLE sync_state (
+    name VARCHAR(64) PRIMARY KEY,
+    high_water_mark BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT now()
+);
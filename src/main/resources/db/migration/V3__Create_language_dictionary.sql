@@ -0,0 +1,46 @@
+-- V3__Create_language_dictionary.sql
+-- Diccionario de idiomas: cada código ISO se guarda una sola vez y se referencia por smallint
+CREATE TABLE language (
+    id SMALLSERIAL PRIMARY KEY,
+    code VARCHAR(8) NOT NULL UNIQUE, -- código ISO 639 tal como lo publica Gutendx
+    name TEXT NOT NULL
+);
+
+INSERT INTO language (code, name) VALUES
+    ('en', 'ingles'),
+    ('es', 'español'),
+    ('fr', 'frances'),
+    ('pt', 'portugues'),
+    ('de', 'alemán'),
+    ('it', 'italiano'),
+    ('nl', 'neerlandés'),
+    ('fi', 'finés'),
+    ('la', 'latín'),
+    ('zh', 'chino'),
+    ('sv', 'sueco'),
+    ('da', 'danés'),
+    ('hu', 'húngaro'),
+    ('el', 'griego'),
+    ('eo', 'esperanto'),
+    ('ca', 'catalán'),
+    ('ru', 'ruso'),
+    ('ja', 'japonés'),
+    ('pl', 'polaco'),
+    ('no', 'noruego'),
+    -- El language_code de los libros sin idioma (o, antes de V3, con uno fuera de en/es/fr/pt)
+    ('other', 'otro idioma');
+
+-- Todos los idiomas declarados por cada libro. La PK empieza por language_id para que
+-- "libros en cualquiera de los idiomas X, Y" sea un recorrido de índice por idioma.
+CREATE TABLE book_language (
+    language_id SMALLINT NOT NULL REFERENCES language(id),
+    -- BIGINT como Book.id en las entidades; book.id es int4 hasta V10 y la FK lo acepta igual
+    book_id BIGINT NOT NULL REFERENCES book(id) ON DELETE CASCADE,
+    PRIMARY KEY (language_id, book_id)
+);
+
+CREATE INDEX idx_book_language_book ON book_language(book_id);
+
+-- Migrar el idioma único existente; todo language_code tiene su fila en language, 'other' incluido
+INSERT INTO book_language (language_id, book_id)
+SELECT l.id, b.id FROM book b JOIN language l ON l.code = b.language_code;
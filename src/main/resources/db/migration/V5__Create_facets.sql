@@ -0,0 +1,18 @@
+-- V5__Create_facets.sql
+-- Diccionario de temas (subjects) y estanterías (bookshelves) de Gutendx: cada texto se
+-- guarda una sola vez y los libros lo referencian por id
+CREATE TABLE facet (
+    id SERIAL PRIMARY KEY,
+    kind VARCHAR(16) NOT NULL, -- 'SUBJECT' o 'BOOKSHELF'
+    name TEXT NOT NULL,
+    UNIQUE (kind, name)
+);
+
+-- Misma forma que book_language: PK por faceta para recorrer "libros con la faceta X"
+CREATE TABLE book_facet (
+    facet_id INTEGER NOT NULL REFERENCES facet(id),
+    book_id BIGINT NOT NULL REFERENCES book(id) ON DELETE CASCADE,
+    PRIMARY KEY (facet_id, book_id)
+);
+
+CREATE INDEX idx_book_facet_book ON book_facet(book_id);
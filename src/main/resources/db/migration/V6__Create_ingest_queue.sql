@@ -0,0 +1,21 @@
+-- V6__Create_ingest_queue.sql
+-- Cola de ingesta compartida por varias instancias: cada tarea es un rango de ids de Gutendx.
+-- Una instancia toma tareas con SELECT ... FOR UPDATE SKIP LOCKED y las retiene con un lease
+-- que renueva mientras trabaja; si muere, el lease vence y otra la retoma.
+CREATE TABLE ingest_task (
+    id BIGSERIAL PRIMARY KEY,
+    first_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING', -- 'PENDING', 'RUNNING', 'DONE' o 'FAILED'
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT now(), -- reintentos con espera creciente
+    lease_owner VARCHAR(128),
+    lease_expires_at TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT now(),
+    updated_at TIMESTAMP DEFAULT now(),
+    UNIQUE (first_id, last_id)
+);
+
+-- Solo las tareas que alguien puede tomar: pendientes o con el lease vencido
+CREATE INDEX idx_ingest_task_claimable ON ingest_task(id) WHERE status IN ('PENDING', 'RUNNING');
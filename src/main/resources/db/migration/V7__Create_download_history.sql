@@ -0,0 +1,37 @@
+-- V7__Create_download_history.sql
+-- Historial de descargas: una fila por libro y año con las muestras diarias codificadas
+-- (día y cantidad como diferencias con la muestra anterior, en varint; ver DownloadSeries).
+-- first/last_* permiten agregar una muestra sin decodificar el bloque.
+CREATE TABLE download_block (
+    id BIGSERIAL PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES book(id) ON DELETE CASCADE,
+    block_year SMALLINT NOT NULL,
+    first_day INTEGER NOT NULL, -- días desde 1970-01-01
+    last_day INTEGER NOT NULL,
+    last_count INTEGER NOT NULL,
+    samples INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    version INTEGER NOT NULL DEFAULT 0,
+    UNIQUE (book_id, block_year)
+);
+
+-- Agregado móvil recalculado en cada muestra: la variación de descargas en cada ventana.
+-- NULL si el historial todavía no cubre la ventana.
+CREATE TABLE download_trend (
+    book_id BIGINT PRIMARY KEY REFERENCES book(id) ON DELETE CASCADE,
+    sample_day INTEGER NOT NULL, -- días desde 1970-01-01
+    download_count INTEGER NOT NULL,
+    delta_1d INTEGER,
+    delta_7d INTEGER,
+    delta_30d INTEGER,
+    delta_90d INTEGER,
+    delta_365d INTEGER,
+    version INTEGER NOT NULL DEFAULT 0
+);
+
+-- "Los que más subieron en N días" se lee por índice, sin recorrer el historial
+CREATE INDEX idx_download_trend_1d ON download_trend(delta_1d DESC) WHERE delta_1d IS NOT NULL;
+CREATE INDEX idx_download_trend_7d ON download_trend(delta_7d DESC) WHERE delta_7d IS NOT NULL;
+CREATE INDEX idx_download_trend_30d ON download_trend(delta_30d DESC) WHERE delta_30d IS NOT NULL;
+CREATE INDEX idx_download_trend_90d ON download_trend(delta_90d DESC) WHERE delta_90d IS NOT NULL;
+CREATE INDEX idx_download_trend_365d ON download_trend(delta_365d DESC) WHERE delta_365d IS NOT NULL;
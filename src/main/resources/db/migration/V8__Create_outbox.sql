@@ -0,0 +1,12 @@
+-- V8__Create_outbox.sql
+-- Outbox transaccional: BookService agrega un evento por cada alta o cambio de libro o autor
+-- en la misma transacción que lo guarda. OutboxRelay los lee en orden de id y los entrega a
+-- cada destino; la posición de cada destino va en sync_state ('outbox:<destino>').
+CREATE TABLE outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(16) NOT NULL, -- 'BOOK' o 'AUTHOR'
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(32) NOT NULL, -- 'BOOK_CREATED', 'BOOK_UPDATED', 'AUTHOR_CREATED' o 'AUTHOR_UPDATED'
+    payload TEXT NOT NULL, -- JSON con el estado después del cambio
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,19 @@
+-- V9__Create_book_assets.sql
+-- Los archivos publicados de cada libro (EPUB, texto, portada...) por tipo MIME, como los da Gutendx.
+CREATE TABLE book_format (
+    book_id BIGINT NOT NULL REFERENCES book(id) ON DELETE CASCADE,
+    mime_type VARCHAR(128) NOT NULL,
+    url VARCHAR(512) NOT NULL,
+    PRIMARY KEY (book_id, mime_type)
+);
+
+-- Archivos ya descargados al almacén local (ver AssetStore). El archivo se guarda por el SHA-256
+-- de su contenido: dos URL con el mismo contenido ocupan un solo archivo. La fila sobrevive al
+-- desalojo del archivo; si falta, se vuelve a descargar.
+CREATE TABLE asset (
+    url VARCHAR(512) PRIMARY KEY,
+    sha256 VARCHAR(64) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    content_type VARCHAR(128) NOT NULL,
+    fetched_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,95 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.AdaptiveRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRateLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000 * MS);
+
+    private AdaptiveRateLimiter limiter(double rate, double burst) {
+        return new AdaptiveRateLimiter(rate, 1, 100, burst, 1, 500 * MS, clock::get);
+    }
+
+    @Test
+    void testBurstThenRate() {
+        AdaptiveRateLimiter limiter = limiter(10, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(0));
+        }
+        // Sin ráfaga: un pedido cada 100 ms
+        assertEquals(100 * MS, limiter.tryAcquire(0), MS);
+        clock.addAndGet(100 * MS);
+        assertEquals(0, limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0) > 0);
+    }
+
+    @Test
+    void testReserveIsLeftForOthers() {
+        AdaptiveRateLimiter limiter = limiter(10, 4);
+        assertEquals(0, limiter.tryAcquire(2));
+        assertEquals(0, limiter.tryAcquire(2));
+        // Quedan 2: los de fondo esperan, los interactivos los usan
+        assertEquals(100 * MS, limiter.tryAcquire(2), MS);
+        assertEquals(0, limiter.tryAcquire(0));
+        assertEquals(0, limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0) > 0);
+    }
+
+    @Test
+    void testFastResponsesRaiseAndSlowOnesLowerTheRate() {
+        AdaptiveRateLimiter limiter = limiter(10, 3);
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(50 * MS);
+        }
+        // +1/tasa por respuesta: cerca de un pedido/s más tras una tasa de respuestas
+        assertEquals(11, limiter.rate(), 0.1);
+
+        limiter.onSuccess(800 * MS);
+        assertEquals(1, limiter.slow());
+        assertEquals(11 * 0.9, limiter.rate(), 0.1);
+
+        for (int i = 0; i < 20_000; i++) {
+            limiter.onSuccess(MS);
+        }
+        assertEquals(100, limiter.rate());
+    }
+
+    @Test
+    void testThrottlingHalvesOnceAndPauses() {
+        AdaptiveRateLimiter limiter = limiter(40, 10);
+        // Una ráfaga rechazada entera: baja una sola vez
+        for (int i = 0; i < 5; i++) {
+            limiter.onThrottled(0);
+        }
+        assertEquals(5, limiter.throttled());
+        assertEquals(20, limiter.rate());
+        // Sin Retry-After: un intervalo de la tasa nueva, y la ráfaga acumulada se perdió
+        assertEquals(50 * MS, limiter.tryAcquire(0), MS);
+        clock.addAndGet(50 * MS);
+        assertEquals(0, limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0) > 0);
+
+        // Retry-After manda, y durante la pausa no se juntan tokens
+        limiter.onThrottled(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(10, limiter.rate());
+        assertEquals(2000 * MS, limiter.tryAcquire(0), MS);
+        clock.addAndGet(2000 * MS);
+        assertTrue(limiter.tryAcquire(0) > 0);
+        clock.addAndGet(100 * MS);
+        assertEquals(0, limiter.tryAcquire(0));
+
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(10_000 * MS);
+            limiter.onThrottled(0);
+        }
+        assertEquals(1, limiter.rate());
+    }
+}
@@ -0,0 +1,272 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.assets.AssetStore;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.service.BookService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext
+class AssetServingIntegrationTest {
+
+    private static final long MAX_BYTES = 400_000;
+
+    private static Path dir;
+    private static HttpServer origin;
+    private static final Map<String, AtomicInteger> originHits = new ConcurrentHashMap<>();
+    private static final AtomicLong originLatency = new AtomicLong();
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AssetStore assetStore;
+
+    // /files/{semilla}-{tamaño}/{nombre}: el contenido depende sólo de semilla y tamaño
+    @BeforeAll
+    static void startOrigin() throws IOException {
+        dir = Files.createTempDirectory("assets");
+        origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        origin.createContext("/files/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            originHits.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            String[] parts = path.split("/");
+            if (parts[2].equals("broken")) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            sleep(originLatency.get());
+            String[] seedAndSize = parts[2].split("-");
+            byte[] body = content(Long.parseLong(seedAndSize[0]), Integer.parseInt(seedAndSize[1]));
+            exchange.getResponseHeaders().add("Content-Type", "application/epub+zip");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        origin.start();
+    }
+
+    @AfterAll
+    static void stopOrigin() {
+        origin.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void assetProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:assettest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        registry.add("gutendx.assets.dir", () -> dir.toString());
+        registry.add("gutendx.assets.max-bytes", () -> MAX_BYTES);
+    }
+
+    @Test
+    void testFirstReadFetchesThenServesFromDisk() throws Exception {
+        Map<String, String> formats = new LinkedHashMap<>();
+        formats.put("application/epub+zip", file(1, 100_000, "pg1.epub"));
+        formats.put("text/plain; charset=us-ascii", file(2, 20_000, "pg1.txt"));
+        formats.put("text/plain; charset=utf-8", file(3, 20_000, "pg1-0.txt"));
+        saveBook(1, formats);
+
+        HttpResponse<byte[]> first = get("/books/1/assets/epub");
+        assertEquals(200, first.statusCode());
+        assertArrayEquals(content(1, 100_000), first.body());
+        assertEquals("bytes", first.headers().firstValue("Accept-Ranges").orElseThrow());
+        assertEquals("application/epub+zip", first.headers().firstValue("Content-Type").orElseThrow());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<byte[]> second = get("/books/1/assets/EPUB");
+        assertArrayEquals(first.body(), second.body());
+        assertEquals(etag, second.headers().firstValue("ETag").orElseThrow());
+        assertEquals(1, originHits.get("/files/1-100000/pg1.epub").get());
+
+        // Entre los dos textos, el UTF-8
+        assertArrayEquals(content(3, 20_000), get("/books/1/assets/text").body());
+        assertNull(originHits.get("/files/2-20000/pg1.txt"));
+
+        assertEquals(304, get("/books/1/assets/epub", "If-None-Match", etag).statusCode());
+        HttpResponse<byte[]> head = client.send(HttpRequest.newBuilder(uri("/books/1/assets/epub"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, head.statusCode());
+        assertEquals("100000", head.headers().firstValue("Content-Length").orElseThrow());
+        assertEquals(0, head.body().length);
+
+        assertEquals(404, get("/books/1/assets/cover").statusCode());
+        assertEquals(404, get("/books/1/assets/pdf").statusCode());
+        assertEquals(404, get("/books/999/assets/epub").statusCode());
+    }
+
+    @Test
+    void testRangeRequests() throws Exception {
+        saveBook(2, Map.of("application/epub+zip", file(20, 200_000, "pg2.epub")));
+        byte[] all = content(20, 200_000);
+
+        HttpResponse<byte[]> middle = get("/books/2/assets/epub", "Range", "bytes=1000-1999");
+        assertEquals(206, middle.statusCode());
+        assertEquals("bytes 1000-1999/200000", middle.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(all, 1000, 2000), middle.body());
+
+        // Hasta el final del archivo, por sendfile del conector como todos los rangos
+        HttpResponse<byte[]> large = get("/books/2/assets/epub", "Range", "bytes=50000-");
+        assertEquals(206, large.statusCode());
+        assertEquals("bytes 50000-199999/200000", large.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(all, 50_000, 200_000), large.body());
+
+        assertArrayEquals(Arrays.copyOfRange(all, 199_500, 200_000),
+                get("/books/2/assets/epub", "Range", "bytes=-500").body());
+        assertArrayEquals(Arrays.copyOfRange(all, 199_000, 200_000),
+                get("/books/2/assets/epub", "Range", "bytes=199000-500000").body());
+
+        HttpResponse<byte[]> unsatisfiable = get("/books/2/assets/epub", "Range", "bytes=200000-");
+        assertEquals(416, unsatisfiable.statusCode());
+        assertEquals("bytes */200000", unsatisfiable.headers().firstValue("Content-Range").orElseThrow());
+
+        // Varios rangos o un If-Range que no coincide: el archivo entero
+        assertEquals(200, get("/books/2/assets/epub", "Range", "bytes=0-10,20-30").statusCode());
+        HttpResponse<byte[]> stale = client.send(HttpRequest.newBuilder(uri("/books/2/assets/epub"))
+                .header("Range", "bytes=0-9").header("If-Range", "\"otro\"").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, stale.statusCode());
+        assertArrayEquals(all, stale.body());
+        assertEquals(1, originHits.get("/files/20-200000/pg2.epub").get());
+    }
+
+    @Test
+    void testConcurrentFirstReadsFetchOnce() throws Exception {
+        saveBook(3, Map.of("application/epub+zip", file(30, 50_000, "pg3.epub")));
+        originLatency.set(300);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HttpResponse<byte[]>>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(pool.submit(() -> get("/books/3/assets/epub", "Range", "bytes=0-99")));
+            }
+            for (Future<HttpResponse<byte[]>> response : responses) {
+                assertEquals(206, response.get().statusCode());
+                assertArrayEquals(Arrays.copyOf(content(30, 50_000), 100), response.get().body());
+            }
+        } finally {
+            originLatency.set(0);
+            pool.shutdown();
+        }
+        assertEquals(1, originHits.get("/files/30-50000/pg3.epub").get());
+    }
+
+    @Test
+    void testSameContentIsStoredOnceAndLeastUsedIsEvicted() throws Exception {
+        // Dos URL con el mismo contenido: un solo archivo
+        saveBook(4, Map.of("application/epub+zip", file(40, 150_000, "pg4.epub"),
+                "application/x-mobipocket-ebook", file(40, 150_000, "pg4.kf8")));
+        String etag = get("/books/4/assets/epub").headers().firstValue("ETag").orElseThrow();
+        assertEquals(etag, get("/books/4/assets/kindle").headers().firstValue("ETag").orElseThrow());
+        assertEquals(1, storedFiles(etag));
+
+        // Tres archivos de 150 KB no entran en 400 KB: se va el menos usado
+        saveBook(5, Map.of("application/epub+zip", file(50, 150_000, "pg5.epub")));
+        saveBook(6, Map.of("application/epub+zip", file(60, 150_000, "pg6.epub")));
+        get("/books/5/assets/epub");
+        get("/books/4/assets/epub");
+        get("/books/6/assets/epub");
+        assertTrue(assetStore.stats().bytes() <= MAX_BYTES, assetStore.stats().toString());
+        assertTrue(assetStore.stats().evictions() >= 1);
+        assertEquals(1, storedFiles(etag));
+
+        // El desalojado se vuelve a bajar al pedirlo
+        assertArrayEquals(content(50, 150_000), get("/books/5/assets/epub").body());
+        assertEquals(2, originHits.get("/files/50-150000/pg5.epub").get());
+    }
+
+    @Test
+    void testOriginFailureIsBadGateway() throws Exception {
+        saveBook(7, Map.of("application/epub+zip", "http://127.0.0.1:" + origin.getAddress().getPort()
+                + "/files/broken/pg7.epub"));
+        assertEquals(502, get("/books/7/assets/epub").statusCode());
+        assertEquals(502, get("/books/7/assets/epub").statusCode());
+        assertEquals(2, originHits.get("/files/broken/pg7.epub").get());
+    }
+
+    private void saveBook(long id, Map<String, String> formats) {
+        GutendxApiResponse.BookDto dto = book(id, "Libro " + id, 10, List.of("en"));
+        dto.setFormats(formats);
+        bookService.saveNewBook(dto);
+    }
+
+    private long storedFiles(String etag) throws IOException {
+        String sha256 = etag.replace("\"", "");
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(path -> path.getFileName().toString().equals(sha256)).count();
+        }
+    }
+
+    private static String file(long seed, int size, String name) {
+        return "http://127.0.0.1:" + origin.getAddress().getPort() + "/files/" + seed + "-" + size + "/" + name;
+    }
+
+    private static byte[] content(long seed, int size) {
+        byte[] bytes = new byte[size];
+        new SplittableRandom(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private HttpResponse<byte[]> get(String path, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
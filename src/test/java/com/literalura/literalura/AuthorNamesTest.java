@@ -0,0 +1,41 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.AuthorNames;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorNamesTest {
+
+    @Test
+    void testParseGutendxCommaFormat() {
+        assertArrayEquals(new String[]{"Shakespeare", "William"}, AuthorNames.parse("Shakespeare, William"));
+        assertArrayEquals(new String[]{"Cervantes Saavedra", "Miguel de"},
+                AuthorNames.parse("Cervantes Saavedra, Miguel de"));
+        assertArrayEquals(new String[]{"Wells", "H. G."}, AuthorNames.parse("Wells, H. G. (Herbert George)"));
+        assertArrayEquals(new String[]{"Tolstoy", "Leo, graf"}, AuthorNames.parse("Tolstoy, Leo, graf"));
+    }
+
+    @Test
+    void testParseWithoutComma() {
+        assertArrayEquals(new String[]{"Twain", "Mark"}, AuthorNames.parse("Mark   Twain"));
+        assertArrayEquals(new String[]{"Poe", "Edgar Allan"}, AuthorNames.parse("Edgar Allan Poe"));
+        assertArrayEquals(new String[]{"Homer", null}, AuthorNames.parse(" Homer "));
+        assertArrayEquals(new String[]{null, null}, AuthorNames.parse("   "));
+        assertArrayEquals(new String[]{null, null}, AuthorNames.parse(null));
+    }
+
+    @Test
+    void testKeyIsStableAcrossSpellings() {
+        assertEquals("twain,mark", AuthorNames.key("Twain, Mark"));
+        assertEquals("twain,mark", AuthorNames.key("Mark Twain"));
+        assertEquals("tolkien,j r r", AuthorNames.key("Tolkien, J. R. R. (John Ronald Reuel)"));
+        assertEquals("tolkien,j r r", AuthorNames.key("Tolkien, J.R.R."));
+        assertEquals("garcia marquez,gabriel", AuthorNames.key("García Márquez, Gabriel"));
+        assertEquals("perez galdos,benito", AuthorNames.key("PÉREZ GALDÓS,  Benito"));
+        assertEquals("dostoevskii,fedor", AuthorNames.key("Dostoevskiĭ, Fedor"));
+        assertEquals("obrien,fitz james", AuthorNames.key("O'Brien, Fitz-James"));
+        assertEquals("strauss,johann", AuthorNames.key("Strauß, Johann"));
+        assertEquals("various", AuthorNames.key("Various"));
+    }
+}
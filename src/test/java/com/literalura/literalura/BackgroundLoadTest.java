@@ -0,0 +1,62 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.BackgroundLoad;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundLoadTest {
+
+    @Test
+    void testChangesDuringLoadAreAppliedWhenReady() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BackgroundLoad<List<String>> load = new BackgroundLoad<>("prueba");
+        load.start(true, () -> {
+            reading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            // Lo que la lectura vio; "b" llegó después de que pasara por su fila
+            List<String> built = Collections.synchronizedList(new ArrayList<>(List.of("a")));
+            return built;
+        });
+
+        reading.await();
+        assertNull(load.get());
+        load.apply(list -> list.add("b"));
+        release.countDown();
+
+        List<String> ready = load.await();
+        assertEquals(List.of("a", "b"), ready);
+        assertSame(ready, load.get());
+        load.apply(list -> list.add("c"));
+        assertEquals(List.of("a", "b", "c"), load.get());
+    }
+
+    @Test
+    void testFailedLoadLeavesTheSqlPath() {
+        BackgroundLoad<List<String>> load = new BackgroundLoad<>("prueba");
+        load.start(true, () -> {
+            throw new IllegalStateException("la BD no respondió");
+        });
+
+        assertNull(load.await());
+        assertNull(load.get());
+        load.apply(list -> fail("no hay nada cargado a qué aplicarlo"));
+    }
+
+    @Test
+    void testInlineLoadIsReadyOnReturn() {
+        BackgroundLoad<List<String>> load = new BackgroundLoad<>("prueba");
+        load.start(false, () -> new ArrayList<>(List.of("a")));
+        assertEquals(List.of("a"), load.get());
+    }
+}
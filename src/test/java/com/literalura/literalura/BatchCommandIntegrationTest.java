@@ -0,0 +1,253 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.controller.BatchCommandExecutor;
+import com.gutendx.controller.BatchOutput;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.repository.BookRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext
+class BatchCommandIntegrationTest {
+
+    private static StubGutendxServer stub;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private BatchCommandExecutor executor;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        GutendxApiResponse.BookDto hamlet = book(1, "Hamlet", 5000, List.of("en"), author("Shakespeare, William", 1564, 1616));
+        hamlet.setSubjects(List.of("Tragedies", "Denmark -- Drama"));
+        hamlet.setBookshelves(List.of("Plays"));
+        stub.put(hamlet);
+        GutendxApiResponse.BookDto quijote = book(2, "Don Quijote", 3000, List.of("es"),
+                author("Cervantes Saavedra, Miguel de", 1547, 1616));
+        quijote.setBookshelves(List.of("Best Books Ever Listings"));
+        stub.put(quijote);
+        GutendxApiResponse.BookDto macbeth = book(3, "Macbeth", 2000, List.of("en"), author("Shakespeare, William", 1564, 1616));
+        macbeth.setSubjects(List.of("Tragedies", "Scotland -- Drama"));
+        macbeth.setBookshelves(List.of("Plays"));
+        stub.put(macbeth);
+        stub.put(book(4, "Othello, the Moor of \"Venice\"", 1000, List.of("en"),
+                author("Shakespeare, William", 1564, 1616)));
+        stub.put(book(5, "Doctor Faustus", 800, List.of("en"), author("Marlowe, Christopher", 1564, 1593)));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @DynamicPropertySource
+    static void gutendxProperties(DynamicPropertyRegistry registry) {
+        registry.add("gutendx.api.base-url", () -> stub.baseUrl());
+        registry.add("gutendx.batch.threads", () -> 4);
+        registry.add("gutendx.batch.pipeline-depth", () -> 3);
+        registry.add("gutendx.profiling.top", () -> 100);
+    }
+
+    @Test
+    void testCommandsRunInOrderWithSearchesPipelined() throws Exception {
+        String commands = String.join("\n",
+                "# búsquedas en paralelo; el mismo autor en tres de ellas",
+                "search Hamlet",
+                "1 Macbeth",
+                "search lang=es Don Quijote",
+                "search Othello",
+                "search Hamlet",
+                "search No existe",
+                "",
+                "books",
+                "authors",
+                "alive 1600",
+                "language es",
+                "language xx",
+                "dance");
+
+        StringWriter out = new StringWriter();
+        BatchCommandExecutor.Summary summary;
+        try (BatchOutput output = BatchOutput.create("jsonl", out)) {
+            summary = executor.execute(new BufferedReader(new StringReader(commands)), output);
+        }
+        List<JsonNode> records = parse(out.toString());
+
+        assertEquals(12, summary.commands());
+        assertEquals(2, summary.failed()); // idioma desconocido y comando desconocido
+        assertEquals(4, bookRepository.count());
+
+        // Una salida por búsqueda, en el orden de entrada
+        assertRecord(records.get(0), 1, "search", "ok");
+        assertEquals("Hamlet", records.get(0).get("title").asText());
+        assertEquals("Macbeth", records.get(1).get("title").asText());
+        assertEquals("Don Quijote", records.get(2).get("title").asText());
+        assertEquals("es", records.get(2).get("languages").get(0).asText());
+        assertEquals(1, records.get(4).get("gutendx_id").asLong());
+        assertRecord(records.get(5), 6, "search", "not_found");
+
+        // Los listados ven lo que guardaron las búsquedas anteriores
+        assertEquals(4, count(records, 7));
+        List<JsonNode> authors = of(records, 8);
+        assertEquals(2, authors.size());
+        JsonNode shakespeare = authors.stream()
+                .filter(a -> a.get("name").asText().contains("Shakespeare"))
+                .findFirst().orElseThrow();
+        assertEquals(List.of("Hamlet", "Macbeth", "Othello, the Moor of \"Venice\""), texts(shakespeare.get("books")));
+        assertEquals(1564, shakespeare.get("birth_year").asInt());
+        assertEquals(2, count(records, 9));
+        assertEquals(List.of("Don Quijote"), of(records, 10).stream()
+                .map(r -> r.get("title").asText()).collect(Collectors.toList()));
+        assertRecord(of(records, 11).get(0), 11, "language", "error");
+        assertRecord(of(records, 12).get(0), 12, "dance", "error");
+    }
+
+    @Test
+    void testCsvOutputQuotesFields() throws Exception {
+        StringWriter out = new StringWriter();
+        try (BatchOutput output = BatchOutput.create("csv", out)) {
+            executor.execute(new BufferedReader(new StringReader("search Othello\nalive 3000")), output);
+        }
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("seq,command,status,gutendx_id,title"));
+        assertTrue(lines[1].startsWith("1,search,ok,4,\"Othello, the Moor of \"\"Venice\"\"\",,"), lines[1]);
+        assertEquals("2,alive,empty,,,,,,,,,,", lines[2]);
+    }
+
+    @Test
+    void testExportCommand(@TempDir Path exportDir) throws Exception {
+        StringWriter out = new StringWriter();
+        try (BatchOutput output = BatchOutput.create("jsonl", out)) {
+            executor.execute(new BufferedReader(new StringReader(
+                    "search Hamlet\nexport " + exportDir + " format=jsonl\nexport " + exportDir + " format=xml")), output);
+        }
+        List<JsonNode> records = parse(out.toString());
+
+        assertRecord(records.get(1), 2, "export", "ok");
+        assertTrue(Files.readString(exportDir.resolve("book-00000.jsonl")).contains("\"title\":\"Hamlet\""));
+        assertRecord(records.get(2), 3, "export", "error");
+    }
+
+    @Test
+    void testFacetsCommand() throws Exception {
+        String commands = String.join("\n",
+                "search Hamlet",
+                "search Macbeth",
+                "search Don Quijote",
+                "facets subject=tragedies; shelf=Plays",
+                "7 lang=en; subject=Denmark; alive=1600",
+                "facets alive=1700",
+                "facets subject=");
+
+        StringWriter out = new StringWriter();
+        try (BatchOutput output = BatchOutput.create("jsonl", out)) {
+            executor.execute(new BufferedReader(new StringReader(commands)), output);
+        }
+        List<JsonNode> records = parse(out.toString());
+
+        // Las facetas de los libros recién guardados ya están en el índice
+        List<JsonNode> tragedies = of(records, 4);
+        assertEquals(Set.of("Hamlet", "Macbeth"), tragedies.subList(0, 2).stream()
+                .map(r -> r.get("title").asText()).collect(Collectors.toSet()));
+        assertRecord(tragedies.get(2), 4, "facets", "ok");
+        assertTrue(tragedies.get(2).get("message").asText().startsWith("2 libros"), tragedies.get(2).toString());
+        assertEquals("Hamlet", of(records, 5).get(0).get("title").asText());
+        assertEquals(2, count(records, 5));
+        assertEquals(1, count(records, 6));
+        assertTrue(of(records, 6).get(0).get("message").asText().startsWith("0 libros"));
+        assertRecord(of(records, 7).get(0), 7, "facets", "error");
+    }
+
+    @Test
+    void testProfileCommand(@TempDir Path profileDir) throws Exception {
+        Path file = profileDir.resolve("perfil.jfr");
+        String commands = String.join("\n",
+                "profile stop",
+                "profile start",
+                "search Doctor Faustus",
+                "books",
+                "8 stop " + file,
+                "profile restart");
+
+        StringWriter out = new StringWriter();
+        try (BatchOutput output = BatchOutput.create("jsonl", out)) {
+            executor.execute(new BufferedReader(new StringReader(commands)), output);
+        }
+        List<JsonNode> records = parse(out.toString());
+
+        assertRecord(of(records, 1).get(0), 1, "profile", "error"); // no había grabación
+        assertRecord(of(records, 2).get(0), 2, "profile", "ok");
+        assertTrue(Files.size(file) > 0);
+
+        List<String> summary = of(records, 5).stream().map(r -> r.get("message").asText()).collect(Collectors.toList());
+        assertTrue(summary.get(0).startsWith("Grabación " + file), summary.get(0));
+        for (String expected : List.of("API /books", "Mapeo json GutendxApiResponse", "Mapeo entidad Book",
+                "Repositorio BookRepository.", "SQL insert into book", "Flush", "Autor nuevo",
+                "Transacción BookService.getAllBooksOrderedByCreatedAt (commit)", "Commit ")) {
+            assertTrue(summary.stream().anyMatch(line -> line.startsWith(expected)), expected + " en " + summary);
+        }
+        assertRecord(of(records, 6).get(0), 6, "profile", "error");
+    }
+
+    private List<JsonNode> parse(String jsonl) throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : jsonl.split("\n")) {
+            records.add(objectMapper.readTree(line));
+        }
+        return records;
+    }
+
+    private static void assertRecord(JsonNode record, long seq, String command, String status) {
+        assertEquals(seq, record.get("seq").asLong());
+        assertEquals(command, record.get("command").asText());
+        assertEquals(status, record.get("status").asText());
+    }
+
+    private static List<JsonNode> of(List<JsonNode> records, long seq) {
+        return records.stream().filter(r -> r.get("seq").asLong() == seq).collect(Collectors.toList());
+    }
+
+    private static long count(List<JsonNode> records, long seq) {
+        return of(records, seq).size();
+    }
+
+    private static List<String> texts(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        array.forEach(node -> values.add(node.asText()));
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.BookGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookGraphTest {
+
+    private static final short EN = 1;
+    private static final short ES = 2;
+
+    // Autor 100 escribió 1, 2 y 3; autor 200 escribió 3 (con 100) y 4; autor 300 solo 5
+    private static BookGraph sample() {
+        return BookGraph.builder(5, 6)
+                .book(1, 10, EN).book(2, 500, EN).book(3, 50, ES).book(4, 9000, EN).book(5, 100000, EN)
+                .link(1, 100).link(2, 100).link(3, 100).link(3, 200).link(4, 200).link(5, 300)
+                .build(3, 1000);
+    }
+
+    @Test
+    void testRelatedPrefersSharedAuthorsAndLanguage() {
+        BookGraph graph = sample();
+
+        // 2: mismo autor y mismo idioma; 3: mismo autor, otro idioma; 4: solo vía coautor
+        assertArrayEquals(new long[] {2, 3, 4}, graph.related(1));
+        // El libro de otro autor sin relación no aparece, por más descargas que tenga
+        assertArrayEquals(new long[0], graph.related(5));
+        assertArrayEquals(new long[0], graph.related(99));
+        assertEquals(6, graph.edgeCount());
+    }
+
+    @Test
+    void testCoAuthorBooksOrderedByDownloads() {
+        BookGraph graph = sample();
+
+        assertArrayEquals(new long[] {4, 2, 3}, graph.coAuthorBooks(1, 10));
+        assertArrayEquals(new long[] {4}, graph.coAuthorBooks(1, 1));
+        assertArrayEquals(new long[] {4, 2}, graph.coAuthorBooks(3, 2));
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        BookGraph graph = sample();
+
+        // Alta: nuevo libro de 300 con 200 como coautor
+        graph.putBook(6, 1_000_000, EN, new long[] {300, 200});
+        // 5 comparte autor con 6 y, a través de 200, ahora alcanza a 4 y 3
+        assertArrayEquals(new long[] {6, 4, 3}, graph.related(5));
+        assertEquals(6, graph.related(4)[0]);
+        assertEquals(6, graph.related(3)[0]);
+
+        // Cambio de autores: 6 deja a 200 y su lugar en las listas de 3 y 4 desaparece
+        graph.putBook(6, 1_000_000, EN, new long[] {300});
+        assertArrayEquals(new long[] {6}, graph.related(5));
+        assertFalse(contains(graph.related(4), 6));
+        assertFalse(contains(graph.related(3), 6));
+        assertEquals(7, graph.edgeCount());
+    }
+
+    @Test
+    void testIncrementalGraphMatchesFullBuild() {
+        Random random = new Random(42);
+        int books = 3000;
+        long[][] authors = new long[books + 1][];
+        int[] downloads = new int[books + 1];
+        for (int book = 1; book <= books; book++) {
+            authors[book] = random.nextInt(4) == 0
+                    ? new long[] {random.nextInt(400), 400 + random.nextInt(400)}
+                    : new long[] {random.nextInt(800)};
+            downloads[book] = random.nextInt(100_000);
+        }
+
+        // La mitad al construir, el resto de a uno (fuerza al menos una compactación)
+        BookGraph.Builder partial = BookGraph.builder(books, books * 2);
+        BookGraph.Builder full = BookGraph.builder(books, books * 2);
+        for (int book = 1; book <= books; book++) {
+            short language = (short) (book % 3);
+            full.book(book, downloads[book], language);
+            if (book <= books / 2) {
+                partial.book(book, downloads[book], language);
+            }
+            for (long author : authors[book]) {
+                full.link(book, author);
+                if (book <= books / 2) {
+                    partial.link(book, author);
+                }
+            }
+        }
+        BookGraph incremental = partial.build(5, 100_000);
+        for (int book = books / 2 + 1; book <= books; book++) {
+            incremental.putBook(book, downloads[book], (short) (book % 3), authors[book]);
+        }
+        BookGraph expected = full.build(5, 100_000);
+
+        assertEquals(expected.edgeCount(), incremental.edgeCount());
+        assertEquals(expected.authorCount(), incremental.authorCount());
+        for (int book = 1; book <= books; book++) {
+            assertArrayEquals(expected.coAuthorBooks(book, 20), incremental.coAuthorBooks(book, 20), "libro " + book);
+            assertArrayEquals(expected.related(book), incremental.related(book), "libro " + book);
+        }
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long value : ids) {
+            if (value == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
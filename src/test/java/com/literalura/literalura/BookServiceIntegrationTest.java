@@ -1,22 +1,26 @@
 package com.literalura.literalura;
 
 
+import com.gutendx.GutendxConsoleApplication;
 import com.gutendx.entity.Author;
 import com.gutendx.entity.Book;
+import com.gutendx.entity.Language;
 import com.gutendx.repository.AuthorRepository;
 import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.LanguageRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(classes = GutendxConsoleApplication.class)
 @ActiveProfiles("test")
 @Transactional
 class BookServiceIntegrationTest {
@@ -27,6 +31,9 @@ class BookServiceIntegrationTest {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private LanguageRepository languageRepository;
+
     @Test
     void testDatabaseOperations() {
         // Create and save author
@@ -100,4 +107,39 @@ class BookServiceIntegrationTest {
         assertEquals(1, spanishBooks.size());
         assertEquals("Libro Español", spanishBooks.get(0).getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMultiLanguageLookup() {
+        Language english = languageRepository.save(new Language("en", "ingles"));
+        Language french = languageRepository.save(new Language("fr", "frances"));
+        Language german = languageRepository.save(new Language("de", "alemán"));
+
+        Book bilingual = new Book(1L, "Bilingual Book", "en", 1000);
+        bilingual.setLanguages(new HashSet<>(List.of(english, french)));
+        Book germanBook = new Book(2L, "Deutsches Buch", "de", 2000);
+        germanBook.setLanguages(new HashSet<>(List.of(german)));
+        Book englishBook = new Book(3L, "English Book", "en", 3000);
+        englishBook.setLanguages(new HashSet<>(List.of(english)));
+        bookRepository.save(bilingual);
+        bookRepository.save(germanBook);
+        bookRepository.save(englishBook);
+        bookRepository.flush();
+
+        // Cada idioma de mayor a menor id, desde donde quedó la página anterior
+        assertEquals(List.of(englishBook.getId(), bilingual.getId()),
+                bookRepository.findBookIdsByLanguageBefore(english.getId(), Long.MAX_VALUE, 10));
+        assertEquals(List.of(englishBook.getId()),
+                bookRepository.findBookIdsByLanguageBefore(english.getId(), Long.MAX_VALUE, 1));
+        assertEquals(List.of(bilingual.getId()),
+                bookRepository.findBookIdsByLanguageBefore(english.getId(), englishBook.getId(), 1));
+        assertEquals(List.of(), bookRepository.findBookIdsByLanguageBefore(german.getId(), germanBook.getId(), 10));
+        assertEquals(List.of(bilingual.getId()),
+                bookRepository.findBookIdsByLanguageBefore(french.getId(), Long.MAX_VALUE, 10));
+
+        // La página se carga con autores e idiomas
+        List<Book> page = bookRepository.findByIdIn(List.of(bilingual.getId(), germanBook.getId()));
+        assertEquals(2, page.size());
+        assertEquals(2, page.stream().filter(book -> book.getId().equals(bilingual.getId()))
+                .findFirst().orElseThrow().getLanguages().size());
+    }
+}
@@ -3,24 +3,39 @@ package com.literalura.literalura;
 import com.gutendx.dto.GutendxApiResponse;
 import com.gutendx.entity.Author;
 import com.gutendx.entity.Book;
+import com.gutendx.entity.Language;
 import com.gutendx.exception.ApiException;
 import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.outbox.OutboxWriter;
 import com.gutendx.repository.AuthorRepository;
 import com.gutendx.repository.BookRepository;
 import com.gutendx.service.BookService;
+import com.gutendx.service.CatalogFacets;
+import com.gutendx.service.CatalogFilters;
+import com.gutendx.service.CatalogGraph;
+import com.gutendx.service.CatalogStatistics;
+import com.gutendx.service.FacetDictionary;
 import com.gutendx.service.GutendxApiService;
+import com.gutendx.service.GutendxQuery;
+import com.gutendx.service.LanguageDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +53,35 @@ class BookServiceTest {
     @Mock
     private GutendxApiService apiService;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private LanguageDictionary languageDictionary = new LanguageDictionary();
+
+    // Sin inicializar: deja pasar todas las consultas a los repositorios
+    @Spy
+    private CatalogFilters catalogFilters = new CatalogFilters();
+
+    // Sin cargar: no registra nada
+    @Spy
+    private CatalogGraph catalogGraph = new CatalogGraph();
+
+    // Los DTO de prueba no traen temas ni estanterías
+    @Spy
+    private FacetDictionary facetDictionary = new FacetDictionary();
+
+    @Spy
+    private CatalogFacets catalogFacets = new CatalogFacets();
+
+    // Sin columnas: sólo cuenta versiones
+    @Spy
+    private CatalogStatistics catalogStatistics = new CatalogStatistics();
+
+    // Deshabilitado: no escribe eventos
+    @Spy
+    private OutboxWriter outboxWriter = new OutboxWriter();
+
     @InjectMocks
     private BookService bookService;
 
@@ -68,12 +112,15 @@ class BookServiceTest {
     void testSearchAndSaveBook_NewBook_Success() throws Exception {
         // Given
         String title = "Test Book";
-        when(apiService.searchBooks(title)).thenReturn(mockApiResponse);
+        when(apiService.search(queryFor(title))).thenReturn(mockApiResponse);
         when(bookRepository.findByGutendxBookId(1L)).thenReturn(Optional.empty());
-        when(authorRepository.findByGutendxAuthorName("Doe, John")).thenReturn(Optional.empty());
+        doReturn(new Language("en", "ingles")).when(languageDictionary).intern("en");
 
+        // El autor no existe: se inserta con ON CONFLICT DO NOTHING antes de la transacción del
+        // libro, que ya lo encuentra
         Author mockAuthor = new Author("Doe, John", "Doe", "John", 1980, null);
-        when(authorRepository.save(any(Author.class))).thenReturn(mockAuthor);
+        when(authorRepository.findByNameKey("doe,john")).thenReturn(Optional.of(mockAuthor));
+        when(authorRepository.insertIfAbsent("Doe, John", "doe,john", "Doe", "John", 1980, null)).thenReturn(1);
 
         Book mockBook = new Book(1L, "Test Book", "en", 1000);
         when(bookRepository.save(any(Book.class))).thenReturn(mockBook);
@@ -87,9 +134,30 @@ class BookServiceTest {
         assertEquals("en", result.getLanguageCode());
         assertEquals(1000, result.getDownloadCount());
 
-        verify(apiService).searchBooks(title);
+        verify(apiService).search(queryFor(title));
         verify(bookRepository).save(any(Book.class));
-        verify(authorRepository).save(any(Author.class));
+        InOrder inOrder = inOrder(authorRepository, bookRepository);
+        inOrder.verify(authorRepository).insertIfAbsent("Doe, John", "doe,john", "Doe", "John", 1980, null);
+        inOrder.verify(bookRepository).findByGutendxBookId(1L);
+        verify(authorRepository, never()).save(any(Author.class));
+    }
+
+    @Test
+    void testSearchAndSaveBook_LanguageFilterSentToApi() throws Exception {
+        // Given
+        String title = "Test Book";
+        Book existingBook = new Book(1L, "Test Book", "en", 1000);
+        when(apiService.search(argThat(query -> title.equals(query.getSearch())
+                && query.getLanguages().equals(List.of("es", "en"))))).thenReturn(mockApiResponse);
+        when(bookRepository.findByGutendxBookId(1L)).thenReturn(Optional.of(existingBook));
+        doReturn(new Language("en", "ingles")).when(languageDictionary).intern("en");
+
+        // When
+        Book result = bookService.searchAndSaveBook(title, List.of("ES", " en", "es"));
+
+        // Then
+        assertEquals(existingBook, result);
+        verify(apiService, never()).searchBooks(any());
     }
 
     @Test
@@ -98,8 +166,9 @@ class BookServiceTest {
         String title = "Test Book";
         Book existingBook = new Book(1L, "Test Book", "en", 1000);
 
-        when(apiService.searchBooks(title)).thenReturn(mockApiResponse);
+        when(apiService.search(queryFor(title))).thenReturn(mockApiResponse);
         when(bookRepository.findByGutendxBookId(1L)).thenReturn(Optional.of(existingBook));
+        doReturn(new Language("en", "ingles")).when(languageDictionary).intern("en");
 
         // When
         Book result = bookService.searchAndSaveBook(title);
@@ -108,11 +177,30 @@ class BookServiceTest {
         assertNotNull(result);
         assertEquals(existingBook, result);
 
-        verify(apiService).searchBooks(title);
+        verify(apiService).search(queryFor(title));
         verify(bookRepository).findByGutendxBookId(1L);
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void testSaveNewBook_NoLanguages_ListedAsOther() {
+        // Given
+        mockBookDto.setLanguages(List.of());
+        doReturn(new Language(LanguageDictionary.OTHER, "otro idioma"))
+                .when(languageDictionary).intern(LanguageDictionary.OTHER);
+        when(authorRepository.findByNameKey("doe,john"))
+                .thenReturn(Optional.of(new Author("Doe, John", "Doe", "John", 1980, null)));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Book result = bookService.saveNewBook(mockBookDto);
+
+        // Then: el idioma principal y la fila de book_language coinciden
+        assertEquals(LanguageDictionary.OTHER, result.getLanguageCode());
+        assertEquals(1, result.getLanguages().size());
+        assertEquals(LanguageDictionary.OTHER, result.getLanguages().iterator().next().getCode());
+    }
+
     @Test
     void testSearchAndSaveBook_NoResults_ThrowsException() throws Exception {
         // Given
@@ -120,14 +208,14 @@ class BookServiceTest {
         GutendxApiResponse emptyResponse = new GutendxApiResponse();
         emptyResponse.setResults(Collections.emptyList());
 
-        when(apiService.searchBooks(title)).thenReturn(emptyResponse);
+        when(apiService.search(queryFor(title))).thenReturn(emptyResponse);
 
         // When & Then
         assertThrows(BookNotFoundException.class, () -> {
             bookService.searchAndSaveBook(title);
         });
 
-        verify(apiService).searchBooks(title);
+        verify(apiService).search(queryFor(title));
         verify(bookRepository, never()).save(any(Book.class));
     }
 
@@ -135,14 +223,14 @@ class BookServiceTest {
     void testSearchAndSaveBook_ApiException_ThrowsException() throws Exception {
         // Given
         String title = "Test Book";
-        when(apiService.searchBooks(title)).thenThrow(new ApiException("API Error"));
+        when(apiService.search(queryFor(title))).thenThrow(new ApiException("API Error"));
 
         // When & Then
         assertThrows(ApiException.class, () -> {
             bookService.searchAndSaveBook(title);
         });
 
-        verify(apiService).searchBooks(title);
+        verify(apiService).search(queryFor(title));
         verify(bookRepository, never()).save(any(Book.class));
     }
 
@@ -154,6 +242,7 @@ class BookServiceTest {
         assertEquals("frances", bookService.getLanguageName("fr"));
         assertEquals("portugues", bookService.getLanguageName("pt"));
         assertEquals("otro idioma", bookService.getLanguageName("other"));
+        assertEquals("alemán", bookService.getLanguageName("de"));
         assertEquals("idioma desconocido", bookService.getLanguageName("unknown"));
     }
 
@@ -163,8 +252,9 @@ class BookServiceTest {
         assertTrue(bookService.isLanguageSupported("es"));
         assertTrue(bookService.isLanguageSupported("fr"));
         assertTrue(bookService.isLanguageSupported("pt"));
-        assertFalse(bookService.isLanguageSupported("de"));
+        assertTrue(bookService.isLanguageSupported("de"));
         assertFalse(bookService.isLanguageSupported("other"));
+        assertFalse(bookService.isLanguageSupported("xx"));
     }
 
     @Test
@@ -191,9 +281,11 @@ class BookServiceTest {
     void testGetBooksByLanguage() {
         // Given
         String languageCode = "en";
-        List<Book> mockBooks = List.of(new Book(1L, "English Book", "en", 1000));
-        when(bookRepository.findByLanguageCodeOrderByCreatedAtDesc(languageCode))
-                .thenReturn(mockBooks);
+        Book englishBook = new Book(1L, "English Book", "en", 1000);
+        englishBook.setId(7L);
+        doReturn(List.of((short) 1)).when(languageDictionary).idsOf(List.of(languageCode));
+        when(bookRepository.findBookIdsByLanguageBefore((short) 1, Long.MAX_VALUE, 500)).thenReturn(List.of(7L));
+        when(bookRepository.findByIdIn(List.of(7L))).thenReturn(List.of(englishBook));
 
         // When
         List<Book> result = bookService.getBooksByLanguage(languageCode);
@@ -203,7 +295,28 @@ class BookServiceTest {
         assertEquals("English Book", result.get(0).getTitle());
         assertEquals("en", result.get(0).getLanguageCode());
 
-        verify(bookRepository).findByLanguageCodeOrderByCreatedAtDesc(languageCode);
+        // Una sola página: menos libros que el tamaño de página
+        verify(bookRepository).findBookIdsByLanguageBefore((short) 1, Long.MAX_VALUE, 500);
+        verify(bookRepository).findByIdIn(List.of(7L));
+    }
+
+    @Test
+    void testGetBooksByLanguagesPagesMergeLanguagesByIdDescending() {
+        doReturn(List.of((short) 1, (short) 2)).when(languageDictionary).idsOf(List.of("en", "fr"));
+        when(bookRepository.findBookIdsByLanguageBefore((short) 1, 90L, 3)).thenReturn(List.of(80L, 50L, 40L));
+        when(bookRepository.findBookIdsByLanguageBefore((short) 2, 90L, 3)).thenReturn(List.of(80L, 60L, 10L));
+        Book b80 = new Book(80L, "Bilingüe", "en", 1);
+        b80.setId(80L);
+        Book b60 = new Book(60L, "Français", "fr", 1);
+        b60.setId(60L);
+        Book b50 = new Book(50L, "English", "en", 1);
+        b50.setId(50L);
+        // El repositorio no garantiza orden
+        when(bookRepository.findByIdIn(List.of(80L, 60L, 50L))).thenReturn(List.of(b50, b80, b60));
+
+        List<Book> page = bookService.getBooksByLanguages(List.of("en", "fr"), 90L, 3);
+
+        assertEquals(List.of(80L, 60L, 50L), page.stream().map(Book::getId).toList());
     }
 
     @Test
@@ -224,4 +337,8 @@ class BookServiceTest {
 
         verify(authorRepository).findAuthorsAliveInYear(year);
     }
+
+    private static GutendxQuery queryFor(String title) {
+        return argThat(query -> title.equals(query.getSearch()) && query.getLanguages().isEmpty());
+    }
 }
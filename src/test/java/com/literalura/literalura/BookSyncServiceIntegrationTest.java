@@ -0,0 +1,98 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.SyncStateRepository;
+import com.gutendx.service.BookSyncService;
+import com.gutendx.service.SyncReport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+class BookSyncServiceIntegrationTest {
+
+    private static StubGutendxServer stub;
+
+    @Autowired
+    private BookSyncService bookSyncService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private SyncStateRepository syncStateRepository;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @DynamicPropertySource
+    static void gutendxProperties(DynamicPropertyRegistry registry) {
+        registry.add("gutendx.api.base-url", () -> stub.baseUrl());
+        registry.add("gutendx.sync.range-size", () -> 2);
+        registry.add("gutendx.sync.ranges-per-run", () -> 10);
+    }
+
+    @Test
+    void testIncrementalSyncWritesOnlyChanges() throws Exception {
+        stub.put(book(1, "Hamlet", 5000, List.of("en"), author("Shakespeare, William", 1564, 1616)));
+        stub.put(book(2, "Don Quijote", 3000, List.of("es"), author("Cervantes Saavedra, Miguel de", 1547, 1616)));
+        stub.put(book(3, "Macbeth", 2000, List.of("en"), author("Shakespeare, William", 1564, 1616)));
+
+        // Primera pasada: todo es nuevo
+        SyncReport first = bookSyncService.runOnce();
+        assertEquals(3, first.getInserted());
+        assertEquals(0, first.getUpdated());
+        assertEquals(3, first.getHighWaterMark());
+        assertEquals(3, bookRepository.count());
+        assertEquals(2, authorRepository.count());
+
+        // Sin cambios aguas arriba: nueva pasada sin escrituras
+        SyncReport second = bookSyncService.runOnce();
+        assertEquals(0, second.getInserted());
+        assertEquals(0, second.getUpdated());
+        assertEquals(3, second.getUnchanged());
+
+        // Aparece un libro nuevo: solo se recorre lo que está por encima de la marca
+        stub.put(book(4, "Otelo", 100, List.of("es"), author("Shakespeare, William", 1564, 1616)));
+        SyncReport third = bookSyncService.runOnce();
+        assertEquals(1, third.getInserted());
+        assertEquals(0, third.getUnchanged());
+        assertEquals(1, third.getRangesScanned());
+
+        // Cambian las descargas de un libro existente: la siguiente pasada lo actualiza
+        stub.put(book(2, "Don Quijote", 3500, List.of("es"), author("Cervantes Saavedra, Miguel de", 1547, 1616)));
+        SyncReport fourth = bookSyncService.runOnce();
+        assertEquals(0, fourth.getInserted());
+        assertEquals(1, fourth.getUpdated());
+        assertEquals(3, fourth.getUnchanged());
+
+        Book quijote = bookRepository.findByGutendxBookId(2L).orElseThrow();
+        assertEquals(3500, quijote.getDownloadCount());
+        assertEquals(4L, syncStateRepository.findById("gutendx-books").orElseThrow().getHighWaterMark());
+    }
+}
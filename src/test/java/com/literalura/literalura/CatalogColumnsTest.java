@@ -0,0 +1,138 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.CatalogColumns;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogColumnsTest {
+
+    @Test
+    void testSmallCatalog() {
+        CatalogColumns columns = new CatalogColumns(4, 4);
+        columns.putBook(1, 5, "en");
+        columns.putBook(2, 1234, "es");
+        columns.putBook(3, null, "en");
+        columns.putBook(4, 99, "en");
+        // Reemplaza, no agrega
+        columns.putBook(4, 100, "en");
+
+        columns.putAuthor(10, 1850, 1920);
+        columns.putAuthor(11, -384, -322);
+        columns.putAuthor(12, 1950, null);
+        columns.putAuthor(13, null, null);
+        // Año de muerte anterior al de nacimiento: no es una vida
+        columns.putAuthor(14, 1900, 1800);
+
+        CatalogColumns.Totals totals = columns.reduce(ForkJoinPool.commonPool());
+        assertEquals(4, totals.books());
+        assertEquals(5 + 1234 + 100, totals.downloads());
+        assertEquals(2, totals.languageCount());
+        assertEquals("en", totals.languageCode(0));
+        assertEquals(3, totals.languageBooks(0));
+        assertEquals(105, totals.languageDownloads(0));
+        assertEquals(100, totals.languageMaxDownloads(0));
+        assertEquals(1234, totals.languageMaxDownloads(1));
+
+        assertEquals(2, totals.booksByMagnitude(0));
+        assertEquals(0, totals.booksByMagnitude(1));
+        assertEquals(1, totals.booksByMagnitude(2));
+        assertEquals(1, totals.booksByMagnitude(3));
+
+        assertEquals(5, totals.authors());
+        assertEquals(4, totals.authorsWithBirthYear());
+        assertEquals(3, totals.authorsWithDeathYear());
+        assertEquals(1, totals.authorsInCentury(18));
+        assertEquals(2, totals.authorsInCentury(19));
+        assertEquals(1, totals.authorsInCentury(-4));
+
+        assertEquals(2, totals.lifespans());
+        assertEquals(70 + 62, totals.lifespanYears());
+        assertEquals(62, totals.minLifespan());
+        assertEquals(70, totals.maxLifespan());
+        assertEquals(1, totals.lifespansInDecade(6));
+        assertEquals(1, totals.lifespansInDecade(7));
+    }
+
+    @Test
+    void testIdsOutOfOrderAreStillReplaced() {
+        CatalogColumns columns = new CatalogColumns(2, 2);
+        columns.putBook(10, 1, "en");
+        columns.putBook(20, 1, "en");
+        // Llega después un id menor (otro commit que terminó más tarde) y luego uno mayor
+        columns.putBook(15, 1, "es");
+        columns.putBook(30, 1, "en");
+        columns.putBook(15, 500, "fr");
+        columns.putBook(30, 7, "en");
+        columns.putBook(10, 2, "en");
+
+        CatalogColumns.Totals totals = columns.reduce(ForkJoinPool.commonPool());
+        assertEquals(4, columns.bookCount());
+        assertEquals(4, totals.books());
+        assertEquals(2 + 1 + 500 + 7, totals.downloads());
+        assertEquals(0, totals.languageBooks(1));
+        assertEquals(1, totals.languageBooks(2));
+    }
+
+    @Test
+    void testParallelReductionMatchesSequential() {
+        int books = CatalogColumns.CHUNK * 5 + 123;
+        int authors = CatalogColumns.CHUNK * 2 + 7;
+        String[] codes = {"en", "es", "fr", "de", "zh"};
+        Random random = new Random(42);
+        CatalogColumns columns = new CatalogColumns(16, 16);
+
+        long downloads = 0;
+        long[] perLanguage = new long[codes.length];
+        for (int book = 0; book < books; book++) {
+            int count = random.nextInt(10) == 0 ? 0 : random.nextInt(1 << random.nextInt(20));
+            int language = random.nextInt(codes.length);
+            columns.putBook(book + 1L, count, codes[language]);
+            downloads += count;
+            perLanguage[language]++;
+        }
+        long lifespanYears = 0;
+        long withBirth = 0;
+        for (int author = 0; author < authors; author++) {
+            Integer birth = random.nextInt(5) == 0 ? null : random.nextInt(4000) - 2000;
+            Integer death = birth == null || random.nextBoolean() ? null : birth + random.nextInt(110);
+            columns.putAuthor(author + 1L, birth, death);
+            withBirth += birth != null ? 1 : 0;
+            lifespanYears += death != null ? death - birth : 0;
+        }
+
+        CatalogColumns.Totals single = columns.reduce(new ForkJoinPool(1));
+        CatalogColumns.Totals parallel = columns.reduce(new ForkJoinPool(4));
+        for (CatalogColumns.Totals totals : new CatalogColumns.Totals[] {single, parallel}) {
+            assertEquals(books, totals.books());
+            assertEquals(downloads, totals.downloads());
+            for (int language = 0; language < totals.languageCount(); language++) {
+                String code = totals.languageCode(language);
+                int expected = java.util.Arrays.asList(codes).indexOf(code);
+                assertEquals(perLanguage[expected], totals.languageBooks(language), code);
+            }
+            assertEquals(authors, totals.authors());
+            assertEquals(withBirth, totals.authorsWithBirthYear());
+            assertEquals(lifespanYears, totals.lifespanYears());
+
+            long byCentury = 0;
+            for (int century = CatalogColumns.Totals.MIN_CENTURY; century <= CatalogColumns.Totals.MAX_CENTURY; century++) {
+                byCentury += totals.authorsInCentury(century);
+            }
+            assertEquals(withBirth, byCentury);
+            long byMagnitude = 0;
+            for (int magnitude = 0; magnitude < CatalogColumns.Totals.DOWNLOAD_MAGNITUDES; magnitude++) {
+                byMagnitude += totals.booksByMagnitude(magnitude);
+            }
+            assertEquals(books, byMagnitude);
+        }
+        for (int decade = 0; decade <= CatalogColumns.Totals.MAX_LIFESPAN_DECADE; decade++) {
+            assertEquals(single.lifespansInDecade(decade), parallel.lifespansInDecade(decade));
+        }
+        assertEquals(single.minLifespan(), parallel.minLifespan());
+        assertEquals(single.maxLifespan(), parallel.maxLifespan());
+    }
+}
@@ -0,0 +1,147 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.export.CatalogExporter;
+import com.gutendx.export.ExportReport;
+import com.gutendx.export.ExportRequest;
+import com.gutendx.export.ExportTable;
+import com.gutendx.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:exporttest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH") // BD propia: no mezclar con otros tests
+@DirtiesContext
+class CatalogExporterIntegrationTest {
+
+    private static final int BOOKS = 500;
+
+    @Autowired
+    private CatalogExporter exporter;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class) > 0) {
+            return;
+        }
+        List<GutendxApiResponse.BookDto> books = new ArrayList<>();
+        for (int i = 1; i <= BOOKS; i++) {
+            // Cada libro tiene uno o dos de 40 autores; uno de cada diez sin año de nacimiento
+            GutendxApiResponse.AuthorDto first = author("Autor" + (i % 40) + ", Nombre",
+                    i % 10 == 0 ? null : 1800 + i % 40, null);
+            books.add(i % 3 == 0
+                    ? book(i, "Libro, \"" + i + "\"", i, List.of("es"), first, author("Coautor, Uno", 1900, 1950))
+                    : book(i, "Libro " + i, i, List.of("en"), first));
+        }
+        bookService.saveNewBooks(books);
+    }
+
+    @Test
+    void testPartitionedCsvExportWithCompression() throws Exception {
+        ExportReport report = exporter.export(ExportRequest.parse(tempDir + " format=csv partitions=3 compression=gzip"));
+
+        long links = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book_author", Long.class);
+        assertEquals(BOOKS, report.rows(ExportTable.BOOK));
+        assertEquals(41, report.rows(ExportTable.AUTHOR));
+        assertEquals(links, report.rows(ExportTable.BOOK_AUTHOR));
+        assertEquals(9, report.files().size());
+        assertTrue(Files.exists(tempDir.resolve("book-00002.csv.gz")));
+
+        // Las particiones juntas tienen cada fila una sola vez
+        List<String> rows = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            List<String> lines = gunzip(tempDir.resolve(String.format("book-%05d.csv.gz", partition)));
+            assertEquals("id,gutendx_book_id,title,language_code,download_count,created_at", lines.get(0));
+            rows.addAll(lines.subList(1, lines.size()));
+        }
+        assertEquals(BOOKS, rows.size());
+        assertEquals(BOOKS, rows.stream().map(row -> row.split(",")[0]).distinct().count());
+        assertTrue(rows.stream().anyMatch(row -> row.contains(",\"Libro, \"\"3\"\"\",es,3,")), rows.get(2));
+    }
+
+    @Test
+    void testJsonLinesExport() throws Exception {
+        exporter.export(ExportRequest.parse(tempDir + " format=jsonl"));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<JsonNode> authors = new ArrayList<>();
+        for (String line : Files.readAllLines(tempDir.resolve("author-00000.jsonl"))) {
+            authors.add(objectMapper.readTree(line));
+        }
+        assertEquals(41, authors.size());
+        JsonNode withoutBirth = authors.stream()
+                .filter(a -> a.get("gutendx_author_name").asText().equals("Autor0, Nombre"))
+                .findFirst().orElseThrow();
+        assertTrue(withoutBirth.get("birth_year").isNull());
+        assertTrue(withoutBirth.get("death_year").isNull());
+        assertEquals("Nombre", withoutBirth.get("first_name").asText());
+        assertFalse(withoutBirth.get("created_at").asText().isEmpty());
+    }
+
+    @Test
+    void testParquetExport() throws Exception {
+        ExportReport report = exporter.export(ExportRequest.parse(tempDir + " format=parquet partitions=2 compression=gzip"));
+
+        assertEquals(BOOKS, report.rows(ExportTable.BOOK));
+        for (Path file : report.files()) {
+            byte[] bytes = Files.readAllBytes(file);
+            assertEquals("PAR1", new String(bytes, 0, 4, StandardCharsets.US_ASCII), file.toString());
+            assertEquals("PAR1", new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII), file.toString());
+        }
+        assertEquals(List.of("author-00000.parquet", "author-00001.parquet", "book-00000.parquet",
+                        "book-00001.parquet", "book_author-00000.parquet", "book_author-00001.parquet"),
+                report.files().stream().map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testRejectsUnknownOptions() {
+        assertThrows(IllegalArgumentException.class, () -> ExportRequest.parse(tempDir + " format=xml"));
+        assertThrows(IllegalArgumentException.class, () -> ExportRequest.parse(tempDir + " partitions=0"));
+        assertThrows(IllegalArgumentException.class, () -> ExportRequest.parse("format=csv"));
+        assertEquals(Arrays.asList(tempDir, 4), Arrays.asList(
+                ExportRequest.parse(tempDir + " partitions=4").directory(),
+                ExportRequest.parse(tempDir + " partitions=4").partitions()));
+    }
+
+    private static List<String> gunzip(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
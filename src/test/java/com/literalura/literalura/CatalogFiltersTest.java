@@ -0,0 +1,178 @@
+package com.literalura.literalura;
+
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.CatalogFilters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogFiltersTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFiltersTest.class);
+
+    private static final int EXISTING_BOOKS = 35_000;
+    private static final int EXISTING_AUTHORS = 10_000;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CatalogFilters catalogFilters;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        configure(catalogFilters);
+    }
+
+    @Test
+    void testBulkImportSkipsDefiniteMisses() {
+        // Given: BD con 35k libros (ids pares) y 10k autores
+        Set<Long> books = new HashSet<>();
+        Set<String> authors = new HashSet<>();
+        LongStream.rangeClosed(1, EXISTING_BOOKS).forEach(i -> books.add(i * 2));
+        LongStream.range(0, EXISTING_AUTHORS).forEach(i -> authors.add(authorKey(i)));
+        when(bookRepository.count()).thenReturn((long) books.size());
+        when(authorRepository.count()).thenReturn((long) authors.size());
+        when(bookRepository.streamGutendxBookIdsAfter(0L)).thenReturn(rows(books.stream()));
+        when(authorRepository.streamNameKeysAfter(0L)).thenReturn(rows(authors.stream()));
+        ReflectionTestUtils.invokeMethod(catalogFilters, "start");
+
+        // When: importar 70k libros, cada uno con un autor de un conjunto de 25k
+        AtomicLong roundTrips = new AtomicLong();
+        for (long id = 1; id <= 70_000; id++) {
+            Optional<Long> book = catalogFilters.findBook(id, key -> {
+                roundTrips.incrementAndGet();
+                return books.contains(key) ? Optional.of(key) : Optional.empty();
+            });
+            if (book.isEmpty()) {
+                assertTrue(books.add(id), "Falso negativo para el libro " + id);
+                catalogFilters.bookAdded(id);
+            }
+
+            String authorKey = authorKey(id % 25_000);
+            Optional<String> author = catalogFilters.findAuthor(authorKey, key -> {
+                roundTrips.incrementAndGet();
+                return authors.contains(key) ? Optional.of(key) : Optional.empty();
+            });
+            if (author.isEmpty()) {
+                assertTrue(authors.add(authorKey), "Falso negativo para el autor " + authorKey);
+                catalogFilters.authorAdded(authorKey);
+            }
+        }
+
+        // Then
+        CatalogFilters.Stats bookStats = catalogFilters.bookStats();
+        CatalogFilters.Stats authorStats = catalogFilters.authorStats();
+        logger.debug("Importación de 70k libros: {} consultas a la BD en vez de 140000 ({} evitadas)",
+                roundTrips.get(), bookStats.roundTripsSaved() + authorStats.roundTripsSaved());
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Libros: FPR observado %.4f (esperado %.4f) / Autores: FPR observado %.4f "
+                    + "(esperado %.4f)", bookStats.observedFpp(), bookStats.expectedFpp(), authorStats.observedFpp(),
+                    authorStats.expectedFpp()));
+        }
+
+        assertEquals(70_000, books.size());
+        assertEquals(25_000, authors.size());
+        assertEquals(140_000, roundTrips.get() + bookStats.roundTripsSaved() + authorStats.roundTripsSaved());
+        assertTrue(bookStats.definiteMisses() > 34_000);
+        assertTrue(bookStats.observedFpp() < 0.02);
+        assertTrue(authorStats.observedFpp() < 0.02);
+    }
+
+    @Test
+    void testSnapshotRoundTripScansOnlyNewRows() throws Exception {
+        // Given: filtro construido desde la BD y guardado
+        when(bookRepository.streamGutendxBookIdsAfter(0L)).thenReturn(rows(Stream.of(10L, 20L, 30L)));
+        when(authorRepository.streamNameKeysAfter(0L)).thenReturn(rows(Stream.of("twain,mark")));
+        ReflectionTestUtils.invokeMethod(catalogFilters, "start");
+        when(bookRepository.findMaxId()).thenReturn(3L);
+        when(authorRepository.findMaxId()).thenReturn(1L);
+        catalogFilters.writeSnapshot(tempDir.resolve("bloom.snapshot"));
+
+        // When: otra instancia arranca con una fila nueva en la BD
+        CatalogFilters restarted = new CatalogFilters();
+        ReflectionTestUtils.setField(restarted, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(restarted, "authorRepository", authorRepository);
+        ReflectionTestUtils.setField(restarted, "transactionManager", transactionManager);
+        configure(restarted);
+        when(bookRepository.findMaxId()).thenReturn(4L);
+        when(bookRepository.streamGutendxBookIdsAfter(3L)).thenReturn(rows(Stream.of(40L)));
+        when(authorRepository.streamNameKeysAfter(1L)).thenReturn(Stream.empty());
+        ReflectionTestUtils.invokeMethod(restarted, "start");
+
+        // Then
+        for (long id : new long[] {10L, 20L, 30L, 40L}) {
+            assertTrue(restarted.findBook(id, key -> Optional.of(key)).isPresent());
+        }
+        assertTrue(restarted.findAuthor("twain,mark", Optional::of).isPresent());
+        // Solo el primer arranque (sin snapshot) dimensionó el filtro desde la BD
+        verify(bookRepository, times(1)).count();
+    }
+
+    @Test
+    void testSnapshotFromAnotherDatabaseIsDiscarded() throws Exception {
+        when(bookRepository.streamGutendxBookIdsAfter(0L)).thenReturn(rows(Stream.of(10L)));
+        when(authorRepository.streamNameKeysAfter(0L)).thenAnswer(invocation -> Stream.empty());
+        ReflectionTestUtils.invokeMethod(catalogFilters, "start");
+        when(bookRepository.findMaxId()).thenReturn(500L);
+        when(authorRepository.findMaxId()).thenReturn(0L);
+        catalogFilters.writeSnapshot(tempDir.resolve("bloom.snapshot"));
+
+        // La BD se vació: el snapshot va "adelantado" y hay que reconstruir desde cero
+        when(bookRepository.findMaxId()).thenReturn(0L);
+        when(bookRepository.streamGutendxBookIdsAfter(0L)).thenReturn(Stream.empty());
+        ReflectionTestUtils.invokeMethod(catalogFilters, "start");
+
+        assertFalse(catalogFilters.findBook(10L, key -> Optional.<Long>empty()).isPresent());
+        verify(bookRepository, times(2)).count();
+    }
+
+    private void configure(CatalogFilters filters) {
+        ReflectionTestUtils.setField(filters, "enabled", true);
+        ReflectionTestUtils.setField(filters, "snapshot", tempDir.resolve("bloom.snapshot").toString());
+        ReflectionTestUtils.setField(filters, "expectedBooks", 100_000L);
+        ReflectionTestUtils.setField(filters, "expectedAuthors", 50_000L);
+        ReflectionTestUtils.setField(filters, "fpp", 0.01);
+    }
+
+    private static String authorKey(long i) {
+        return "autor" + i + ",nombre";
+    }
+
+    private static Stream<Object[]> rows(Stream<?> keys) {
+        AtomicLong pk = new AtomicLong();
+        return keys.map(key -> new Object[] {pk.incrementAndGet(), key});
+    }
+}
@@ -0,0 +1,66 @@
+package com.literalura.literalura;
+
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.CatalogGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogGraphTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private CatalogGraph catalogGraph;
+
+    @Test
+    void testWithoutGraphRelatedComeFromSql() {
+        ReflectionTestUtils.setField(catalogGraph, "topK", 10);
+        when(bookRepository.findSameAuthorBookIds(7L, 10)).thenReturn(List.of(12L, 9L));
+        when(bookRepository.findSameAuthorBookIds(7L, 1)).thenReturn(List.of(12L));
+
+        assertFalse(catalogGraph.isLoaded());
+        assertArrayEquals(new long[] {12, 9}, catalogGraph.related(7));
+        assertArrayEquals(new long[] {12}, catalogGraph.coAuthorBooks(7, 1));
+    }
+
+    @Test
+    void testEveryLanguageGetsItsOwnId() throws Exception {
+        // Más idiomas que los que entraban en un byte, pedidos desde varios hilos a la vez
+        List<String> codes = IntStream.range(0, 300).mapToObj(i -> "l" + i).toList();
+        Set<Short> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = codes.stream()
+                    .<Future<?>>map(code -> threads.submit(() -> {
+                        short first = ReflectionTestUtils.invokeMethod(catalogGraph, "languageId", code);
+                        short again = ReflectionTestUtils.invokeMethod(catalogGraph, "languageId", code);
+                        assertEquals(first, again);
+                        ids.add(first);
+                    }))
+                    .toList();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(codes.size(), ids.size());
+    }
+}
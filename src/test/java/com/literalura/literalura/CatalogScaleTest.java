@@ -0,0 +1,314 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.gutendx.service.FacetQuery;
+import com.gutendx.util.Csv;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latencia y memoria de cada método de BookService con catálogos sintéticos de distintos
+ * tamaños, en una BD H2 en disco y con el servidor stub sirviendo el mismo catálogo.
+ * Por defecto sólo 10k libros; los tamaños grandes se piden aparte:
+ * mvn -Pscale test -Dscale.sizes=10000,100000,1000000,10000000
+ * La BD de cada tamaño queda en target/scale y se reutiliza en las corridas siguientes.
+ * Cada tamaño deja un CSV con los resultados en target/scale/report-N.csv.
+ */
+class CatalogScaleTest {
+
+    private static final Path WORK_DIR = Paths.get("target", "scale");
+    private static final long SEED = Long.getLong("gutendx.scale.seed", SyntheticCatalog.DEFAULT_SEED);
+
+    // Hasta este tamaño se exige que todo termine sin errores y que la BD coincida con el generador
+    private static final int VERIFIED_SIZE = 100_000;
+
+    // Libros que Gutendx publica y la BD todavía no tiene, para las altas medidas
+    private static final int FRESH_BOOKS = 2_000;
+    private static final int POINT_WARMUP = 20;
+    private static final int POINT_CALLS = 100;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    record Measurement(String method, int calls, long p50Nanos, long p95Nanos, long maxNanos, long allocatedPerCall,
+                       long peakHeapBytes, long rows, String error) {
+
+        @Override
+        public String toString() {
+            return String.format("%-34s %5d %10.3f %10.3f %10.3f %12d %8d %9d %s", method, calls,
+                    p50Nanos / 1e6, p95Nanos / 1e6, maxNanos / 1e6, allocatedPerCall, peakHeapBytes / (1024 * 1024),
+                    rows, error == null ? "" : error);
+        }
+    }
+
+    @Test
+    void testBookServiceAtScale() throws Exception {
+        for (String size : System.getProperty("gutendx.scale.sizes", "10000").split(",")) {
+            if (!size.isBlank()) {
+                run(Integer.parseInt(size.trim()));
+            }
+        }
+    }
+
+    private void run(int size) throws Exception {
+        SyntheticCatalog catalog = new SyntheticCatalog(SEED, size);
+        Path dir = WORK_DIR.resolve(size + "-" + Long.toHexString(SEED));
+        // La BD de una corrida anterior sirve mientras no haya migraciones nuevas
+        Path marker = dir.resolve("seeded");
+        if (!Files.exists(marker) || !Files.readString(marker).equals(seedMarker(catalog))) {
+            seed(catalog, dir);
+        }
+
+        List<Measurement> results = new ArrayList<>();
+        try (StubGutendxServer stub = new StubGutendxServer()) {
+            long started = System.nanoTime();
+            heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+            try (ConfigurableApplicationContext context = start(dir, "validate", stub)) {
+                long startup = System.nanoTime() - started;
+                results.add(new Measurement("startup", 1, startup, startup, startup, 0, peakHeap(), size, null));
+
+                // Las altas de corridas anteriores quedaron en la BD: seguir desde el último id
+                long lastId = context.getBean(JdbcTemplate.class)
+                        .queryForObject("SELECT MAX(gutendx_book_id) FROM book", Long.class);
+                SyntheticCatalog published = catalog.resized((int) lastId + FRESH_BOOKS);
+                stub.serve(published);
+
+                measureAll(context, catalog, published, lastId, results);
+                if (size <= VERIFIED_SIZE) {
+                    verify(context, published);
+                }
+            }
+        }
+
+        report(size, results);
+        if (size <= VERIFIED_SIZE) {
+            List<Measurement> failed = results.stream().filter(m -> m.error() != null).collect(Collectors.toList());
+            assertTrue(failed.isEmpty(), "Métodos con error con " + size + " libros: " + failed);
+        }
+    }
+
+    private static void seed(SyntheticCatalog catalog, Path dir) throws Exception {
+        deleteRecursively(dir);
+        Files.createDirectories(dir);
+        // Sin filtros Bloom: su snapshot daría por vistas las filas que la carga escribe por fuera
+        try (StubGutendxServer stub = new StubGutendxServer();
+             ConfigurableApplicationContext context = start(dir, "create", stub, "--gutendx.bloom.enabled=false")) {
+            SyntheticCatalogLoader.Loaded loaded = SyntheticCatalogLoader.load(catalog, context);
+            System.out.printf("%nCatálogo sintético de %d libros cargado: %s%n", catalog.size(), loaded);
+        }
+        Files.writeString(dir.resolve("seeded"), seedMarker(catalog));
+    }
+
+    private static String seedMarker(SyntheticCatalog catalog) throws IOException {
+        try (Stream<Path> migrations = Files.list(Paths.get("src", "main", "resources", "db", "migration"))) {
+            String schema = migrations.map(path -> path.getFileName().toString())
+                    .max(Comparator.comparingInt(name -> Integer.parseInt(name.substring(1, name.indexOf("__")))))
+                    .orElse("");
+            return Long.toHexString(catalog.seed()) + " " + schema;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path dir, String ddl, StubGutendxServer stub,
+                                                        String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + dir.toAbsolutePath().resolve("db")
+                        + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;CACHE_SIZE=65536",
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--gutendx.api.base-url=" + stub.baseUrl(),
+                "--gutendx.bloom.snapshot=" + dir.resolve("bloom.snapshot"),
+                "--gutendx.console.mode=none",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.gutendx=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web.client=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    private void measureAll(ConfigurableApplicationContext context, SyntheticCatalog catalog,
+                            SyntheticCatalog published, long lastId, List<Measurement> results) {
+        BookService bookService = context.getBean(BookService.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        int size = catalog.size();
+        int scanCalls = size <= VERIFIED_SIZE ? 3 : 1;
+        int scanWarmup = size <= VERIFIED_SIZE ? 1 : 0;
+        Random random = new Random(SEED);
+        AtomicLong fresh = new AtomicLong(lastId);
+
+        results.add(measure("searchAndSaveBook(existente)", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.searchAndSaveBook(catalog.book(1 + random.nextInt(size)).getTitle()) != null ? 1 : 0));
+        results.add(measure("searchAndSaveBook(nuevo)", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.searchAndSaveBook(published.book(fresh.incrementAndGet()).getTitle()) != null ? 1 : 0));
+        results.add(measure("saveNewBook", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.saveNewBook(published.book(fresh.incrementAndGet())) != null ? 1 : 0));
+        results.add(measure("saveNewBooks(32)", 2, 10, () -> bookService.saveNewBooks(
+                LongStream.range(0, StubGutendxServer.PAGE_SIZE)
+                        .mapToObj(i -> published.book(fresh.incrementAndGet()))
+                        .collect(Collectors.toList()))));
+        results.add(measure("updateBookFromDto", POINT_WARMUP, POINT_CALLS, () -> transactionTemplate.execute(status -> {
+            GutendxApiResponse.BookDto dto = catalog.book(1 + random.nextInt(size));
+            dto.setDownloadCount(dto.getDownloadCount() + 1);
+            Book book = bookRepository.findByGutendxBookId(dto.getId()).orElseThrow();
+            return bookService.updateBookFromDto(book, dto) != null ? 1 : 0;
+        })));
+        results.add(measure("upsertAuthors(existentes)", POINT_WARMUP, POINT_CALLS, () -> {
+            GutendxApiResponse.BookDto dto = catalog.book(1 + random.nextInt(size));
+            bookService.upsertAuthors(dto.getAuthors());
+            return dto.getAuthors().size();
+        }));
+
+        results.add(measure("getAllBooksOrderedByCreatedAt", scanWarmup, scanCalls, () ->
+                bookService.getAllBooksOrderedByCreatedAt().size()));
+        results.add(measure("getAllAuthors", scanWarmup, scanCalls, () -> bookService.getAllAuthors().size()));
+        results.add(measure("getBooksByLanguage(fi)", scanWarmup, scanCalls, () ->
+                bookService.getBooksByLanguage("fi").size()));
+        results.add(measure("getBooksByLanguages(fr+de)", scanWarmup, scanCalls, () ->
+                bookService.getBooksByLanguages(List.of("fr", "de")).size()));
+        results.add(measure("getAuthorsAliveInYear(1850)", scanWarmup, scanCalls, () ->
+                bookService.getAuthorsAliveInYear(1850).size()));
+
+        // El autor 1 es el más prolífico del grupo
+        results.add(measure("getTop3BooksByAuthor", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.getTop3BooksByAuthor(1L + (random.nextInt(4) == 0 ? 0 : random.nextInt(catalog.authorCount())))
+                        .size()));
+        results.add(measure("getRelatedBooks", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.getRelatedBooks(1L + random.nextInt(size)).size()));
+        results.add(measure("getCoAuthorBooks(10)", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.getCoAuthorBooks(1L + random.nextInt(size), 10).size()));
+        results.add(measure("getBooksByFacets(20)", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.getBooksByFacets(FacetQuery.parse("lang=en,fr; subject=Sea stories; alive=1850"), 20)
+                        .size()));
+        results.add(measure("getLanguageName", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.getLanguageName("fi").length()));
+        results.add(measure("isLanguageSupported", POINT_WARMUP, POINT_CALLS, () ->
+                bookService.isLanguageSupported("eo") ? 1 : 0));
+    }
+
+    private static Measurement measure(String method, int warmup, int calls, Callable<Integer> call) {
+        try {
+            for (int i = 0; i < warmup; i++) {
+                call.call();
+            }
+            System.gc();
+            heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+            long[] nanos = new long[calls];
+            long rows = 0;
+            long allocated = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < calls; i++) {
+                long started = System.nanoTime();
+                rows += call.call();
+                nanos[i] = System.nanoTime() - started;
+            }
+            allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+            Arrays.sort(nanos);
+            return new Measurement(method, calls, nanos[calls / 2], nanos[(int) Math.ceil(calls * 0.95) - 1],
+                    nanos[calls - 1], allocated / calls, peakHeap(), rows / calls, null);
+        } catch (Throwable e) {
+            // También OutOfMemoryError: con los tamaños grandes es un resultado, no un fallo del harness
+            return new Measurement(method, 0, 0, 0, 0, 0, peakHeap(), 0, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    // La BD tiene que decir lo mismo que el generador, incluidas las altas recién medidas
+    private static void verify(ConfigurableApplicationContext context, SyntheticCatalog published) {
+        BookService bookService = context.getBean(BookService.class);
+        long lastId = context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(gutendx_book_id) FROM book", Long.class);
+        SyntheticCatalog stored = published.resized((int) lastId);
+        long finnish;
+        long frenchOrGerman;
+        try (Stream<GutendxApiResponse.BookDto> books = stored.books()) {
+            long[] counts = new long[2];
+            books.forEach(book -> {
+                if (book.getLanguages().contains("fi")) {
+                    counts[0]++;
+                }
+                if (book.getLanguages().contains("fr") || book.getLanguages().contains("de")) {
+                    counts[1]++;
+                }
+            });
+            finnish = counts[0];
+            frenchOrGerman = counts[1];
+        }
+        long alive = 0;
+        for (int index = 0; index < stored.authorCount(); index++) {
+            GutendxApiResponse.AuthorDto author = stored.author(index);
+            if (author.getBirthYear() != null && author.getBirthYear() <= 1850
+                    && (author.getDeathYear() == null || author.getDeathYear() >= 1850)) {
+                alive++;
+            }
+        }
+
+        assertEquals(stored.size(), bookService.getAllBooksOrderedByCreatedAt().size());
+        assertEquals(finnish, bookService.getBooksByLanguage("fi").size());
+        assertEquals(frenchOrGerman, bookService.getBooksByLanguages(List.of("fr", "de")).size());
+        assertEquals(alive, bookService.getAuthorsAliveInYear(1850).size());
+    }
+
+    private static void report(int size, List<Measurement> results) throws IOException {
+        System.out.printf("%n=== BookService con %d libros ===%n%-34s %5s %10s %10s %10s %12s %8s %9s%n", size,
+                "método", "veces", "p50 ms", "p95 ms", "máx ms", "bytes/llamada", "heap MB", "filas");
+        results.forEach(System.out::println);
+
+        Files.createDirectories(WORK_DIR);
+        try (Writer writer = Files.newBufferedWriter(WORK_DIR.resolve("report-" + size + ".csv"), StandardCharsets.UTF_8)) {
+            Csv.writeRow(writer, "method", "calls", "p50_ns", "p95_ns", "max_ns", "allocated_bytes_per_call",
+                    "peak_heap_bytes", "rows", "error");
+            for (Measurement m : results) {
+                Csv.writeRow(writer, m.method(), m.calls(), m.p50Nanos(), m.p95Nanos(), m.maxNanos(),
+                        m.allocatedPerCall(), m.peakHeapBytes(), m.rows(), m.error());
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        return heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
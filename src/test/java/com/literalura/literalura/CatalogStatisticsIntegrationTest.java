@@ -0,0 +1,91 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.service.BookService;
+import com.gutendx.service.CatalogStatistics;
+import com.gutendx.service.CatalogStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:statstest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "gutendx.stats.engine=parallel",
+        "gutendx.stats.threads=2"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class CatalogStatisticsIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CatalogStatistics catalogStatistics;
+
+    @Test
+    void testEnginesAgreeAndCacheFollowsCatalogVersion() {
+        bookService.saveNewBook(book(1, "Pride and Prejudice", 45_000, List.of("en"),
+                author("Austen, Jane", 1775, 1817)));
+        bookService.saveNewBook(book(2, "Emma", 9_000, List.of("en"), author("Austen, Jane", 1775, 1817)));
+        bookService.saveNewBook(book(3, "Don Quijote", 12_345, List.of("es", "en"),
+                author("Cervantes Saavedra, Miguel de", 1547, 1616)));
+        bookService.saveNewBook(book(4, "Ética a Nicómaco", 7, List.of("es"), author("Aristotle", -384, -322)));
+        bookService.saveNewBook(book(5, "Anónimo", 0, List.of("fr"), author("Anonymous", null, null)));
+
+        CatalogStats first = catalogStatistics.report();
+        assertSame(first, catalogStatistics.report());
+        assertEquals("parallel", first.engine());
+        assertEquals(5, first.books());
+        assertEquals(45_000 + 9_000 + 12_345 + 7, first.downloads());
+        assertEquals(4, first.authors());
+        assertEquals(3, first.authorsWithBirthYear());
+
+        CatalogStats.LanguageStats english = first.languages().get(0);
+        assertEquals("en", english.code());
+        assertEquals(2, english.books());
+        assertEquals(45_000, english.maxDownloads());
+        assertEquals(Map.of(0L, 2L, 1_000L, 1L, 10_000L, 2L), first.booksByDownloads());
+        assertEquals(Map.of(-400, 1L, 1500, 1L, 1700, 1L), first.authorsByCentury());
+        assertEquals(3, first.lifespans().count());
+        assertEquals(42, first.lifespans().minYears());
+        assertEquals(69, first.lifespans().maxYears());
+        assertEquals(Map.of(40, 1L, 60, 2L), first.lifespans().byDecade());
+
+        // Lo mismo desde la BD
+        assertSameData(first, catalogStatistics.compute(CatalogStatistics.Engine.SQL));
+
+        // Una escritura cambia la versión: el siguiente pedido recalcula
+        long version = catalogStatistics.version();
+        bookService.saveNewBook(book(6, "Persuasion", 3_000, List.of("en"), author("Austen, Jane", 1775, 1817)));
+        assertTrue(catalogStatistics.version() > version);
+        CatalogStats second = catalogStatistics.report();
+        assertNotSame(first, second);
+        assertEquals(6, second.books());
+        assertEquals(3, second.languages().get(0).books());
+        assertEquals(Map.of(0L, 2L, 1_000L, 2L, 10_000L, 2L), second.booksByDownloads());
+        assertSameData(second, catalogStatistics.compute(CatalogStatistics.Engine.SQL));
+        assertFalse(second.lines().isEmpty());
+    }
+
+    private static void assertSameData(CatalogStats expected, CatalogStats actual) {
+        assertEquals(expected.books(), actual.books());
+        assertEquals(expected.downloads(), actual.downloads());
+        assertEquals(expected.languages(), actual.languages());
+        assertEquals(expected.booksByDownloads(), actual.booksByDownloads());
+        assertEquals(expected.authors(), actual.authors());
+        assertEquals(expected.authorsWithBirthYear(), actual.authorsWithBirthYear());
+        assertEquals(expected.authorsWithDeathYear(), actual.authorsWithDeathYear());
+        assertEquals(expected.authorsByCentury(), actual.authorsByCentury());
+        assertEquals(expected.lifespans(), actual.lifespans());
+    }
+}
@@ -0,0 +1,58 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles({"test", "concurrent"})
+class ConcurrencyProfileIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryPool")
+    private HikariDataSource primaryPool;
+
+    @Autowired
+    @Qualifier("replicaPool")
+    private HikariDataSource replicaPool;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testReadOnlyTransactionsUseReplicaPool() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class);
+            assertEquals(1, replicaPool.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, primaryPool.getHikariPoolMXBean().getActiveConnections());
+        });
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class);
+            assertEquals(0, replicaPool.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(1, primaryPool.getHikariPoolMXBean().getActiveConnections());
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.exception.BookNotFoundException;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.DownloadHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:downloadstest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "gutendx.downloads.batch-size=2"}) // varios lotes con solo tres libros
+@DirtiesContext
+class DownloadHistoryIntegrationTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 12, 20);
+    private static final LocalDate LAST_DAY = LocalDate.of(2026, 1, 10);
+    private static final LocalDate MISSED_DAY = LocalDate.of(2025, 12, 31);
+
+    @Autowired
+    private DownloadHistoryService downloadHistoryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void testSnapshotsAcrossTheYearFeedTrendsAndHistory() throws Exception {
+        Book rising = bookRepository.save(new Book(101L, "Sube rápido", "en", 100));
+        Book slow = bookRepository.save(new Book(102L, "Sube despacio", "en", 500));
+        Book falling = bookRepository.save(new Book(103L, "Baja", "en", 1000));
+
+        for (LocalDate day = FIRST_DAY; !day.isAfter(LAST_DAY); day = day.plusDays(1)) {
+            if (day.equals(MISSED_DAY)) {
+                continue; // un día sin muestra
+            }
+            int i = (int) ChronoUnit.DAYS.between(FIRST_DAY, day);
+            setDownloads(rising, 100 + 10 * i);
+            setDownloads(slow, 500 + i);
+            setDownloads(falling, 1000 - 5 * i);
+            DownloadHistoryService.SnapshotReport report = downloadHistoryService.snapshot(day);
+            assertEquals(3, report.sampled());
+
+            if (day.equals(LocalDate.of(2026, 1, 7))) {
+                // Siete días atrás cae en el día sin muestra: vale la del 30 de diciembre, del bloque del año anterior
+                assertEquals(List.of(80, 8, -40), deltas(downloadHistoryService.topMovers(7, 10)));
+            }
+        }
+
+        assertEquals(List.of("Sube rápido", "Sube despacio", "Baja"), downloadHistoryService.topMovers(7, 10).stream()
+                .map(mover -> mover.book().getTitle()).collect(Collectors.toList()));
+        assertEquals(List.of(70, 7, -35), deltas(downloadHistoryService.topMovers(7, 10)));
+        assertEquals(List.of(10), deltas(downloadHistoryService.topMovers(1, 1)));
+        assertEquals(310, downloadHistoryService.topMovers(1, 1).get(0).downloads());
+        // Veintidós días de historial no alcanzan para la ventana de 30
+        assertTrue(downloadHistoryService.topMovers(30, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> downloadHistoryService.topMovers(5, 10));
+
+        // Repetir la muestra del día no agrega nada
+        DownloadHistoryService.SnapshotReport again = downloadHistoryService.snapshot(LAST_DAY);
+        assertEquals(0, again.sampled());
+        assertEquals(3, again.skipped());
+
+        List<DownloadHistoryService.Sample> history = downloadHistoryService.history(101L, FIRST_DAY);
+        assertEquals(21, history.size());
+        assertEquals(new DownloadHistoryService.Sample(FIRST_DAY, 100), history.get(0));
+        assertEquals(new DownloadHistoryService.Sample(LocalDate.of(2026, 1, 1), 220), history.get(11));
+        assertEquals(new DownloadHistoryService.Sample(LAST_DAY, 310), history.get(20));
+        assertEquals(3, downloadHistoryService.history(101L, LocalDate.of(2026, 1, 8)).size());
+        assertThrows(BookNotFoundException.class, () -> downloadHistoryService.history(999L, FIRST_DAY));
+    }
+
+    private void setDownloads(Book book, int downloads) {
+        Book current = bookRepository.findById(book.getId()).orElseThrow();
+        current.setDownloadCount(downloads);
+        bookRepository.save(current);
+    }
+
+    private static List<Integer> deltas(List<DownloadHistoryService.Mover> movers) {
+        return movers.stream().map(DownloadHistoryService.Mover::delta).collect(Collectors.toList());
+    }
+}
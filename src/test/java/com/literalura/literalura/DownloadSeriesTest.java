@@ -0,0 +1,60 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.DownloadSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadSeriesTest {
+
+    private static final int JAN_1 = (int) LocalDate.of(2025, 1, 1).toEpochDay();
+
+    @Test
+    void testSamplesRoundTrip() {
+        // Sube, baja, salta días y pasa por cero
+        int[][] samples = {{JAN_1, 1200}, {JAN_1 + 1, 1250}, {JAN_1 + 2, 1100}, {JAN_1 + 9, 0},
+                {JAN_1 + 10, 250_000}, {JAN_1 + 400, 3}};
+        byte[] block = DownloadSeries.start(samples[0][0], samples[0][1]);
+        for (int i = 1; i < samples.length; i++) {
+            block = DownloadSeries.append(block, samples[i - 1][0], samples[i - 1][1], samples[i][0], samples[i][1]);
+        }
+
+        List<int[]> decoded = new ArrayList<>();
+        DownloadSeries.forEach(block, (day, count) -> decoded.add(new int[] {day, count}));
+        assertEquals(samples.length, decoded.size());
+        for (int i = 0; i < samples.length; i++) {
+            assertArrayEquals(samples[i], decoded.get(i));
+        }
+
+        assertEquals(-1, DownloadSeries.countAt(block, JAN_1 - 1, -1));
+        assertEquals(1200, DownloadSeries.countAt(block, JAN_1, -1));
+        assertEquals(1100, DownloadSeries.countAt(block, JAN_1 + 5, -1)); // la última muestra anterior
+        assertEquals(250_000, DownloadSeries.countAt(block, JAN_1 + 399, -1));
+        assertEquals(3, DownloadSeries.countAt(block, JAN_1 + 1000, -1));
+        assertEquals(-1, DownloadSeries.countAt(new byte[0], JAN_1, -1));
+    }
+
+    @Test
+    void testDailySamplesTakeAFewBytes() {
+        byte[] block = DownloadSeries.start(JAN_1, 5000);
+        int count = 5000;
+        for (int day = JAN_1 + 1; day < JAN_1 + 365; day++) {
+            int next = count + (day % 7) * 9 - 20; // variaciones de decenas por día
+            block = DownloadSeries.append(block, day - 1, count, day, next);
+            count = next;
+        }
+        // Un byte para el salto de un día y uno o dos para la variación
+        assertTrue(block.length <= 365 * 3, "bytes: " + block.length);
+        assertEquals(count, DownloadSeries.countAt(block, JAN_1 + 364, -1));
+    }
+
+    @Test
+    void testAppendRequiresALaterDay() {
+        byte[] block = DownloadSeries.start(JAN_1, 10);
+        assertThrows(IllegalArgumentException.class, () -> DownloadSeries.append(block, JAN_1, 10, JAN_1, 11));
+    }
+}
@@ -0,0 +1,121 @@
+package com.literalura.literalura;
+
+import com.gutendx.util.FacetIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private static final short EN = 1;
+    private static final short ES = 2;
+    private static final short FR = 3;
+
+    private static final int SCIENCE_FICTION = 10;
+    private static final int ADVENTURE = 11;
+    private static final int MOVIE_BOOKS = 20;
+
+    // Libros 100..104; autor 7 vivió 1850-1920, autor 8 nació en 1950, autor 9 sin años
+    private static FacetIndex sample() {
+        FacetIndex index = new FacetIndex(4, 2);
+        for (long book = 100; book <= 104; book++) {
+            index.addBook(book);
+        }
+        index.addLanguage(100, EN);
+        index.addLanguage(101, ES);
+        index.addLanguage(102, ES);
+        index.addLanguage(102, EN);
+        index.addLanguage(103, FR);
+        index.addLanguage(104, ES);
+
+        index.addFacet(100, SCIENCE_FICTION);
+        index.addFacet(101, SCIENCE_FICTION);
+        index.addFacet(102, ADVENTURE);
+        index.addFacet(102, MOVIE_BOOKS);
+        index.addFacet(104, SCIENCE_FICTION);
+        index.addFacet(104, MOVIE_BOOKS);
+
+        index.putAuthor(7, 1850, 1920);
+        index.putAuthor(8, 1950, null);
+        index.putAuthor(9, null, null);
+        index.addAuthor(100, 7);
+        index.addAuthor(101, 7);
+        index.addAuthor(102, 8);
+        index.addAuthor(103, 9);
+        index.addAuthor(104, 8);
+        index.optimize();
+        return index;
+    }
+
+    @Test
+    void testLanguagesAreOredAndGroupsAreAnded() {
+        FacetIndex index = sample();
+
+        assertEquals(5, index.count(new FacetIndex.Filter()));
+        assertEquals(4, index.count(new FacetIndex.Filter().languages(ES, EN)));
+        assertArrayEquals(new long[] {101, 104},
+                index.bookIds(new FacetIndex.Filter().languages(ES).anyOf(SCIENCE_FICTION), 10));
+        // Un grupo acepta cualquiera de sus facetas; dos grupos tienen que cumplirse los dos
+        assertEquals(4, index.count(new FacetIndex.Filter().anyOf(SCIENCE_FICTION, ADVENTURE)));
+        assertArrayEquals(new long[] {104},
+                index.bookIds(new FacetIndex.Filter().anyOf(SCIENCE_FICTION).anyOf(MOVIE_BOOKS), 10));
+        // Una faceta que no existe no coincide con nada
+        assertEquals(0, index.count(new FacetIndex.Filter().anyOf(99)));
+        assertArrayEquals(new long[] {100, 101}, index.bookIds(new FacetIndex.Filter(), 2));
+    }
+
+    @Test
+    void testAliveInYearMatchesAuthorRepository() {
+        FacetIndex index = sample();
+
+        assertArrayEquals(new long[] {100, 101}, index.bookIds(new FacetIndex.Filter().aliveIn(1900), 10));
+        assertArrayEquals(new long[] {100, 101}, index.bookIds(new FacetIndex.Filter().aliveIn(1920), 10));
+        // Sin fecha de muerte sigue vivo; sin fecha de nacimiento no cuenta
+        assertArrayEquals(new long[] {102, 104}, index.bookIds(new FacetIndex.Filter().aliveIn(2000), 10));
+        assertEquals(0, index.count(new FacetIndex.Filter().aliveIn(1800)));
+        assertArrayEquals(new long[] {101},
+                index.bookIds(new FacetIndex.Filter().languages(ES).anyOf(SCIENCE_FICTION).aliveIn(1900), 10));
+
+        // Los años cacheados se invalidan al cambiar un autor
+        index.putAuthor(9, 1880, 1930);
+        assertArrayEquals(new long[] {100, 101, 103}, index.bookIds(new FacetIndex.Filter().aliveIn(1900), 10));
+    }
+
+    @Test
+    void testCounts() {
+        FacetIndex index = sample();
+
+        List<FacetIndex.Count> facets = index.facetCounts(new FacetIndex.Filter().languages(ES),
+                List.of(SCIENCE_FICTION, ADVENTURE, MOVIE_BOOKS, 99), 10);
+        assertEquals(List.of(new FacetIndex.Count(SCIENCE_FICTION, 2), new FacetIndex.Count(MOVIE_BOOKS, 2),
+                new FacetIndex.Count(ADVENTURE, 1)), facets);
+        assertEquals(1, index.facetCounts(new FacetIndex.Filter(), List.of(SCIENCE_FICTION, ADVENTURE), 1).size());
+        // Con un filtro grande frente a pocas facetas cuenta por intersección de bitmaps: mismo resultado
+        assertEquals(List.of(new FacetIndex.Count(SCIENCE_FICTION, 3)),
+                index.facetCounts(new FacetIndex.Filter(), List.of(SCIENCE_FICTION), 10));
+        assertEquals(List.of(new FacetIndex.Count(SCIENCE_FICTION, 2)),
+                index.facetCounts(new FacetIndex.Filter().languages(ES), List.of(SCIENCE_FICTION), 10));
+
+        List<FacetIndex.Count> languages = index.languageCounts(new FacetIndex.Filter().anyOf(SCIENCE_FICTION));
+        assertEquals(List.of(new FacetIndex.Count(ES, 2), new FacetIndex.Count(EN, 1)), languages);
+    }
+
+    @Test
+    void testPutBookReplacesPreviousFacets() {
+        FacetIndex index = sample();
+
+        // 104 pasa a ser francés, de aventuras y de un autor de 1900
+        index.putBook(104, new short[] {FR}, new int[] {ADVENTURE}, new long[] {7});
+        assertArrayEquals(new long[] {101}, index.bookIds(new FacetIndex.Filter().languages(ES).anyOf(SCIENCE_FICTION), 10));
+        assertArrayEquals(new long[] {103, 104}, index.bookIds(new FacetIndex.Filter().languages(FR), 10));
+        assertArrayEquals(new long[] {100, 101, 104}, index.bookIds(new FacetIndex.Filter().aliveIn(1900), 10));
+        assertEquals(1, index.count(new FacetIndex.Filter().anyOf(MOVIE_BOOKS)));
+
+        // Alta de un libro nuevo
+        index.putBook(105, new short[] {ES}, new int[] {SCIENCE_FICTION}, new long[] {10});
+        assertEquals(6, index.bookCount());
+        assertArrayEquals(new long[] {101, 105}, index.bookIds(new FacetIndex.Filter().languages(ES).anyOf(SCIENCE_FICTION), 10));
+    }
+}
@@ -0,0 +1,215 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.fulltext.AnalyzedText;
+import com.gutendx.fulltext.FullTextIndex;
+import com.gutendx.fulltext.FullTextIndexer;
+import com.gutendx.fulltext.IndexReport;
+import com.gutendx.fulltext.TextAnalyzer;
+import com.gutendx.service.BookService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext
+class FullTextIndexIntegrationTest {
+
+    private static final int MERGE_FACTOR = 3;
+
+    private static Path indexDir;
+    private static Path sourceDir;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private FullTextIndexer fullTextIndexer;
+
+    @BeforeAll
+    static void createDirectories() throws IOException {
+        indexDir = Files.createTempDirectory("fulltext");
+        sourceDir = Files.createTempDirectory("gutenberg");
+    }
+
+    @DynamicPropertySource
+    static void fullTextProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:fulltexttest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        registry.add("gutendx.fulltext.dir", () -> indexDir.toString());
+        registry.add("gutendx.fulltext.source-dir", () -> sourceDir.toString());
+        registry.add("gutendx.fulltext.use-asset-store", () -> false);
+        registry.add("gutendx.fulltext.merge-factor", () -> MERGE_FACTOR);
+    }
+
+    @Test
+    void testTermAndPhraseQueriesSkipGutenbergBoilerplate() throws Exception {
+        saveBook(101, "Alice's Adventures in Wonderland", "en", gutenberg(
+                "Alice was beginning to get very tired of sitting by her sister on the bank. "
+                        + "Suddenly a White Rabbit with pink eyes ran close by her. The rabbit took a watch "
+                        + "out of its waistcoat pocket, and Alice's curiosity made her follow the rabbit "
+                        + "down a large rabbit hole. To be or not to be was not the question."));
+        saveBook(102, "Rabbits of the Field", "en", gutenberg(
+                "The field was white and a rabbit sat in it, far from any hole, near a fox. The farmer "
+                        + "walked along the fence every morning to count his sheep and cows, then went back "
+                        + "to the house for breakfast with his wife and their two sons, who worked the land "
+                        + "from dawn until the sun went down behind the old mill by the river."));
+        saveBook(103, "Sea Stories", "en", gutenberg(
+                "The ship sailed across the sea while the sailors sang about the white whale."));
+
+        IndexReport report = fullTextIndexer.index(List.of(101L, 102L, 103L));
+        assertEquals(3, report.indexed());
+        assertTrue(report.bytes() > 0);
+        assertTrue(report.megabytesPerSecond() > 0);
+
+        // Con largos parecidos, 101 nombra más veces al conejo
+        assertEquals(List.of(101L, 102L), ids(fullTextIndex.search("rabbit", "en", 10)));
+        assertEquals(Set.of(101L, 102L), Set.copyOf(ids(fullTextIndex.search("RABBIT hole", "en", 10))));
+        assertEquals(List.of(101L), ids(fullTextIndex.search("\"white rabbit\"", "en", 10)));
+        assertEquals(List.of(101L), ids(fullTextIndex.search("\"to be or not to be\"", "en", 10)));
+        assertEquals(List.of(), ids(fullTextIndex.search("\"rabbit white\"", "en", 10)));
+        assertEquals(List.of(), ids(fullTextIndex.search("rabbit whale", "en", 10)));
+        // El posesivo se descarta: "Alice's" es "alice"
+        assertEquals(List.of(101L), ids(fullTextIndex.search("alice", "en", 10)));
+
+        // Ni la cabecera ni la licencia del final
+        assertEquals(List.of(), ids(fullTextIndex.search("license", "en", 10)));
+        assertEquals(List.of(), ids(fullTextIndex.search("ebook", "en", 10)));
+
+        assertEquals(List.of(101L), bookService.getBooksByGutendxIds(List.of(101L)).stream()
+                .map(b -> b.getGutendxBookId()).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> fullTextIndex.search("  \" \" ", "en", 10));
+        assertTrue(fullTextIndex.stats().queries() > 0);
+        assertTrue(fullTextIndex.stats().p99Millis() >= fullTextIndex.stats().p50Millis());
+    }
+
+    @Test
+    void testLanguageRules() throws Exception {
+        saveBook(201, "Les Misérables", "fr", gutenberg("L'homme était misérable. Où est l'été ? Jusqu'à demain."));
+        saveBook(202, "El corazón", "es", gutenberg("El corazón de la ciudad latía de noche."));
+        saveBook(203, "三國演義", "zh", gutenberg("話說天下大勢，分久必合，合久必分。"));
+        saveBook(204, "Istanbul", "tr", gutenberg("Irmak İstanbul'dan geçer."));
+
+        IndexReport report = fullTextIndexer.index(List.of(201L, 202L, 203L, 204L, 999L));
+        assertEquals(4, report.indexed());
+        assertEquals(1, report.missing());
+
+        // Elisión en francés; sin acentos en todos los idiomas latinos
+        assertEquals(List.of(201L), ids(fullTextIndex.search("homme", "fr", 10)));
+        assertEquals(List.of(201L), ids(fullTextIndex.search("\"l'homme était\"", "fr", 10)));
+        assertEquals(List.of(201L), ids(fullTextIndex.search("MISERABLE ete", "fr", 10)));
+        assertEquals(List.of(202L), ids(fullTextIndex.search("corazon", "es", 10)));
+        assertEquals(List.of(202L), ids(fullTextIndex.search("\"CORAZÓN DE LA CIUDAD\"", null, 10)));
+
+        // Chino: cada ideograma es un término y una palabra se busca como frase
+        assertEquals(List.of(203L), ids(fullTextIndex.search("天下", "zh", 10)));
+        assertEquals(List.of(), ids(fullTextIndex.search("下天", "zh", 10)));
+
+        // Turco: I es ı, İ es i
+        assertEquals(List.of(204L), ids(fullTextIndex.search("ırmak", "tr", 10)));
+        assertEquals(List.of(204L), ids(fullTextIndex.search("istanbul", "tr", 10)));
+    }
+
+    @Test
+    void testConjunctionsSkipAcrossManyBlocks() throws Exception {
+        // 1000 libros sin pasar por la BD: varios bloques de 128 por término
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder text = new StringBuilder("filler ");
+            if (i % 2 == 0) {
+                text.append("parity ");
+            }
+            if (i % 3 == 0) {
+                text.append("trinity ");
+            }
+            if (i == 997) {
+                text.append("needle ");
+            }
+            fullTextIndex.add(10_000 + i, AnalyzedText.of(text, TextAnalyzer.forLanguage("en")));
+        }
+        fullTextIndex.commit();
+
+        Set<Long> both = Set.copyOf(ids(fullTextIndex.search("parity trinity", "en", 1000)));
+        assertEquals(167, both.size());
+        assertTrue(both.stream().allMatch(id -> (id - 10_000) % 6 == 0));
+        assertEquals(List.of(10_997L), ids(fullTextIndex.search("filler needle", "en", 10)));
+        assertEquals(List.of(10_997L), ids(fullTextIndex.search("needle filler", "en", 10)));
+        assertEquals(5, fullTextIndex.search("filler", "en", 5).size());
+    }
+
+    @Test
+    void testReindexReplacesOldVersionAndSurvivesMergesAndRestart() throws Exception {
+        for (long id = 301; id <= 308; id++) {
+            saveBook(id, "Quokka " + id, "en", gutenberg("The quokka number marker" + id + " smiled at the camera."));
+            // Un segmento por llamada: con más de MERGE_FACTOR se juntan en segundo plano
+            fullTextIndexer.index(List.of(id));
+        }
+        assertEquals(0, fullTextIndexer.index(List.of()).indexed());
+
+        Files.writeString(sourceDir.resolve("301.txt"), gutenberg("The quokka was replaced by a wombat."));
+        assertEquals(1, fullTextIndexer.index(List.of(301L)).indexed());
+        fullTextIndex.awaitMerges();
+
+        assertTrue(fullTextIndex.stats().segments() <= MERGE_FACTOR, fullTextIndex.stats().toString());
+        assertEquals(List.of(), ids(fullTextIndex.search("marker301", "en", 10)));
+        assertEquals(List.of(301L), ids(fullTextIndex.search("wombat", "en", 10)));
+        assertEquals(List.of(308L), ids(fullTextIndex.search("marker308", "en", 10)));
+        List<Long> quokkas = ids(fullTextIndex.search("quokka", "en", 50));
+        assertEquals(8, quokkas.size());
+        assertEquals(8, Set.copyOf(quokkas).size());
+
+        // Otra instancia sobre los mismos archivos ve lo mismo
+        FullTextIndex reopened = new FullTextIndex();
+        ReflectionTestUtils.setField(reopened, "dir", indexDir.toString());
+        ReflectionTestUtils.setField(reopened, "bufferMb", 64);
+        ReflectionTestUtils.setField(reopened, "mergeFactor", 100);
+        ReflectionTestUtils.setField(reopened, "maxSegmentMb", 1024);
+        ReflectionTestUtils.invokeMethod(reopened, "start");
+        try {
+            assertEquals(List.of(301L), ids(reopened.search("wombat", "en", 10)));
+            assertEquals(List.of(), ids(reopened.search("marker301", "en", 10)));
+            assertEquals(Set.copyOf(quokkas), Set.copyOf(ids(reopened.search("quokka", "en", 50))));
+            assertTrue(reopened.isIndexed(305));
+        } finally {
+            ReflectionTestUtils.invokeMethod(reopened, "stop");
+        }
+    }
+
+    private void saveBook(long id, String title, String language, String text) throws IOException {
+        bookService.saveNewBook(book(id, title, 100, List.of(language), author("Autor, Prueba", 1800, 1880)));
+        Files.writeString(sourceDir.resolve(id + ".txt"), text, StandardCharsets.UTF_8);
+    }
+
+    private static String gutenberg(String body) {
+        return "The Project Gutenberg eBook of a test, under the Project Gutenberg License\n\n"
+                + "*** START OF THE PROJECT GUTENBERG EBOOK TEST ***\n\n"
+                + body + "\n\n"
+                + "*** END OF THE PROJECT GUTENBERG EBOOK TEST ***\n\n"
+                + "Updated editions will replace the previous one. License terms follow.\n";
+    }
+
+    private static List<Long> ids(List<FullTextIndex.Hit> hits) {
+        return hits.stream().map(FullTextIndex.Hit::gutendxBookId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.literalura.literalura;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.service.GutendxApiService;
+import com.gutendx.service.GutendxQuery;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara bytes y páginas descargadas filtrando en el cliente (todo el catálogo)
+ * contra enviar los filtros a Gutendx como parámetros de consulta.
+ */
+class GutendxQueryPushdownTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GutendxQueryPushdownTest.class);
+
+    private static final List<String> LANGUAGES = List.of("en", "en", "en", "fr", "de", "es", "it", "pt");
+
+    private static StubGutendxServer stub;
+    private static GutendxApiService apiService;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        for (long id = 1; id <= 640; id++) {
+            int birthYear = 1500 + (int) (id * 7 % 450);
+            GutendxApiResponse.BookDto book = StubGutendxServer.book(id, "Libro " + id, (int) (id * 31 % 5000),
+                    List.of(LANGUAGES.get((int) (id % LANGUAGES.size()))),
+                    StubGutendxServer.author("Autor " + id, birthYear, birthYear + 60));
+            book.setSubjects(List.of(id % 5 == 0 ? "Science fiction" : "Adventure stories"));
+            book.setBookshelves(List.of("Best Books Ever Listings"));
+            book.setFormats(id % 2 == 0
+                    ? Map.of("application/epub+zip", "https://example.org/" + id + ".epub")
+                    : Map.of("text/plain; charset=us-ascii", "https://example.org/" + id + ".txt"));
+            stub.put(book);
+        }
+
+        apiService = new GutendxApiService();
+        ReflectionTestUtils.setField(apiService, "baseUrl", stub.baseUrl());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        stub.resetCounters();
+    }
+
+    @Test
+    void testQueryParameters() {
+        String url = GutendxQuery.builder()
+                .search("don quijote")
+                .languages(List.of("ES", "en", "es"))
+                .authorAliveIn(1600)
+                .topic("novela")
+                .ids(List.of(2L, 3L))
+                .sort(GutendxQuery.Sort.ASCENDING)
+                .mimeType("application/epub+zip")
+                .build()
+                .toUri("https://gutendex.com")
+                .toString();
+
+        assertEquals("https://gutendex.com/books?search=don%20quijote&languages=es,en"
+                + "&author_year_start=1600&author_year_end=1600&topic=novela&ids=2,3"
+                + "&sort=ascending&mime_type=application%2Fepub%2Bzip", url);
+        assertThrows(IllegalArgumentException.class,
+                () -> GutendxQuery.builder().authorYearStart(1700).authorYearEnd(1600).build());
+    }
+
+    @Test
+    void testSpanishBooks() throws Exception {
+        compare("idioma=es",
+                book -> book.getLanguages().contains("es"),
+                GutendxQuery.builder().language("es").build());
+    }
+
+    @Test
+    void testAuthorsAliveInYear() throws Exception {
+        // Misma condición que AuthorRepository.findAuthorsAliveInYear
+        compare("autor vivo en 1600",
+                book -> book.getAuthors().stream()
+                        .anyMatch(a -> a.getBirthYear() <= 1600 && a.getDeathYear() >= 1600),
+                GutendxQuery.builder().authorAliveIn(1600).build());
+    }
+
+    @Test
+    void testTopicAndFormat() throws Exception {
+        compare("ciencia ficción en epub",
+                book -> book.getSubjects().contains("Science fiction")
+                        && book.getFormats().containsKey("application/epub+zip"),
+                GutendxQuery.builder().topic("science fiction").mimeType("application/epub+zip").build());
+    }
+
+    private void compare(String useCase, Predicate<GutendxApiResponse.BookDto> clientFilter,
+                         GutendxQuery pushedDown) throws Exception {
+        // Antes: bajar todo y descartar en el cliente
+        Set<Long> expected = apiService.fetchAll(GutendxQuery.builder().build(), Integer.MAX_VALUE).stream()
+                .filter(clientFilter)
+                .map(GutendxApiResponse.BookDto::getId)
+                .collect(Collectors.toSet());
+        int clientPages = stub.requests();
+        long clientBytes = stub.bytesServed();
+
+        stub.resetCounters();
+        Set<Long> actual = apiService.fetchAll(pushedDown, Integer.MAX_VALUE).stream()
+                .map(GutendxApiResponse.BookDto::getId)
+                .collect(Collectors.toSet());
+        int serverPages = stub.requests();
+        long serverBytes = stub.bytesServed();
+
+        logger.debug("{} cliente: {} páginas {} bytes | Gutendx: {} páginas {} bytes ({} libros)",
+                useCase, clientPages, clientBytes, serverPages, serverBytes, actual.size());
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+        assertTrue(serverPages < clientPages);
+        assertTrue(serverBytes * 3 < clientBytes, "El filtro en Gutendx debería bajar muchos menos bytes");
+    }
+}
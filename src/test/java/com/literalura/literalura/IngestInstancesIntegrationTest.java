@@ -0,0 +1,153 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.gutendx.service.IngestWorker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La ingesta con contextos de Spring separados sobre la misma BD, como instancias distintas:
+ * cada una con sus propios filtros Bloom, diccionarios y pool de conexiones. A diferencia de
+ * IngestQueueIntegrationTest (nodos dentro de un mismo contexto), acá lo que una instancia
+ * tiene en memoria no ve lo que escribe la otra.
+ */
+class IngestInstancesIntegrationTest {
+
+    private static final int BOOKS = 64;
+
+    private static StubGutendxServer stub;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        for (int id = 1; id <= BOOKS; id++) {
+            stub.put(book(id, "Libro " + id, id * 10, List.of(id % 4 == 0 ? "fr" : "en"),
+                    author("Autor" + (id % 5) + ", Nombre", 1800 + id % 5, null)));
+        }
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testBookSavedByAnotherInstanceIsNotInsertedAgain() throws Exception {
+        String url = "jdbc:h2:mem:ingestnodes;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH";
+        // Las dos arrancan con la BD vacía y con los filtros Bloom habilitados; la primera, que
+        // creó el esquema, se cierra última y lo borra
+        try (ConfigurableApplicationContext first = start(url, "create-drop", dir.resolve("a.bloom"));
+             ConfigurableApplicationContext second = start(url, "none", dir.resolve("b.bloom"))) {
+            // Una búsqueda en la primera guarda un libro; los filtros de la segunda no se enteran
+            first.getBean(BookService.class).saveNewBook(book(3, "Libro 3", 30, List.of("en"),
+                    author("Autor3, Nombre", 1803, null)));
+
+            IngestWorker worker = second.getBean(IngestWorker.class);
+            assertEquals(BOOKS / 8, worker.plan());
+            IngestWorker.Summary summary = worker.drain("b");
+
+            assertEquals(0, summary.failed());
+            assertEquals(BOOKS / 8, summary.tasks());
+            assertEquals(BOOKS - 1, summary.inserted());
+            assertEquals(1, summary.unchanged());
+            assertEquals(BOOKS, second.getBean(BookRepository.class).count());
+        }
+    }
+
+    @Test
+    void testBloomMissForBookSavedByAnotherInstance() throws Exception {
+        String url = "jdbc:h2:mem:bloomnodes;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH";
+        // Filtros cargados antes de la primera consulta: los libros que guarda la primera después
+        // son, para la segunda, claves que seguro no existen
+        try (ConfigurableApplicationContext first = start(url, "create-drop", dir.resolve("a.bloom"),
+                "--gutendx.catalog.background-load=false");
+             ConfigurableApplicationContext second = start(url, "none", dir.resolve("b.bloom"),
+                     "--gutendx.catalog.background-load=false")) {
+            BookService firstService = first.getBean(BookService.class);
+            BookService secondService = second.getBean(BookService.class);
+            Book saved = firstService.saveNewBook(book(5, "Libro 5", 50, List.of("en"),
+                    author("Autor0, Nombre", 1800, null)));
+            firstService.saveNewBook(book(6, "Libro 6", 60, List.of("en"), author("Autor1, Nombre", 1801, null)));
+
+            // El alta choca con la restricción UNIQUE y se relee el libro de la primera
+            Book found = secondService.searchAndSaveBook("Libro 5");
+            assertEquals(saved.getId(), found.getId());
+
+            // En lote: se reintenta consultando la BD y solo se guarda el que falta
+            assertEquals(1, secondService.saveNewBooks(List.of(
+                    book(6, "Libro 6", 60, List.of("en"), author("Autor1, Nombre", 1801, null)),
+                    book(7, "Libro 7", 70, List.of("en"), author("Autor2, Nombre", 1802, null)))));
+            assertEquals(3, second.getBean(BookRepository.class).count());
+
+            // Los ids releídos quedan en el filtro: la próxima vez se consultan en la BD
+            assertEquals(0, secondService.saveNewBooks(List.of(
+                    book(5, "Libro 5", 50, List.of("en"), author("Autor0, Nombre", 1800, null)))));
+        }
+    }
+
+    @Test
+    void testEachWorkerHoldsOneConnection() throws Exception {
+        String url = "jdbc:h2:mem:ingestpool;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH";
+        // Justo una conexión por hilo: con una segunda pedida desde adentro de la transacción de la
+        // tarea (altas de autores, idiomas o facetas), los dos hilos se esperan hasta el timeout
+        try (ConfigurableApplicationContext context = start(url, "create-drop", dir.resolve("pool.bloom"),
+                "--spring.datasource.hikari.maximum-pool-size=2",
+                "--spring.datasource.hikari.minimum-idle=2",
+                "--spring.datasource.hikari.connection-timeout=1000")) {
+            IngestWorker worker = context.getBean(IngestWorker.class);
+            assertEquals(BOOKS / 8, worker.plan());
+            IngestWorker.Summary summary = worker.drain("a");
+
+            assertEquals(0, summary.failed());
+            assertEquals(BOOKS, summary.inserted());
+            assertEquals(BOOKS, context.getBean(BookRepository.class).count());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url, String ddl, Path bloomSnapshot, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--gutendx.bloom.enabled=true",
+                "--gutendx.bloom.snapshot=" + bloomSnapshot,
+                "--gutendx.api.base-url=" + stub.baseUrl(),
+                "--gutendx.console.mode=none",
+                "--gutendx.ingest.range-size=8",
+                "--gutendx.ingest.threads=2",
+                "--gutendx.ingest.max-attempts=2",
+                "--gutendx.ingest.retry-backoff-ms=20",
+                "--gutendx.ingest.idle-poll-ms=20",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.gutendx=INFO",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web.client=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,192 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.IngestTask;
+import com.gutendx.repository.AuthorRepository;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.IngestTaskRepository;
+import com.gutendx.service.IngestQueue;
+import com.gutendx.service.IngestWorker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Varias "instancias" (nombres de nodo distintos) vaciando la misma cola a la vez contra una
+ * sola BD. Para probarlo con procesos separados contra una PostgreSQL local, ver IngestRunner.
+ */
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:ingesttest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // cola y catálogo vacíos en cada test
+class IngestQueueIntegrationTest {
+
+    private static final int BOOKS = 120;
+    private static final int AUTHORS = 6;
+
+    private static StubGutendxServer stub;
+
+    @Autowired
+    private IngestWorker ingestWorker;
+
+    @Autowired
+    private IngestQueue ingestQueue;
+
+    @Autowired
+    private IngestTaskRepository ingestTaskRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        // Pocos autores repartidos entre todos los libros: los nodos compiten por darlos de alta
+        for (int id = 1; id <= BOOKS; id++) {
+            stub.put(book(id, "Libro " + id, id * 10, List.of(id % 3 == 0 ? "es" : "en"),
+                    author("Autor" + (id % AUTHORS) + ", Nombre", 1800 + id % AUTHORS, null),
+                    author("Autor" + ((id + 1) % AUTHORS) + ", Nombre", null, 1900)));
+        }
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @AfterEach
+    void clearFailures() {
+        stub.failIds();
+    }
+
+    @DynamicPropertySource
+    static void gutendxProperties(DynamicPropertyRegistry registry) {
+        registry.add("gutendx.api.base-url", () -> stub.baseUrl());
+        registry.add("gutendx.ingest.range-size", () -> 8);
+        registry.add("gutendx.ingest.threads", () -> 2);
+        registry.add("gutendx.ingest.lease-ms", () -> 1000);
+        registry.add("gutendx.ingest.max-attempts", () -> 3);
+        registry.add("gutendx.ingest.retry-backoff-ms", () -> 20);
+        registry.add("gutendx.ingest.idle-poll-ms", () -> 20);
+    }
+
+    @Test
+    void testNodesShareTheQueue() throws Exception {
+        assertEquals(BOOKS / 8, ingestWorker.plan());
+        // Otra instancia que arranca después no vuelve a planificar lo mismo
+        assertEquals(0, ingestWorker.plan());
+
+        ExecutorService nodes = Executors.newFixedThreadPool(3);
+        List<Future<IngestWorker.Summary>> summaries = new ArrayList<>();
+        for (String node : List.of("a", "b", "c")) {
+            summaries.add(nodes.submit(() -> ingestWorker.drain(node)));
+        }
+        long tasks = 0;
+        long inserted = 0;
+        for (Future<IngestWorker.Summary> summary : summaries) {
+            tasks += summary.get().tasks();
+            inserted += summary.get().inserted();
+            assertEquals(0, summary.get().failed());
+        }
+        nodes.shutdown();
+
+        // Cada rango se aplicó una sola vez y cada autor existe una sola vez
+        assertEquals(BOOKS / 8, tasks);
+        assertEquals(BOOKS, inserted);
+        assertEquals(BOOKS, bookRepository.count());
+        assertEquals(AUTHORS, authorRepository.count());
+        assertEquals(BOOKS / 8, ingestQueue.countByStatus().get(IngestTask.Status.DONE));
+        // Los años se completan aunque el primer alta de un autor no los trajera
+        authorRepository.findAll().forEach(author -> {
+            assertNotNull(author.getBirthYear(), author.getGutendxAuthorName());
+            assertEquals(1900, author.getDeathYear());
+        });
+    }
+
+    @Test
+    void testExpiredLeaseIsTakenOver() throws Exception {
+        ingestWorker.plan();
+        // Un nodo toma una tarea y se cae sin renovar el lease
+        IngestTask abandoned = ingestQueue.claim("caido", 1, Duration.ofMillis(300)).get(0);
+
+        IngestWorker.Summary summary = ingestWorker.drain("vivo");
+
+        assertEquals(BOOKS / 8, summary.tasks());
+        assertEquals(BOOKS, bookRepository.count());
+        IngestTask retaken = ingestTaskRepository.findById(abandoned.getId()).orElseThrow();
+        assertEquals(IngestTask.Status.DONE, retaken.getStatus());
+        assertEquals(2, retaken.getAttempts());
+        // Si el nodo caído vuelve, ya no puede cerrar la tarea
+        assertFalse(ingestQueue.complete("caido", abandoned.getId()));
+    }
+
+    @Test
+    void testLeasesFollowTheDatabaseClock() throws Exception {
+        ingestWorker.plan();
+        IngestTask claimed = ingestQueue.claim("a", 1, Duration.ofHours(1)).get(0);
+        // Medido contra LOCALTIMESTAMP de la BD, no contra el reloj de esta JVM
+        String remaining = "SELECT DATEDIFF('SECOND', LOCALTIMESTAMP, lease_expires_at) FROM ingest_task WHERE id = ?";
+        long seconds = jdbcTemplate.queryForObject(remaining, Long.class, claimed.getId());
+        assertTrue(seconds > 3590 && seconds <= 3600, "Lease: " + seconds + " s");
+
+        assertEquals(1, ingestQueue.heartbeat("a", List.of(claimed.getId()), Duration.ofHours(2)));
+        seconds = jdbcTemplate.queryForObject(remaining, Long.class, claimed.getId());
+        assertTrue(seconds > 7190 && seconds <= 7200, "Lease renovado: " + seconds + " s");
+
+        // La espera antes del reintento, también
+        assertTrue(ingestQueue.fail("a", claimed, "error", 3, Duration.ofMinutes(10)));
+        seconds = jdbcTemplate.queryForObject("SELECT DATEDIFF('SECOND', LOCALTIMESTAMP, available_at) "
+                + "FROM ingest_task WHERE id = ?", Long.class, claimed.getId());
+        assertTrue(seconds > 590 && seconds <= 600, "Espera: " + seconds + " s");
+    }
+
+    @Test
+    void testFailingRangeIsRetriedAndThenFailed() throws Exception {
+        stub.failIds(50L);
+        ingestWorker.plan();
+
+        IngestWorker.Summary summary = ingestWorker.drain("a");
+
+        assertEquals(1, summary.failed());
+        assertEquals(BOOKS - 8, bookRepository.count());
+        IngestTask failed = ingestTaskRepository.findAll().stream()
+                .filter(task -> task.getStatus() == IngestTask.Status.FAILED)
+                .findFirst().orElseThrow();
+        assertTrue(failed.getFirstId() <= 50 && failed.getLastId() >= 50);
+        assertEquals(3, failed.getAttempts());
+        assertNotNull(failed.getLastError());
+
+        // Arreglado el origen, las fallidas vuelven a la cola y se completan
+        stub.failIds();
+        assertEquals(1, ingestQueue.requeueFailed());
+        assertEquals(1, ingestWorker.drain("a").tasks());
+        assertEquals(BOOKS, bookRepository.count());
+        assertEquals(0, ingestQueue.countByStatus().get(IngestTask.Status.FAILED));
+    }
+}
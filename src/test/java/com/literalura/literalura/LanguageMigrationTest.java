@@ -0,0 +1,71 @@
+package com.literalura.literalura;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * V3 sobre una BD con libros de antes del diccionario de idiomas: cada language_code, 'other'
+ * incluido, tiene que quedar como una fila de book_language. Trabaja en un esquema propio de un
+ * PostgreSQL descartable, como PartitionMigrationTest:
+ * mvn test -Dtest=LanguageMigrationTest -Dgutendx.pg.url=jdbc:postgresql://localhost:5432/gutendx_test
+ *     -Dgutendx.pg.user=... -Dgutendx.pg.password=...
+ */
+@EnabledIfSystemProperty(named = "gutendx.pg.url", matches = ".+")
+class LanguageMigrationTest {
+
+    private static final String SCHEMA = "gutendx_language_test";
+
+    private static Flyway flyway;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void start() {
+        String url = System.getProperty("gutendx.pg.url");
+        String user = System.getProperty("gutendx.pg.user", "gutendx_user");
+        String password = System.getProperty("gutendx.pg.password", "gutendx_password");
+        flyway = Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        dataSource = new SingleConnectionDataSource(url, user, password, true);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (jdbc != null) {
+            jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void testEveryLanguageCodeIsBackfilled() {
+        Flyway.configure().configuration(flyway.getConfiguration()).target("2").load().migrate();
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        // Los códigos que guardaba la versión anterior: cualquier otro idioma quedaba como 'other'
+        jdbc.update("INSERT INTO book (gutendx_book_id, title, language_code) VALUES "
+                + "(1, 'Hamlet', 'en'), (2, 'Don Quijote', 'es'), (3, 'Faust', 'other'), (4, 'Kalevala', 'other')");
+
+        flyway.migrate();
+
+        List<String> languages = jdbc.queryForList("SELECT b.gutendx_book_id || ':' || l.code FROM book b "
+                + "JOIN book_language bl ON bl.book_id = b.id JOIN language l ON l.id = bl.language_id "
+                + "ORDER BY b.gutendx_book_id", String.class);
+        assertEquals(List.of("1:en", "2:es", "3:other", "4:other"), languages);
+        assertEquals("otro idioma", jdbc.queryForObject("SELECT name FROM language WHERE code = 'other'",
+                String.class));
+    }
+}
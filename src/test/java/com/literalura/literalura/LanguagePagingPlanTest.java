@@ -0,0 +1,127 @@
+package com.literalura.literalura;
+
+import com.gutendx.entity.Book;
+import com.gutendx.service.BookService;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listado por idiomas (getBooksByLanguages por páginas) contra PostgreSQL con un catálogo de
+ * 1M libros: cada idioma lee una página de la PK de book_language hacia atrás, sin importar lo
+ * grande que sea el idioma ni lo profunda que sea la página. Deja en la salida el EXPLAIN
+ * ANALYZE de cada consulta y el tiempo por página, junto al de la forma anterior (DISTINCT con
+ * autores e idiomas de todos los libros del idioma). Necesita un PostgreSQL descartable:
+ * mvn test -Dtest=LanguagePagingPlanTest -Dgutendx.pg.url=jdbc:postgresql://localhost:5432/gutendx_test
+ *     -Dgutendx.pg.user=... -Dgutendx.pg.password=... [-Dgutendx.pg.books=1000000]
+ */
+@EnabledIfSystemProperty(named = "gutendx.pg.url", matches = ".+")
+class LanguagePagingPlanTest {
+
+    private static final int BOOKS = Integer.getInteger("gutendx.pg.books", 1_000_000);
+    private static final int PAGE = 20;
+    private static final int PAGES = 200;
+    private static final Pattern ROWS = Pattern.compile("Index Only Scan Backward using book_language_pkey.*rows=(\\d+)");
+    private static final Pattern EXECUTION = Pattern.compile("Execution Time: ([\\d.]+) ms");
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void start() {
+        context = PostgresCatalog.start(System.getProperty("gutendx.pg.url"),
+                System.getProperty("gutendx.pg.user", "gutendx_user"),
+                System.getProperty("gutendx.pg.password", "gutendx_password"));
+        PostgresCatalog.seed(new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, BOOKS), context);
+        jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testEachLanguageReadsOnePageOfItsIndex() {
+        for (String code : List.of("en", "fr", "eo")) {
+            short languageId = jdbc.queryForObject("SELECT id FROM language WHERE code = ?", Short.class, code);
+            long books = jdbc.queryForObject("SELECT COUNT(*) FROM book_language WHERE language_id = ?", Long.class,
+                    languageId);
+            long middle = jdbc.queryForObject("SELECT book_id FROM book_language WHERE language_id = ? "
+                    + "ORDER BY book_id OFFSET ? LIMIT 1", Long.class, languageId, books / 2);
+            for (long before : new long[] {Long.MAX_VALUE, middle}) {
+                // La misma SQL que BookRepository.findBookIdsByLanguageBefore
+                List<String> plan = explain("SELECT CAST(book_id AS BIGINT) FROM book_language WHERE language_id = "
+                        + languageId + " AND book_id < " + before + " ORDER BY book_id DESC LIMIT " + PAGE);
+                System.out.printf("%n%s (%d libros), antes de %d:%n%s%n", code, books, before, String.join("\n", plan));
+                long expected = jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM book_language "
+                        + "WHERE language_id = ? AND book_id < ? LIMIT ?) page", Long.class, languageId, before, PAGE);
+                Matcher rows = ROWS.matcher(String.join("\n", plan));
+                assertTrue(rows.find(), () -> String.join("\n", plan));
+                assertEquals(expected, Long.parseLong(rows.group(1)), () -> String.join("\n", plan));
+                assertTrue(plan.stream().noneMatch(line -> line.contains("Sort")), () -> String.join("\n", plan));
+            }
+        }
+    }
+
+    @Test
+    void testPagesCostTheSameAtAnyDepth() {
+        BookService bookService = context.getBean(BookService.class);
+        List<String> codes = List.of("en", "es");
+        // Calentar planes y caché
+        bookService.getBooksByLanguages(codes, null, PAGE);
+
+        long[] nanos = new long[PAGES];
+        Long before = null;
+        long listed = 0;
+        for (int i = 0; i < PAGES; i++) {
+            long started = System.nanoTime();
+            List<Book> page = bookService.getBooksByLanguages(codes, before, PAGE);
+            nanos[i] = System.nanoTime() - started;
+            assertEquals(PAGE, page.size());
+            // Autores e idiomas ya vienen cargados con la página (hay libros anónimos: no se mira si están vacíos)
+            page.forEach(book -> assertTrue(Hibernate.isInitialized(book.getAuthors())
+                    && Hibernate.isInitialized(book.getLanguages())));
+            for (int j = 1; j < page.size(); j++) {
+                assertTrue(page.get(j - 1).getId() > page.get(j).getId());
+            }
+            before = page.get(page.size() - 1).getId();
+            listed += page.size();
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%ngetBooksByLanguages(en+es, %d) con %d libros: %d páginas, p50 %.2f ms, p95 %.2f ms, "
+                        + "primera %.2f ms, última %.2f ms%n", PAGE, BOOKS, PAGES, sorted[PAGES / 2] / 1e6,
+                sorted[PAGES * 95 / 100] / 1e6, nanos[0] / 1e6, nanos[PAGES - 1] / 1e6);
+        assertEquals((long) PAGES * PAGE, listed);
+        // Holgado a propósito: lo que importa es que no crezca con el catálogo (ver la salida)
+        assertTrue(sorted[PAGES * 95 / 100] < 250_000_000L, sorted[PAGES * 95 / 100] / 1e6 + " ms");
+
+        // La forma anterior, para comparar: todos los libros del idioma con autores e idiomas
+        List<String> previous = explain("SELECT DISTINCT b.*, a.id AS author_id, l2.code FROM book b "
+                + "JOIN book_language bl ON bl.book_id = b.id JOIN language l ON l.id = bl.language_id "
+                + "LEFT JOIN book_author ba ON ba.book_id = b.id LEFT JOIN author a ON a.id = ba.author_id "
+                + "LEFT JOIN book_language bl2 ON bl2.book_id = b.id LEFT JOIN language l2 ON l2.id = bl2.language_id "
+                + "WHERE l.code IN ('en', 'es') ORDER BY b.created_at DESC");
+        Matcher execution = EXECUTION.matcher(String.join("\n", previous));
+        System.out.printf("Forma anterior (todo el idioma de una vez): %s ms%n",
+                execution.find() ? execution.group(1) : "?");
+    }
+
+    private static List<String> explain(String sql) {
+        return jdbc.queryForList("EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) " + sql, String.class);
+    }
+}
@@ -0,0 +1,352 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.entity.OutboxEvent;
+import com.gutendx.entity.OutboxGap;
+import com.gutendx.outbox.OutboxRelay;
+import com.gutendx.outbox.OutboxWriter;
+import com.gutendx.outbox.RelayReport;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.repository.OutboxEventRepository;
+import com.gutendx.repository.OutboxGapRepository;
+import com.gutendx.repository.SyncStateRepository;
+import com.gutendx.service.BookService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@DirtiesContext
+class OutboxIntegrationTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static Path file;
+    private static HttpServer webhook;
+    private static final List<Long> received = Collections.synchronizedList(new ArrayList<>());
+    private static final AtomicInteger webhookStatus = new AtomicInteger(200);
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private SyncStateRepository syncStateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OutboxGapRepository outboxGapRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startWebhook() throws IOException {
+        file = Files.createTempDirectory("outbox").resolve("changes.jsonl");
+        webhook = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        webhook.createContext("/changes", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            int status = webhookStatus.get();
+            if (status == 200) {
+                received.addAll(ids(new String(body, StandardCharsets.UTF_8)));
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        webhook.start();
+    }
+
+    @AfterAll
+    static void stopWebhook() {
+        webhook.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void outboxProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:outboxtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        registry.add("gutendx.outbox.enabled", () -> true);
+        registry.add("gutendx.outbox.file", () -> file.toString());
+        registry.add("gutendx.outbox.webhook-url",
+                () -> "http://127.0.0.1:" + webhook.getAddress().getPort() + "/changes");
+        registry.add("gutendx.outbox.batch-size", () -> 2); // varios lotes con pocos eventos
+        registry.add("gutendx.outbox.gap-timeout-ms", () -> 300);
+        registry.add("gutendx.outbox.late-window-ms", () -> 1_000);
+    }
+
+    // Líneas del archivo antes de la prueba
+    private int fileLines;
+
+    @BeforeEach
+    void drainLeftovers() throws IOException {
+        webhookStatus.set(200);
+        outboxRelay.drain();
+        assertEquals(0, outboxEventRepository.count());
+        received.clear();
+        fileLines = fileIds().size();
+    }
+
+    @Test
+    void testEventsAreWrittenWithTheBookAndDeliveredInOrder() throws Exception {
+        bookService.saveNewBook(book(9001, "Hamlet", 5000, List.of("en"), author("Shakespeare, William", 1564, 1616)));
+        bookService.saveNewBook(book(9002, "Macbeth", 2000, List.of("en"), author("Shakespeare, William", 1564, 1616)));
+        // Completa el año de muerte que faltaba
+        bookService.saveNewBook(book(9003, "Fausto", 800, List.of("de"), author("Goethe, Johann Wolfgang von", 1749, null)));
+        bookService.saveNewBook(book(9004, "Werther", 300, List.of("de"), author("Goethe, Johann Wolfgang von", 1749, 1832)));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Book hamlet = bookRepository.findByGutendxBookId(9001L).orElseThrow();
+            bookService.updateBookFromDto(hamlet, book(9001, "Hamlet", 5100, List.of("en"),
+                    author("Shakespeare, William", 1564, 1616)));
+        });
+
+        List<OutboxEvent> events = outboxEventRepository.findAll(Sort.by("id"));
+        assertEquals(List.of(OutboxEvent.Type.AUTHOR_CREATED, OutboxEvent.Type.BOOK_CREATED, OutboxEvent.Type.BOOK_CREATED,
+                        OutboxEvent.Type.AUTHOR_CREATED, OutboxEvent.Type.BOOK_CREATED, OutboxEvent.Type.AUTHOR_UPDATED,
+                        OutboxEvent.Type.BOOK_CREATED, OutboxEvent.Type.BOOK_UPDATED),
+                events.stream().map(OutboxEvent::getType).collect(Collectors.toList()));
+        JsonNode updated = MAPPER.readTree(events.get(events.size() - 1).getPayload());
+        assertEquals(9001, updated.get("gutendx_id").asLong());
+        assertEquals(5100, updated.get("download_count").asInt());
+        assertEquals("Shakespeare, William", updated.get("authors").get(0).get("name").asText());
+        assertEquals(1832, MAPPER.readTree(events.get(5).getPayload()).get("death_year").asInt());
+
+        List<RelayReport> reports = outboxRelay.drain();
+        assertEquals(2, reports.size());
+        for (RelayReport report : reports) {
+            assertNull(report.error());
+            assertEquals(8, report.delivered());
+            assertEquals(4, report.batches());
+            assertEquals(0, report.pending());
+        }
+        List<Long> expected = events.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        assertEquals(expected, newFileIds());
+        assertEquals(expected, received);
+        long last = expected.get(expected.size() - 1);
+        assertEquals(last, syncStateRepository.findById("outbox:file").orElseThrow().getHighWaterMark());
+        assertEquals(last, syncStateRepository.findById("outbox:webhook").orElseThrow().getHighWaterMark());
+        // Entregado a todos: se borra
+        assertEquals(0, outboxEventRepository.count());
+
+        // Sin cambios, nada que entregar
+        assertTrue(outboxRelay.drain().stream().allMatch(report -> report.delivered() == 0));
+    }
+
+    @Test
+    void testRolledBackBookLeavesNoEventAndItsIdIsSkipped() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.saveNewBook(book(9101, "Revertido", 10, List.of("en"), author("Nadie, Ninguno", null, null)));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(bookRepository.findByGutendxBookId(9101L).isEmpty());
+        // El autor se da de alta en su propia transacción (ver upsertAuthors): ese sí queda
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertEquals(List.of(OutboxEvent.Type.AUTHOR_CREATED),
+                events.stream().map(OutboxEvent::getType).collect(Collectors.toList()));
+        long authorEvent = events.get(0).getId();
+
+        // Fuera de una transacción no hay evento sin cambio que lo acompañe
+        Book detached = new Book(9102L, "Suelto", "en", 1);
+        assertThrows(IllegalTransactionStateException.class, () -> outboxWriter.bookSaved(detached, true));
+
+        // El id del evento revertido queda como hueco: se espera gap-timeout-ms y se sigue
+        long next = bookService.saveNewBook(book(9103, "Después", 10, List.of("en"))).getId();
+        outboxRelay.drain();
+        assertEquals(List.of(authorEvent), newFileIds());
+        Thread.sleep(400);
+        outboxRelay.drain();
+        List<Long> delivered = newFileIds();
+        assertEquals(2, delivered.size());
+        assertEquals(authorEvent + 2, delivered.get(1));
+        assertEquals(delivered, received);
+        assertTrue(bookRepository.findById(next).isPresent());
+
+        // El hueco se vigila durante late-window-ms: hasta entonces no se borra lo que está detrás
+        assertEquals(1, outboxEventRepository.count());
+        Thread.sleep(1_000);
+        outboxRelay.drain();
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void testFailedWebhookIsRetriedWithoutLosingEvents() throws Exception {
+        webhookStatus.set(503);
+        bookService.saveNewBook(book(9201, "Reintento 1", 10, List.of("es")));
+        bookService.saveNewBook(book(9202, "Reintento 2", 10, List.of("es")));
+        bookService.saveNewBook(book(9203, "Reintento 3", 10, List.of("es")));
+        long webhookOffset = syncStateRepository.findById("outbox:webhook").orElseThrow().getHighWaterMark();
+
+        List<RelayReport> failed = outboxRelay.drain();
+        RelayReport fileReport = report(failed, "file");
+        RelayReport webhookReport = report(failed, "webhook");
+        assertNull(fileReport.error());
+        assertEquals(3, fileReport.delivered());
+        assertNotNull(webhookReport.error());
+        assertEquals(0, webhookReport.delivered());
+        assertEquals(3, webhookReport.pending());
+        assertEquals(webhookOffset, syncStateRepository.findById("outbox:webhook").orElseThrow().getHighWaterMark());
+        // El webhook todavía no los tiene: no se borran
+        assertEquals(3, outboxEventRepository.count());
+
+        webhookStatus.set(200);
+        RelayReport retried = report(outboxRelay.drain(), "webhook");
+        assertNull(retried.error());
+        assertEquals(3, retried.delivered());
+        assertEquals(newFileIds(), received);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void testGapWaitsForOpenTransactionAndLateEventIsDelivered() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread slow = new Thread(() -> {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.executeWithoutResult(status -> {
+                outboxEventRepository.save(new OutboxEvent(OutboxEvent.Type.BOOK_UPDATED, 1L, "{\"slow\":true}"));
+                inserted.countDown();
+                try {
+                    commit.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        });
+        slow.start();
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+        long fast = new TransactionTemplate(transactionManager).execute(status -> outboxEventRepository.save(
+                new OutboxEvent(OutboxEvent.Type.BOOK_UPDATED, 2L, "{\"slow\":false}")).getId());
+
+        // El id anterior sigue sin confirmar: se espera
+        RelayReport waiting = report(outboxRelay.drain(), "file");
+        assertEquals(0, waiting.delivered());
+        assertEquals(List.of(), newFileIds());
+
+        // Vencido el plazo se sigue con el siguiente
+        Thread.sleep(400);
+        RelayReport skipped = report(outboxRelay.drain(), "file");
+        assertEquals(1, skipped.delivered());
+        assertEquals(List.of(fast), newFileIds());
+
+        // El que faltaba confirma tarde y se entrega igual, fuera de orden
+        commit.countDown();
+        slow.join();
+        RelayReport late = report(outboxRelay.drain(), "file");
+        assertEquals(1, late.lateDelivered());
+        assertEquals(List.of(fast, fast - 1), newFileIds());
+        assertEquals(List.of(fast, fast - 1), received);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void testWatchedGapSurvivesRestartAndLargeGapsAreWatchedWhole() throws Exception {
+        // Un salto de la secuencia mucho mayor que un lote (una transacción grande revertida)
+        long last = new TransactionTemplate(transactionManager).execute(status -> outboxEventRepository.save(
+                new OutboxEvent(OutboxEvent.Type.BOOK_UPDATED, 1L, "{\"before\":true}")).getId());
+        long jumped = last + 5_000;
+        jdbcTemplate.update("INSERT INTO outbox_event (id, aggregate_type, aggregate_id, event_type, payload, created_at) "
+                + "VALUES (?, 'BOOK', 2, 'BOOK_UPDATED', '{}', now())", jumped);
+        jdbcTemplate.execute("ALTER TABLE outbox_event ALTER COLUMN id RESTART WITH " + (jumped + 1));
+        outboxRelay.drain();
+        Thread.sleep(400);
+        outboxRelay.drain();
+        assertEquals(List.of(last, jumped), newFileIds());
+        assertEquals(List.of(last + 1), outboxGapRepository.findAll().stream()
+                .filter(gap -> gap.getSink().equals("file") && gap.getLastId() == jumped - 1)
+                .map(OutboxGap::getFirstId).collect(Collectors.toList()));
+
+        // Reinicio: el relay nuevo no tiene nada en memoria y retoma el hueco desde outbox_gap
+        ReflectionTestUtils.setField(outboxRelay, "cursors", new TreeMap<>());
+        long inside = last + 4_000;
+        jdbcTemplate.update("INSERT INTO outbox_event (id, aggregate_type, aggregate_id, event_type, payload, created_at) "
+                + "VALUES (?, 'BOOK', 3, 'BOOK_UPDATED', '{}', now())", inside);
+        RelayReport late = report(outboxRelay.drain(), "file");
+        assertEquals(1, late.lateDelivered());
+        assertEquals(List.of(last, jumped, inside), newFileIds());
+        assertEquals(List.of(last, jumped, inside), received);
+
+        // El hueco quedó partido alrededor del id entregado y vence con late-window-ms
+        assertEquals(2, outboxGapRepository.findAll().stream().filter(gap -> gap.getSink().equals("file")).count());
+        Thread.sleep(1_000);
+        outboxRelay.drain();
+        assertEquals(0, outboxGapRepository.count());
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    private static RelayReport report(List<RelayReport> reports, String sink) {
+        return reports.stream().filter(report -> report.sink().equals(sink)).findFirst().orElseThrow();
+    }
+
+    // Por posición en el archivo, no por id: los tardíos quedan después de ids más altos
+    private List<Long> newFileIds() throws IOException {
+        List<Long> ids = fileIds();
+        return ids.subList(fileLines, ids.size());
+    }
+
+    private static List<Long> fileIds() throws IOException {
+        return Files.exists(file) ? ids(Files.readString(file)) : List.of();
+    }
+
+    private static List<Long> ids(String jsonLines) {
+        List<Long> ids = new ArrayList<>();
+        for (String line : jsonLines.split("\n")) {
+            if (!line.isBlank()) {
+                try {
+                    ids.add(MAPPER.readTree(line).get("id").asLong());
+                } catch (IOException e) {
+                    throw new IllegalStateException(line, e);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,161 @@
+package com.literalura.literalura;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * V10 sobre una BD que ya tiene datos: migra hasta V9, llena todas las tablas que apuntan a book
+ * y a author, y sigue hasta la última versión. Las filas, los vínculos y las secuencias tienen
+ * que quedar igual, ahora en tablas particionadas con claves BIGINT. Trabaja en un esquema
+ * propio (lo vacía al empezar y lo borra al terminar) de un PostgreSQL 12+ descartable:
+ * mvn test -Dtest=PartitionMigrationTest -Dgutendx.pg.url=jdbc:postgresql://localhost:5432/gutendx_test
+ *     -Dgutendx.pg.user=... -Dgutendx.pg.password=...
+ */
+@EnabledIfSystemProperty(named = "gutendx.pg.url", matches = ".+")
+class PartitionMigrationTest {
+
+    private static final String SCHEMA = "gutendx_migration_test";
+    private static final int BOOKS = 5_000;
+    private static final int AUTHORS = 500;
+    private static final List<String> TABLES = List.of("author", "book", "book_author", "book_language",
+            "book_facet", "book_format", "download_block", "download_trend");
+
+    private static Flyway flyway;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void start() {
+        String url = System.getProperty("gutendx.pg.url");
+        String user = System.getProperty("gutendx.pg.user", "gutendx_user");
+        String password = System.getProperty("gutendx.pg.password", "gutendx_password");
+        flyway = Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        dataSource = new SingleConnectionDataSource(url, user, password, true);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (jdbc != null) {
+            jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void testPopulatedV9DatabaseMigratesToPartitionedTables() {
+        Flyway.configure().configuration(flyway.getConfiguration()).target("9").load().migrate();
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        populate();
+        Map<String, Long> rows = counts();
+        String links = links();
+        // Lo que dejaría un alta anulada: las secuencias van por delante del máximo id
+        long lastBook = jdbc.queryForObject("SELECT nextval(pg_get_serial_sequence('book', 'id'))", Long.class);
+        long lastAuthor = jdbc.queryForObject("SELECT nextval(pg_get_serial_sequence('author', 'id'))", Long.class);
+
+        flyway.migrate();
+
+        // Las mismas filas y los mismos vínculos
+        assertEquals(rows, counts());
+        assertEquals(links, links());
+
+        // book y book_author particionadas, 16 particiones cada una
+        for (String table : List.of("book", "book_author")) {
+            assertEquals("p", jdbc.queryForObject("SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n "
+                    + "ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relname = ?", String.class, SCHEMA, table));
+            assertEquals(16, jdbc.queryForObject("SELECT COUNT(*) FROM pg_inherits i JOIN pg_class c ON c.oid = "
+                    + "i.inhparent JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relname = ?",
+                    Integer.class, SCHEMA, table));
+        }
+
+        // Toda clave de libro o autor es BIGINT
+        List<String> keys = jdbc.queryForList("SELECT table_name || '.' || column_name || ' ' || data_type "
+                + "FROM information_schema.columns WHERE table_schema = ? AND table_name = ANY (?) "
+                + "AND column_name IN ('id', 'book_id', 'author_id') AND table_name NOT LIKE '%\\_p%' "
+                + "ORDER BY 1", String.class, SCHEMA, TABLES.toArray(String[]::new));
+        assertFalse(keys.isEmpty());
+        keys.forEach(key -> assertTrue(key.endsWith(" bigint"), key));
+
+        // Las altas siguen después del último id dado, no del máximo copiado
+        long newBook = jdbc.queryForObject("INSERT INTO book (gutendx_book_id, title, language_code) "
+                + "VALUES (?, 'Nuevo', 'en') RETURNING id", Long.class, BOOKS + 1L);
+        assertEquals(lastBook + 1, newBook);
+        long newAuthor = jdbc.queryForObject("INSERT INTO author (gutendx_author_name, name_key) "
+                + "VALUES ('Nuevo, Autor', 'nuevo autor') RETURNING id", Long.class);
+        assertEquals(lastAuthor + 1, newAuthor);
+
+        // gutendx_book_id sigue siendo único, ahora por book_gutendx_key
+        assertThrows(DuplicateKeyException.class, () -> jdbc.update("INSERT INTO book (gutendx_book_id, title, "
+                + "language_code) VALUES (?, 'Repetido', 'en')", BOOKS + 1L));
+
+        // Borrar un libro sigue borrando todo lo que cuelga de él
+        long deleted = jdbc.queryForObject("SELECT id FROM book WHERE gutendx_book_id = 42", Long.class);
+        jdbc.update("DELETE FROM book WHERE id = ?", deleted);
+        for (String table : List.of("book_author", "book_language", "book_facet", "book_format", "download_block",
+                "download_trend")) {
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE book_id = ?",
+                    Long.class, deleted), table);
+        }
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM book_gutendx_key WHERE gutendx_book_id = 42",
+                Long.class));
+    }
+
+    // Como lo dejaría la aplicación en V9, con huecos en los ids de libros
+    private static void populate() {
+        jdbc.update("INSERT INTO author (gutendx_author_name, name_key, last_name, first_name, birth_year) "
+                + "SELECT 'Autor' || i || ', Nombre', 'nombre autor' || i, 'Autor' || i, 'Nombre', 1800 + i % 100 "
+                + "FROM generate_series(1, ?) i", AUTHORS);
+        jdbc.update("INSERT INTO book (gutendx_book_id, title, language_code, download_count, content_hash) "
+                + "SELECT i, 'Libro ' || i, CASE WHEN i % 5 = 0 THEN 'fr' ELSE 'en' END, i, md5(i::text) "
+                + "FROM generate_series(1, ?) i", BOOKS);
+        // El último libro y el último autor, borrados: sus ids no se tienen que volver a dar
+        jdbc.update("DELETE FROM book WHERE gutendx_book_id % 97 = 0 OR gutendx_book_id = ?", BOOKS);
+        jdbc.update("DELETE FROM author WHERE id = (SELECT MAX(id) FROM author)");
+        jdbc.update("INSERT INTO book_author (book_id, author_id) "
+                + "SELECT b.id, a.id FROM book b JOIN author a ON a.id IN (1 + b.id % ?, 1 + (b.id * 7) % ?)",
+                AUTHORS, AUTHORS);
+        jdbc.update("INSERT INTO book_language (language_id, book_id) "
+                + "SELECT l.id, b.id FROM book b JOIN language l ON l.code = b.language_code "
+                + "UNION SELECT l.id, b.id FROM book b JOIN language l ON l.code = 'la' WHERE b.id % 11 = 0");
+        jdbc.update("INSERT INTO facet (kind, name) VALUES ('SUBJECT', 'Fiction'), ('BOOKSHELF', 'Best Books')");
+        jdbc.update("INSERT INTO book_facet (facet_id, book_id) "
+                + "SELECT f.id, b.id FROM book b JOIN facet f ON (b.id + f.id) % 3 = 0");
+        jdbc.update("INSERT INTO book_format (book_id, mime_type, url) "
+                + "SELECT id, 'text/html', 'https://www.gutenberg.org/ebooks/' || gutendx_book_id || '.html' FROM book");
+        jdbc.update("INSERT INTO download_block (book_id, block_year, first_day, last_day, last_count, samples, data) "
+                + "SELECT id, 2025, 20089, 20089, download_count, 1, '\\x00'::bytea FROM book WHERE id % 2 = 0");
+        jdbc.update("INSERT INTO download_trend (book_id, sample_day, download_count) "
+                + "SELECT id, 20089, download_count FROM book WHERE id % 2 = 0");
+    }
+
+    private static Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            counts.put(table, jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+        }
+        return counts;
+    }
+
+    private static String links() {
+        return jdbc.queryForObject("SELECT md5(string_agg(b.gutendx_book_id || ':' || a.gutendx_author_name, ',' "
+                + "ORDER BY b.gutendx_book_id, a.gutendx_author_name)) FROM book_author ba "
+                + "JOIN book b ON b.id = ba.book_id JOIN author a ON a.id = ba.author_id", String.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.literalura.literalura;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Poda de particiones de book y book_author (V10) para la SQL de cada consulta de
+ * BookRepository que las toca, con EXPLAIN ANALYZE: cuenta las particiones que se leyeron de
+ * verdad (las podadas al planificar no aparecen; las podadas en ejecución salen "never executed").
+ * Necesita un PostgreSQL 12+ descartable:
+ * mvn test -Dtest=PartitionPruningTest -Dgutendx.pg.url=jdbc:postgresql://localhost:5432/gutendx_test
+ *     -Dgutendx.pg.user=... -Dgutendx.pg.password=...
+ */
+@EnabledIfSystemProperty(named = "gutendx.pg.url", matches = ".+")
+class PartitionPruningTest {
+
+    private static final int PARTITIONS = 16;
+    private static final int BOOKS = 20_000;
+    private static final Pattern SCAN = Pattern.compile("on (book(?:_author)?_p\\d+)");
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void start() {
+        context = PostgresCatalog.start(System.getProperty("gutendx.pg.url"),
+                System.getProperty("gutendx.pg.user", "gutendx_user"),
+                System.getProperty("gutendx.pg.password", "gutendx_password"));
+        PostgresCatalog.seed(new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, BOOKS), context);
+        jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testLookupsByIdReadOnePartition() {
+        // findById, carga de un libro y de sus colecciones por id
+        assertScans("SELECT * FROM book WHERE id = 4242", "book", 1);
+        // findByIdIn: una partición por id como máximo
+        String sql = "SELECT * FROM book WHERE id IN (1, 2, 3)";
+        assertTrue(scanned(sql, "book") <= 3, () -> String.join("\n", plan(sql)));
+        // Recorridos por rangos de id (streamForExport): todas, cada una por su índice
+        assertScans("SELECT id FROM book WHERE id > 100 AND id <= 200 ORDER BY id", "book", PARTITIONS);
+    }
+
+    @Test
+    void testBooksOfAnAuthorReadOneBookAuthorPartition() {
+        long authorId = jdbc.queryForObject(
+                "SELECT author_id FROM book_author GROUP BY author_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+        long books = jdbc.queryForObject("SELECT COUNT(*) FROM book_author WHERE author_id = ?", Long.class, authorId);
+        // findByAuthorIdOrderByDownloadCountDesc: el lado de book se poda en ejecución, por id
+        String sql = "SELECT b.* FROM book b JOIN book_author ba ON ba.book_id = b.id WHERE ba.author_id = " + authorId
+                + " ORDER BY b.download_count DESC";
+        assertScans(sql, "book_author", 1);
+        assertTrue(scanned(sql, "book") <= Math.min(books, PARTITIONS), sql);
+    }
+
+    @Test
+    void testLookupsWithoutPartitionKeyReadEveryPartition() {
+        // findByGutendxBookId y compañía: sin poda, un acceso por índice en cada partición
+        assertScans("SELECT * FROM book WHERE gutendx_book_id = 4242", "book", PARTITIONS);
+        // Autores de un libro (colección Book.authors): la clave de book_author es author_id
+        assertScans("SELECT author_id FROM book_author WHERE book_id = 4242", "book_author", PARTITIONS);
+    }
+
+    @Test
+    void testGutendxBookIdStaysUnique() {
+        assertEquals(jdbc.queryForObject("SELECT COUNT(*) FROM book", Long.class),
+                jdbc.queryForObject("SELECT COUNT(*) FROM book_gutendx_key", Long.class));
+        assertThrows(DuplicateKeyException.class, () -> jdbc.update(
+                "INSERT INTO book (gutendx_book_id, title, language_code) VALUES (1, 'Duplicado', 'en')"));
+    }
+
+    private static void assertScans(String sql, String table, int expected) {
+        assertEquals(expected, scanned(sql, table), () -> String.join("\n", plan(sql)));
+    }
+
+    private static long scanned(String sql, String table) {
+        return plan(sql).stream()
+                .filter(line -> !line.contains("never executed"))
+                .map(SCAN::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> matcher.group(1))
+                .filter(partition -> partition.startsWith(table + "_p"))
+                .distinct()
+                .count();
+    }
+
+    private static List<String> plan(String sql) {
+        return jdbc.queryForList("EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) " + sql, String.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contexto de la aplicación contra un PostgreSQL real, con las migraciones de Flyway (las
+ * tablas particionadas de V10 no existen en H2). La BD debe ser descartable: {@link #seed}
+ * vacía el catálogo antes de cargar uno sintético.
+ */
+public final class PostgresCatalog {
+
+    private PostgresCatalog() {}
+
+    public static ConfigurableApplicationContext start(String url, String user, String password, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.flyway.enabled=true",
+                // Los índices en memoria no ven la carga por JDBC
+                "--gutendx.bloom.enabled=false",
+                "--gutendx.console.mode=none",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.gutendx=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web.client=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Deja en la BD exactamente los libros 1..size del catálogo sintético. Si ya estaban (por el
+     * máximo gutendx_book_id cargado por JDBC) no hace nada; las altas de corridas anteriores por
+     * BookService, con ids mayores, se conservan.
+     */
+    public static SyntheticCatalogLoader.Loaded seed(SyntheticCatalog catalog, ConfigurableApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long loaded = jdbc.queryForObject("SELECT COUNT(*) FROM book WHERE gutendx_book_id <= ?", Long.class,
+                (long) catalog.size());
+        if (loaded != null && loaded == catalog.size()) {
+            return null;
+        }
+        jdbc.execute("TRUNCATE book, book_gutendx_key, author, download_block, download_trend CASCADE");
+        SyntheticCatalogLoader.Loaded result = SyntheticCatalogLoader.load(catalog, context);
+        jdbc.execute("ANALYZE");
+        return result;
+    }
+}
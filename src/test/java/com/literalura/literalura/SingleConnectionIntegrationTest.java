@@ -0,0 +1,104 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.gutendx.service.WriteBehindQueue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guardar un libro con autor, idioma y facetas nuevos usando una sola conexión a la vez, con el
+ * perfil concurrent y pools de una conexión: si la transacción del libro pidiera otra para esas
+ * altas, esperaría hasta el timeout del pool.
+ */
+class SingleConnectionIntegrationTest {
+
+    private static StubGutendxServer stub;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        stub.put(book(1, "Kalevala", 700, List.of("fi"), author("Lönnrot, Elias", 1802, 1884)));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void testSearchAndSaveHoldsOneConnection() throws Exception {
+        try (ConfigurableApplicationContext context = start("jdbc:h2:mem:oneconnsearch")) {
+            Book book = context.getBean(BookService.class).searchAndSaveBook("Kalevala");
+
+            assertNotNull(book.getId());
+            assertEquals(1, book.getAuthors().size());
+        }
+    }
+
+    @Test
+    void testWriteBehindHoldsOneConnection() throws Exception {
+        try (ConfigurableApplicationContext context = start("jdbc:h2:mem:oneconnwritebehind",
+                "--gutendx.persistence.mode=write-behind",
+                "--gutendx.write-behind.dir=" + dir,
+                "--gutendx.write-behind.flush-interval-ms=20",
+                "--gutendx.write-behind.max-batch-attempts=1",
+                "--gutendx.write-behind.retry-backoff-ms=20")) {
+            context.getBean(WriteBehindQueue.class).enqueue(book(2, "Seitsemän veljestä", 300, List.of("fi"),
+                    author("Kivi, Aleksis", 1834, 1872)));
+
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (bookRepository.findByGutendxBookId(2L).isEmpty()) {
+                assertTrue(System.currentTimeMillis() < deadline, "El libro no se persistió");
+                Thread.sleep(20);
+            }
+            // Sin pasar por el guardado de a uno ni por dead-letter
+            assertEquals(0, context.getBean(WriteBehindQueue.class).deadLetters());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + database + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.hikari.maximum-pool-size=1",
+                "--spring.datasource.hikari.minimum-idle=1",
+                "--spring.datasource.hikari.connection-timeout=1000",
+                "--gutendx.datasource.replica.hikari.maximum-pool-size=1",
+                "--gutendx.datasource.replica.hikari.minimum-idle=1",
+                "--gutendx.datasource.replica.hikari.connection-timeout=1000",
+                // Sin filtros Bloom: la transacción del libro empieza consultando si ya existe y
+                // desde ahí retiene su conexión (con el perfil concurrent se toma recién en esa consulta)
+                "--gutendx.bloom.enabled=false",
+                "--gutendx.api.base-url=" + stub.baseUrl(),
+                "--gutendx.console.mode=none",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.gutendx=INFO",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web.client=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test", "concurrent")
+                .run(args.toArray(String[]::new));
+    }
+}
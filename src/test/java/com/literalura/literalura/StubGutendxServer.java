@@ -0,0 +1,342 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.dto.GutendxApiResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Servidor Gutendx local para tests. Sirve un catálogo en memoria que el test puede
+ * modificar entre llamadas y, opcionalmente, un {@link SyntheticCatalog} que genera cada
+ * libro al pedirlo (los agregados con put() tienen prioridad sobre los generados).
+ */
+public class StubGutendxServer implements AutoCloseable {
+
+    public static final int PAGE_SIZE = 32;
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NavigableMap<Long, GutendxApiResponse.BookDto> books = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> idsByTitle = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private volatile long latencyMillis;
+    private final Set<Long> failingIds = ConcurrentHashMap.newKeySet();
+    private volatile SyntheticCatalog catalog;
+    private final AtomicInteger throttled = new AtomicInteger();
+    private double throttleRate;
+    private double throttleBurst;
+    private double throttleTokens;
+    private long throttleRefilledAt;
+    private volatile int retryAfterSeconds;
+
+    static {
+        // Sin esto Nagle + ACK diferido agregan ~40 ms a cada respuesta
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public StubGutendxServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/books", this::handleBooks);
+        // Pedidos concurrentes como en el Gutendex real; sin executor se atienden de a uno
+        this.server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-gutendx");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void put(GutendxApiResponse.BookDto book) {
+        books.put(book.getId(), book);
+        idsByTitle.put(book.getTitle().toLowerCase(Locale.ROOT), book.getId());
+    }
+
+    /**
+     * Sirve también los libros del catálogo sintético. Sin filtros, las páginas se generan a
+     * medida; con filtros (salvo ids o título exacto) se recorre el catálogo entero.
+     */
+    public void serve(SyntheticCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    /** Demora fija por respuesta, para simular la latencia de red contra gutendex.com. */
+    public void setLatency(long millis) {
+        this.latencyMillis = millis;
+    }
+
+    /** Responde 500 a los pedidos por ids que incluyan alguno de estos (sin ids, ninguno falla). */
+    public void failIds(Long... ids) {
+        failingIds.clear();
+        failingIds.addAll(Arrays.asList(ids));
+    }
+
+    /**
+     * Como un Gutendex con límite de tasa: más de perSecond pedidos por segundo (con ráfagas
+     * de hasta burst) reciben 429, con Retry-After si retryAfterSeconds > 0. perSecond = 0 lo
+     * desactiva.
+     */
+    public synchronized void throttle(double perSecond, int burst, int retryAfterSeconds) {
+        this.throttleRate = perSecond;
+        this.throttleBurst = burst;
+        this.throttleTokens = burst;
+        this.throttleRefilledAt = System.nanoTime();
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** Pedidos respondidos con 429. */
+    public int throttled() {
+        return throttled.get();
+    }
+
+    public void resetCounters() {
+        requests.set(0);
+        bytesServed.set(0);
+        throttled.set(0);
+    }
+
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    public static GutendxApiResponse.BookDto book(long id, String title, int downloads, List<String> languages,
+                                           GutendxApiResponse.AuthorDto... authors) {
+        GutendxApiResponse.BookDto book = new GutendxApiResponse.BookDto();
+        book.setId(id);
+        book.setTitle(title);
+        book.setDownloadCount(downloads);
+        book.setLanguages(languages);
+        book.setAuthors(List.of(authors));
+        return book;
+    }
+
+    public static GutendxApiResponse.AuthorDto author(String name, Integer birthYear, Integer deathYear) {
+        GutendxApiResponse.AuthorDto author = new GutendxApiResponse.AuthorDto();
+        author.setName(name);
+        author.setBirthYear(birthYear);
+        author.setDeathYear(deathYear);
+        return author;
+    }
+
+    private void handleBooks(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (!admit()) {
+            throttled.incrementAndGet();
+            if (retryAfterSeconds > 0) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+            }
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+        String sort = params.getOrDefault("sort", "popular");
+        boolean descending = "descending".equals(sort);
+
+        Stream<GutendxApiResponse.BookDto> candidates;
+        Long exactTitle = params.containsKey("search") ? idOfTitle(params.get("search")) : null;
+        if (exactTitle != null && params.size() == 1) {
+            // Atajo para catálogos grandes: título exacto
+            candidates = Stream.of(lookup(exactTitle));
+        } else if (params.containsKey("ids")) {
+            Set<Long> ids = Arrays.stream(params.get("ids").split(","))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
+            if (ids.stream().anyMatch(failingIds::contains)) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            candidates = ids.stream()
+                    .sorted(descending ? Comparator.reverseOrder() : Comparator.naturalOrder())
+                    .map(this::lookup)
+                    .filter(Objects::nonNull);
+        } else {
+            candidates = all(descending);
+        }
+
+        List<Predicate<GutendxApiResponse.BookDto>> filters = new ArrayList<>();
+        if (params.containsKey("search")) {
+            String search = params.get("search").toLowerCase(Locale.ROOT);
+            filters.add(book -> book.getTitle().toLowerCase(Locale.ROOT).contains(search));
+        }
+        if (params.containsKey("languages")) {
+            Set<String> languages = Set.of(params.get("languages").split(","));
+            filters.add(book -> book.getLanguages() != null
+                    && book.getLanguages().stream().anyMatch(languages::contains));
+        }
+        if (params.containsKey("author_year_start")) {
+            int start = Integer.parseInt(params.get("author_year_start"));
+            filters.add(book -> book.getAuthors().stream()
+                    .anyMatch(a -> a.getDeathYear() == null || a.getDeathYear() >= start));
+        }
+        if (params.containsKey("author_year_end")) {
+            int end = Integer.parseInt(params.get("author_year_end"));
+            filters.add(book -> book.getAuthors().stream()
+                    .anyMatch(a -> a.getBirthYear() != null && a.getBirthYear() <= end));
+        }
+        if (params.containsKey("topic")) {
+            String topic = params.get("topic").toLowerCase(Locale.ROOT);
+            filters.add(book -> containsIgnoreCase(book.getSubjects(), topic)
+                    || containsIgnoreCase(book.getBookshelves(), topic));
+        }
+        if (params.containsKey("mime_type")) {
+            String mimeType = params.get("mime_type");
+            filters.add(book -> book.getFormats() != null
+                    && book.getFormats().keySet().stream().anyMatch(type -> type.startsWith(mimeType)));
+        }
+        for (Predicate<GutendxApiResponse.BookDto> filter : filters) {
+            candidates = candidates.filter(filter);
+        }
+
+        int page = Integer.parseInt(params.getOrDefault("page", "1"));
+        int from = (page - 1) * PAGE_SIZE;
+        long count;
+        List<GutendxApiResponse.BookDto> results;
+        if (filters.isEmpty() && !params.containsKey("ids") && !"popular".equals(sort)) {
+            // Todo el catálogo por id: generar sólo la página pedida
+            count = size();
+            results = candidates.skip(from).limit(PAGE_SIZE).collect(Collectors.toList());
+        } else {
+            List<GutendxApiResponse.BookDto> matches = candidates.collect(Collectors.toCollection(ArrayList::new));
+            if ("popular".equals(sort)) {
+                matches.sort(Comparator.comparing(GutendxApiResponse.BookDto::getDownloadCount).reversed());
+            }
+            count = matches.size();
+            results = new ArrayList<>(matches.subList(Math.min(from, matches.size()),
+                    Math.min(from + PAGE_SIZE, matches.size())));
+        }
+
+        GutendxApiResponse response = new GutendxApiResponse();
+        response.setCount((int) count);
+        response.setResults(results);
+        if (from + PAGE_SIZE < count) {
+            response.setNext(baseUrl() + "/books?" + nextPageQuery(exchange.getRequestURI().getRawQuery(), page + 1));
+        }
+
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        bytesServed.addAndGet(body.length);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private synchronized boolean admit() {
+        if (throttleRate <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        throttleTokens = Math.min(throttleBurst, throttleTokens + (now - throttleRefilledAt) * throttleRate / 1e9);
+        throttleRefilledAt = now;
+        if (throttleTokens < 1) {
+            return false;
+        }
+        throttleTokens -= 1;
+        return true;
+    }
+
+    private Long idOfTitle(String title) {
+        Long id = idsByTitle.get(title.toLowerCase(Locale.ROOT));
+        SyntheticCatalog synthetic = catalog;
+        if (id == null && synthetic != null) {
+            id = synthetic.idOfTitle(title).orElse(null);
+        }
+        return id;
+    }
+
+    private GutendxApiResponse.BookDto lookup(long id) {
+        GutendxApiResponse.BookDto book = books.get(id);
+        SyntheticCatalog synthetic = catalog;
+        if (book == null && synthetic != null && id >= 1 && id <= synthetic.size()) {
+            book = synthetic.book(id);
+        }
+        return book;
+    }
+
+    private long size() {
+        SyntheticCatalog synthetic = catalog;
+        if (synthetic == null) {
+            return books.size();
+        }
+        return synthetic.size() + books.tailMap((long) synthetic.size(), false).size();
+    }
+
+    // Todos los libros en orden de id: los del catálogo sintético y después los agregados con put()
+    private Stream<GutendxApiResponse.BookDto> all(boolean descending) {
+        SyntheticCatalog synthetic = catalog;
+        if (synthetic == null) {
+            return (descending ? books.descendingMap() : books).values().stream();
+        }
+        NavigableMap<Long, GutendxApiResponse.BookDto> extra = books.tailMap((long) synthetic.size(), false);
+        if (descending) {
+            return Stream.concat(extra.descendingMap().values().stream(),
+                    LongStream.iterate(synthetic.size(), id -> id >= 1, id -> id - 1).mapToObj(this::lookup));
+        }
+        return Stream.concat(LongStream.rangeClosed(1, synthetic.size()).mapToObj(this::lookup),
+                extra.values().stream());
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String needle) {
+        return values != null && values.stream().anyMatch(v -> v.toLowerCase(Locale.ROOT).contains(needle));
+    }
+
+    private static String nextPageQuery(String rawQuery, int page) {
+        String base = rawQuery == null ? "" : Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.startsWith("page="))
+                .collect(Collectors.joining("&"));
+        return (base.isEmpty() ? "" : base + "&") + "page=" + page;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
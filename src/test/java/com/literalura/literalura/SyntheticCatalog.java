@@ -0,0 +1,411 @@
+package com.literalura.literalura;
+
+import com.gutendx.dto.GutendxApiResponse;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Catálogo sintético con la forma de Gutendex, determinista por semilla: cada libro se genera
+ * a partir de (semilla, id), así que no hace falta tenerlo en memoria y dos corridas con la
+ * misma semilla ven los mismos datos. Reproduce lo que importa para medir a escala:
+ * descargas con ley de Zipf, libros con varios autores tomados de un grupo con autores
+ * prolíficos, vidas de autores con años reales (antiguos, sin fechas, vivos), títulos en
+ * varios idiomas, libros bilingües, temas con cola larga y estanterías.
+ * <p>
+ * Los títulos son únicos y se pueden decodificar ({@link #idOfTitle}), para que el servidor
+ * stub atienda una búsqueda por título exacto sin índice.
+ */
+public class SyntheticCatalog {
+
+    public static final long DEFAULT_SEED = 0x6775_7465_6E64_78L;
+
+    // Descargas del libro de rango 1; el de rango r tiene TOP / r^ZIPF_EXPONENT
+    static final int TOP_DOWNLOADS = 100_000;
+    static final double ZIPF_EXPONENT = 1.0;
+
+    private static final long AUTHOR_SALT = 0x41_5554_484FL;
+
+    // Idiomas y su peso sobre 1000, aproximado al de Project Gutenberg
+    private static final String[] LANGUAGES = {"en", "fr", "fi", "de", "nl", "it", "es", "pt", "la", "sv", "eo", "zh", "da"};
+    private static final int[] LANGUAGE_WEIGHTS = {765, 60, 45, 40, 20, 20, 15, 10, 5, 5, 5, 5, 5};
+
+    // Plantillas de título: adjetivo {A}, sustantivo {N} y lugar {P}, más el sufijo de tomo
+    private static final Map<String, TitleTemplate> TITLES = new LinkedHashMap<>();
+
+    static {
+        TITLES.put("en", new TitleTemplate("The {A} {N} of {P}", "Volume",
+                words("Silent Golden Hidden Lost Crimson Ancient Wandering Forgotten Distant Burning Secret Broken "
+                        + "Northern Merry Haunted Last"),
+                words("River Garden Kingdom Voyage Letter Island Captain Daughter Mirror Shadow Tower Pilgrim "
+                        + "Harvest Crown Lantern Orchard"),
+                words("Avalon Kent Arden Thule Eldon Wessex Cornwall Ulster Calais Lisbon Mercia Galway Devon "
+                        + "Orkney Bristol Carthage")));
+        TITLES.put("fr", new TitleTemplate("Le {N} {A} de {P}", "Tome",
+                words("perdu doré caché ancien lointain secret oublié brisé joyeux sombre éternel fidèle sauvage "
+                        + "rouge dernier errant"),
+                words("Jardin Royaume Voyage Miroir Capitaine Fleuve Château Pèlerin Trésor Chemin Manoir Navire "
+                        + "Songe Testament Soldat Village"),
+                words("Provence Bretagne Lyon Rouen Avignon Paris Nantes Marseille Bordeaux Reims Chartres Orléans "
+                        + "Toulouse Grenoble Dijon Amiens")));
+        TITLES.put("de", new TitleTemplate("Der {A} {N} von {P}", "Band",
+                words("alte goldene stille verlorene dunkle ferne letzte treue wilde rote fröhliche geheime kleine "
+                        + "große arme junge"),
+                words("Garten König Spiegel Wanderer Turm Brief Fluss Schatten Kapitän Wald Ritter Traum Pilger "
+                        + "Schatz Sommer Mond"),
+                words("Weimar Bremen Lübeck Dresden Leipzig Danzig Köln Mainz Trier Ulm Wien Prag Basel Bern "
+                        + "Kassel Jena")));
+        TITLES.put("fi", new TitleTemplate("{A} {N}, {P}", "Osa",
+                words("Vanha Kultainen Hiljainen Kadonnut Synkkä Kaukainen Viimeinen Uskollinen Villi Punainen "
+                        + "Iloinen Salainen Pieni Suuri Köyhä Nuori"),
+                words("talo kuningas peili vaeltaja torni kirje joki varjo kapteeni metsä ritari uni pyhiinvaeltaja "
+                        + "aarre kesä kuu"),
+                words("Turku Tampere Oulu Vaasa Pori Kuopio Lahti Hämeenlinna Porvoo Rauma Kajaani Joensuu "
+                        + "Savonlinna Kotka Mikkeli Raahe")));
+        TITLES.put("es", new TitleTemplate("El {N} {A} de {P}", "Tomo",
+                words("perdido dorado escondido antiguo lejano olvidado roto alegre sombrío eterno fiel salvaje "
+                        + "rojo último errante callado"),
+                words("Jardín Reino Viaje Espejo Capitán Río Castillo Peregrino Tesoro Camino Caballero Sueño "
+                        + "Soldado Pueblo Secreto Retrato"),
+                words("Toledo Sevilla Granada Córdoba Salamanca Burgos Cádiz Valencia Zaragoza Segovia Málaga "
+                        + "Oviedo León Ávila Murcia Navarra")));
+    }
+
+    private static final List<TitleTemplate> TEMPLATES = List.copyOf(TITLES.values());
+
+    // 16 x 16 x 16 combinaciones por tomo, recorridas en un orden mezclado (biyección afín mod 4096)
+    private static final int COMBINATIONS = 4096;
+    private static final int COMBINATION_MULTIPLIER = 2917;
+    private static final int COMBINATION_OFFSET = 1231;
+    private static final int COMBINATION_INVERSE = BigInteger.valueOf(COMBINATION_MULTIPLIER)
+            .modInverse(BigInteger.valueOf(COMBINATIONS)).intValue();
+    private static final Pattern VOLUME = Pattern.compile("^(.*), (\\p{L}+) (\\d+)$");
+
+    private static final List<String> SUBJECTS = List.of("Fiction", "Short stories", "Love stories",
+            "Adventure stories", "Detective and mystery stories", "Science fiction", "Poetry", "Drama",
+            "Historical fiction", "Children's stories", "Fairy tales", "Sea stories", "Humorous stories",
+            "Ghost stories", "War stories", "Western stories", "Essays", "Philosophy", "History", "Biography",
+            "Travel", "Religion", "Political science", "Natural history", "Domestic fiction",
+            "Psychological fiction", "Satire", "Epic poetry", "Letters", "Mythology", "Voyages and travels",
+            "Conduct of life");
+    private static final List<String> BOOKSHELVES = List.of("Best Books Ever Listings", "Harvard Classics",
+            "Movie Books", "Children's Literature", "Science Fiction", "Mystery Fiction", "Adventure", "Poetry",
+            "Humor", "Philosophy", "Historical Fiction", "Gothic Fiction", "Banned Books from Anne Haight's list",
+            "Precursors of Science Fiction", "Travel", "Christmas");
+
+    private static final List<String> LAST_NAMES = words("Austen Dickens Twain Tolstoy Verne Hugo Dumas Goethe "
+            + "Schiller Kivi Runeberg Cervantes Galdós Pardo Eliot Brontë Hardy Conrad Kipling Wells Doyle Poe "
+            + "Hawthorne Melville Alcott London Chekhov Turgenev Gogol Pushkin Balzac Flaubert Zola Stendhal "
+            + "Sand Heine Fontane Storm Keller Lagerlöf Strindberg Ibsen Andersen Multatuli Couperus Manzoni "
+            + "Verga Machado");
+    private static final List<String> FIRST_NAMES = words("Jane Charles Mark Leo Jules Victor Alexandre Johann "
+            + "Friedrich Aleksis Johan Miguel Benito Emilia George Anne Thomas Joseph Rudyard Herbert Arthur "
+            + "Edgar Nathaniel Herman Louisa Jack Anton Ivan Nikolai Honoré Gustave Émile Marie Heinrich "
+            + "Theodor Gottfried Selma August Henrik Hans");
+
+    private final long seed;
+    private final int size;
+    private final int authors;
+    private final int ranks;
+
+    public SyntheticCatalog(long seed, int size) {
+        // Un autor cada cuatro libros, como en Project Gutenberg
+        this(seed, size, Math.max(16, size / 4), size);
+    }
+
+    private SyntheticCatalog(long seed, int size, int authors, int ranks) {
+        if (size < 1) {
+            throw new IllegalArgumentException("El catálogo necesita al menos un libro: " + size);
+        }
+        this.seed = seed;
+        this.size = size;
+        this.authors = authors;
+        this.ranks = ranks;
+    }
+
+    /**
+     * El mismo catálogo con más (o menos) libros: los ids que ya existían no cambian y los
+     * nuevos usan el mismo grupo de autores y la misma distribución de descargas. Sirve para tener libros que Gutendx publica pero
+     * la BD todavía no guardó.
+     */
+    public SyntheticCatalog resized(int newSize) {
+        return new SyntheticCatalog(seed, newSize, authors, ranks);
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int authorCount() {
+        return authors;
+    }
+
+    /** Un libro del catálogo, con ids de 1 a size(). */
+    public GutendxApiResponse.BookDto book(long id) {
+        return entry(id).book();
+    }
+
+    /** El libro junto con el índice (de 0 a authorCount() - 1) de cada uno de sus autores. */
+    public Entry entry(long id) {
+        if (id < 1 || id > size) {
+            throw new IllegalArgumentException("Id fuera del catálogo: " + id + " (1-" + size + ")");
+        }
+        SplittableRandom random = new SplittableRandom(mix(seed, id));
+
+        List<String> languages = new ArrayList<>(2);
+        languages.add(pickLanguage(random));
+        if (random.nextInt(100) < 2) {
+            // Bilingües: casi siempre con el inglés
+            String second = random.nextInt(4) == 0 ? pickLanguage(random) : "en";
+            if (!second.equals(languages.get(0))) {
+                languages.add(second);
+            }
+        }
+
+        int[] authorIndexes = pickAuthors(random);
+        List<GutendxApiResponse.AuthorDto> authorDtos = new ArrayList<>(authorIndexes.length);
+        for (int index : authorIndexes) {
+            authorDtos.add(author(index));
+        }
+
+        GutendxApiResponse.BookDto book = new GutendxApiResponse.BookDto();
+        book.setId(id);
+        book.setTitle(title(id, languages.get(0)));
+        book.setLanguages(languages);
+        book.setAuthors(authorDtos);
+        book.setDownloadCount(downloads(random));
+        book.setSubjects(pickSubjects(random));
+        book.setBookshelves(pickBookshelves(random));
+        book.setFormats(formats(id, languages.get(0)));
+        return new Entry(book, authorIndexes);
+    }
+
+    public record Entry(GutendxApiResponse.BookDto book, int[] authorIndexes) {}
+
+    /** Los libros en orden de id, generados a medida que se recorren. */
+    public Stream<Entry> entries() {
+        return LongStream.rangeClosed(1, size).mapToObj(this::entry);
+    }
+
+    public Stream<GutendxApiResponse.BookDto> books() {
+        return entries().map(Entry::book);
+    }
+
+    /**
+     * Autor del grupo. Los nombres son "Apellido, Nombre" y, cuando se agotan las
+     * combinaciones, llevan iniciales intermedias; todos dan claves distintas en AuthorNames.
+     */
+    public GutendxApiResponse.AuthorDto author(int index) {
+        if (index < 0 || index >= authors) {
+            throw new IllegalArgumentException("Autor fuera del grupo: " + index);
+        }
+        SplittableRandom random = new SplittableRandom(mix(seed ^ AUTHOR_SALT, index));
+
+        StringBuilder name = new StringBuilder()
+                .append(LAST_NAMES.get(index % LAST_NAMES.size()))
+                .append(", ")
+                .append(FIRST_NAMES.get(index / LAST_NAMES.size() % FIRST_NAMES.size()));
+        for (int rest = index / (LAST_NAMES.size() * FIRST_NAMES.size()); rest > 0; rest /= 26) {
+            name.append(' ').append((char) ('A' + rest % 26)).append('.');
+        }
+
+        Integer birth;
+        Integer death;
+        int kind = random.nextInt(100);
+        if (kind < 6) {
+            // Sin fechas conocidas
+            birth = null;
+            death = null;
+        } else if (kind < 10) {
+            // Antigüedad: años negativos antes de Cristo, como en Gutendex
+            birth = -800 + random.nextInt(1200);
+            death = birth + 30 + random.nextInt(50);
+        } else {
+            // Casi todos del siglo XIX; unos pocos del XX, algunos todavía vivos
+            birth = kind < 15 ? 1900 + random.nextInt(90)
+                    : (int) Math.max(1500, Math.min(1899, Math.round(1810 + 45 * random.nextGaussian())));
+            death = birth + 25 + random.nextInt(66);
+            if (death > 2025) {
+                death = null;
+            } else if (kind >= 15 && kind < 17) {
+                birth = null; // sólo se sabe cuándo murió
+            }
+        }
+
+        GutendxApiResponse.AuthorDto author = new GutendxApiResponse.AuthorDto();
+        author.setName(name.toString());
+        author.setBirthYear(birth);
+        author.setDeathYear(death);
+        return author;
+    }
+
+    /** Id del libro con ese título exacto, si es de este catálogo. */
+    public Optional<Long> idOfTitle(String title) {
+        String base = title;
+        long volume = 0;
+        Matcher suffix = VOLUME.matcher(title);
+        if (suffix.matches()) {
+            base = suffix.group(1);
+            volume = Long.parseLong(suffix.group(3)) - 1;
+            if (volume < 1) {
+                return Optional.empty();
+            }
+        }
+        for (TitleTemplate template : TITLES.values()) {
+            int combination = template.decode(base);
+            if (combination < 0) {
+                continue;
+            }
+            int offset = Math.floorMod((combination - COMBINATION_OFFSET) * COMBINATION_INVERSE, COMBINATIONS);
+            long id = volume * COMBINATIONS + offset + 1;
+            if (id <= size && book(id).getTitle().equals(title)) {
+                return Optional.of(id);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String title(long id, String language) {
+        TitleTemplate template = TITLES.getOrDefault(language, TITLES.get("en"));
+        long volume = (id - 1) / COMBINATIONS;
+        int combination = (int) (((id - 1) % COMBINATIONS * COMBINATION_MULTIPLIER + COMBINATION_OFFSET)
+                & (COMBINATIONS - 1));
+        String title = template.encode(combination);
+        return volume == 0 ? title : title + ", " + template.volume() + " " + (volume + 1);
+    }
+
+    private int downloads(SplittableRandom random) {
+        // Rango uniforme en [1, ranks] (una permutación aproximada) y descargas según Zipf;
+        // el ruido es la cola de libros que nadie busca pero alguien baja igual
+        int rank = 1 + random.nextInt(ranks);
+        return (int) (TOP_DOWNLOADS / Math.pow(rank, ZIPF_EXPONENT)) + random.nextInt(20);
+    }
+
+    private static String pickLanguage(SplittableRandom random) {
+        int r = random.nextInt(1000);
+        for (int i = 0; i < LANGUAGES.length; i++) {
+            r -= LANGUAGE_WEIGHTS[i];
+            if (r < 0) {
+                return LANGUAGES[i];
+            }
+        }
+        return LANGUAGES[0];
+    }
+
+    private int[] pickAuthors(SplittableRandom random) {
+        int r = random.nextInt(100);
+        int count = r < 2 ? 0 : r < 85 ? 1 : r < 97 ? 2 : 3;
+        int[] picked = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index;
+            do {
+                // La mayoría al azar; uno de cada cinco de un autor prolífico (índices bajos)
+                index = random.nextInt(5) == 0
+                        ? (int) Math.exp(random.nextDouble() * Math.log(authors + 1)) - 1
+                        : random.nextInt(authors);
+            } while (contains(picked, i, index));
+            picked[i] = index;
+        }
+        return picked;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> pickSubjects(SplittableRandom random) {
+        int count = 1 + random.nextInt(4);
+        Set<String> subjects = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(4) == 0) {
+                // Cola larga: temas por lugar, como "Paris (France) -- History -- Fiction"
+                List<String> places = TEMPLATES.get(random.nextInt(TEMPLATES.size())).places();
+                subjects.add(places.get(random.nextInt(places.size())) + " -- History -- Fiction");
+            } else {
+                subjects.add(SUBJECTS.get((int) Math.exp(random.nextDouble() * Math.log(SUBJECTS.size() + 1)) - 1));
+            }
+        }
+        return new ArrayList<>(subjects);
+    }
+
+    private static List<String> pickBookshelves(SplittableRandom random) {
+        int count = random.nextInt(3);
+        Set<String> bookshelves = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            bookshelves.add(BOOKSHELVES.get(random.nextInt(BOOKSHELVES.size())));
+        }
+        return new ArrayList<>(bookshelves);
+    }
+
+    private static Map<String, String> formats(long id, String language) {
+        String base = "https://www.gutenberg.org/ebooks/" + id;
+        Map<String, String> formats = new LinkedHashMap<>();
+        formats.put("text/html", base + ".html.images");
+        formats.put("application/epub+zip", base + ".epub3.images");
+        formats.put("application/x-mobipocket-ebook", base + ".kf8.images");
+        formats.put("en".equals(language) ? "text/plain; charset=us-ascii" : "text/plain; charset=utf-8",
+                base + ".txt.utf-8");
+        formats.put("application/rdf+xml", base + ".rdf");
+        formats.put("image/jpeg", "https://www.gutenberg.org/cache/epub/" + id + "/pg" + id + ".cover.medium.jpg");
+        return formats;
+    }
+
+    private static long mix(long seed, long value) {
+        // splitmix64 sobre la combinación, para que ids vecinos no den secuencias parecidas
+        long z = seed + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static List<String> words(String words) {
+        return List.of(words.split(" "));
+    }
+
+    private record TitleTemplate(String pattern, String volume, List<String> adjectives, List<String> nouns,
+                                 List<String> places, Pattern parser) {
+
+        TitleTemplate(String pattern, String volume, List<String> adjectives, List<String> nouns,
+                      List<String> places) {
+            this(pattern, volume, adjectives, nouns, places, parser(pattern));
+        }
+
+        private static Pattern parser(String pattern) {
+            StringBuilder regex = new StringBuilder("^");
+            for (String part : pattern.split("(?=\\{)|(?<=\\})")) {
+                regex.append(part.matches("\\{[ANP]}") ? "(?<" + part.charAt(1) + ">\\S+)" : Pattern.quote(part));
+            }
+            return Pattern.compile(regex.append('$').toString());
+        }
+
+        String encode(int combination) {
+            return pattern.replace("{A}", adjectives.get(combination & 15))
+                    .replace("{N}", nouns.get(combination >> 4 & 15))
+                    .replace("{P}", places.get(combination >> 8 & 15));
+        }
+
+        int decode(String title) {
+            Matcher matcher = parser.matcher(title);
+            if (!matcher.matches()) {
+                return -1;
+            }
+            int adjective = adjectives.indexOf(matcher.group("A"));
+            int noun = nouns.indexOf(matcher.group("N"));
+            int place = places.indexOf(matcher.group("P"));
+            return adjective < 0 || noun < 0 || place < 0 ? -1 : adjective | noun << 4 | place << 8;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.literalura.literalura;
+
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.Facet;
+import com.gutendx.service.BookContentHash;
+import com.gutendx.service.FacetDictionary;
+import com.gutendx.service.LanguageDictionary;
+import com.gutendx.util.AuthorNames;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Carga un {@link SyntheticCatalog} en la BD con INSERT por lotes, sin pasar por JPA: con
+ * millones de libros la carga por BookService tardaría horas. Idiomas y facetas se dan de
+ * alta con los diccionarios de la aplicación (son pocos); libros y autores llevan como id el
+ * de Gutendx y el índice del autor + 1, y al final se adelantan las columnas identity.
+ * Los índices en memoria (Bloom, grafo, facetas) no se enteran: hay que arrancar otro
+ * contexto sobre la misma BD para que la lean al iniciar. H2 (perfil test) o PostgreSQL con
+ * las migraciones aplicadas.
+ */
+public final class SyntheticCatalogLoader {
+
+    private static final int BATCH = 5_000;
+
+    private SyntheticCatalogLoader() {}
+
+    public record Loaded(long books, long authors, long links, long elapsedNanos) {
+
+        @Override
+        public String toString() {
+            return String.format("%d libros, %d autores, %d relaciones en %d ms (%.0f filas/s)", books, authors,
+                    links, elapsedNanos / 1_000_000, (books + authors + links) * 1e9 / Math.max(1, elapsedNanos));
+        }
+    }
+
+    public static Loaded load(SyntheticCatalog catalog, ApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // Un commit por lote: en autocommit H2 confirma (y escribe a disco) cada fila
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        LanguageDictionary languageDictionary = context.getBean(LanguageDictionary.class);
+        FacetDictionary facetDictionary = context.getBean(FacetDictionary.class);
+        long started = System.nanoTime();
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int index = 0; index < catalog.authorCount(); index++) {
+            GutendxApiResponse.AuthorDto author = catalog.author(index);
+            String[] names = AuthorNames.parse(author.getName());
+            rows.add(new Object[] {index + 1L, author.getName(), AuthorNames.key(author.getName()), names[0], names[1],
+                    author.getBirthYear(), author.getDeathYear(), Timestamp.valueOf(base)});
+            if (rows.size() == BATCH) {
+                transactionTemplate.executeWithoutResult(status -> insertAuthors(jdbc, rows));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> insertAuthors(jdbc, rows));
+
+        List<Object[]> books = new ArrayList<>(BATCH);
+        List<Object[]> authorLinks = new ArrayList<>(BATCH * 2);
+        List<Object[]> languageLinks = new ArrayList<>(BATCH * 2);
+        List<Object[]> facetLinks = new ArrayList<>(BATCH * 4);
+        List<Object[]> formats = new ArrayList<>(BATCH * 6);
+        long links = 0;
+        try (Stream<SyntheticCatalog.Entry> entries = catalog.entries()) {
+            for (Iterator<SyntheticCatalog.Entry> it = entries.iterator(); it.hasNext(); ) {
+                SyntheticCatalog.Entry entry = it.next();
+                GutendxApiResponse.BookDto book = entry.book();
+                long id = book.getId();
+                // Alta en orden de id: el más nuevo es el de id más alto, como en una sincronización
+                books.add(new Object[] {id, id, book.getTitle(),
+                        languageDictionary.intern(book.getLanguages().get(0)).getCode(), book.getDownloadCount(),
+                        BookContentHash.of(book), Timestamp.valueOf(base.plusSeconds(id))});
+                for (int index : entry.authorIndexes()) {
+                    authorLinks.add(new Object[] {id, index + 1L});
+                }
+                for (String code : book.getLanguages()) {
+                    languageLinks.add(new Object[] {id, languageDictionary.intern(code).getId()});
+                }
+                for (String subject : book.getSubjects()) {
+                    facetLinks.add(new Object[] {id, facetDictionary.intern(Facet.Kind.SUBJECT, subject).getId()});
+                }
+                for (String bookshelf : book.getBookshelves()) {
+                    facetLinks.add(new Object[] {id, facetDictionary.intern(Facet.Kind.BOOKSHELF, bookshelf).getId()});
+                }
+                book.getFormats().forEach((mimeType, url) -> formats.add(new Object[] {id, mimeType, url}));
+                if (books.size() == BATCH) {
+                    links += transactionTemplate.execute(status ->
+                            insertBooks(jdbc, books, authorLinks, languageLinks, facetLinks, formats));
+                }
+            }
+        }
+        links += transactionTemplate.execute(status ->
+                insertBooks(jdbc, books, authorLinks, languageLinks, facetLinks, formats));
+
+        // Las altas siguientes (desde BookService) no deben chocar con los ids ya usados
+        if (isPostgres(jdbc)) {
+            // book particionada no tiene identity sino una secuencia propia (V10)
+            jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('author', 'id'), ?, false)", Long.class,
+                    catalog.authorCount() + 1L);
+            jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('book', 'id'), ?, false)", Long.class,
+                    catalog.size() + 1L);
+        } else {
+            jdbc.execute("ALTER TABLE author ALTER COLUMN id RESTART WITH " + (catalog.authorCount() + 1L));
+            jdbc.execute("ALTER TABLE book ALTER COLUMN id RESTART WITH " + (catalog.size() + 1L));
+        }
+        return new Loaded(catalog.size(), catalog.authorCount(), links, System.nanoTime() - started);
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbc) {
+        return Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres")));
+    }
+
+    private static void insertAuthors(JdbcTemplate jdbc, List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO author (id, gutendx_author_name, name_key, last_name, first_name, "
+                + "birth_year, death_year, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private static long insertBooks(JdbcTemplate jdbc, List<Object[]> books, List<Object[]> authorLinks,
+                                    List<Object[]> languageLinks, List<Object[]> facetLinks,
+                                    List<Object[]> formats) {
+        jdbc.batchUpdate("INSERT INTO book (id, gutendx_book_id, title, language_code, download_count, "
+                + "content_hash, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", books);
+        jdbc.batchUpdate("INSERT INTO book_author (book_id, author_id) VALUES (?, ?)", authorLinks);
+        jdbc.batchUpdate("INSERT INTO book_language (book_id, language_id) VALUES (?, ?)", languageLinks);
+        jdbc.batchUpdate("INSERT INTO book_facet (book_id, facet_id) VALUES (?, ?)", facetLinks);
+        jdbc.batchUpdate("INSERT INTO book_format (book_id, mime_type, url) VALUES (?, ?, ?)", formats);
+        long links = authorLinks.size() + languageLinks.size() + facetLinks.size();
+        books.clear();
+        authorLinks.clear();
+        languageLinks.clear();
+        facetLinks.clear();
+        formats.clear();
+        return links;
+    }
+}
@@ -0,0 +1,138 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.util.AuthorNames;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticCatalogTest {
+
+    private final SyntheticCatalog catalog = new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, 20_000);
+
+    @Test
+    void testSameSeedSameBooks() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        SyntheticCatalog again = new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, 20_000);
+        for (long id : new long[] {1, 2, 777, 20_000}) {
+            assertEquals(mapper.writeValueAsString(catalog.book(id)), mapper.writeValueAsString(again.book(id)));
+        }
+        // Agrandarlo no cambia los libros que ya estaban
+        assertEquals(mapper.writeValueAsString(catalog.book(123)),
+                mapper.writeValueAsString(catalog.resized(30_000).book(123)));
+        assertNotEquals(catalog.book(1).getTitle(), new SyntheticCatalog(42, 20_000).book(1).getTitle());
+        assertThrows(IllegalArgumentException.class, () -> catalog.book(20_001));
+    }
+
+    @Test
+    void testTitlesAreUniqueAndDecodable() {
+        Set<String> titles = new HashSet<>();
+        Set<String> languages = new HashSet<>();
+        catalog.books().forEach(book -> {
+            assertTrue(titles.add(book.getTitle()), "Título repetido: " + book.getTitle());
+            assertEquals(Optional.of(book.getId()), catalog.idOfTitle(book.getTitle()));
+            languages.add(book.getLanguages().get(0));
+        });
+        assertTrue(languages.containsAll(List.of("en", "fr", "fi", "de", "es", "nl")), languages.toString());
+        assertEquals(Optional.empty(), catalog.idOfTitle("The Silent River of Nowhere"));
+        assertEquals(Optional.empty(), catalog.resized(100).idOfTitle(catalog.book(5_000).getTitle()));
+    }
+
+    @Test
+    void testDownloadsFollowZipf() {
+        int[] downloads = catalog.books().mapToInt(GutendxApiResponse.BookDto::getDownloadCount).sorted().toArray();
+        int n = downloads.length;
+        // Con Zipf (s = 1) el rango r tiene ~TOP / r: el 1% más bajado se lleva casi la mitad de todo
+        long top = Arrays.stream(downloads, n - n / 100, n).asLongStream().sum();
+        long total = Arrays.stream(downloads).asLongStream().sum();
+        assertTrue(top > 0.3 * total, "top 1% = " + top + " de " + total);
+        assertTrue(downloads[n - 1] > SyntheticCatalog.TOP_DOWNLOADS / 10);
+        assertTrue(downloads[n / 2] < 100, "mediana = " + downloads[n / 2]);
+    }
+
+    @Test
+    void testAuthorsHaveDistinctKeysAndRealisticLives() {
+        SyntheticCatalog large = new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, 40_000);
+        Set<String> keys = new HashSet<>();
+        int unknown = 0;
+        int ancient = 0;
+        int alive = 0;
+        for (int index = 0; index < large.authorCount(); index++) {
+            GutendxApiResponse.AuthorDto author = large.author(index);
+            assertTrue(keys.add(AuthorNames.key(author.getName())), "Clave repetida: " + author.getName());
+            Integer birth = author.getBirthYear();
+            Integer death = author.getDeathYear();
+            if (birth == null && death == null) {
+                unknown++;
+            } else if (birth != null && birth < 0) {
+                ancient++;
+            } else if (death == null) {
+                alive++;
+            }
+            if (birth != null && death != null) {
+                assertTrue(death - birth >= 25 && death - birth < 95, author.getName() + " " + birth + "-" + death);
+            }
+        }
+        assertTrue(unknown > 0 && ancient > 0 && alive > 0, unknown + " / " + ancient + " / " + alive);
+
+        // Autores prolíficos y libros con varios autores
+        Map<String, Long> booksPerAuthor = catalog.books()
+                .flatMap(book -> book.getAuthors().stream())
+                .collect(Collectors.groupingBy(GutendxApiResponse.AuthorDto::getName, Collectors.counting()));
+        assertTrue(Collections.max(booksPerAuthor.values()) > 50);
+        assertTrue(catalog.books().anyMatch(book -> book.getAuthors().size() == 3));
+        assertTrue(catalog.books().anyMatch(book -> book.getAuthors().isEmpty()));
+        assertTrue(catalog.books().anyMatch(book -> book.getLanguages().size() == 2));
+    }
+
+    @Test
+    void testStubServesSyntheticCatalog() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        HttpClient client = HttpClient.newHttpClient();
+        try (StubGutendxServer stub = new StubGutendxServer()) {
+            stub.serve(catalog);
+            GutendxApiResponse.BookDto wanted = catalog.book(4_321);
+
+            GutendxApiResponse byTitle = get(client, mapper, stub.baseUrl() + "/books?search="
+                    + URLEncoder.encode(wanted.getTitle(), StandardCharsets.UTF_8));
+            assertEquals(1, byTitle.getCount());
+            assertEquals(4_321L, byTitle.getResults().get(0).getId());
+
+            GutendxApiResponse byIds = get(client, mapper, stub.baseUrl() + "/books?ids=3,1,2&sort=ascending");
+            assertEquals(List.of(1L, 2L, 3L), byIds.getResults().stream()
+                    .map(GutendxApiResponse.BookDto::getId).collect(Collectors.toList()));
+
+            // El último publicado, sin recorrer el catálogo
+            GutendxApiResponse latest = get(client, mapper, stub.baseUrl() + "/books?sort=descending");
+            assertEquals(20_000, latest.getCount());
+            assertEquals(20_000L, latest.getResults().get(0).getId());
+            assertNotNull(latest.getNext());
+
+            // Los agregados a mano se suman al catálogo
+            stub.put(StubGutendxServer.book(20_001, "Extra", 5, List.of("en")));
+            assertEquals(20_001L, get(client, mapper, stub.baseUrl() + "/books?sort=descending")
+                    .getResults().get(0).getId());
+
+            GutendxApiResponse finnish = get(client, mapper, stub.baseUrl() + "/books?languages=fi");
+            assertEquals(catalog.books().filter(book -> book.getLanguages().contains("fi")).count(),
+                    finnish.getCount());
+        }
+    }
+
+    private static GutendxApiResponse get(HttpClient client, ObjectMapper mapper, String url) throws Exception {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return mapper.readValue(response.body(), GutendxApiResponse.class);
+    }
+}
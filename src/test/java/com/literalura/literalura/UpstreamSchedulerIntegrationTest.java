@@ -0,0 +1,200 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.exception.ApiException;
+import com.gutendx.service.GutendxApiService;
+import com.gutendx.service.GutendxQuery;
+import com.gutendx.service.UpstreamScheduler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sincronización e ingesta contra un Gutendex que limita la tasa y responde 429: todas las
+ * llamadas terminan bien, los pedidos por ids se juntan y las búsquedas no hacen cola detrás.
+ */
+@SpringBootTest(classes = GutendxConsoleApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:upstreamtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "gutendx.upstream.initial-rate=50",
+        "gutendx.upstream.max-rate=200",
+        "gutendx.upstream.burst=6",
+        "gutendx.upstream.increase=5",
+        "gutendx.upstream.interactive-reserve=2",
+        "gutendx.upstream.max-retries=20",
+        "gutendx.upstream.batch-window-ms=100"
+})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // tasa y contadores nuevos
+class UpstreamSchedulerIntegrationTest {
+
+    private static final int BOOKS = 640;
+    private static final int IDS_PER_CALL = 4;
+
+    private static StubGutendxServer stub;
+
+    @Autowired
+    private GutendxApiService apiService;
+
+    @Autowired
+    private UpstreamScheduler scheduler;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        stub = new StubGutendxServer();
+        for (int id = 1; id <= BOOKS; id++) {
+            stub.put(book(id, "Libro " + id, id, List.of("en"), author("Autor" + id % 7 + ", Nombre", 1800, 1880)));
+        }
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        stub.throttle(0, 0, 0);
+        stub.setLatency(0);
+        stub.resetCounters();
+    }
+
+    @DynamicPropertySource
+    static void gutendxProperties(DynamicPropertyRegistry registry) {
+        registry.add("gutendx.api.base-url", () -> stub.baseUrl());
+    }
+
+    @Test
+    void testThrottledFloodCompletesBatchedAndSearchesGoFirst() throws Exception {
+        // Unos 20 pedidos/s, mucho menos que la tasa inicial del cliente
+        stub.throttle(20, 4, 0);
+        stub.setLatency(5);
+
+        ExecutorService background = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> calls = new ArrayList<>();
+        for (long first = 1; first <= BOOKS; first += IDS_PER_CALL) {
+            List<Long> ids = LongStream.range(first, first + IDS_PER_CALL).boxed().toList();
+            calls.add(background.submit(() -> {
+                List<GutendxApiResponse.BookDto> books = apiService.fetchBooksByIds(ids);
+                assertEquals(ids, books.stream().map(GutendxApiResponse.BookDto::getId).toList());
+                return books.size();
+            }));
+        }
+
+        // Búsquedas del usuario mientras la sincronización está en marcha
+        for (int i = 1; i <= 10; i++) {
+            Thread.sleep(50);
+            GutendxApiResponse found = apiService.search(GutendxQuery.builder().search("Libro " + i * 37).build());
+            assertEquals(i * 37L, found.getResults().get(0).getId());
+        }
+
+        int fetched = 0;
+        for (Future<Integer> call : calls) {
+            fetched += call.get();
+        }
+        background.shutdown();
+        assertEquals(BOOKS, fetched);
+
+        UpstreamScheduler.Stats stats = scheduler.stats();
+        assertTrue(stub.throttled() > 0, stats.toString());
+        assertEquals(stub.throttled(), stats.throttled(), stats.toString());
+        assertEquals(stub.requests(), stats.requests(), stats.toString());
+        // Bajó hacia lo que acepta el stub en vez de insistir con la tasa inicial
+        assertTrue(stats.rate() < 50, stats.toString());
+        // 160 llamadas de 4 ids en bastante menos de 160 pedidos (el mínimo son 20 de 32)
+        assertEquals(BOOKS / IDS_PER_CALL, stats.batchedCalls());
+        assertTrue(stats.batches() < BOOKS / IDS_PER_CALL / 2, stats.toString());
+        assertTrue(stub.requests() - stub.throttled() < BOOKS / IDS_PER_CALL / 2, stats.toString());
+        assertTrue(stats.interactiveCalls() >= 10, stats.toString());
+        assertTrue(stats.averageWaitNanos(UpstreamScheduler.Priority.INTERACTIVE)
+                < stats.averageWaitNanos(UpstreamScheduler.Priority.BACKGROUND), stats.toString());
+    }
+
+    @Test
+    void testRetryAfterIsHonored() throws Exception {
+        stub.throttle(1, 1, 1);
+
+        assertEquals(BOOKS, apiService.fetchLatestBookId());
+        long started = System.nanoTime();
+        assertEquals(BOOKS, apiService.fetchLatestBookId());
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Rechazado una vez y reintentado al vencer el Retry-After, no antes
+        assertEquals(1, stub.throttled());
+        assertEquals(3, stub.requests());
+        assertTrue(elapsedMillis >= 1000, elapsedMillis + " ms");
+        UpstreamScheduler.Stats stats = scheduler.stats();
+        assertEquals(1, stats.throttled());
+        assertEquals(1, stats.retries());
+        assertEquals(25, stats.rate(), 1);
+    }
+
+    @Test
+    void testSmallLookupsFromConcurrentCallersShareOneRequest() throws Exception {
+        stub.failIds(7L);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            Future<List<GutendxApiResponse.BookDto>> ok = callers.submit(() -> apiService.fetchBooksByIds(List.of(1L, 2L)));
+            Future<List<GutendxApiResponse.BookDto>> failing = callers.submit(() -> apiService.fetchBooksByIds(List.of(6L, 7L)));
+            Future<List<GutendxApiResponse.BookDto>> big = callers.submit(() ->
+                    apiService.fetchBooksByIds(LongStream.rangeClosed(101, 140).boxed().toList()));
+
+            // El pedido conjunto falla por el 7: cada uno repite lo suyo y sólo falla el que lo pidió
+            assertEquals(List.of(1L, 2L), ok.get().stream().map(GutendxApiResponse.BookDto::getId).toList());
+            Exception error = assertThrows(Exception.class, failing::get);
+            assertInstanceOf(ApiException.class, error.getCause());
+            assertEquals(40, big.get().size());
+
+            // 133-140 se sumaron al conjunto; 101-132 llenan una página y van solos
+            assertEquals(3, scheduler.stats().batchedCalls());
+            assertEquals(1, scheduler.stats().batches());
+            assertEquals(5, stub.requests());
+        } finally {
+            callers.shutdown();
+            stub.failIds();
+        }
+    }
+
+    @Test
+    void testInterruptedLeaderReleasesTheOthers() throws Exception {
+        // Una ventana larga para interrumpir al que junta mientras espera que cierre
+        ReflectionTestUtils.setField(scheduler, "batchWindowMillis", 500L);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<GutendxApiResponse.BookDto>> leader = callers.submit(() -> apiService.fetchBooksByIds(List.of(1L, 2L)));
+            Thread.sleep(50);
+            Future<List<GutendxApiResponse.BookDto>> follower = callers.submit(() -> apiService.fetchBooksByIds(List.of(3L, 4L)));
+            Thread.sleep(50);
+            leader.cancel(true);
+
+            // El otro no queda esperando un resultado que nunca llega: repite lo suyo solo
+            assertEquals(List.of(3L, 4L), follower.get(5, TimeUnit.SECONDS).stream()
+                    .map(GutendxApiResponse.BookDto::getId).toList());
+            assertEquals(1, stub.requests());
+            assertEquals(0, scheduler.stats().batches());
+        } finally {
+            callers.shutdownNow();
+            ReflectionTestUtils.setField(scheduler, "batchWindowMillis", 25L);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.literalura.literalura;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.service.BookService;
+import com.gutendx.warmup.WarmUp;
+import com.gutendx.warmup.WarmUpReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {GutendxConsoleApplication.class, WarmUpIntegrationTest.ReadinessLog.class}, properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmuptest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "gutendx.warmup.enabled=true",
+        "gutendx.warmup.connections=3",
+        "gutendx.warmup.json-rounds=20"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class WarmUpIntegrationTest {
+
+    @TestConfiguration
+    static class ReadinessLog {
+
+        final List<ReadinessState> states = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            states.add(event.getState());
+        }
+    }
+
+    @Autowired
+    private WarmUp warmUp;
+
+    @Autowired
+    private ReadinessLog readinessLog;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Test
+    void testWarmUpRunsEveryStageBeforeReadinessAndVisitsHotBooks() {
+        WarmUpReport report = warmUp.report();
+        assertNotNull(report);
+        assertEquals(List.of("conexiones", "consultas", "json", "catálogo"),
+                report.stages().stream().map(WarmUpReport.Stage::name).collect(Collectors.toList()));
+        for (WarmUpReport.Stage stage : report.stages()) {
+            assertNull(stage.error(), stage.toString());
+        }
+        assertEquals(3, report.stages().get(0).items());
+        // Todas las @Query JPQL de los repositorios; las nativas y las de modificación no cuentan
+        assertTrue(report.stages().get(1).items() > 20, report.toString());
+        assertEquals(20, report.stages().get(2).items());
+        // Catálogo vacío: no hay libros calientes que recorrer
+        assertEquals(0, report.stages().get(3).items());
+        assertFalse(report.timedOut());
+        assertTrue(report.coldProbeNanos() > 0 && report.warmProbeNanos() > 0);
+        assertTrue(report.lines().get(report.lines().size() - 1).startsWith("Primera consulta:"));
+
+        // Rechaza tráfico mientras calienta y lo acepta al terminar
+        assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC),
+                readinessLog.states.subList(0, 2));
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+
+        // Con libros: recorre los más descargados y sus autores
+        bookService.saveNewBook(book(1342, "Pride and Prejudice", 45_000, List.of("en"), author("Austen, Jane", 1775, 1817)));
+        bookService.saveNewBook(book(158, "Emma", 9_000, List.of("en"), author("Austen, Jane", 1775, 1817)));
+        bookService.saveNewBook(book(2000, "Don Quijote", 12_345, List.of("es"),
+                author("Cervantes Saavedra, Miguel de", 1547, 1616)));
+        warmUp.start();
+        WarmUpReport again = warmUp.report();
+        assertNotSame(report, again);
+        assertNull(again.stages().get(3).error());
+        // 3 libros y 2 autores
+        assertEquals(5, again.stages().get(3).items());
+    }
+}
@@ -0,0 +1,125 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.gutendx.service.WriteBehindQueue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GutendxConsoleApplication.class)
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class) // el primero cuenta los libros escritos desde el arranque
+class WriteBehindQueueIntegrationTest {
+
+    private static StubGutendxServer stub;
+    private static Path logDir;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        stub = new StubGutendxServer();
+        stub.put(book(1, "Hamlet", 5000, List.of("en"), author("Shakespeare, William", 1564, 1616)));
+
+        // Un libro que quedó en el log de una ejecución anterior
+        logDir = Files.createTempDirectory("write-behind");
+        String pending = new ObjectMapper().writeValueAsString(
+                book(99, "Pendiente", 10, List.of("es"), author("Anónimo", null, null)));
+        Files.writeString(logDir.resolve("pending.log"), pending + "\n");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        stub.close();
+    }
+
+    @DynamicPropertySource
+    static void writeBehindProperties(DynamicPropertyRegistry registry) {
+        registry.add("gutendx.api.base-url", () -> stub.baseUrl());
+        registry.add("gutendx.persistence.mode", () -> "write-behind");
+        registry.add("gutendx.write-behind.dir", () -> logDir.toString());
+        registry.add("gutendx.write-behind.flush-interval-ms", () -> 20);
+        registry.add("gutendx.write-behind.max-batch-attempts", () -> 2);
+        registry.add("gutendx.write-behind.retry-backoff-ms", () -> 20);
+    }
+
+    @Test
+    @Order(1)
+    void testSearchReturnsBeforePersistingAndLogIsReplayed() throws Exception {
+        Book preview = bookService.searchAndSaveBook("Hamlet");
+
+        // Se devuelve el libro mapeado, sin esperar a la BD
+        assertNull(preview.getId());
+        assertEquals("Hamlet", preview.getTitle());
+        assertEquals("Shakespeare, William", preview.getAuthors().iterator().next().getFormattedName());
+
+        awaitPersisted(1L);
+        awaitPersisted(99L);
+        // El contador sube después del commit y del checkpoint: el libro ya puede verse antes
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writeBehindQueue.writtenBooks() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, writeBehindQueue.writtenBooks());
+    }
+
+    @Test
+    @Order(2)
+    void testBadRecordGoesToDeadLetterAndDoesNotBlockTheQueue() throws Exception {
+        // Sin título: viola NOT NULL y hace fallar cualquier lote que lo incluya
+        GutendxApiResponse.BookDto broken = book(501, null, 1, List.of("en"), author("Roto, Autor", null, null));
+        long deadLettersBefore = writeBehindQueue.deadLetters();
+        writeBehindQueue.enqueue(book(500, "Antes", 1, List.of("en"), author("Bueno, Autor", null, null)));
+        writeBehindQueue.enqueue(broken);
+        writeBehindQueue.enqueue(book(502, "Después", 1, List.of("en"), author("Bueno, Autor", null, null)));
+
+        awaitPersisted(500L);
+        awaitPersisted(502L);
+        assertTrue(bookRepository.findByGutendxBookId(501L).isEmpty());
+        assertEquals(deadLettersBefore + 1, writeBehindQueue.deadLetters());
+        List<String> deadLetter = Files.readAllLines(logDir.resolve("dead-letter.log"));
+        assertEquals(501L, new ObjectMapper().readValue(deadLetter.get(deadLetter.size() - 1),
+                GutendxApiResponse.BookDto.class).getId());
+
+        // Lo que llega después se guarda como siempre, en lote
+        writeBehindQueue.enqueue(book(503, "Más tarde", 1, List.of("en"), author("Bueno, Autor", null, null)));
+        awaitPersisted(503L);
+        assertEquals(0, writeBehindQueue.pending());
+    }
+
+    private void awaitPersisted(long gutendxBookId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (bookRepository.findByGutendxBookId(gutendxBookId).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "El libro " + gutendxBookId + " no se persistió");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.literalura.literalura;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.WriteBehindQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arranque con un log pendiente más largo que la cola: la reproducción ocurre antes de que
+ * arranque el hilo escritor, así que no puede esperar a que se libere lugar.
+ */
+class WriteBehindReplayIntegrationTest {
+
+    private static final int CAPACITY = 4;
+    private static final int PENDING = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLogLongerThanCapacityIsReplayed() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringBuilder pending = new StringBuilder();
+        for (int id = 1; id <= PENDING; id++) {
+            pending.append(objectMapper.writeValueAsString(book(id, "Pendiente " + id, id, List.of("es"),
+                    author("Anónimo", null, null)))).append('\n');
+        }
+        Files.writeString(dir.resolve("pending.log"), pending);
+
+        CompletableFuture<ConfigurableApplicationContext> starting = CompletableFuture.supplyAsync(() ->
+                new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                        .web(WebApplicationType.NONE)
+                        .profiles("test")
+                        .run("--spring.datasource.url=jdbc:h2:mem:writebehindreplay;MODE=PostgreSQL;"
+                                        + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                                "--gutendx.persistence.mode=write-behind",
+                                "--gutendx.write-behind.dir=" + dir,
+                                "--gutendx.write-behind.capacity=" + CAPACITY,
+                                "--gutendx.write-behind.batch-size=3",
+                                "--gutendx.write-behind.flush-interval-ms=20",
+                                "--gutendx.console.mode=none",
+                                "--spring.jpa.show-sql=false",
+                                "--logging.level.com.gutendx=INFO",
+                                "--logging.level.org.hibernate.SQL=WARN",
+                                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        try (ConfigurableApplicationContext context = starting.get(60, TimeUnit.SECONDS)) {
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            WriteBehindQueue writeBehindQueue = context.getBean(WriteBehindQueue.class);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (bookRepository.count() < PENDING) {
+                assertTrue(System.currentTimeMillis() < deadline, "El log pendiente no se persistió");
+                Thread.sleep(20);
+            }
+
+            // Los reproducidos no ocupan lugares: la cola sigue admitiendo 'capacity' libros nuevos
+            for (int id = PENDING + 1; id <= PENDING + CAPACITY; id++) {
+                writeBehindQueue.enqueue(book(id, "Nuevo " + id, id, List.of("es"), author("Anónimo", null, null)));
+            }
+            deadline = System.currentTimeMillis() + 10_000;
+            while (bookRepository.count() < PENDING + CAPACITY) {
+                assertTrue(System.currentTimeMillis() < deadline, "Los libros nuevos no se persistieron");
+                Thread.sleep(20);
+            }
+            assertEquals(0, writeBehindQueue.deadLetters());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.assets.AssetStore;
+import com.gutendx.dto.GutendxApiResponse;
+import com.gutendx.service.BookService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Lecturas de rangos concurrentes (4 hilos) de 16 archivos de 8 MB ya descargados al almacén,
+ * por HTTP contra el servidor del perfil assets, con sendfile de Tomcat o con transferTo desde
+ * el controlador. Cada iteración imprime los MB/s servidos.
+ * mvn -Pbench test-compile exec:exec -Dbench=AssetServing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class AssetServingBenchmark {
+
+    private static final int ASSETS = 16;
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    @Param({"true", "false"})
+    public boolean sendfile;
+
+    @Param({"64", "1024"})
+    public int rangeKb;
+
+    private final Path workDir = Paths.get("target", "asset-bench");
+    private HttpServer origin;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private final AtomicLong served = new AtomicLong();
+    private long iterationStarted;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (Files.exists(workDir)) {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+        byte[] body = new byte[SIZE];
+        new SplittableRandom(1).nextBytes(body);
+        origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        origin.createContext("/files/", exchange -> {
+            // Distinto contenido por archivo: el primer byte es el número
+            byte[] copy = body.clone();
+            copy[0] = (byte) Integer.parseInt(exchange.getRequestURI().getPath().replaceAll("\\D", ""));
+            exchange.sendResponseHeaders(200, copy.length);
+            exchange.getResponseBody().write(copy);
+            exchange.close();
+        });
+        origin.start();
+
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:asset-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        "--gutendx.console.mode=none",
+                        "--gutendx.assets.dir=" + workDir.toAbsolutePath(),
+                        "--gutendx.assets.sendfile=" + sendfile,
+                        "--gutendx.bloom.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        BookService bookService = context.getBean(BookService.class);
+        for (int i = 1; i <= ASSETS; i++) {
+            GutendxApiResponse.BookDto book = new GutendxApiResponse.BookDto();
+            book.setId((long) i);
+            book.setTitle("Libro " + i);
+            book.setLanguages(List.of("en"));
+            book.setFormats(Map.of("application/epub+zip",
+                    "http://127.0.0.1:" + origin.getAddress().getPort() + "/files/" + i + ".epub"));
+            bookService.saveNewBook(book);
+            // Primera lectura: la descarga, fuera de la medición
+            read(i, 0, 0);
+        }
+        System.out.printf("%nAlmacén: %s%n", context.getBean(AssetStore.class).stats());
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        served.set(0);
+        iterationStarted = System.nanoTime();
+    }
+
+    @Benchmark
+    public long rangeRead() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long length = rangeKb * 1024L;
+        long start = random.nextLong(SIZE - length);
+        return read(1 + random.nextInt(ASSETS), start, start + length - 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        double seconds = (System.nanoTime() - iterationStarted) / 1e9;
+        System.out.printf("%nsendfile=%s, rangos de %d KB: %.0f MB/s%n", sendfile, rangeKb,
+                served.get() / seconds / (1024 * 1024));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        origin.stop(0);
+    }
+
+    private long read(int book, long start, long end) throws Exception {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + book + "/assets/epub"))
+                .header("Range", "bytes=" + start + "-" + end).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 206) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        long length = end - start + 1;
+        served.addAndGet(length);
+        return length;
+    }
+}
@@ -0,0 +1,77 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.util.AuthorNames;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser de nombres de autor sobre nombres reales de Gutenberg.
+ * mvn -Pbench test-compile exec:exec -Dbench=AuthorNames
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorNamesBenchmark {
+
+    static final String[] CORPUS = {
+            "Shakespeare, William", "Austen, Jane", "Twain, Mark", "Dickens, Charles",
+            "Doyle, Arthur Conan", "Shelley, Mary Wollstonecraft", "Carroll, Lewis",
+            "Melville, Herman", "Wilde, Oscar", "Stoker, Bram", "Tolstoy, Leo, graf",
+            "Dostoyevsky, Fyodor", "Kafka, Franz", "Hugo, Victor", "Dumas, Alexandre",
+            "Cervantes Saavedra, Miguel de", "Pérez Galdós, Benito", "Verne, Jules",
+            "Balzac, Honoré de", "Goethe, Johann Wolfgang von", "Homer", "Various", "Anonymous",
+            "Wells, H. G. (Herbert George)", "Lovecraft, H. P. (Howard Phillips)",
+            "Montgomery, L. M. (Lucy Maud)", "Du Bois, W. E. B. (William Edward Burghardt)",
+            "Chesterton, G. K. (Gilbert Keith)", "Andersen, H. C. (Hans Christian)",
+            "Tolkien, J. R. R. (John Ronald Reuel)", "Burroughs, Edgar Rice", "Poe, Edgar Allan",
+            "Machado de Assis", "Eça de Queirós, José Maria de", "Blasco Ibáñez, Vicente",
+            "Molière", "Grimm, Jacob", "Grimm, Wilhelm", "Brontë, Charlotte", "Brontë, Emily",
+            "Kipling, Rudyard", "Stevenson, Robert Louis", "Hawthorne, Nathaniel",
+            "Fitzgerald, F. Scott (Francis Scott)", "Conrad, Joseph", "Joyce, James",
+            "Marx, Karl", "Engels, Friedrich", "Nietzsche, Friedrich Wilhelm", "Plato",
+            "Aristotle", "Dante Alighieri", "Boccaccio, Giovanni", "Zola, Émile",
+            "Maupassant, Guy de", "Flaubert, Gustave", "Baudelaire, Charles", "Rimbaud, Arthur",
+            "Chekhov, Anton Pavlovich", "Turgenev, Ivan Sergeevich", "Gogol, Nikolai Vasilevich",
+            "Pushkin, Aleksandr Sergeevich", "Lagerlöf, Selma", "Ibsen, Henrik", "Strindberg, August"
+    };
+
+    @Benchmark
+    public void key(Blackhole blackhole) {
+        for (String name : CORPUS) {
+            blackhole.consume(AuthorNames.key(name));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String name : CORPUS) {
+            blackhole.consume(AuthorNames.parse(name));
+        }
+    }
+
+    // Implementación anterior de BookService.parseAuthorName, como referencia
+    @Benchmark
+    public void legacySplitParse(Blackhole blackhole) {
+        for (String name : CORPUS) {
+            blackhole.consume(legacyParse(name));
+        }
+    }
+
+    private static String[] legacyParse(String fullName) {
+        String[] parts = fullName.trim().split("\\s+");
+        if (parts.length == 1) {
+            return new String[]{parts[0], null};
+        } else if (parts.length == 2) {
+            return new String[]{parts[1], parts[0]};
+        }
+        String lastName = parts[parts.length - 1];
+        String firstName = String.join(" ", Arrays.copyOfRange(parts, 0, parts.length - 1));
+        return new String[]{lastName, firstName};
+    }
+}
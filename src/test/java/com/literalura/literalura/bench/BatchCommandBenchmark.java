@@ -0,0 +1,114 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.controller.BatchCommandExecutor;
+import com.gutendx.controller.BatchOutput;
+import com.literalura.literalura.StubGutendxServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+
+/**
+ * 10.000 comandos batch por invocación (99% búsquedas, 1% listados de autores vivos) contra
+ * H2 + Gutendx local, con y sin latencia simulada por respuesta. "sequential" es una búsqueda
+ * por vez, como el menú; "pipelined" usa los valores del perfil batch.
+ * mvn -Pbench test-compile exec:exec -Dbench=BatchCommand [-Dbench.args="-p format=csv"]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BatchCommandBenchmark {
+
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int COMMANDS = 10_000;
+
+    @Param({"sequential", "pipelined"})
+    public String mode;
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    @Param({"jsonl"})
+    public String format;
+
+    private StubGutendxServer stub;
+    private ConfigurableApplicationContext context;
+    private BatchCommandExecutor executor;
+    private String script;
+    private BatchCommandExecutor.Summary last;
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new StubGutendxServer();
+        stub.setLatency(latencyMs);
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            stub.put(book(i, title(i), i % 5000, List.of(i % 3 == 0 ? "es" : "en"),
+                    author("Author " + (i % 2000) + ", Name", 1800 + i % 150, 1870 + i % 150)));
+        }
+
+        boolean pipelined = "pipelined".equals(mode);
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--gutendx.api.base-url=" + stub.baseUrl(),
+                        "--gutendx.batch.threads=" + (pipelined ? 8 : 1),
+                        "--gutendx.batch.pipeline-depth=" + (pipelined ? 64 : 1),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.web.client=WARN");
+        executor = context.getBean(BatchCommandExecutor.class);
+
+        Random random = new Random(42);
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < COMMANDS; i++) {
+            if (i % 100 == 99) {
+                commands.append("alive ").append(1800 + random.nextInt(150)).append('\n');
+            } else {
+                commands.append("search ").append(title(random.nextInt(CATALOG_SIZE) + 1)).append('\n');
+            }
+        }
+        script = commands.toString();
+    }
+
+    @Benchmark
+    public BatchCommandExecutor.Summary run() throws Exception {
+        try (BatchOutput output = BatchOutput.create(format, new BufferedWriter(Writer.nullWriter(), 64 * 1024))) {
+            last = executor.execute(new BufferedReader(new StringReader(script)), output);
+        }
+        return last;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%s/%s/%d ms: %.0f comandos/s, %d con error%n",
+                mode, format, latencyMs, last.commandsPerSecond(), last.failed());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    private static String title(int id) {
+        return String.format("Book %06d", id);
+    }
+}
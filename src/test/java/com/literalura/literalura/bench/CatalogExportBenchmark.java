@@ -0,0 +1,148 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.export.CatalogExporter;
+import com.gutendx.export.ExportReport;
+import com.gutendx.export.ExportRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Exporta 1M libros, 100k autores y sus ~1,3M relaciones desde una BD H2 en disco con un heap
+ * fijo de 256 MB. Después de cada iteración imprime el pico de heap usado durante la exportación.
+ * mvn -Pbench test-compile exec:exec -Dbench=CatalogExport -Dbench.args="-p format=parquet"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class CatalogExportBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+    private static final int AUTHORS = 100_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"csv", "jsonl", "parquet"})
+    public String format;
+
+    @Param({"1", "4"})
+    public int partitions;
+
+    @Param({"none", "gzip"})
+    public String compression;
+
+    private final Path workDir = Paths.get("target", "export-bench");
+    private ConfigurableApplicationContext context;
+    private CatalogExporter exporter;
+    private ExportReport last;
+
+    @Setup
+    public void setUp() throws Exception {
+        Files.createDirectories(workDir);
+        boolean seeded = Files.exists(workDir.resolve("db.mv.db"));
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:file:" + workDir.toAbsolutePath().resolve("db")
+                                + ";CACHE_SIZE=16384",
+                        "--spring.jpa.hibernate.ddl-auto=" + (seeded ? "none" : "create"),
+                        "--gutendx.bloom.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        exporter = context.getBean(CatalogExporter.class);
+        if (!seeded) {
+            seed(context.getBean(JdbcTemplate.class));
+        }
+    }
+
+    @Benchmark
+    public ExportReport export() throws Exception {
+        Path out = workDir.resolve("out");
+        clean(out);
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+        last = exporter.export(ExportRequest.parse(out + " format=" + format
+                + " partitions=" + partitions + " compression=" + compression));
+        return last;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long peak = heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%n%s/%d/%s: %s, pico de heap %d MB%n",
+                format, partitions, compression, last, peak / (1024 * 1024));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int i = 1; i <= AUTHORS; i++) {
+            rows.add(new Object[] {"Author " + i + ", Name", "author " + i + ",name", "Author " + i, "Name",
+                    i % 10 == 0 ? null : 1800 + i % 150, i % 10 == 0 ? null : 1870 + i % 150, now});
+            if (rows.size() == BATCH) {
+                jdbc.batchUpdate("INSERT INTO author (gutendx_author_name, name_key, last_name, first_name, "
+                        + "birth_year, death_year, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        for (int i = 1; i <= BOOKS; i++) {
+            rows.add(new Object[] {i, "Book " + i + ", \"vol. " + i % 7 + "\"", i % 3 == 0 ? "es" : "en", i % 5000, now});
+            if (rows.size() == BATCH) {
+                jdbc.batchUpdate("INSERT INTO book (gutendx_book_id, title, language_code, download_count, created_at) "
+                        + "VALUES (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        for (int i = 1; i <= BOOKS; i++) {
+            rows.add(new Object[] {i, i % AUTHORS + 1});
+            if (i % 3 == 0) {
+                rows.add(new Object[] {i, (i + AUTHORS / 2) % AUTHORS + 1});
+            }
+            if (rows.size() >= BATCH) {
+                jdbc.batchUpdate("INSERT INTO book_author (book_id, author_id) VALUES (?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO book_author (book_id, author_id) VALUES (?, ?)", rows);
+    }
+
+    private static void clean(Path directory) throws Exception {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.util.BookGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grafo de relacionados con 600k libros, 200k autores y ~1M aristas. Los autores siguen una
+ * distribución sesgada (pocos autores con miles de libros, como "Anonymous" o "Various").
+ * Imprime el tiempo de construcción, que incluye precalcular los relacionados de todos los libros.
+ * mvn -Pbench test-compile exec:exec -Dbench=CatalogGraph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class CatalogGraphBenchmark {
+
+    private static final int BOOKS = 600_000;
+    private static final int AUTHORS = 200_000;
+
+    @Param({"10"})
+    public int topK;
+
+    @Param({"20000"})
+    public int maxVisits;
+
+    private BookGraph graph;
+    private Random random;
+    private long nextBookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(7);
+        BookGraph.Builder builder = BookGraph.builder(BOOKS, BOOKS * 2);
+        for (int book = 1; book <= BOOKS; book++) {
+            builder.book(book, random.nextInt(50_000), (short) (random.nextInt(10) < 7 ? 1 : 2 + random.nextInt(8)));
+            long first = author();
+            builder.link(book, first);
+            if (random.nextInt(3) < 2) {
+                long second = author();
+                if (second != first) {
+                    builder.link(book, second);
+                }
+            }
+        }
+
+        long started = System.nanoTime();
+        graph = builder.build(topK, maxVisits);
+        System.out.printf("%nGrafo: %d libros, %d autores, %d aristas, construido en %d ms%n",
+                graph.bookCount(), graph.authorCount(), graph.edgeCount(), (System.nanoTime() - started) / 1_000_000);
+        nextBookId = BOOKS + 1;
+    }
+
+    @Benchmark
+    public long[] related() {
+        return graph.related(1 + random.nextInt(BOOKS));
+    }
+
+    @Benchmark
+    public long[] coAuthorBooks() {
+        return graph.coAuthorBooks(1 + random.nextInt(BOOKS), 20);
+    }
+
+    @Benchmark
+    public void putBook() {
+        long first = author();
+        long second = author();
+        long[] authors = random.nextInt(3) < 2 && second != first ? new long[] {first, second} : new long[] {first};
+        graph.putBook(nextBookId++, random.nextInt(50_000), (short) 1, authors);
+    }
+
+    // P(autor < k) = sqrt(k / AUTHORS): el autor 1 tiene ~2k libros, la mayoría 1 o 2
+    private long author() {
+        double r = random.nextDouble();
+        return 1 + (long) (AUTHORS * r * r);
+    }
+}
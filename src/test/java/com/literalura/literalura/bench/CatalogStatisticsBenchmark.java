@@ -0,0 +1,65 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.util.CatalogColumns;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas del catálogo sobre 10M libros y 3M autores en columnas: una reducción fork-join
+ * completa con 1, 2, 4 y 8 hilos (el escalado depende de los núcleos de la máquina). Las
+ * descargas siguen una distribución sesgada y los idiomas se reparten como en Gutenberg (casi
+ * todo en inglés). Imprime el tiempo de carga de las columnas.
+ * mvn -Pbench test-compile exec:exec -Dbench=CatalogStatistics
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogStatisticsBenchmark {
+
+    private static final int BOOKS = 10_000_000;
+    private static final int AUTHORS = 3_000_000;
+    private static final String[] LANGUAGES = {"en", "en", "en", "en", "en", "en", "fr", "de", "fi", "es", "nl", "it",
+            "pt", "zh", "la", "sv", "eo", "tl", "ca", "da"};
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private CatalogColumns columns;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        long started = System.nanoTime();
+        columns = new CatalogColumns(BOOKS, AUTHORS);
+        for (long book = 1; book <= BOOKS; book++) {
+            // Pocos libros con cientos de miles de descargas, la mayoría con decenas
+            int downloads = (int) Math.min(Integer.MAX_VALUE, Math.exp(random.nextDouble() * random.nextDouble() * 13));
+            columns.putBook(book, downloads, LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        }
+        for (long author = 1; author <= AUTHORS; author++) {
+            Integer birth = random.nextInt(4) == 0 ? null : 1950 - (int) (random.nextDouble() * random.nextDouble() * 2500);
+            Integer death = birth == null || random.nextInt(3) == 0 ? null : birth + 20 + random.nextInt(75);
+            columns.putAuthor(author, birth, death);
+        }
+        System.out.printf("%nColumnas: %d libros y %d autores cargados en %d ms%n",
+                columns.bookCount(), columns.authorCount(), (System.nanoTime() - started) / 1_000_000);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public CatalogColumns.Totals reduce() {
+        return columns.reduce(pool);
+    }
+}
@@ -0,0 +1,120 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.service.BookService;
+import com.literalura.literalura.PostgresCatalog;
+import com.literalura.literalura.SyntheticCatalog;
+import com.literalura.literalura.SyntheticCatalogLoader;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput de 64 clientes concurrentes sobre BookService según el tamaño del pool, con el
+ * perfil concurrent (pools acotados por semáforo, lecturas a la réplica): una página de
+ * getBooksByLanguages y un alta con saveNewBook. Cada tamaño arranca un contexto propio con
+ * primario y réplica de ese tamaño. Por defecto H2 en memoria; con -Dgutendx.pg.url corre
+ * contra un PostgreSQL descartable (como PartitionPruningTest), que es donde el tamaño del pool
+ * pesa de verdad.
+ * mvn -Pbench test-compile exec:exec -Dbench=ConnectionPool
+ *     [-Dbench.args="-jvmArgsAppend -Dgutendx.pg.url=jdbc:postgresql://localhost:5432/gutendx_test"]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(64)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int PAGE = 20;
+    private static final List<List<String>> LANGUAGES = List.of(List.of("en"), List.of("fr", "de"),
+            List.of("es"), List.of("fi", "nl", "it"));
+
+    @Param({"2", "4", "8", "16", "32"})
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private SyntheticCatalog catalog;
+    private final AtomicLong nextId = new AtomicLong();
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        String[] pools = {
+                "--spring.profiles.active=test,concurrent",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                "--spring.datasource.hikari.connection-timeout=30000",
+                "--gutendx.datasource.replica.hikari.maximum-pool-size=" + poolSize,
+                "--gutendx.datasource.replica.hikari.minimum-idle=" + poolSize,
+                "--gutendx.datasource.replica.hikari.connection-timeout=30000"};
+        String url = System.getProperty("gutendx.pg.url", "");
+        SyntheticCatalog seeded = new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, CATALOG_SIZE);
+        if (url.isBlank()) {
+            context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(concat(pools, "--gutendx.bloom.enabled=false",
+                            "--gutendx.console.mode=none",
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.gutendx=WARN",
+                            "--logging.level.org.hibernate.SQL=WARN",
+                            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+            SyntheticCatalogLoader.load(seeded, context);
+        } else {
+            context = PostgresCatalog.start(url, System.getProperty("gutendx.pg.user", "gutendx_user"),
+                    System.getProperty("gutendx.pg.password", "gutendx_password"), pools);
+            PostgresCatalog.seed(seeded, context);
+        }
+        bookService = context.getBean(BookService.class);
+
+        // Las altas siguen después del último libro guardado (en PostgreSQL quedan de corridas anteriores)
+        Long max = context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(gutendx_book_id) FROM book", Long.class);
+        firstId = max == null ? CATALOG_SIZE : max;
+        nextId.set(firstId);
+        catalog = seeded.resized(Integer.MAX_VALUE - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HikariDataSource primary = context.getBean("primaryPool", HikariDataSource.class);
+        HikariDataSource replica = context.getBean("replicaPool", HikariDataSource.class);
+        System.out.printf("%npool %d: %d altas; conexiones primario %d, réplica %d%n", poolSize,
+                nextId.get() - firstId, primary.getHikariPoolMXBean().getTotalConnections(),
+                replica.getHikariPoolMXBean().getTotalConnections());
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> read() {
+        List<String> codes = LANGUAGES.get(ThreadLocalRandom.current().nextInt(LANGUAGES.size()));
+        // Una página a una profundidad al azar, como quien sigue un listado
+        long before = ThreadLocalRandom.current().nextLong(CATALOG_SIZE / 2, CATALOG_SIZE + 1L);
+        return bookService.getBooksByLanguages(codes, before, PAGE);
+    }
+
+    @Benchmark
+    public Book write() {
+        return bookService.saveNewBook(catalog.book(nextId.incrementAndGet()));
+    }
+
+    private static String[] concat(String[] first, String... rest) {
+        String[] all = new String[first.length + rest.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(rest, 0, all, first.length, rest.length);
+        return all;
+    }
+}
@@ -0,0 +1,165 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.util.DownloadSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historial de descargas de 70k libros con una muestra diaria durante un año, con las tablas
+ * de V7 en H2. Imprime los bytes por libro y año; mide el top 20 de la ventana de 7 días por
+ * índice sobre download_trend, el mismo top recorriendo todos los bloques (lo que el agregado
+ * evita), el historial de un libro y agregar la muestra del día a los 70k bloques.
+ * mvn -Pbench test-compile exec:exec -Dbench=DownloadHistory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class DownloadHistoryBenchmark {
+
+    private static final int BOOKS = 70_000;
+    private static final int DAYS = 365;
+    private static final int FIRST_DAY = (int) LocalDate.of(2025, 1, 1).toEpochDay();
+    private static final int LAST_DAY = FIRST_DAY + DAYS - 1;
+
+    private Connection connection;
+    private PreparedStatement topByIndex;
+    private PreparedStatement history;
+    private byte[][] blocks;
+    private int[] lastCounts;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        random = new Random(11);
+        blocks = new byte[BOOKS][];
+        lastCounts = new int[BOOKS];
+        long bytes = 0;
+        for (int book = 0; book < BOOKS; book++) {
+            // Pocos libros muy descargados; cada día una variación de hasta ±2% y alguna racha
+            double r = random.nextDouble();
+            int count = (int) (20 + 200_000 * r * r * r * r);
+            double drift = (random.nextDouble() - 0.45) * 0.01;
+            byte[] block = DownloadSeries.start(FIRST_DAY, count);
+            for (int day = FIRST_DAY + 1; day <= LAST_DAY; day++) {
+                int next = Math.max(0, (int) (count * (1 + drift + (random.nextDouble() - 0.5) * 0.04)));
+                block = DownloadSeries.append(block, day - 1, count, day, next);
+                count = next;
+            }
+            blocks[book] = block;
+            lastCounts[book] = count;
+            bytes += block.length;
+        }
+        System.out.printf("%n%d libros x %d días: %d KB de series, %.0f bytes por libro y año (%.2f por muestra)%n",
+                BOOKS, DAYS, bytes / 1024, (double) bytes / BOOKS, (double) bytes / BOOKS / DAYS);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:downloads-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE download_block (id BIGSERIAL PRIMARY KEY, book_id INTEGER NOT NULL, "
+                    + "block_year SMALLINT NOT NULL, first_day INTEGER NOT NULL, last_day INTEGER NOT NULL, "
+                    + "last_count INTEGER NOT NULL, samples INTEGER NOT NULL, data BYTEA NOT NULL, "
+                    + "version INTEGER NOT NULL DEFAULT 0, UNIQUE (book_id, block_year))");
+            statement.execute("CREATE TABLE download_trend (book_id INTEGER PRIMARY KEY, sample_day INTEGER NOT NULL, "
+                    + "download_count INTEGER NOT NULL, delta_7d INTEGER, version INTEGER NOT NULL DEFAULT 0)");
+            // H2 no tiene índices parciales: el de V7 agrega WHERE delta_7d IS NOT NULL
+            statement.execute("CREATE INDEX idx_download_trend_7d ON download_trend(delta_7d DESC)");
+        }
+        long started = System.nanoTime();
+        try (PreparedStatement insertBlock = connection.prepareStatement("INSERT INTO download_block "
+                + "(book_id, block_year, first_day, last_day, last_count, samples, data) VALUES (?, 2025, ?, ?, ?, ?, ?)");
+             PreparedStatement insertTrend = connection.prepareStatement(
+                     "INSERT INTO download_trend (book_id, sample_day, download_count, delta_7d) VALUES (?, ?, ?, ?)")) {
+            for (int book = 0; book < BOOKS; book++) {
+                insertBlock.setInt(1, book + 1);
+                insertBlock.setInt(2, FIRST_DAY);
+                insertBlock.setInt(3, LAST_DAY);
+                insertBlock.setInt(4, lastCounts[book]);
+                insertBlock.setInt(5, DAYS);
+                insertBlock.setBytes(6, blocks[book]);
+                insertBlock.addBatch();
+                insertTrend.setInt(1, book + 1);
+                insertTrend.setInt(2, LAST_DAY);
+                insertTrend.setInt(3, lastCounts[book]);
+                insertTrend.setInt(4, lastCounts[book] - DownloadSeries.countAt(blocks[book], LAST_DAY - 7, 0));
+                insertTrend.addBatch();
+                if (book % 1000 == 999) {
+                    insertBlock.executeBatch();
+                    insertTrend.executeBatch();
+                }
+            }
+            insertBlock.executeBatch();
+            insertTrend.executeBatch();
+        }
+        System.out.printf("Carga en H2: %d ms%n", (System.nanoTime() - started) / 1_000_000);
+
+        topByIndex = connection.prepareStatement("SELECT book_id, download_count, delta_7d FROM download_trend "
+                + "WHERE delta_7d IS NOT NULL ORDER BY delta_7d DESC LIMIT 20");
+        history = connection.prepareStatement("SELECT data FROM download_block WHERE book_id = ? ORDER BY block_year");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Benchmark
+    public long topMovers7dByIndex() throws Exception {
+        long sum = 0;
+        try (ResultSet rs = topByIndex.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getInt(3);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int topMovers7dByScan() {
+        // Sin el agregado: decodificar los 70k bloques (ya en memoria, sin contar la lectura de la BD)
+        PriorityQueue<long[]> top = new PriorityQueue<>((a, b) -> Long.compare(a[1], b[1]));
+        for (int book = 0; book < BOOKS; book++) {
+            long delta = lastCounts[book] - DownloadSeries.countAt(blocks[book], LAST_DAY - 7, 0);
+            top.add(new long[] {book, delta});
+            if (top.size() > 20) {
+                top.poll();
+            }
+        }
+        return top.size();
+    }
+
+    @Benchmark
+    public int bookHistory() throws Exception {
+        history.setInt(1, 1 + random.nextInt(BOOKS));
+        int[] samples = {0};
+        try (ResultSet rs = history.executeQuery()) {
+            while (rs.next()) {
+                DownloadSeries.forEach(rs.getBytes(1), (day, count) -> samples[0]++);
+            }
+        }
+        return samples[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long appendDailySampleToAllBooks() {
+        // Sólo la codificación de la muestra diaria; la escritura va en lotes de la BD
+        long bytes = 0;
+        for (int book = 0; book < BOOKS; book++) {
+            bytes += DownloadSeries.append(blocks[book], LAST_DAY, lastCounts[book], LAST_DAY + 1,
+                    lastCounts[book] + 3).length;
+        }
+        return bytes;
+    }
+}
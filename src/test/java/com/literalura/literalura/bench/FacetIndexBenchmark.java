@@ -0,0 +1,107 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.util.FacetIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice de facetas con 1M de libros: 20 idiomas (el 70% en inglés), 5k temas y 300
+ * estanterías con popularidad sesgada, 200k autores con años de vida. Mide el conteo de
+ * "español + ciencia ficción + autor vivo en 1900", el top 20 de temas de ese filtro y la
+ * primera página de ids. Imprime el tiempo de carga, el tamaño y el costo en frío de armar
+ * el bitmap de "vivo en el año X".
+ * mvn -Pbench test-compile exec:exec -Dbench=FacetIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class FacetIndexBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+    private static final int AUTHORS = 200_000;
+    private static final int LANGUAGES = 20;
+    private static final int SUBJECTS = 5_000;
+    private static final int BOOKSHELVES = 300;
+
+    private static final short ENGLISH = 1;
+    private static final short SPANISH = 2;
+    private static final int SCIENCE_FICTION = 1;
+    private static final int SHELF_BASE = 100_000;
+
+    private FacetIndex index;
+    private List<Integer> subjectIds;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(7);
+        long started = System.nanoTime();
+        index = new FacetIndex(BOOKS, AUTHORS);
+        for (int author = 1; author <= AUTHORS; author++) {
+            int birth = 1500 + random.nextInt(480);
+            int death = birth + 20 + random.nextInt(70);
+            index.putAuthor(author, birth, death > 2025 ? null : death);
+        }
+        for (int book = 1; book <= BOOKS; book++) {
+            index.addBook(book);
+            index.addLanguage(book, random.nextInt(10) < 7 ? ENGLISH : (short) (2 + random.nextInt(LANGUAGES - 1)));
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                index.addFacet(book, skewed(SUBJECTS));
+            }
+            if (random.nextBoolean()) {
+                index.addFacet(book, SHELF_BASE + skewed(BOOKSHELVES));
+            }
+            index.addAuthor(book, skewed(AUTHORS));
+        }
+        index.optimize();
+        System.out.printf("%nÍndice: %d libros, %d facetas, %d KB, cargado en %d ms%n",
+                index.bookCount(), index.facetCount(), index.sizeInBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+
+        started = System.nanoTime();
+        long alive = index.count(new FacetIndex.Filter().aliveIn(1900));
+        System.out.printf("Vivos en 1900 en frío: %d libros en %d µs%n", alive, (System.nanoTime() - started) / 1_000);
+
+        subjectIds = new ArrayList<>();
+        for (int subject = 1; subject <= SUBJECTS; subject++) {
+            subjectIds.add(subject);
+        }
+    }
+
+    @Benchmark
+    public long countSpanishScienceFictionAlive1900() {
+        return index.count(new FacetIndex.Filter().languages(SPANISH).anyOf(SCIENCE_FICTION).aliveIn(1900));
+    }
+
+    @Benchmark
+    public long countEnglishInShelf() {
+        return index.count(new FacetIndex.Filter().languages(ENGLISH).anyOf(SHELF_BASE + 1 + random.nextInt(20)));
+    }
+
+    @Benchmark
+    public List<FacetIndex.Count> topSubjectsForSpanishAlive1900() {
+        return index.facetCounts(new FacetIndex.Filter().languages(SPANISH).aliveIn(1900), subjectIds, 20);
+    }
+
+    @Benchmark
+    public List<FacetIndex.Count> languageCountsForSubject() {
+        return index.languageCounts(new FacetIndex.Filter().anyOf(1 + random.nextInt(50)));
+    }
+
+    @Benchmark
+    public long[] firstPageScienceFiction() {
+        return index.bookIds(new FacetIndex.Filter().anyOf(SCIENCE_FICTION).aliveIn(1900), 20);
+    }
+
+    // P(valor < k) = sqrt(k / n): los primeros valores concentran la mayoría de los libros
+    private int skewed(int n) {
+        double r = random.nextDouble();
+        return 1 + (int) (n * r * r);
+    }
+}
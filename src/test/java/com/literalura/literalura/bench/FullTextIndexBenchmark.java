@@ -0,0 +1,196 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.fulltext.FullTextIndex;
+import com.gutendx.fulltext.FullTextIndexer;
+import com.gutendx.fulltext.IndexReport;
+import com.literalura.literalura.SyntheticCatalog;
+import com.literalura.literalura.SyntheticCatalogLoader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexa un corpus sintético de .txt con cabecera y licencia de Gutenberg (palabras con
+ * frecuencias de Zipf y unas frases fijas repetidas) y mide búsquedas de una palabra, de dos
+ * palabras obligatorias y de frases. La indexación se hace una vez en el setup e imprime los MB/s;
+ * el modo SampleTime de JMH da el p99 de las búsquedas. El corpus queda en target y se reutiliza.
+ * mvn -Pbench test-compile exec:exec -Dbench=FullTextIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FullTextIndexBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int PHRASES = 200;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000"})
+    public int books;
+
+    @Param({"128"})
+    public int kilobytesPerBook;
+
+    private final Path workDir = Paths.get("target", "fulltext-bench");
+    private ConfigurableApplicationContext context;
+    private FullTextIndex index;
+    private String[] terms;
+    private String[] conjunctions;
+    private String[] phrases;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        String[] words = new String[VOCABULARY];
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            words[rank] = word(rank);
+        }
+        String[] fixedPhrases = new String[PHRASES];
+        SplittableRandom random = new SplittableRandom(SyntheticCatalog.DEFAULT_SEED);
+        for (int i = 0; i < PHRASES; i++) {
+            fixedPhrases[i] = words[100 + random.nextInt(5_000)] + " " + words[100 + random.nextInt(5_000)]
+                    + " " + words[100 + random.nextInt(5_000)];
+        }
+        Path corpus = corpus(words, fixedPhrases);
+
+        Path indexDir = workDir.resolve("index");
+        FileSystemUtils.deleteRecursively(indexDir);
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:fulltext-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        "--gutendx.fulltext.dir=" + indexDir.toAbsolutePath(),
+                        "--gutendx.fulltext.source-dir=" + corpus.toAbsolutePath(),
+                        "--gutendx.fulltext.use-asset-store=false",
+                        "--gutendx.bloom.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        SyntheticCatalogLoader.load(new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, books), context);
+        index = context.getBean(FullTextIndex.class);
+
+        IndexReport report = context.getBean(FullTextIndexer.class).index(List.of());
+        index.awaitMerges();
+        System.out.printf("%nIndexación: %s%nÍndice tras las mezclas: %s%n", report, index.stats());
+
+        // Palabras de frecuencia media: ni las que están en todos los libros ni las que no están en ninguno
+        terms = new String[QUERIES];
+        conjunctions = new String[QUERIES];
+        phrases = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            terms[i] = words[50 + random.nextInt(2_000)];
+            conjunctions[i] = words[random.nextInt(200)] + " " + words[200 + random.nextInt(5_000)];
+            phrases[i] = "\"" + fixedPhrases[random.nextInt(PHRASES)] + "\"";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nÍndice: %s%n", index.stats());
+        context.close();
+    }
+
+    @Benchmark
+    public List<FullTextIndex.Hit> term() {
+        return index.search(terms[next++ & (QUERIES - 1)], "en", 10);
+    }
+
+    @Benchmark
+    public List<FullTextIndex.Hit> conjunction() {
+        return index.search(conjunctions[next++ & (QUERIES - 1)], "en", 10);
+    }
+
+    @Benchmark
+    public List<FullTextIndex.Hit> phrase() {
+        return index.search(phrases[next++ & (QUERIES - 1)], "en", 10);
+    }
+
+    private Path corpus(String[] words, String[] fixedPhrases) throws IOException {
+        Path corpus = workDir.resolve("corpus-" + books + "-" + kilobytesPerBook);
+        Path done = corpus.resolve(".done");
+        if (Files.exists(done)) {
+            return corpus;
+        }
+        Files.createDirectories(corpus);
+        double[] cumulative = zipf(VOCABULARY);
+        long started = System.nanoTime();
+        for (long id = 1; id <= books; id++) {
+            SplittableRandom random = new SplittableRandom(SyntheticCatalog.DEFAULT_SEED * 31 + id);
+            try (BufferedWriter out = Files.newBufferedWriter(corpus.resolve(id + ".txt"), StandardCharsets.UTF_8)) {
+                out.write("The Project Gutenberg eBook of Book " + id + "\n\nThis eBook is for the use of anyone "
+                        + "anywhere in the United States and most other parts of the world at no cost.\n\n"
+                        + "*** START OF THE PROJECT GUTENBERG EBOOK BOOK " + id + " ***\n\n");
+                long written = 0;
+                while (written < kilobytesPerBook * 1024L) {
+                    StringBuilder paragraph = new StringBuilder(512);
+                    int length = 40 + random.nextInt(80);
+                    for (int i = 0; i < length; i++) {
+                        if (random.nextInt(200) == 0) {
+                            paragraph.append(fixedPhrases[random.nextInt(PHRASES)]);
+                        } else {
+                            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+                            paragraph.append(words[Math.min(VOCABULARY - 1, rank < 0 ? -rank - 1 : rank)]);
+                        }
+                        paragraph.append(i % 12 == 11 ? ". " : " ");
+                    }
+                    paragraph.append("\n\n");
+                    out.write(paragraph.toString());
+                    written += paragraph.length();
+                }
+                out.write("\n*** END OF THE PROJECT GUTENBERG EBOOK BOOK " + id + " ***\n\n"
+                        + "Updated editions will replace the previous one. License terms follow.\n");
+            }
+        }
+        Files.createFile(done);
+        System.out.printf("%nCorpus: %d libros de %d KB generados en %d ms%n",
+                books, kilobytesPerBook, (System.nanoTime() - started) / 1_000_000);
+        return corpus;
+    }
+
+    /** Frecuencias acumuladas de Zipf con s = 1, normalizadas a 1. */
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    /** Una palabra pronunciable y distinta por rango: las frecuentes son cortas. */
+    private static String word(int rank) {
+        String consonants = "bcdfghjklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder(12);
+        int value = rank;
+        do {
+            word.append(consonants.charAt(value % consonants.length()));
+            value /= consonants.length();
+            word.append(vowels.charAt(value % vowels.length()));
+            value /= vowels.length();
+        } while (value > 0);
+        return word.toString();
+    }
+}
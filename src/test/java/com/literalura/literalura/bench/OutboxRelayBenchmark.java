@@ -0,0 +1,131 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.outbox.OutboxRelay;
+import com.gutendx.outbox.RelayReport;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega 200k eventos del outbox (payloads de libro de ~400 bytes) desde H2 en memoria a un
+ * archivo JSON Lines con fsync por lote, o a un webhook local que descarta el cuerpo. Cada
+ * iteración agrega 200k eventos nuevos y mide una pasada del relay; imprime los eventos/s.
+ * mvn -Pbench test-compile exec:exec -Dbench=OutboxRelay
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class OutboxRelayBenchmark {
+
+    private static final int EVENTS = 200_000;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"file", "webhook"})
+    public String sink;
+
+    @Param({"500", "5000"})
+    public int batchSize;
+
+    private final Path workDir = Paths.get("target", "outbox-bench");
+    private HttpServer webhook;
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private OutboxRelay relay;
+    private long nextAggregate;
+    private RelayReport last;
+
+    @Setup
+    public void setUp() throws Exception {
+        Files.createDirectories(workDir);
+        Path file = workDir.resolve("changes-" + batchSize + ".jsonl");
+        Files.deleteIfExists(file);
+        webhook = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        webhook.createContext("/changes", exchange -> {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        webhook.start();
+
+        String target = sink.equals("file")
+                ? "--gutendx.outbox.file=" + file.toAbsolutePath()
+                : "--gutendx.outbox.webhook-url=http://127.0.0.1:" + webhook.getAddress().getPort() + "/changes";
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:outbox-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        target,
+                        "--gutendx.outbox.batch-size=" + batchSize,
+                        "--gutendx.bloom.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        jdbc = context.getBean(JdbcTemplate.class);
+        relay = context.getBean(OutboxRelay.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void append() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < EVENTS; i++) {
+            long id = ++nextAggregate;
+            rows.add(new Object[] {"BOOK", id, "BOOK_CREATED", payload(id), now});
+            if (rows.size() == INSERT_BATCH) {
+                insert(rows);
+            }
+        }
+        insert(rows);
+    }
+
+    @Benchmark
+    public RelayReport drain() {
+        last = relay.drain().get(0);
+        return last;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%s/%d: %s%n", sink, batchSize, last);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        webhook.stop(0);
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO outbox_event (aggregate_type, aggregate_id, event_type, payload, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private static String payload(long id) {
+        return "{\"id\":" + id + ",\"gutendx_id\":" + id + ",\"title\":\"The Adventures of Book " + id
+                + "\",\"language\":\"en\",\"languages\":[\"en\"],\"download_count\":" + (id % 5000)
+                + ",\"authors\":[{\"id\":" + (id % 9000 + 1) + ",\"name\":\"Author " + (id % 9000)
+                + ", Some\"}],\"subjects\":[\"Adventure stories\",\"Fiction -- History\"],"
+                + "\"bookshelves\":[\"Best Books Ever Listings\"],\"content_hash\":\"" + Long.toHexString(id * 0x9E3779B97F4A7C15L)
+                + Long.toHexString(id * 0xC2B2AE3D27D4EB4FL) + "\"}";
+    }
+}
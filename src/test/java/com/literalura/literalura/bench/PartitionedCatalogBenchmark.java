@@ -0,0 +1,96 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.entity.Book;
+import com.gutendx.repository.BookRepository;
+import com.gutendx.service.BookService;
+import com.literalura.literalura.PostgresCatalog;
+import com.literalura.literalura.SyntheticCatalog;
+import com.literalura.literalura.SyntheticCatalogLoader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * book y book_author particionadas (V10) con 10M libros en PostgreSQL: altas por BookService y
+ * búsquedas por id (una partición), por id de Gutendx (todas) y libros de un autor (una
+ * partición de book_author). La carga inicial por JDBC imprime las filas/s; queda en la BD y se
+ * reutiliza mientras el catálogo no cambie. Necesita un PostgreSQL 12+ descartable:
+ * mvn -Pbench test-compile exec:exec -Dbench=PartitionedCatalog
+ *     -Dbench.args="-p url=jdbc:postgresql://localhost:5432/gutendx_bench -p user=... -p password=..."
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PartitionedCatalogBenchmark {
+
+    @Param({""})
+    public String url;
+
+    @Param({"gutendx_user"})
+    public String user;
+
+    @Param({"gutendx_password"})
+    public String password;
+
+    @Param({"10000000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private SyntheticCatalog published;
+    private long authors;
+    private long nextFresh;
+    private final SplittableRandom random = new SplittableRandom(SyntheticCatalog.DEFAULT_SEED);
+
+    @Setup
+    public void setUp() {
+        if (url.isBlank()) {
+            throw new IllegalStateException("Falta la BD: -p url=jdbc:postgresql://... (se vacía el catálogo)");
+        }
+        context = PostgresCatalog.start(url, user, password, "--gutendx.stats.engine=sql");
+        SyntheticCatalog catalog = new SyntheticCatalog(SyntheticCatalog.DEFAULT_SEED, books);
+        SyntheticCatalogLoader.Loaded loaded = PostgresCatalog.seed(catalog, context);
+        System.out.printf("%nCatálogo de %d libros: %s%n", books, loaded != null ? loaded : "ya cargado");
+
+        // Las altas siguen desde el último id de Gutendx, también entre corridas
+        nextFresh = context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(gutendx_book_id) FROM book", Long.class);
+        published = catalog.resized((int) nextFresh + 1_000_000);
+        authors = catalog.authorCount();
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book insert() {
+        return bookService.saveNewBook(published.book(++nextFresh));
+    }
+
+    @Benchmark
+    public Optional<Book> findById() {
+        return bookRepository.findById(1 + random.nextLong(books));
+    }
+
+    @Benchmark
+    public Optional<Book> findByGutendxBookId() {
+        return bookRepository.findByGutendxBookId(1 + random.nextLong(books));
+    }
+
+    @Benchmark
+    public List<Book> booksOfAuthor() {
+        return bookRepository.findByAuthorIdOrderByDownloadCountDesc(1 + random.nextLong(authors));
+    }
+}
@@ -0,0 +1,201 @@
+package com.literalura.literalura.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tiempo hasta el menú de la consola en cada modo de arranque. Lanza la app en JVMs nuevas
+ * contra una BD H2 en disco y mide desde el arranque del proceso hasta que se imprime el
+ * encabezado del menú. Las migraciones SQL son de PostgreSQL, así que el esquema lo crea
+ * Hibernate y Flyway lo toma como línea base en la última versión (el caso "sin cambios").
+ *
+ *   mvn -Pstartup-bench -DskipTests package exec:exec [-Dstartup.runs=5]
+ *   mvn -Pstartup-bench,aot -DskipTests package exec:exec   (agrega las variantes AOT)
+ */
+public class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.gutendx.GutendxConsoleApplication";
+    private static final String MENU_HEADER = "=== GUTENDX CONSOLE APP ===";
+    private static final String AOT_INITIALIZER = "com/gutendx/GutendxConsoleApplication__ApplicationContextInitializer.class";
+
+    private final Path workDir = Paths.get("target", "startup-bench");
+    private final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private String classPath;
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(workDir);
+        classPath = jarredClassPath();
+        boolean aot = hasAotClasses();
+
+        // Primera corrida: crea el esquema; la siguiente registra la línea base de Flyway
+        timeToMenu(List.of(), List.of("--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=create"));
+        timeToMenu(List.of(), List.of());
+
+        List<String> fast = List.of("--spring.profiles.active=fast");
+        report("default", List.of(), List.of());
+        report("fast", List.of(), fast);
+        report("fast + AppCDS", cds("fast.jsa", List.of(), fast), fast);
+        if (aot) {
+            List<String> aotFlags = List.of("-Dspring.aot.enabled=true");
+            report("fast + AOT", aotFlags, fast);
+            report("fast + AOT + AppCDS", cds("fast-aot.jsa", aotFlags, fast), fast);
+        } else {
+            System.out.println("(sin clases AOT: correr con -Paot para medir esas variantes)");
+        }
+    }
+
+    private void report(String name, List<String> jvmFlags, List<String> appArgs) throws Exception {
+        // Una corrida de calentamiento para la caché de disco
+        timeToMenu(jvmFlags, appArgs);
+
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToMenu(jvmFlags, appArgs);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-22s mediana %5d ms   mín %5d ms   máx %5d ms%n",
+                name, millis[runs / 2], millis[0], millis[runs - 1]);
+    }
+
+    private List<String> cds(String archiveName, List<String> jvmFlags, List<String> appArgs) throws Exception {
+        Path archive = workDir.resolve(archiveName);
+        Files.deleteIfExists(archive);
+
+        // Corrida de entrenamiento: refresca el contexto, sale y vuelca las clases cargadas
+        List<String> training = new ArrayList<>(jvmFlags);
+        training.add("-XX:ArchiveClassesAtExit=" + archive);
+        training.add("-Dspring.context.exit=onRefresh");
+        Process process = start(training, appArgs);
+        process.getInputStream().transferTo(OutputStream.nullOutputStream());
+        process.waitFor(5, TimeUnit.MINUTES);
+
+        List<String> flags = new ArrayList<>(jvmFlags);
+        flags.add("-XX:SharedArchiveFile=" + archive);
+        return flags;
+    }
+
+    private long timeToMenu(List<String> jvmFlags, List<String> appArgs) throws Exception {
+        long started = System.nanoTime();
+        Process process = start(jvmFlags, appArgs);
+        long elapsed = -1;
+        List<String> output = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains(MENU_HEADER)) {
+                    elapsed = (System.nanoTime() - started) / 1_000_000;
+                    // Opción 0: salir
+                    process.getOutputStream().write("0\n".getBytes(StandardCharsets.UTF_8));
+                    process.getOutputStream().flush();
+                    reader.transferTo(Writer.nullWriter());
+                    break;
+                }
+                output.add(line);
+            }
+        }
+        if (!process.waitFor(1, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+        }
+        if (elapsed < 0) {
+            output.stream().skip(Math.max(0, output.size() - 40)).forEach(System.err::println);
+            throw new IllegalStateException("La app terminó sin mostrar el menú");
+        }
+        return elapsed;
+    }
+
+    private Process start(List<String> jvmFlags, List<String> appArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-Xshare:auto");
+        command.addAll(jvmFlags);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(MAIN_CLASS);
+        command.add("--spring.datasource.url=jdbc:h2:file:" + workDir.toAbsolutePath().resolve("db")
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        command.add("--spring.datasource.username=sa");
+        command.add("--spring.datasource.password=");
+        command.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        command.add("--spring.flyway.baseline-version=" + latestMigration());
+        command.add("--gutendx.bloom.snapshot=" + workDir.resolve("bloom.snapshot"));
+        command.addAll(appArgs);
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    /**
+     * CDS solo archiva clases que vienen de JARs: empaquetar target/classes y dejar afuera
+     * los directorios de test.
+     */
+    private String jarredClassPath() throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            Path path = Paths.get(entry);
+            if (!Files.isDirectory(path)) {
+                entries.add(entry);
+            } else if (path.endsWith(Paths.get("target", "classes"))) {
+                entries.add(0, jar(path, workDir.resolve("app.jar")).toString());
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static Path jar(Path directory, Path target) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(target));
+             Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(file -> !file.equals(directory)).sorted().collect(Collectors.toList())) {
+                String name = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                // Las entradas de directorio hacen falta para el escaneo de componentes y migraciones
+                if (Files.isDirectory(file)) {
+                    out.putNextEntry(new JarEntry(name + "/"));
+                } else {
+                    out.putNextEntry(new JarEntry(name));
+                    Files.copy(file, out);
+                }
+                out.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    private static String latestMigration() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("target", "classes", "db", "migration"))) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("V\\d+__.*"))
+                    .map(name -> Integer.valueOf(name.substring(1, name.indexOf("__"))))
+                    .max(Integer::compare)
+                    .map(String::valueOf)
+                    .orElseThrow();
+        }
+    }
+
+    private boolean hasAotClasses() {
+        return Files.exists(Paths.get("target", "classes").resolve(AOT_INITIALIZER));
+    }
+}
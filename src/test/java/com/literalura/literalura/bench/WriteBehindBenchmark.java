@@ -0,0 +1,89 @@
+package com.literalura.literalura.bench;
+
+import com.gutendx.GutendxConsoleApplication;
+import com.gutendx.entity.Book;
+import com.gutendx.service.BookService;
+import com.gutendx.service.WriteBehindQueue;
+import com.literalura.literalura.StubGutendxServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.literalura.literalura.StubGutendxServer.author;
+import static com.literalura.literalura.StubGutendxServer.book;
+
+/**
+ * Latencia de BookService.searchAndSaveBook en modo sync y write-behind (H2 + Gutendx local).
+ * En write-behind se imprime además el ritmo de escritura del hilo escritor.
+ * mvn -Pbench test-compile exec:exec -Dbench=WriteBehind
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    private static final int CATALOG_SIZE = 200_000;
+
+    @Param({"sync", "write-behind"})
+    public String mode;
+
+    private StubGutendxServer stub;
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new StubGutendxServer();
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            stub.put(book(i, title(i), i % 5000, List.of(i % 3 == 0 ? "es" : "en"),
+                    author("Author " + (i % 2000) + ", Name", 1800 + i % 150, 1870 + i % 150)));
+        }
+
+        context = new SpringApplicationBuilder(GutendxConsoleApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--gutendx.api.base-url=" + stub.baseUrl(),
+                        "--gutendx.persistence.mode=" + mode,
+                        "--gutendx.write-behind.dir=" + Files.createTempDirectory("wb-bench"),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gutendx=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.web.client=WARN");
+        bookService = context.getBean(BookService.class);
+    }
+
+    @Benchmark
+    public Book searchAndSaveBook() throws Exception {
+        return bookService.searchAndSaveBook(title(next.incrementAndGet() % CATALOG_SIZE + 1));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if ("write-behind".equals(mode)) {
+            WriteBehindQueue queue = context.getBean(WriteBehindQueue.class);
+            while (queue.pending() > 0) {
+                Thread.sleep(50);
+            }
+            System.out.printf("%nwrite-behind: %d libros escritos, %.0f libros/s en el escritor%n",
+                    queue.writtenBooks(), queue.writesPerSecond());
+        }
+        context.close();
+        stub.close();
+    }
+
+    private static String title(int id) {
+        return String.format("Book %06d", id);
+    }
+}